@@ -4,13 +4,21 @@ import com.formdev.flatlaf.FlatDarculaLaf;
 import com.mku.liveuml.Main;
 import com.mku.liveuml.format.Formatter;
 import com.mku.liveuml.Config;
+import com.mku.liveuml.layout.LayoutCache;
+import com.mku.liveuml.layout.LayoutType;
+import com.mku.liveuml.model.diagram.ImportProfile;
+import com.mku.liveuml.model.diagram.ProgressReporter;
 import com.mku.liveuml.model.diagram.UMLClass;
 import com.mku.liveuml.model.diagram.UMLDiagram;
+import com.mku.liveuml.model.diagram.UMLPackage;
+import com.mku.liveuml.model.diagram.UMLPackageGraph;
+import com.mku.liveuml.model.diagram.UMLPackageRelationship;
 import com.mku.liveuml.model.diagram.UMLParser;
 import com.mku.liveuml.model.diagram.UMLRelationship;
 import com.mku.liveuml.utils.*;
 import com.mku.liveuml.view.*;
 import com.mku.liveuml.view.MenuBar;
+import org.jgrapht.Graph;
 import org.jungrapht.visualization.VisualizationViewer;
 
 import javax.swing.*;
@@ -19,7 +27,6 @@ import javax.swing.filechooser.FileNameExtensionFilter;
 import java.awt.*;
 import java.awt.event.WindowEvent;
 import java.awt.geom.Point2D;
-import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.InvalidPathException;
@@ -27,9 +34,12 @@ import java.util.*;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.prefs.Preferences;
 
 public class Controller {
+    private static final int PROGRESS_UPDATES_PER_SECOND = 5;
     private UMLDiagram diagram;
     private GraphPanel graphPanel;
     private JLabel status;
@@ -39,24 +49,37 @@ public class Controller {
     private JFrame frame;
     private ClassesPane classesScrollPane;
     private ExecutorService executor = Executors.newSingleThreadExecutor();
+    private javax.swing.Timer autosaveTimer;
+    private final ProgressReporter progress = new ProgressReporter();
+    private javax.swing.Timer progressTimer;
+    private final AtomicBoolean autosavePending = new AtomicBoolean();
+    // the classes or the relationships changed since the diagram was loaded or saved
+    private boolean modelChanged;
     private MenuBar menuBar;
     private Preferences prefs;
     private UMLParser parser;
+    private UMLPackageGraph packageGraph;
+    private boolean packageView;
+    private UMLPackage expandedPackage;
+    private Map<UMLClass, org.jungrapht.visualization.layout.model.Point> classPositions;
 
     public void init() throws IOException {
         FlatDarculaLaf.setup();
         prefs = Preferences.userRoot().node(Main.class.getName());
         diagram = createDiagram();
+        packageGraph = new UMLPackageGraph(prefs.getInt("PACKAGE_DEPTH", 3));
         createFormatter();
         createFrame();
     }
 
     private UMLDiagram createDiagram() {
         parser = new UMLParser();
-        parser.setNotifyProgress((progress) -> {
-            status.setText(progress);
-        });
-        return new UMLDiagram(parser);
+        parser.setProgress(progress);
+        UMLDiagram diagram = new UMLDiagram(parser);
+        diagram.setImportProfile(getImportProfile());
+        // the displayed class graph follows the model changes instead of being displayed again
+        diagram.setOnModelChange(change -> EventQueue.invokeLater(() -> graphPanel.update(diagram, change)));
+        return diagram;
     }
 
     private void createFormatter() throws IOException {
@@ -76,6 +99,10 @@ public class Controller {
         setMenuListeners();
         frame.pack();
         createPanes();
+        loadLayoutType();
+        loadImportProfile();
+        startAutosave();
+        createProgressTimer();
         frame.setLocationRelativeTo(null);
         frame.setVisible(true);
     }
@@ -85,15 +112,24 @@ public class Controller {
         menuBar.setListener(MenuBar.Action.Open, (e) -> promptOpenDiagram());
         menuBar.setListener(MenuBar.Action.Save, (e) -> saveDiagram(diagram.getFilepath()));
         menuBar.setListener(MenuBar.Action.SaveAs, (e) -> saveDiagramAs());
+        menuBar.setListener(MenuBar.Action.LoadLayout, (e) -> promptLoadLayout());
         menuBar.setListener(MenuBar.Action.Close, (e) -> promptCloseDiagram());
         menuBar.setListener(MenuBar.Action.ExportImage, (e) -> promptExportImage());
+        menuBar.setListener(MenuBar.Action.ExportSvg, (e) -> promptExportSvg());
         menuBar.setListener(MenuBar.Action.Exit, (e) -> promptExit());
 
         menuBar.setListener(MenuBar.Action.ToggleExpand, (e) -> toggleExpand());
+        menuBar.setListener(MenuBar.Action.TogglePackages, (e) -> togglePackages());
+        menuBar.setListener(MenuBar.Action.PackageDepth, (e) -> promptPackageDepth());
+        menuBar.setListener(MenuBar.Action.LayoutForceDirected, (e) -> setLayoutType(LayoutType.ForceDirected));
+        menuBar.setListener(MenuBar.Action.LayoutMultilevel, (e) -> setLayoutType(LayoutType.Multilevel));
+        menuBar.setListener(MenuBar.Action.LayoutHierarchy, (e) -> setLayoutType(LayoutType.Hierarchy));
 
         menuBar.setListener(MenuBar.Action.ImportSource, (e) -> promptImportSource());
         menuBar.setListener(MenuBar.Action.ListSources, (e) -> showListSources());
         menuBar.setListener(MenuBar.Action.RefreshSources, (e) -> promptRefreshSources());
+        menuBar.setListener(MenuBar.Action.ImportProfileFull, (e) -> setImportProfile(ImportProfile.Full));
+        menuBar.setListener(MenuBar.Action.ImportProfileFast, (e) -> setImportProfile(ImportProfile.Fast));
 
         menuBar.setListener(MenuBar.Action.ChooseViewer, (e) -> promptChooseViewer());
 
@@ -101,6 +137,96 @@ public class Controller {
         menuBar.setListener(MenuBar.Action.About, (e) -> showLicense());
     }
 
+    private void loadLayoutType() {
+        LayoutType layoutType;
+        try {
+            layoutType = LayoutType.valueOf(prefs.get("LAYOUT", LayoutType.ForceDirected.name()));
+        } catch (IllegalArgumentException ex) {
+            layoutType = LayoutType.ForceDirected;
+        }
+        graphPanel.setLayoutType(layoutType);
+        MenuBar.Action action;
+        switch (layoutType) {
+            case Multilevel:
+                action = MenuBar.Action.LayoutMultilevel;
+                break;
+            case Hierarchy:
+                action = MenuBar.Action.LayoutHierarchy;
+                break;
+            default:
+                action = MenuBar.Action.LayoutForceDirected;
+        }
+        menuBar.setSelected(action, true);
+    }
+
+    private void setLayoutType(LayoutType layoutType) {
+        prefs.put("LAYOUT", layoutType.name());
+        graphPanel.setLayoutType(layoutType);
+        graphPanel.relayout();
+    }
+
+    private ImportProfile getImportProfile() {
+        try {
+            return ImportProfile.valueOf(prefs.get("IMPORT_PROFILE", ImportProfile.Full.name()));
+        } catch (IllegalArgumentException ex) {
+            return ImportProfile.Full;
+        }
+    }
+
+    private void loadImportProfile() {
+        menuBar.setSelected(getImportProfile() == ImportProfile.Fast ?
+                MenuBar.Action.ImportProfileFast : MenuBar.Action.ImportProfileFull, true);
+    }
+
+    /**
+     * Set the profile for the next import or refresh of the sources
+     */
+    private void setImportProfile(ImportProfile importProfile) {
+        prefs.put("IMPORT_PROFILE", importProfile.name());
+        // a diagram created later reads the profile from the preferences
+        if (diagram != null)
+            diagram.setImportProfile(importProfile);
+    }
+
+    /**
+     * Analyze the method bodies of the classes in the background if the import skipped them,
+     * the parser remembers the analyzed files so each file is analyzed once
+     */
+    private void analyzeDependencies(Collection<UMLClass> classes, Runnable onAnalyzed) {
+        if (classes.isEmpty())
+            return;
+        UMLDiagram diagram = this.diagram;
+        List<UMLClass> list = new ArrayList<>(classes);
+        executor.submit(() -> {
+            startProgress();
+            try {
+                // the classes are read by the UI so the relationships are added on the UI thread
+                boolean analyzed = diagram.analyzeDependencies(list, update -> {
+                    try {
+                        EventQueue.invokeAndWait(update);
+                    } catch (Exception ex) {
+                        ex.printStackTrace();
+                    }
+                });
+                if (analyzed) {
+                    // the relationships found are part of the model so the next save writes the diagram
+                    EventQueue.invokeLater(() -> {
+                        if (this.diagram == diagram)
+                            modelChanged = true;
+                    });
+                    setStatus("Dependencies analyzed", 3000);
+                    if (onAnalyzed != null)
+                        EventQueue.invokeLater(onAnalyzed);
+                }
+            } catch (Exception ex) {
+                ex.printStackTrace();
+                setStatus("Dependency analysis failed: " + ex.getMessage(), 5000);
+            } finally {
+                stopProgress();
+            }
+        });
+    }
+
     private void promptRefreshSources() {
         int response = JOptionPane.showConfirmDialog(null, "This will refresh your diagram and " +
                         "you might lose positional information, continue?", "Confirm",
@@ -111,14 +237,23 @@ public class Controller {
     }
 
     private void refreshSources() {
-        classesScrollPane.clear();
         executor.submit(() -> {
             setStatus("Refreshing sources");
-            diagram.refresh();
+            startProgress();
+            try {
+                diagram.refresh();
+            } finally {
+                stopProgress();
+            }
             EventQueue.invokeLater(() -> {
-                graphPanel.display(diagram, graphPanel.getVertexPositions());
-                graphPanel.revalidate();
-                addClassListener();
+                modelChanged = true;
+                if (!graphPanel.isDisplaying(diagram)) {
+                    Map<UMLClass, org.jungrapht.visualization.layout.model.Point> positions = getClassPositions();
+                    resetPackageView();
+                    graphPanel.display(diagram, positions);
+                    graphPanel.revalidate();
+                    addClassListener();
+                }
                 setStatus("Sources refreshed", 3000);
                 updateErrors(diagram);
                 UMLClass[] classesArr = diagram.getGraph().vertexSet().toArray(new UMLClass[0]);
@@ -133,7 +268,10 @@ public class Controller {
         if (response == JOptionPane.CANCEL_OPTION) {
             return;
         } else if (response == JOptionPane.YES_OPTION) {
-            saveDiagram(diagram.getFilepath());
+            // close only once the diagram is saved so a failed save does not lose the changes
+            saveDiagram(diagram.getFilepath(), () ->
+                    frame.dispatchEvent(new WindowEvent(frame, WindowEvent.WINDOW_CLOSING)));
+            return;
         }
         frame.dispatchEvent(new WindowEvent(frame, WindowEvent.WINDOW_CLOSING));
     }
@@ -143,6 +281,79 @@ public class Controller {
         menuBar.setLabel(MenuBar.Action.ToggleExpand, collapsed ? "Expand All" : "Collapse All");
     }
 
+    private void togglePackages() {
+        if (diagram == null || diagram.getGraph() == null)
+            return;
+        expandedPackage = null;
+        if (packageView) {
+            Map<UMLClass, org.jungrapht.visualization.layout.model.Point> positions = classPositions;
+            resetPackageView();
+            graphPanel.display(diagram, positions);
+        } else {
+            classPositions = graphPanel.getVertexPositions();
+            packageView = true;
+            menuBar.setLabel(MenuBar.Action.TogglePackages, "Show Classes");
+            packageGraph.update(diagram.getGraph());
+            graphPanel.display(diagram, packageGraph.getGraph(), null);
+        }
+        graphPanel.revalidate();
+        addClassListener();
+    }
+
+    private void expandPackage(UMLPackage pkg) {
+        Graph<UMLClass, UMLRelationship> members = packageGraph.getMemberGraph(pkg, diagram.getGraph());
+        expandedPackage = pkg;
+        graphPanel.display(diagram, members, classPositions);
+        graphPanel.revalidate();
+        addClassListener();
+        // show the relationships found in the method bodies once they are analyzed
+        analyzeDependencies(members.vertexSet(), () -> {
+            if (packageView && expandedPackage == pkg)
+                expandPackage(pkg);
+        });
+    }
+
+    private void resetPackageView() {
+        packageView = false;
+        expandedPackage = null;
+        classPositions = null;
+        menuBar.setLabel(MenuBar.Action.TogglePackages, "Show Packages");
+    }
+
+    /**
+     * Get the positions of the classes, the package view keeps the positions the classes had before
+     */
+    private Map<UMLClass, org.jungrapht.visualization.layout.model.Point> getClassPositions() {
+        return packageView ? classPositions : graphPanel.getVertexPositions();
+    }
+
+    private void promptPackageDepth() {
+        String value = (String) JOptionPane.showInputDialog(frame, "Package depth", "Package Depth",
+                JOptionPane.PLAIN_MESSAGE, null, null, String.valueOf(packageGraph.getDepth()));
+        if (value == null)
+            return;
+        int depth;
+        try {
+            depth = Integer.parseInt(value.trim());
+        } catch (NumberFormatException ex) {
+            depth = 0;
+        }
+        if (depth <= 0) {
+            JOptionPane.showMessageDialog(frame, "Invalid package depth: " + value,
+                    "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        prefs.putInt("PACKAGE_DEPTH", depth);
+        packageGraph.setDepth(depth);
+        if (packageView) {
+            expandedPackage = null;
+            packageGraph.update(diagram.getGraph());
+            graphPanel.display(diagram, packageGraph.getGraph(), null);
+            graphPanel.revalidate();
+            addClassListener();
+        }
+    }
+
     private void promptNewDiagram() {
         if (diagram != null && diagram.getFilepath() != null) {
             int response = JOptionPane.showConfirmDialog(null, "Save before creating new diagram?", "Confirm",
@@ -150,7 +361,11 @@ public class Controller {
             if (response == JOptionPane.CANCEL_OPTION) {
                 return;
             } else if (response == JOptionPane.YES_OPTION) {
-                saveDiagram(diagram.getFilepath());
+                saveDiagram(diagram.getFilepath(), () -> {
+                    closeDiagram();
+                    newDiagram();
+                });
+                return;
             }
         }
         closeDiagram();
@@ -158,11 +373,18 @@ public class Controller {
     }
 
     private void newDiagram() {
+        modelChanged = true;
+        resetPackageView();
         diagram = createDiagram();
         graphPanel.display(diagram);
     }
 
     private void promptExportImage() {
+        if (diagram == null) {
+            JOptionPane.showMessageDialog(frame, "There is no diagram to export",
+                    "Export", JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
         JFileChooser fc = new JFileChooser(prefs.get("LAST_EXPORT_FILE",
                 new File(".").getAbsolutePath()));
         fc.setDialogTitle("Choose file to export");
@@ -186,17 +408,66 @@ public class Controller {
     }
 
     private void exportImage(File file) {
+        // the renderer copies what is displayed so the view can keep changing while exporting
+        DiagramRenderer renderer = graphPanel.createRenderer();
+        if (renderer == null)
+            return;
         executor.submit(() -> {
             setStatus("Exporting image");
             try {
-                ImageGrabber imageGrabber = new ImageGrabber(graphPanel);
-                BufferedImage image = imageGrabber.getImage();
-                new ImageExporter().saveImage(file, image);
+                renderer.prepare();
+                new ImageExporter().saveImage(file, renderer);
                 setStatus("Image exported", 3000);
             } catch (Exception ex) {
                 ex.printStackTrace();
-                JOptionPane.showMessageDialog(frame, "Error during import: " + ex.getMessage(),
-                        "Error", JOptionPane.ERROR_MESSAGE);
+                EventQueue.invokeLater(() -> JOptionPane.showMessageDialog(frame,
+                        "Error during export: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE));
+            }
+        });
+    }
+
+    private void promptExportSvg() {
+        if (diagram == null) {
+            JOptionPane.showMessageDialog(frame, "There is no diagram to export",
+                    "Export", JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+        JFileChooser fc = new JFileChooser(prefs.get("LAST_EXPORT_SVG_FILE",
+                new File(".").getAbsolutePath()));
+        fc.setDialogTitle("Choose file to export");
+        fc.setFileSelectionMode(JFileChooser.FILES_ONLY);
+        if (diagram != null && diagram.getFilepath() != null) {
+            String filename = new File(diagram.getFilepath()).getName();
+            filename = FileUtils.getFilenameWithoutExtension(filename);
+            fc.setSelectedFile(new File(filename + ".svg"));
+        } else {
+            fc.setSelectedFile(new File("diagram.svg"));
+        }
+        FileNameExtensionFilter filter = new FileNameExtensionFilter("SVG files", "svg");
+        fc.setFileFilter(filter);
+        int returnVal = fc.showSaveDialog(frame);
+        if (returnVal == JFileChooser.APPROVE_OPTION) {
+            if (!shouldOverwriteFile(fc.getSelectedFile()))
+                return;
+            prefs.put("LAST_EXPORT_SVG_FILE", fc.getSelectedFile().getPath());
+            exportSvg(fc.getSelectedFile());
+        }
+    }
+
+    private void exportSvg(File file) {
+        DiagramRenderer renderer = graphPanel.createRenderer();
+        if (renderer == null)
+            return;
+        executor.submit(() -> {
+            setStatus("Exporting SVG");
+            try {
+                renderer.prepare();
+                new SvgExporter().exportSvg(file, renderer, null);
+                setStatus("SVG exported", 3000);
+            } catch (Exception ex) {
+                ex.printStackTrace();
+                EventQueue.invokeLater(() -> JOptionPane.showMessageDialog(frame,
+                        "Error during export: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE));
             }
         });
     }
@@ -221,7 +492,8 @@ public class Controller {
         if (response == JOptionPane.CANCEL_OPTION) {
             return;
         } else if (response == JOptionPane.YES_OPTION) {
-            saveDiagram(diagram.getFilepath());
+            saveDiagram(diagram.getFilepath(), this::closeDiagram);
+            return;
         }
         closeDiagram();
     }
@@ -230,6 +502,8 @@ public class Controller {
         classesScrollPane.clear();
         graphPanel.clear();
         graphPanel.revalidate();
+        resetPackageView();
+        packageGraph.clear();
         diagram = null;
         setTitle(null);
     }
@@ -251,7 +525,11 @@ public class Controller {
             if (response == JOptionPane.CANCEL_OPTION) {
                 return;
             } else if (response == JOptionPane.YES_OPTION) {
-                saveDiagram(diagram.getFilepath());
+                saveDiagram(diagram.getFilepath(), () -> {
+                    closeDiagram();
+                    promptOpenDiagramDialog();
+                });
+                return;
             }
         }
         closeDiagram();
@@ -263,7 +541,8 @@ public class Controller {
                 new File(".").getAbsolutePath()));
         fc.setDialogTitle("Choose graph file to load");
         fc.setFileSelectionMode(JFileChooser.FILES_ONLY);
-        FileNameExtensionFilter filter = new FileNameExtensionFilter("GraphML files", "graphml");
+        FileNameExtensionFilter filter = new FileNameExtensionFilter("Diagram files",
+                DiagramFiles.BINARY_EXTENSION, DiagramFiles.GRAPHML_EXTENSION, DiagramFiles.GZIP_EXTENSION);
         fc.setFileFilter(filter);
         int returnVal = fc.showOpenDialog(frame);
         if (returnVal == JFileChooser.APPROVE_OPTION) {
@@ -325,12 +604,21 @@ public class Controller {
             prefs.put("LAST_SOURCE_FOLDER", dir.getPath());
             try {
                 diagram.getSources().add(dir.getAbsolutePath());
-                diagram.refresh();
+                startProgress();
+                try {
+                    diagram.refresh();
+                } finally {
+                    stopProgress();
+                }
                 EventQueue.invokeLater(() -> {
-                    graphPanel.display(diagram);
-                    graphPanel.revalidate();
+                    modelChanged = true;
+                    if (!graphPanel.isDisplaying(diagram)) {
+                        resetPackageView();
+                        graphPanel.display(diagram);
+                        graphPanel.revalidate();
+                        addClassListener();
+                    }
                     setStatus("Sources imported", 3000);
-                    addClassListener();
                     updateErrors(diagram);
                     UMLClass[] classesArr = diagram.getGraph().vertexSet().toArray(new UMLClass[0]);
                     classesScrollPane.setClasses(classesArr);
@@ -358,10 +646,17 @@ public class Controller {
                 HashMap<UMLClass, Point2D.Double> verticesPositions = new HashMap<>();
                 classesScrollPane.clear();
                 graphPanel.clear();
-                new Importer().importGraph(file, diagram, verticesPositions);
+                DiagramFiles.load(file, diagram, verticesPositions);
+                ViewState viewState = loadViewState(file);
+                if (viewState != null)
+                    applyViewState(viewState, verticesPositions);
                 EventQueue.invokeLater(() -> {
+                    modelChanged = false;
+                    resetPackageView();
                     graphPanel.display(diagram, convertPointsToPositions(verticesPositions));
                     graphPanel.revalidate();
+                    if (viewState != null)
+                        graphPanel.restoreView(viewState);
                     setTitle(FileUtils.getFilenameWithoutExtension(file.getName()));
                     setStatus("Diagram loaded", 3000);
                     addClassListener();
@@ -376,12 +671,27 @@ public class Controller {
         });
     }
 
+    /**
+     * Get the view state saved with the diagram, a broken view file is ignored
+     * since the diagram has its own positions
+     */
+    private ViewState loadViewState(File file) {
+        try {
+            return DiagramFiles.loadView(file);
+        } catch (Exception ex) {
+            ex.printStackTrace();
+            return null;
+        }
+    }
+
     private void createPanes() {
         JPanel mainPanel = new JPanel();
         mainPanel.setLayout(new GridBagLayout());
         GridBagConstraints gbc = new GridBagConstraints();
         graphPanel = new GraphPanel();
         graphPanel.setOnGetVertexLabel((object) -> formatter.getUmlAsHtml(object, !object.isCompact(), diagram));
+        graphPanel.setOnPackageExpand(this::expandPackage);
+        graphPanel.setLayoutCache(new LayoutCache(new File(System.getProperty("user.home"), ".liveuml/layouts")));
 
         classesScrollPane = new ClassesPane();
         classesScrollPane.setPreferredSize(new Dimension(100, 550));
@@ -469,22 +779,182 @@ public class Controller {
     }
 
     private void saveDiagram(String filepath) {
+        saveDiagram(filepath, null);
+    }
+
+    /**
+     * Save the diagram in the background, the callback runs on the UI thread only if the save succeeded
+     */
+    private void saveDiagram(String filepath, Runnable onSaved) {
         if (filepath != null) {
-            File file = new File(filepath);
-            setStatus("Saving diagram");
+            DiagramSnapshot snapshot = takeSnapshot(new File(filepath));
+            executor.submit(() -> {
+                if (writeDiagram(snapshot, false) && onSaved != null)
+                    EventQueue.invokeLater(onSaved);
+            });
+        } else {
+            saveDiagramAs(onSaved);
+        }
+    }
+
+    /**
+     * Show the parsing progress a few times per second instead of on every file
+     */
+    private void createProgressTimer() {
+        progressTimer = new javax.swing.Timer(1000 / PROGRESS_UPDATES_PER_SECOND, event -> {
+            String text = progress.getStatus();
+            if (text != null)
+                status.setText(text);
+        });
+    }
+
+    private void startProgress() {
+        EventQueue.invokeLater(progressTimer::start);
+    }
+
+    private void stopProgress() {
+        EventQueue.invokeLater(progressTimer::stop);
+    }
+
+    private void startAutosave() {
+        int minutes = prefs.getInt("AUTOSAVE_MINUTES", 5);
+        if (minutes <= 0)
+            return;
+        autosaveTimer = new javax.swing.Timer(minutes * 60 * 1000, event -> autosaveDiagram());
+        autosaveTimer.start();
+    }
+
+    /**
+     * Save the diagram to its file in the background, the snapshot is taken on the UI thread
+     * after the tasks queued before it are done so it never sees a diagram that is still loading
+     */
+    private void autosaveDiagram() {
+        if (diagram == null || diagram.getFilepath() == null || !autosavePending.compareAndSet(false, true))
+            return;
+        executor.submit(() -> {
             try {
-                new Exporter().exportGraph(file, diagram, convertPositionsToPoints(graphPanel.getVertexPositions()));
-                EventQueue.invokeLater((() -> {
-                    setTitle(FileUtils.getFilenameWithoutExtension(file.getName()));
-                    setStatus("Diagram saved", 3000);
-                }));
+                AtomicReference<DiagramSnapshot> snapshot = new AtomicReference<>();
+                EventQueue.invokeAndWait(() -> {
+                    if (diagram != null && diagram.getFilepath() != null && diagram.getGraph() != null)
+                        snapshot.set(takeSnapshot(new File(diagram.getFilepath())));
+                });
+                if (snapshot.get() != null)
+                    writeDiagram(snapshot.get(), true);
             } catch (Exception ex) {
                 ex.printStackTrace();
-                JOptionPane.showMessageDialog(frame, "Error during export: " + ex.getMessage(),
+            } finally {
+                autosavePending.set(false);
+            }
+        });
+    }
+
+    /**
+     * Take a snapshot of the view state and of the model too if it has changed,
+     * saving only a layout change writes the view file alone
+     */
+    private DiagramSnapshot takeSnapshot(File file) {
+        Map<UMLClass, Point2D.Double> positions = convertPositionsToPoints(getClassPositions());
+        ViewState viewState = new ViewState();
+        for (Map.Entry<UMLClass, Point2D.Double> entry : positions.entrySet())
+            viewState.put(entry.getKey().toString(), entry.getValue(), entry.getKey().isCompact());
+        graphPanel.saveView(viewState);
+        UMLDiagram model = null;
+        if (modelChanged || !file.exists() || !file.getPath().equals(diagram.getFilepath())) {
+            model = diagram.snapshot();
+            modelChanged = false;
+        }
+        return new DiagramSnapshot(file, model, positions, viewState);
+    }
+
+    /**
+     * Write the snapshot to its files, returns true if it was saved
+     */
+    private boolean writeDiagram(DiagramSnapshot snapshot, boolean autosave) {
+        setStatus(autosave ? "Autosaving diagram" : "Saving diagram");
+        try {
+            try {
+                if (snapshot.diagram != null)
+                    DiagramFiles.save(snapshot.file, snapshot.diagram, snapshot.positions);
+            } catch (Exception ex) {
+                EventQueue.invokeLater(() -> modelChanged = true);
+                throw ex;
+            }
+            DiagramFiles.saveView(snapshot.file, snapshot.viewState);
+            EventQueue.invokeLater((() -> {
+                setTitle(FileUtils.getFilenameWithoutExtension(snapshot.file.getName()));
+                setStatus(autosave ? "Diagram autosaved" : "Diagram saved", 3000);
+            }));
+            return true;
+        } catch (Exception ex) {
+            ex.printStackTrace();
+            if (autosave) {
+                setStatus("Autosave failed: " + ex.getMessage(), 5000);
+            } else {
+                EventQueue.invokeLater(() -> JOptionPane.showMessageDialog(frame,
+                        "Error during export: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE));
+            }
+            return false;
+        }
+    }
+
+    /**
+     * The graph structure and the view state of a diagram at the time it was saved,
+     * the graph is null when only the view state is saved
+     */
+    private static class DiagramSnapshot {
+        private final File file;
+        private final UMLDiagram diagram;
+        private final Map<UMLClass, Point2D.Double> positions;
+        private final ViewState viewState;
+
+        DiagramSnapshot(File file, UMLDiagram diagram, Map<UMLClass, Point2D.Double> positions, ViewState viewState) {
+            this.file = file;
+            this.diagram = diagram;
+            this.positions = positions;
+            this.viewState = viewState;
+        }
+    }
+
+    private void promptLoadLayout() {
+        if (diagram == null || diagram.getGraph() == null)
+            return;
+        JFileChooser fc = new JFileChooser(prefs.get("LAST_VIEW_FILE",
+                new File(".").getAbsolutePath()));
+        fc.setDialogTitle("Choose layout file to load");
+        fc.setFileSelectionMode(JFileChooser.FILES_ONLY);
+        fc.setFileFilter(new FileNameExtensionFilter("Layout files", DiagramFiles.VIEW_EXTENSION));
+        int returnVal = fc.showOpenDialog(frame);
+        if (returnVal == JFileChooser.APPROVE_OPTION) {
+            File file = fc.getSelectedFile();
+            prefs.put("LAST_VIEW_FILE", file.getPath());
+            try {
+                ViewState viewState = DiagramFiles.readView(file);
+                HashMap<UMLClass, Point2D.Double> points = new HashMap<>();
+                applyViewState(viewState, points);
+                resetPackageView();
+                graphPanel.display(diagram, convertPointsToPositions(points));
+                graphPanel.revalidate();
+                graphPanel.restoreView(viewState);
+                addClassListener();
+            } catch (Exception ex) {
+                ex.printStackTrace();
+                JOptionPane.showMessageDialog(frame, "Error during layout import: " + ex.getMessage(),
                         "Error", JOptionPane.ERROR_MESSAGE);
             }
-        } else {
-            saveDiagramAs();
+        }
+    }
+
+    /**
+     * Set the positions and the compact flags of the classes in the view state,
+     * the classes that are not in it keep their own
+     */
+    private void applyViewState(ViewState viewState, HashMap<UMLClass, Point2D.Double> points) {
+        for (UMLClass obj : diagram.getGraph().vertexSet()) {
+            String name = obj.toString();
+            if (!viewState.contains(name))
+                continue;
+            points.put(obj, viewState.getPositions().get(name));
+            obj.setCompact(viewState.isCompact(name));
         }
     }
 
@@ -511,6 +981,10 @@ public class Controller {
     }
 
     private void saveDiagramAs() {
+        saveDiagramAs(null);
+    }
+
+    private void saveDiagramAs(Runnable onSaved) {
         JFileChooser fc = new JFileChooser(prefs.get("LAST_GRAPH_FILE",
                 new File(".").getAbsolutePath()));
         if (diagram != null && diagram.getFilepath() != null)
@@ -519,17 +993,38 @@ public class Controller {
             fc.setSelectedFile(new File("diagram"));
         fc.setDialogTitle("Choose graph file to save");
         fc.setFileSelectionMode(JFileChooser.FILES_ONLY);
-        FileNameExtensionFilter filter = new FileNameExtensionFilter("GraphML files", "graphml");
-        fc.setFileFilter(filter);
+        // the native format loads much faster, GraphML is kept for interchange
+        FileNameExtensionFilter binaryFilter = new FileNameExtensionFilter("LiveUML files",
+                DiagramFiles.BINARY_EXTENSION);
+        FileNameExtensionFilter graphMLFilter = new FileNameExtensionFilter("GraphML files",
+                DiagramFiles.GRAPHML_EXTENSION);
+        FileNameExtensionFilter compressedFilter = new FileNameExtensionFilter("Compressed GraphML files",
+                DiagramFiles.GZIP_EXTENSION);
+        fc.addChoosableFileFilter(binaryFilter);
+        fc.addChoosableFileFilter(graphMLFilter);
+        fc.addChoosableFileFilter(compressedFilter);
+        fc.setFileFilter(binaryFilter);
+        if (diagram != null && diagram.getFilepath() != null) {
+            File current = new File(diagram.getFilepath());
+            if (DiagramFiles.isCompressed(current))
+                fc.setFileFilter(compressedFilter);
+            else if (!DiagramFiles.isBinary(current))
+                fc.setFileFilter(graphMLFilter);
+        }
         int returnVal = fc.showSaveDialog(frame);
         if (returnVal == JFileChooser.APPROVE_OPTION) {
             File file = fc.getSelectedFile();
-            if (!file.getName().endsWith(".graphml"))
-                file = new File(file.getParentFile(), file.getName() + ".graphml");
+            String extension = DiagramFiles.BINARY_EXTENSION;
+            if (fc.getFileFilter() == graphMLFilter)
+                extension = DiagramFiles.GRAPHML_EXTENSION;
+            else if (fc.getFileFilter() == compressedFilter)
+                extension = DiagramFiles.COMPRESSED_GRAPHML_EXTENSION;
+            if (!file.getName().endsWith("." + extension))
+                file = new File(file.getParentFile(), file.getName() + "." + extension);
             if (!shouldOverwriteFile(file))
                 return;
             prefs.put("LAST_GRAPH_FILE", file.getPath());
-            saveDiagram(file.getPath());
+            saveDiagram(file.getPath(), onSaved);
             diagram.setFilePath(file.getPath());
         }
     }
@@ -549,10 +1044,13 @@ public class Controller {
         viewer.getSelectedVertexState().addItemListener((l) -> {
             classesScrollPane.clearSelection();
             classesScrollPane.selectClasses(viewer.getSelectedVertices());
+            analyzeDependencies(viewer.getSelectedVertices(), null);
         });
 
         viewer.getSelectedEdgeState().addItemListener((l) -> {
             for (UMLRelationship rel : viewer.getSelectedEdges()) {
+                if (rel instanceof UMLPackageRelationship)
+                    continue;
                 List<HashSet<?>> refs = diagram.getFinder().findRelReference(rel);
                 graphPanel.clearSelections();
                 graphPanel.updateRefs(refs);
@@ -24,15 +24,17 @@ SOFTWARE.
 package com.mku.liveuml.format;
 
 import com.mku.liveuml.model.diagram.UMLDiagram;
+import com.mku.liveuml.model.diagram.UMLPackage;
 import com.mku.liveuml.model.diagram.UMLParser;
 import com.mku.liveuml.model.diagram.UMLRelationship;
+import com.mku.liveuml.model.diagram.UMLSelection;
 import com.mku.liveuml.model.diagram.UMLClass;
 import com.mku.liveuml.model.entities.*;
 
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -85,6 +87,13 @@ public class Formatter {
         formattedHtml = formattedHtml.replaceAll(Pattern.quote("${type-params}"),
                 Matcher.quoteReplacement(typeParams.length() > 0 ? "<div>" + typeParams + "</div>" : ""));
 
+        if (object instanceof UMLPackage) {
+            formattedHtml = formattedHtml.replaceAll(Pattern.quote("${enums}"),
+                    Matcher.quoteReplacement(getFormattedMembersCount((UMLPackage) object)));
+            return formattedHtml.replaceAll(Pattern.quote("${fields}"), "")
+                    .replaceAll(Pattern.quote("${methods}"), "");
+        }
+
         // get enums
         String formattedEnums = getFormattedEnums(object, diagram.getSelectedEnumConsts(), compact);
         formattedHtml = formattedHtml.replaceAll(Pattern.quote("${enums}"),
@@ -127,8 +136,10 @@ public class Formatter {
         return typeParam.toString();
     }
 
-    private List<String> getStereoTypes(UMLClass object) {
+    public static List<String> getStereoTypes(UMLClass object) {
         List<String> stereotypes = new ArrayList<>();
+        if (object instanceof UMLPackage)
+            stereotypes.add("package");
         if (object instanceof Enumeration)
             stereotypes.add("enumeration");
         if (object instanceof Interface)
@@ -142,7 +153,18 @@ public class Formatter {
         return stereotypes;
     }
 
-    private String getFormattedEnums(UMLClass object, HashSet<EnumConstant> selectedEnums, boolean compact) {
+    private String getFormattedMembersCount(UMLPackage pkg) {
+        int count = pkg.getMembers().size();
+        String property = propertyHtmlTemplate.replaceAll(Pattern.quote("${content}"),
+                        Matcher.quoteReplacement(count + (count == 1 ? " class" : " classes")))
+                .replaceAll(Pattern.quote("${property-color}"), Matcher.quoteReplacement(propertyColor))
+                .replaceAll(Pattern.quote("${property-background-color}"),
+                        Matcher.quoteReplacement(propertyBackgroundColor))
+                .replaceAll(Pattern.quote("${stereotypes}"), Matcher.quoteReplacement(""));
+        return dividerHtmlTemplate + "\n" + property + "\n";
+    }
+
+    private String getFormattedEnums(UMLClass object, Set<EnumConstant> selectedEnums, boolean compact) {
         StringBuilder enums = new StringBuilder();
         if (!compact && object.getEnumConstants().size() > 0) {
             enums.append(dividerHtmlTemplate).append("\n");
@@ -162,7 +184,7 @@ public class Formatter {
         return enums.toString();
     }
 
-    private String getFormattedFields(UMLClass object, HashSet<Field> selectedFields, boolean compact) {
+    private String getFormattedFields(UMLClass object, Set<Field> selectedFields, boolean compact) {
         StringBuilder fields = new StringBuilder();
         if (!compact && object.getFields().size() > 0) {
             fields.append(dividerHtmlTemplate).append("\n");
@@ -199,7 +221,7 @@ public class Formatter {
         return fields.toString();
     }
 
-    private String getFormattedMethods(UMLClass object, HashSet<Method> selectedMethods, boolean compact) {
+    private String getFormattedMethods(UMLClass object, Set<Method> selectedMethods, boolean compact) {
         StringBuilder methods = new StringBuilder();
         if (!compact && object.getMethods().size() > 0) {
             methods.append(dividerHtmlTemplate).append("\n");
@@ -240,19 +262,26 @@ public class Formatter {
     }
 
     private static boolean isClassSelected(UMLClass object, UMLDiagram diagram) {
-        if (diagram.getSelectedVertices().contains(object))
+        UMLSelection selection = diagram.getSelection();
+        if (selection.isMarked(object))
             return true;
         for (UMLRelationship rel : object.getRelationships().values()) {
-            if (diagram.getSelectedEdges().contains(rel))
+            if (selection.isMarked(rel))
                 return true;
         }
-        for (Field field : object.getFields()) {
-            if (diagram.getSelectedFields().contains(field))
-                return true;
+        Set<Field> markedFields = selection.getMarkedFields();
+        if (!markedFields.isEmpty()) {
+            for (Field field : object.getFields()) {
+                if (markedFields.contains(field))
+                    return true;
+            }
         }
-        for (Method method : object.getMethods()) {
-            if (diagram.getSelectedMethods().contains(method))
-                return true;
+        Set<Method> markedMethods = selection.getMarkedMethods();
+        if (!markedMethods.isEmpty()) {
+            for (Method method : object.getMethods()) {
+                if (markedMethods.contains(method))
+                    return true;
+            }
         }
         return false;
     }
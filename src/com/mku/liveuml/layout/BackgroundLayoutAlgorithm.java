@@ -0,0 +1,132 @@
+/*
+MIT License
+
+Copyright (c) 2024 Max Kas
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.mku.liveuml.layout;
+
+import org.jgrapht.Graph;
+import org.jungrapht.visualization.layout.algorithms.LayoutAlgorithm;
+import org.jungrapht.visualization.layout.model.LayoutModel;
+
+import java.awt.*;
+import java.awt.geom.Rectangle2D;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Layout that computes the positions on an executor and publishes them to the layout model
+ * on the event thread. The vertex boxes are read on the calling thread since they need the renderer.
+ * A cancelled layout does not publish anything.
+ */
+public abstract class BackgroundLayoutAlgorithm<V> implements LayoutAlgorithm<V> {
+    private final Function<V, Rectangle2D> bounds;
+    private final Predicate<Object> edgeFilter;
+    private final ExecutorService executor;
+    private final double margin;
+    private volatile boolean cancelled;
+    private Runnable onUpdate;
+    private Runnable onFinished;
+
+    protected BackgroundLayoutAlgorithm(Function<V, Rectangle2D> bounds, Predicate<Object> edgeFilter,
+                                        ExecutorService executor, double margin) {
+        this.bounds = bounds;
+        this.edgeFilter = edgeFilter;
+        this.executor = executor;
+        this.margin = margin;
+    }
+
+    public void setOnUpdate(Runnable onUpdate) {
+        this.onUpdate = onUpdate;
+    }
+
+    public void setOnFinished(Runnable onFinished) {
+        this.onFinished = onFinished;
+    }
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    @Override
+    public void visit(LayoutModel<V> layoutModel) {
+        Graph<V, ?> graph = layoutModel.getGraph();
+        if (graph == null)
+            return;
+        LayoutGraph<V> layoutGraph = LayoutGraph.create(graph, bounds, edgeFilter);
+        start(layoutModel, layoutGraph);
+        executor.submit(() -> {
+            try {
+                layout(layoutModel, layoutGraph);
+                if (!cancelled)
+                    publish(layoutModel, layoutGraph, true);
+            } catch (Exception ex) {
+                ex.printStackTrace();
+            }
+        });
+    }
+
+    /**
+     * Prepare the layout on the calling thread before it runs in the background
+     */
+    protected void start(LayoutModel<V> layoutModel, LayoutGraph<V> layoutGraph) {
+    }
+
+    /**
+     * Compute the positions on the executor, long running layouts should check if they were cancelled
+     */
+    protected abstract void layout(LayoutModel<V> layoutModel, LayoutGraph<V> layoutGraph);
+
+    /**
+     * Publish a copy of the positions on the event thread
+     */
+    protected void publish(LayoutModel<V> layoutModel, LayoutGraph<V> layoutGraph, boolean finished) {
+        publish(layoutModel, layoutGraph, finished, null);
+    }
+
+    /**
+     * Copy the positions to the layout model, by default the diagram is moved to the margin
+     */
+    protected void apply(LayoutModel<V> layoutModel, LayoutGraph<V> layoutGraph, double[] x, double[] y) {
+        layoutGraph.apply(layoutModel, margin, x, y);
+    }
+
+    protected void publish(LayoutModel<V> layoutModel, LayoutGraph<V> layoutGraph, boolean finished,
+                           Runnable onPublished) {
+        double[] x = layoutGraph.x.clone();
+        double[] y = layoutGraph.y.clone();
+        EventQueue.invokeLater(() -> {
+            if (onPublished != null)
+                onPublished.run();
+            if (cancelled)
+                return;
+            apply(layoutModel, layoutGraph, x, y);
+            Runnable callback = finished ? onFinished : onUpdate;
+            if (callback != null)
+                callback.run();
+        });
+    }
+}
@@ -0,0 +1,172 @@
+/*
+MIT License
+
+Copyright (c) 2024 Max Kas
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.mku.liveuml.layout;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Force directed refinement using the Barnes-Hut approximation for the repulsion
+ * so a single iteration costs O(n log n + e).
+ * Attraction is computed on the gap between the vertex boxes so large boxes do not collapse.
+ */
+class ForceLayout {
+    private static final double THETA = 0.9;
+    private static final double REPULSION = 0.5;
+    private static final double GRAVITY = 0.3;
+    private static final double MIN_TEMPERATURE = 0.05;
+    private static final int BLOCK_SIZE = 512;
+
+    private final LayoutGraph<?> graph;
+    private final QuadTree tree = new QuadTree();
+    private final double[] dispX;
+    private final double[] dispY;
+    private final double k;
+    private final double k2;
+    private int[] active;
+    private int activeCount;
+    private double centerX;
+    private double centerY;
+    private ForkJoinPool pool;
+    private double temperature;
+    private double cooling;
+
+    ForceLayout(LayoutGraph<?> graph, double k) {
+        this.graph = graph;
+        this.k = k;
+        this.k2 = REPULSION * k * k;
+        this.dispX = new double[graph.size];
+        this.dispY = new double[graph.size];
+        this.active = new int[graph.size];
+        for (int i = 0; i < graph.size; i++)
+            active[i] = i;
+        this.activeCount = graph.size;
+    }
+
+    /**
+     * Only move the given vertices, the rest of the graph still takes part in the forces.
+     */
+    void setActive(int[] vertices, int count) {
+        this.active = vertices;
+        this.activeCount = count;
+    }
+
+    /**
+     * Split the force computation over the pool in blocks of vertices.
+     */
+    void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    void setCenter(double x, double y) {
+        this.centerX = x;
+        this.centerY = y;
+    }
+
+    void start(double temperature, int iterations) {
+        this.temperature = temperature;
+        this.cooling = Math.pow(MIN_TEMPERATURE, 1.0 / Math.max(iterations, 1));
+    }
+
+    void run(double temperature, int iterations) {
+        start(temperature, iterations);
+        for (int i = 0; i < iterations; i++)
+            step();
+    }
+
+    /**
+     * Run a single iteration and return the largest displacement.
+     */
+    double step() {
+        tree.build(graph.x, graph.y, graph.mass, graph.size);
+        if (pool != null && activeCount > BLOCK_SIZE)
+            pool.invoke(new ForceTask(0, activeCount));
+        else
+            computeForces(0, activeCount);
+        double maxDisplacement = 0;
+        for (int n = 0; n < activeCount; n++) {
+            int i = active[n];
+            if (graph.fixed[i])
+                continue;
+            double length = Math.sqrt(dispX[i] * dispX[i] + dispY[i] * dispY[i]);
+            if (length == 0)
+                continue;
+            double scale = Math.min(length, temperature) / length;
+            graph.x[i] += dispX[i] * scale;
+            graph.y[i] += dispY[i] * scale;
+            maxDisplacement = Math.max(maxDisplacement, length * scale);
+        }
+        temperature *= cooling;
+        return maxDisplacement;
+    }
+
+    void computeForces(int from, int to) {
+        double[] force = new double[2];
+        int[] stack = new int[tree.getStackSize()];
+        double[] x = graph.x;
+        double[] y = graph.y;
+        for (int n = from; n < to; n++) {
+            int i = active[n];
+            force[0] = 0;
+            force[1] = 0;
+            tree.repulse(i, x[i], y[i], graph.mass[i], graph.radius, THETA, k2, force, stack);
+            for (int a = graph.adjStart[i]; a < graph.adjStart[i + 1]; a++) {
+                int j = graph.adj[a];
+                double dx = x[j] - x[i];
+                double dy = y[j] - y[i];
+                double distance = Math.sqrt(dx * dx + dy * dy);
+                if (distance < 1e-6)
+                    continue;
+                double gap = Math.max(distance - graph.radius[i] - graph.radius[j], 0);
+                double attraction = graph.adjWeight[a] * gap * gap / k / distance;
+                force[0] += dx * attraction;
+                force[1] += dy * attraction;
+            }
+            force[0] -= GRAVITY * graph.mass[i] * (x[i] - centerX);
+            force[1] -= GRAVITY * graph.mass[i] * (y[i] - centerY);
+            dispX[i] = force[0];
+            dispY[i] = force[1];
+        }
+    }
+
+    private class ForceTask extends RecursiveAction {
+        private final int from;
+        private final int to;
+
+        ForceTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= BLOCK_SIZE) {
+                computeForces(from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new ForceTask(from, middle), new ForceTask(middle, to));
+        }
+    }
+}
@@ -0,0 +1,572 @@
+/*
+MIT License
+
+Copyright (c) 2024 Max Kas
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.mku.liveuml.layout;
+
+import java.util.*;
+
+/**
+ * Layered (Sugiyama style) layout for type hierarchies, edges point from the subtype
+ * to the supertype so supertypes end up above their subtypes.
+ * Each connected hierarchy is laid out on its own with cycle breaking, longest path layering,
+ * barycenter crossing reduction and size aware coordinates, then the hierarchies are packed in shelves.
+ * Large groups of leaf subtypes under the same supertype are wrapped in a grid.
+ */
+class HierarchyLayout {
+    private static final double GAP = 40;
+    private static final double LAYER_GAP = 120;
+    private static final int WRAP_THRESHOLD = 8;
+    private static final int ORDER_ITERATIONS = 4;
+    private static final int PLACE_ITERATIONS = 4;
+
+    private static class Node {
+        final int vertex;
+        final int[] members;
+        final int rank;
+        double width;
+        double height;
+        double x;
+        double key;
+        int columns;
+        int[] up = new int[0];
+        int upCount;
+        int[] down = new int[0];
+        int downCount;
+
+        Node(int vertex, int[] members, int rank, double width, double height) {
+            this.vertex = vertex;
+            this.members = members;
+            this.rank = rank;
+            this.width = width;
+            this.height = height;
+        }
+
+        void addUp(int node) {
+            if (upCount == up.length)
+                up = Arrays.copyOf(up, Math.max(2, upCount * 2));
+            up[upCount++] = node;
+        }
+
+        void addDown(int node) {
+            if (downCount == down.length)
+                down = Arrays.copyOf(down, Math.max(2, downCount * 2));
+            down[downCount++] = node;
+        }
+    }
+
+    private LayoutGraph<?> graph;
+    private int[] parentStart;
+    private int[] parents;
+    private boolean[] removed;
+    private int[] childStart;
+    private int[] children;
+    private int[] rank;
+    private int[] wrappedBy;
+
+    void layout(LayoutGraph<?> graph) {
+        this.graph = graph;
+        int n = graph.size;
+        if (n == 0)
+            return;
+        buildParents();
+        breakCycles();
+        buildChildren();
+        assignRanks();
+        findWrappedLeaves();
+
+        int[] preorder = getPreorder();
+        int[] component = getComponents();
+        HashMap<Integer, List<Integer>> members = new LinkedHashMap<>();
+        for (int v : preorder)
+            members.computeIfAbsent(component[v], c -> new ArrayList<>()).add(v);
+
+        List<double[]> bounds = new ArrayList<>();
+        List<List<Integer>> components = new ArrayList<>(members.values());
+        for (List<Integer> vertices : components)
+            bounds.add(layoutComponent(vertices));
+        pack(components, bounds);
+    }
+
+    private void buildParents() {
+        int n = graph.size;
+        parentStart = new int[n + 1];
+        for (int e = 0; e < graph.edgeCount; e++) {
+            if (graph.edgeFrom[e] != graph.edgeTo[e])
+                parentStart[graph.edgeFrom[e] + 1]++;
+        }
+        for (int i = 0; i < n; i++)
+            parentStart[i + 1] += parentStart[i];
+        int[] all = new int[parentStart[n]];
+        int[] fill = Arrays.copyOf(parentStart, n);
+        for (int e = 0; e < graph.edgeCount; e++) {
+            if (graph.edgeFrom[e] != graph.edgeTo[e])
+                all[fill[graph.edgeFrom[e]]++] = graph.edgeTo[e];
+        }
+        // remove parallel edges
+        int[] start = new int[n + 1];
+        int count = 0;
+        for (int v = 0; v < n; v++) {
+            Arrays.sort(all, parentStart[v], parentStart[v + 1]);
+            start[v] = count;
+            for (int a = parentStart[v]; a < parentStart[v + 1]; a++) {
+                if (a == parentStart[v] || all[a] != all[a - 1])
+                    all[count++] = all[a];
+            }
+        }
+        start[n] = count;
+        parentStart = start;
+        parents = Arrays.copyOf(all, count);
+        removed = new boolean[count];
+    }
+
+    private void breakCycles() {
+        int n = graph.size;
+        int[] state = new int[n];
+        int[] stack = new int[n];
+        int[] next = new int[n];
+        for (int s = 0; s < n; s++) {
+            if (state[s] != 0)
+                continue;
+            int top = 0;
+            stack[top++] = s;
+            state[s] = 1;
+            next[s] = parentStart[s];
+            while (top > 0) {
+                int v = stack[top - 1];
+                if (next[v] < parentStart[v + 1]) {
+                    int a = next[v]++;
+                    int p = parents[a];
+                    if (state[p] == 1) {
+                        removed[a] = true;
+                    } else if (state[p] == 0) {
+                        state[p] = 1;
+                        next[p] = parentStart[p];
+                        stack[top++] = p;
+                    }
+                } else {
+                    state[v] = 2;
+                    top--;
+                }
+            }
+        }
+    }
+
+    private void buildChildren() {
+        int n = graph.size;
+        childStart = new int[n + 1];
+        for (int a = 0; a < parents.length; a++) {
+            if (!removed[a])
+                childStart[parents[a] + 1]++;
+        }
+        for (int i = 0; i < n; i++)
+            childStart[i + 1] += childStart[i];
+        children = new int[childStart[n]];
+        int[] fill = Arrays.copyOf(childStart, n);
+        for (int v = 0; v < n; v++) {
+            for (int a = parentStart[v]; a < parentStart[v + 1]; a++) {
+                if (!removed[a])
+                    children[fill[parents[a]]++] = v;
+            }
+        }
+    }
+
+    private int getParentCount(int v) {
+        int count = 0;
+        for (int a = parentStart[v]; a < parentStart[v + 1]; a++) {
+            if (!removed[a])
+                count++;
+        }
+        return count;
+    }
+
+    /**
+     * Longest path layering from the roots of the hierarchy.
+     */
+    private void assignRanks() {
+        int n = graph.size;
+        rank = new int[n];
+        int[] pending = new int[n];
+        int[] queue = new int[n];
+        int head = 0, tail = 0;
+        for (int v = 0; v < n; v++) {
+            pending[v] = getParentCount(v);
+            if (pending[v] == 0)
+                queue[tail++] = v;
+        }
+        while (head < tail) {
+            int v = queue[head++];
+            for (int c = childStart[v]; c < childStart[v + 1]; c++) {
+                int child = children[c];
+                rank[child] = Math.max(rank[child], rank[v] + 1);
+                if (--pending[child] == 0)
+                    queue[tail++] = child;
+            }
+        }
+    }
+
+    private void findWrappedLeaves() {
+        int n = graph.size;
+        wrappedBy = new int[n];
+        Arrays.fill(wrappedBy, -1);
+        for (int p = 0; p < n; p++) {
+            int leaves = 0;
+            for (int c = childStart[p]; c < childStart[p + 1]; c++) {
+                if (isLeaf(children[c]))
+                    leaves++;
+            }
+            if (leaves < WRAP_THRESHOLD)
+                continue;
+            for (int c = childStart[p]; c < childStart[p + 1]; c++) {
+                if (isLeaf(children[c]))
+                    wrappedBy[children[c]] = p;
+            }
+        }
+    }
+
+    private boolean isLeaf(int v) {
+        return childStart[v] == childStart[v + 1] && getParentCount(v) == 1;
+    }
+
+    private int[] getPreorder() {
+        int n = graph.size;
+        int[] order = new int[n];
+        int count = 0;
+        boolean[] visited = new boolean[n];
+        int[] stack = new int[n];
+        for (int root = 0; root < n; root++) {
+            if (visited[root] || getParentCount(root) > 0)
+                continue;
+            int top = 0;
+            stack[top++] = root;
+            visited[root] = true;
+            while (top > 0) {
+                int v = stack[--top];
+                order[count++] = v;
+                for (int c = childStart[v + 1] - 1; c >= childStart[v]; c--) {
+                    if (!visited[children[c]]) {
+                        visited[children[c]] = true;
+                        stack[top++] = children[c];
+                    }
+                }
+            }
+        }
+        return order;
+    }
+
+    private int[] getComponents() {
+        int n = graph.size;
+        int[] parent = new int[n];
+        for (int i = 0; i < n; i++)
+            parent[i] = i;
+        for (int v = 0; v < n; v++) {
+            for (int c = childStart[v]; c < childStart[v + 1]; c++) {
+                int a = find(parent, v);
+                int b = find(parent, children[c]);
+                if (a != b)
+                    parent[a] = b;
+            }
+        }
+        int[] component = new int[n];
+        for (int v = 0; v < n; v++)
+            component[v] = find(parent, v);
+        return component;
+    }
+
+    private static int find(int[] parent, int v) {
+        while (parent[v] != v) {
+            parent[v] = parent[parent[v]];
+            v = parent[v];
+        }
+        return v;
+    }
+
+    /**
+     * Layout a single hierarchy with its top left corner at the origin.
+     * Returns the width and height of the hierarchy.
+     */
+    private double[] layoutComponent(List<Integer> vertices) {
+        List<Node> nodes = new ArrayList<>();
+        HashMap<Integer, Integer> nodeOf = new HashMap<>();
+        HashMap<Integer, List<Integer>> wrapped = new LinkedHashMap<>();
+        for (int v : vertices) {
+            if (wrappedBy[v] >= 0) {
+                wrapped.computeIfAbsent(wrappedBy[v], p -> new ArrayList<>()).add(v);
+                continue;
+            }
+            nodeOf.put(v, nodes.size());
+            nodes.add(new Node(v, null, rank[v], graph.width[v], graph.height[v]));
+        }
+        for (Map.Entry<Integer, List<Integer>> entry : wrapped.entrySet()) {
+            Node block = createBlock(entry.getValue(), rank[entry.getKey()] + 1);
+            int node = nodes.size();
+            nodes.add(block);
+            Node parent = nodes.get(nodeOf.get(entry.getKey()));
+            parent.addDown(node);
+            block.addUp(nodeOf.get(entry.getKey()));
+        }
+        for (int v : vertices) {
+            if (wrappedBy[v] >= 0)
+                continue;
+            for (int a = parentStart[v]; a < parentStart[v + 1]; a++) {
+                if (removed[a])
+                    continue;
+                int lower = nodeOf.get(v);
+                int upper = nodeOf.get(parents[a]);
+                // long edges go through dummy nodes so they take part in the ordering
+                for (int r = rank[v] - 1; r > rank[parents[a]]; r--) {
+                    int dummy = nodes.size();
+                    nodes.add(new Node(-1, null, r, 0, 0));
+                    connect(nodes, dummy, lower);
+                    lower = dummy;
+                }
+                connect(nodes, upper, lower);
+            }
+        }
+
+        int ranks = 0;
+        for (Node node : nodes)
+            ranks = Math.max(ranks, node.rank + 1);
+        int[][] layers = getLayers(nodes, ranks);
+        orderLayers(nodes, layers);
+        placeLayers(nodes, layers);
+
+        double[] layerY = new double[ranks];
+        double[] layerHeight = new double[ranks];
+        for (Node node : nodes)
+            layerHeight[node.rank] = Math.max(layerHeight[node.rank], node.height);
+        double y = 0;
+        for (int r = 0; r < ranks; r++) {
+            layerY[r] = y + layerHeight[r] / 2;
+            y += layerHeight[r] + LAYER_GAP;
+        }
+
+        double minX = Double.MAX_VALUE;
+        double maxX = -Double.MAX_VALUE;
+        for (Node node : nodes) {
+            minX = Math.min(minX, node.x - node.width / 2);
+            maxX = Math.max(maxX, node.x + node.width / 2);
+        }
+        for (Node node : nodes) {
+            double cx = node.x - minX;
+            double top = layerY[node.rank] - layerHeight[node.rank] / 2;
+            if (node.vertex >= 0) {
+                graph.setPosition(node.vertex, cx, top + node.height / 2);
+            } else if (node.members != null) {
+                expandBlock(node, cx - node.width / 2, top);
+            }
+        }
+        return new double[]{maxX - minX, Math.max(y - LAYER_GAP, 0)};
+    }
+
+    private static void connect(List<Node> nodes, int upper, int lower) {
+        nodes.get(upper).addDown(lower);
+        nodes.get(lower).addUp(upper);
+    }
+
+    private Node createBlock(List<Integer> leaves, int rank) {
+        int[] members = new int[leaves.size()];
+        double cellWidth = 0;
+        double cellHeight = 0;
+        for (int i = 0; i < members.length; i++) {
+            members[i] = leaves.get(i);
+            cellWidth = Math.max(cellWidth, graph.width[members[i]]);
+            cellHeight = Math.max(cellHeight, graph.height[members[i]]);
+        }
+        // aim for a grid about twice as wide as it is tall
+        int columns = (int) Math.ceil(Math.sqrt(members.length * 2 * (cellHeight + GAP) / (cellWidth + GAP)));
+        columns = Math.max(1, Math.min(members.length, columns));
+        int rows = (members.length + columns - 1) / columns;
+        Node block = new Node(-1, members, rank, columns * (cellWidth + GAP) - GAP, rows * (cellHeight + GAP) - GAP);
+        block.columns = columns;
+        return block;
+    }
+
+    private void expandBlock(Node block, double left, double top) {
+        int columns = block.columns;
+        int rows = (block.members.length + columns - 1) / columns;
+        double cellWidth = (block.width + GAP) / columns - GAP;
+        double cellHeight = (block.height + GAP) / rows - GAP;
+        for (int i = 0; i < block.members.length; i++) {
+            int row = i / columns;
+            int column = i % columns;
+            graph.setPosition(block.members[i], left + column * (cellWidth + GAP) + cellWidth / 2,
+                    top + row * (cellHeight + GAP) + cellHeight / 2);
+        }
+    }
+
+    private static int[][] getLayers(List<Node> nodes, int ranks) {
+        int[] counts = new int[ranks];
+        for (Node node : nodes)
+            counts[node.rank]++;
+        int[][] layers = new int[ranks][];
+        for (int r = 0; r < ranks; r++)
+            layers[r] = new int[counts[r]];
+        Arrays.fill(counts, 0);
+        for (int i = 0; i < nodes.size(); i++) {
+            Node node = nodes.get(i);
+            layers[node.rank][counts[node.rank]++] = i;
+        }
+        return layers;
+    }
+
+    /**
+     * Barycenter crossing reduction with alternating down and up sweeps.
+     */
+    private static void orderLayers(List<Node> nodes, int[][] layers) {
+        double[] position = new double[nodes.size()];
+        for (int[] layer : layers) {
+            for (int i = 0; i < layer.length; i++)
+                position[layer[i]] = i;
+        }
+        for (int iteration = 0; iteration < ORDER_ITERATIONS; iteration++) {
+            for (int r = 1; r < layers.length; r++)
+                sortLayer(nodes, layers[r], position, true);
+            for (int r = layers.length - 2; r >= 0; r--)
+                sortLayer(nodes, layers[r], position, false);
+        }
+    }
+
+    private static void sortLayer(List<Node> nodes, int[] layer, double[] position, boolean useUpper) {
+        Integer[] order = new Integer[layer.length];
+        for (int i = 0; i < layer.length; i++) {
+            Node node = nodes.get(layer[i]);
+            int[] neighbors = useUpper ? node.up : node.down;
+            int count = useUpper ? node.upCount : node.downCount;
+            if (count == 0) {
+                node.key = position[layer[i]];
+            } else {
+                double sum = 0;
+                for (int k = 0; k < count; k++)
+                    sum += position[neighbors[k]];
+                node.key = sum / count;
+            }
+            order[i] = layer[i];
+        }
+        Arrays.sort(order, Comparator.comparingDouble(i -> nodes.get(i).key));
+        for (int i = 0; i < layer.length; i++) {
+            layer[i] = order[i];
+            position[layer[i]] = i;
+        }
+    }
+
+    /**
+     * Assign x coordinates that keep the order and spacing of each layer while moving
+     * the nodes as close as possible to the average of their neighbors.
+     */
+    private static void placeLayers(List<Node> nodes, int[][] layers) {
+        for (int[] layer : layers) {
+            double x = 0;
+            for (int i = 0; i < layer.length; i++) {
+                Node node = nodes.get(layer[i]);
+                if (i > 0)
+                    x += (nodes.get(layer[i - 1]).width + node.width) / 2 + GAP;
+                node.x = x;
+            }
+        }
+        for (int iteration = 0; iteration < PLACE_ITERATIONS; iteration++) {
+            for (int r = 1; r < layers.length; r++)
+                placeLayer(nodes, layers[r], true);
+            for (int r = layers.length - 2; r >= 0; r--)
+                placeLayer(nodes, layers[r], false);
+        }
+    }
+
+    private static void placeLayer(List<Node> nodes, int[] layer, boolean useUpper) {
+        int size = layer.length;
+        double[] offset = new double[size];
+        double[] target = new double[size];
+        double[] weight = new double[size];
+        for (int i = 0; i < size; i++) {
+            Node node = nodes.get(layer[i]);
+            if (i > 0)
+                offset[i] = offset[i - 1] + (nodes.get(layer[i - 1]).width + node.width) / 2 + GAP;
+            int[] neighbors = useUpper ? node.up : node.down;
+            int count = useUpper ? node.upCount : node.downCount;
+            double desired = node.x;
+            if (count > 0) {
+                double sum = 0;
+                for (int k = 0; k < count; k++)
+                    sum += nodes.get(neighbors[k]).x;
+                desired = sum / count;
+            }
+            target[i] = desired - offset[i];
+            weight[i] = 1 + count;
+        }
+
+        // pool adjacent violators, the shifts must be non decreasing to keep the spacing
+        double[] blockSum = new double[size];
+        double[] blockWeight = new double[size];
+        int[] blockEnd = new int[size];
+        int blocks = 0;
+        for (int i = 0; i < size; i++) {
+            blockSum[blocks] = target[i] * weight[i];
+            blockWeight[blocks] = weight[i];
+            blockEnd[blocks] = i;
+            blocks++;
+            while (blocks > 1 && blockSum[blocks - 2] / blockWeight[blocks - 2]
+                    > blockSum[blocks - 1] / blockWeight[blocks - 1]) {
+                blockSum[blocks - 2] += blockSum[blocks - 1];
+                blockWeight[blocks - 2] += blockWeight[blocks - 1];
+                blockEnd[blocks - 2] = blockEnd[blocks - 1];
+                blocks--;
+            }
+        }
+        int i = 0;
+        for (int b = 0; b < blocks; b++) {
+            double shift = blockSum[b] / blockWeight[b];
+            for (; i <= blockEnd[b]; i++)
+                nodes.get(layer[i]).x = offset[i] + shift;
+        }
+    }
+
+    /**
+     * Pack the hierarchies in shelves, tallest first.
+     */
+    private void pack(List<List<Integer>> components, List<double[]> bounds) {
+        Integer[] order = new Integer[components.size()];
+        double area = 0;
+        double maxWidth = 0;
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+            area += (bounds.get(i)[0] + GAP) * (bounds.get(i)[1] + GAP);
+            maxWidth = Math.max(maxWidth, bounds.get(i)[0]);
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(bounds.get(b)[1], bounds.get(a)[1]));
+        double shelfWidth = Math.max(maxWidth, Math.sqrt(area) * 1.5);
+        double x = 0;
+        double y = 0;
+        double shelfHeight = 0;
+        for (int c : order) {
+            double[] size = bounds.get(c);
+            if (x > 0 && x + size[0] > shelfWidth) {
+                x = 0;
+                y += shelfHeight + LAYER_GAP;
+                shelfHeight = 0;
+            }
+            for (int v : components.get(c))
+                graph.setPosition(v, graph.x[v] + x, graph.y[v] + y);
+            x += size[0] + GAP * 2;
+            shelfHeight = Math.max(shelfHeight, size[1]);
+        }
+    }
+}
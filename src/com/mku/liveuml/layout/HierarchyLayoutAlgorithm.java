@@ -0,0 +1,49 @@
+/*
+MIT License
+
+Copyright (c) 2024 Max Kas
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.mku.liveuml.layout;
+
+import org.jungrapht.visualization.layout.model.LayoutModel;
+
+import java.awt.geom.Rectangle2D;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Layered layout for type hierarchies, only the edges accepted by the filter
+ * are used to build the layers, the vertex boxes are provided by the bounds function.
+ */
+public class HierarchyLayoutAlgorithm<V> extends BackgroundLayoutAlgorithm<V> {
+    private static final double MARGIN = 40;
+
+    public HierarchyLayoutAlgorithm(Function<V, Rectangle2D> bounds, Predicate<Object> edgeFilter,
+                                    ExecutorService executor) {
+        super(bounds, edgeFilter, executor, MARGIN);
+    }
+
+    @Override
+    protected void layout(LayoutModel<V> layoutModel, LayoutGraph<V> layoutGraph) {
+        new HierarchyLayout().layout(layoutGraph);
+    }
+}
@@ -0,0 +1,141 @@
+/*
+MIT License
+
+Copyright (c) 2024 Max Kas
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.mku.liveuml.layout;
+
+import java.util.Random;
+
+/**
+ * Incremental layout that keeps the fixed vertices in place, the new vertices are placed
+ * at the barycenter of their placed neighbors and refined with a force pass that only moves them.
+ * Graphs without any fixed vertex fall back to the multilevel layout.
+ */
+class IncrementalLayout {
+    private static final int LOCAL_ITERATIONS = 50;
+
+    private final long seed;
+    private final Random random;
+
+    IncrementalLayout(long seed) {
+        this.seed = seed;
+        this.random = new Random(seed);
+    }
+
+    void layout(LayoutGraph<?> graph) {
+        int n = graph.size;
+        int[] free = new int[n];
+        int freeCount = 0;
+        double centerX = 0;
+        double centerY = 0;
+        for (int i = 0; i < n; i++) {
+            if (graph.fixed[i]) {
+                centerX += graph.x[i];
+                centerY += graph.y[i];
+            } else {
+                free[freeCount++] = i;
+            }
+        }
+        if (freeCount == 0)
+            return;
+        if (freeCount == n) {
+            new MultilevelLayout(seed).layout(graph);
+            return;
+        }
+        centerX /= n - freeCount;
+        centerY /= n - freeCount;
+
+        double k = MultilevelLayout.getSpringLength(graph);
+        placeNewVertices(graph, k);
+        ForceLayout forceLayout = new ForceLayout(graph, k);
+        forceLayout.setActive(free, freeCount);
+        forceLayout.setCenter(centerX, centerY);
+        forceLayout.run(k, LOCAL_ITERATIONS);
+        graph.removeOverlaps(MultilevelLayout.GAP / 2, 50);
+    }
+
+    /**
+     * Place the new vertices breadth first from the fixed ones, vertices that cannot be reached
+     * from a fixed vertex are put in rows below the existing diagram.
+     */
+    private void placeNewVertices(LayoutGraph<?> graph, double k) {
+        int n = graph.size;
+        boolean[] placed = new boolean[n];
+        boolean[] queued = new boolean[n];
+        int[] queue = new int[n];
+        int head = 0, tail = 0;
+        double minX = Double.MAX_VALUE;
+        double maxX = -Double.MAX_VALUE;
+        double maxY = -Double.MAX_VALUE;
+        for (int i = 0; i < n; i++) {
+            if (!graph.fixed[i])
+                continue;
+            placed[i] = true;
+            minX = Math.min(minX, graph.x[i] - graph.width[i] / 2);
+            maxX = Math.max(maxX, graph.x[i] + graph.width[i] / 2);
+            maxY = Math.max(maxY, graph.y[i] + graph.height[i] / 2);
+            for (int a = graph.adjStart[i]; a < graph.adjStart[i + 1]; a++) {
+                int j = graph.adj[a];
+                if (!graph.fixed[j] && !queued[j]) {
+                    queued[j] = true;
+                    queue[tail++] = j;
+                }
+            }
+        }
+        while (head < tail) {
+            int i = queue[head++];
+            double x = 0;
+            double y = 0;
+            int count = 0;
+            for (int a = graph.adjStart[i]; a < graph.adjStart[i + 1]; a++) {
+                int j = graph.adj[a];
+                if (placed[j]) {
+                    x += graph.x[j];
+                    y += graph.y[j];
+                    count++;
+                } else if (!queued[j]) {
+                    queued[j] = true;
+                    queue[tail++] = j;
+                }
+            }
+            graph.setPosition(i, x / count + (random.nextDouble() - 0.5) * k,
+                    y / count + (random.nextDouble() - 0.5) * k);
+            placed[i] = true;
+        }
+
+        double x = minX;
+        double y = maxY + k;
+        double rowHeight = 0;
+        for (int i = 0; i < n; i++) {
+            if (placed[i])
+                continue;
+            if (x > minX && x + graph.width[i] > maxX) {
+                x = minX;
+                y += rowHeight + MultilevelLayout.GAP;
+                rowHeight = 0;
+            }
+            graph.setPosition(i, x + graph.width[i] / 2, y + graph.height[i] / 2);
+            x += graph.width[i] + MultilevelLayout.GAP;
+            rowHeight = Math.max(rowHeight, graph.height[i]);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/*
+MIT License
+
+Copyright (c) 2024 Max Kas
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.mku.liveuml.layout;
+
+import org.jungrapht.visualization.layout.model.LayoutModel;
+
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
+
+/**
+ * Layout that keeps the known positions of the vertices and only places the new ones,
+ * the positions function returns null for vertices that have not been laid out before.
+ * Graphs without known positions fall back to the multilevel layout so this runs in the background too.
+ */
+public class IncrementalLayoutAlgorithm<V> extends BackgroundLayoutAlgorithm<V> {
+    private final Function<V, Point2D> positions;
+
+    public IncrementalLayoutAlgorithm(Function<V, Rectangle2D> bounds, Function<V, Point2D> positions,
+                                      ExecutorService executor) {
+        super(bounds, e -> true, executor, MultilevelLayout.GAP);
+        this.positions = positions;
+    }
+
+    @Override
+    protected void start(LayoutModel<V> layoutModel, LayoutGraph<V> layoutGraph) {
+        for (int i = 0; i < layoutGraph.size(); i++) {
+            Point2D position = positions.apply(layoutGraph.getVertex(i));
+            if (position != null) {
+                layoutGraph.setPosition(i, position.getX(), position.getY());
+                layoutGraph.setFixed(i, true);
+            }
+        }
+    }
+
+    @Override
+    protected void layout(LayoutModel<V> layoutModel, LayoutGraph<V> layoutGraph) {
+        new IncrementalLayout(MultilevelLayout.SEED).layout(layoutGraph);
+    }
+
+    /**
+     * The known vertices stay where they were, the diagram is only shifted if a new vertex is before the margin
+     */
+    @Override
+    protected void apply(LayoutModel<V> layoutModel, LayoutGraph<V> layoutGraph, double[] x, double[] y) {
+        layoutGraph.place(layoutModel, MultilevelLayout.GAP, x, y);
+    }
+}
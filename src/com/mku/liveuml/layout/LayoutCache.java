@@ -0,0 +1,184 @@
+/*
+MIT License
+
+Copyright (c) 2024 Max Kas
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.mku.liveuml.layout;
+
+import java.awt.geom.Point2D;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * Disk cache for computed layouts keyed by a structural hash of the graph,
+ * the latest layout of each group is also kept so it can seed the layout of a changed graph.
+ */
+public class LayoutCache {
+    private static final String EXTENSION = ".layout";
+    private static final String LATEST_EXTENSION = ".latest";
+    static final int MAX_ENTRIES = 64;
+
+    private final File dir;
+
+    public LayoutCache(File dir) {
+        this.dir = dir;
+    }
+
+    /**
+     * Get a hash of the vertex and edge keys, the order of the keys does not matter.
+     */
+    public static String getKey(String layout, Collection<String> vertices, Collection<String> edges) {
+        List<String> sortedVertices = new ArrayList<>(vertices);
+        Collections.sort(sortedVertices);
+        List<String> sortedEdges = new ArrayList<>(edges);
+        Collections.sort(sortedEdges);
+        MessageDigest digest = getDigest();
+        update(digest, layout);
+        for (String vertex : sortedVertices)
+            update(digest, vertex);
+        update(digest, "");
+        for (String edge : sortedEdges)
+            update(digest, edge);
+        return toHex(digest.digest());
+    }
+
+    public static String getGroupKey(String layout, Collection<String> sources) {
+        return getKey(layout, sources, Collections.emptyList());
+    }
+
+    private static MessageDigest getDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) '\n');
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder();
+        for (byte b : bytes)
+            sb.append(String.format("%02x", b));
+        return sb.toString();
+    }
+
+    /**
+     * Get the positions of a graph with the same structure or null if there are none.
+     */
+    public Map<String, Point2D> get(String key) {
+        return read(new File(dir, key + EXTENSION));
+    }
+
+    /**
+     * Get the positions of the latest layout stored for the group or null if there are none.
+     */
+    public Map<String, Point2D> getLatest(String group) {
+        File latest = new File(dir, group + LATEST_EXTENSION);
+        if (!latest.exists())
+            return null;
+        try {
+            String key = new String(Files.readAllBytes(latest.toPath()), StandardCharsets.UTF_8).trim();
+            return get(key);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    public void put(String key, String group, Map<String, Point2D> positions) {
+        if (!dir.exists() && !dir.mkdirs())
+            return;
+        File file = new File(dir, key + EXTENSION);
+        File tmpFile = new File(dir, key + EXTENSION + ".tmp");
+        try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(tmpFile), StandardCharsets.UTF_8))) {
+            for (Map.Entry<String, Point2D> entry : positions.entrySet()) {
+                writer.write(entry.getValue().getX() + "\t" + entry.getValue().getY() + "\t" + entry.getKey());
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+        try {
+            Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            if (group != null)
+                Files.write(new File(dir, group + LATEST_EXTENSION).toPath(), key.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        prune();
+    }
+
+    private Map<String, Point2D> read(File file) {
+        if (!file.exists())
+            return null;
+        HashMap<String, Point2D> positions = new HashMap<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split("\t", 3);
+                if (parts.length < 3)
+                    continue;
+                positions.put(parts[2], new Point2D.Double(Double.parseDouble(parts[0]), Double.parseDouble(parts[1])));
+            }
+        } catch (IOException | NumberFormatException e) {
+            e.printStackTrace();
+            return null;
+        }
+        file.setLastModified(System.currentTimeMillis());
+        return positions;
+    }
+
+    /**
+     * Remove the least recently used layouts and the group pointers to the removed layouts.
+     */
+    private void prune() {
+        File[] files = dir.listFiles((d, name) -> name.endsWith(EXTENSION));
+        if (files == null || files.length <= MAX_ENTRIES)
+            return;
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+        for (int i = 0; i < files.length - MAX_ENTRIES; i++)
+            files[i].delete();
+        File[] pointers = dir.listFiles((d, name) -> name.endsWith(LATEST_EXTENSION));
+        if (pointers == null)
+            return;
+        for (File pointer : pointers) {
+            try {
+                String key = new String(Files.readAllBytes(pointer.toPath()), StandardCharsets.UTF_8).trim();
+                if (!new File(dir, key + EXTENSION).exists())
+                    pointer.delete();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+}
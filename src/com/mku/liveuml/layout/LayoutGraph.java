@@ -0,0 +1,347 @@
+/*
+MIT License
+
+Copyright (c) 2024 Max Kas
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.mku.liveuml.layout;
+
+import org.jgrapht.Graph;
+import org.jungrapht.visualization.layout.model.LayoutModel;
+
+import java.awt.geom.Rectangle2D;
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Compact array based copy of a graph used by the layout algorithms.
+ * Vertices are indexed densely, edges are kept as directed pairs and as an undirected
+ * adjacency list with merged weights, sizes are the bounds of the vertex boxes.
+ */
+public class LayoutGraph<V> {
+    final int size;
+    final double[] x;
+    final double[] y;
+    final double[] width;
+    final double[] height;
+    final double[] radius;
+    final double[] mass;
+    final int[] adjStart;
+    final int[] adj;
+    final double[] adjWeight;
+    final int[] edgeFrom;
+    final int[] edgeTo;
+    final int edgeCount;
+    final boolean[] fixed;
+    private final List<V> vertices;
+
+    LayoutGraph(List<V> vertices, double[] width, double[] height, int[] edgeFrom, int[] edgeTo, double[] edgeWeight, int edges) {
+        this.vertices = vertices;
+        this.size = width.length;
+        this.edgeFrom = edgeFrom;
+        this.edgeTo = edgeTo;
+        this.edgeCount = edges;
+        this.x = new double[size];
+        this.y = new double[size];
+        this.width = width;
+        this.height = height;
+        this.radius = new double[size];
+        this.mass = new double[size];
+        this.fixed = new boolean[size];
+        double totalRadius = 0;
+        for (int i = 0; i < size; i++) {
+            radius[i] = Math.sqrt(width[i] * width[i] + height[i] * height[i]) / 2;
+            totalRadius += radius[i];
+        }
+        double avgRadius = size > 0 && totalRadius > 0 ? totalRadius / size : 1;
+        for (int i = 0; i < size; i++) {
+            double r = radius[i] / avgRadius;
+            mass[i] = Math.max(r * r, 0.1);
+        }
+
+        // merge parallel edges and drop self loops
+        HashMap<Long, Double> weights = new HashMap<>();
+        for (int e = 0; e < edges; e++) {
+            int a = Math.min(edgeFrom[e], edgeTo[e]);
+            int b = Math.max(edgeFrom[e], edgeTo[e]);
+            if (a == b)
+                continue;
+            weights.merge(((long) a << 32) | b, edgeWeight[e], Double::sum);
+        }
+        adjStart = new int[size + 1];
+        for (long key : weights.keySet()) {
+            adjStart[(int) (key >>> 32) + 1]++;
+            adjStart[(int) key + 1]++;
+        }
+        for (int i = 0; i < size; i++)
+            adjStart[i + 1] += adjStart[i];
+        adj = new int[adjStart[size]];
+        adjWeight = new double[adjStart[size]];
+        int[] fill = Arrays.copyOf(adjStart, size);
+        for (Map.Entry<Long, Double> entry : weights.entrySet()) {
+            int a = (int) (entry.getKey() >>> 32);
+            int b = (int) entry.getKey().longValue();
+            adj[fill[a]] = b;
+            adjWeight[fill[a]++] = entry.getValue();
+            adj[fill[b]] = a;
+            adjWeight[fill[b]++] = entry.getValue();
+        }
+    }
+
+    public static <V, E> LayoutGraph<V> create(Graph<V, E> graph, Function<V, Rectangle2D> bounds,
+                                               Predicate<? super E> edgeFilter) {
+        // sort the vertices so the layouts only depend on the seed and not on the insertion order
+        List<V> vertices = new ArrayList<>(graph.vertexSet());
+        vertices.sort(Comparator.comparing(Object::toString));
+        HashMap<V, Integer> index = new HashMap<>();
+        double[] width = new double[vertices.size()];
+        double[] height = new double[vertices.size()];
+        for (int i = 0; i < vertices.size(); i++) {
+            V v = vertices.get(i);
+            index.put(v, i);
+            Rectangle2D rect = bounds.apply(v);
+            width[i] = rect.getWidth();
+            height[i] = rect.getHeight();
+        }
+        int[] from = new int[graph.edgeSet().size()];
+        int[] to = new int[from.length];
+        double[] weight = new double[from.length];
+        int edges = 0;
+        for (E e : graph.edgeSet()) {
+            if (!edgeFilter.test(e))
+                continue;
+            from[edges] = index.get(graph.getEdgeSource(e));
+            to[edges] = index.get(graph.getEdgeTarget(e));
+            weight[edges++] = 1;
+        }
+        return new LayoutGraph<>(vertices, width, height, from, to, weight, edges);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public V getVertex(int i) {
+        return vertices.get(i);
+    }
+
+    public double getX(int i) {
+        return x[i];
+    }
+
+    public double getY(int i) {
+        return y[i];
+    }
+
+    public void setPosition(int i, double x, double y) {
+        this.x[i] = x;
+        this.y[i] = y;
+    }
+
+    /**
+     * Fixed vertices are never moved by the force or the overlap passes.
+     */
+    public void setFixed(int i, boolean fixed) {
+        this.fixed[i] = fixed;
+    }
+
+    public boolean isFixed(int i) {
+        return fixed[i];
+    }
+
+    double getAverageRadius() {
+        double total = 0;
+        for (int i = 0; i < size; i++)
+            total += radius[i];
+        return size > 0 ? total / size : 1;
+    }
+
+    /**
+     * Push overlapping boxes apart with a sweep over the boxes sorted by their left side,
+     * both boxes of a pair move along the axis with the smallest overlap.
+     * When the passes do not settle the remaining overlaps are resolved by a final sweep.
+     */
+    void removeOverlaps(double gap, int maxPasses) {
+        if (!pushOverlaps(gap, maxPasses))
+            separate(gap);
+    }
+
+    boolean pushOverlaps(double gap, int maxPasses) {
+        int[] order = new int[size];
+        int[] buffer = new int[size];
+        double[] left = new double[size];
+        for (int pass = 0; pass < maxPasses; pass++) {
+            sortByLeft(order, buffer, left);
+            boolean moved = false;
+            for (int oi = 0; oi < size; oi++) {
+                int i = order[oi];
+                for (int oj = oi + 1; oj < size; oj++) {
+                    int j = order[oj];
+                    if (x[j] - width[j] / 2 >= x[i] + width[i] / 2 + gap)
+                        break;
+                    double overlapX = (width[i] + width[j]) / 2 + gap - Math.abs(x[i] - x[j]);
+                    double overlapY = (height[i] + height[j]) / 2 + gap - Math.abs(y[i] - y[j]);
+                    if (overlapX <= 1 || overlapY <= 1 || fixed[i] && fixed[j])
+                        continue;
+                    moved = true;
+                    // a fixed box does not move so the other box takes the whole shift
+                    double shareI = fixed[i] ? 0 : fixed[j] ? 2 : 1;
+                    double shareJ = 2 - shareI;
+                    if (overlapX < overlapY) {
+                        double shift = (overlapX / 2 + 1) * (x[i] <= x[j] ? 1 : -1);
+                        x[i] -= shift * shareI;
+                        x[j] += shift * shareJ;
+                    } else {
+                        double shift = (overlapY / 2 + 1) * (y[i] <= y[j] ? 1 : -1);
+                        y[i] -= shift * shareI;
+                        y[j] += shift * shareJ;
+                    }
+                }
+            }
+            if (!moved)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Remove the remaining overlaps by moving boxes to the right only, boxes are placed
+     * from left to right and only the boxes spanning the sweep position are checked.
+     * Fixed boxes stay in place so a moved box is also checked against the fixed boxes ahead of it.
+     */
+    private void separate(double gap) {
+        int[] order = new int[size];
+        sortByLeft(order, new int[size], new double[size]);
+        int[] active = new int[size];
+        int activeCount = 0;
+        for (int o = 0; o < size; o++) {
+            int j = order[o];
+            double left = x[j] - width[j] / 2;
+            int kept = 0;
+            for (int a = 0; a < activeCount; a++) {
+                int i = active[a];
+                if (x[i] + width[i] / 2 + gap > left)
+                    active[kept++] = i;
+            }
+            activeCount = kept;
+            boolean moved = !fixed[j];
+            while (moved) {
+                moved = false;
+                for (int a = 0; a < activeCount; a++)
+                    moved |= moveRight(active[a], j, gap);
+                for (int ahead = o + 1; ahead < size; ahead++) {
+                    int i = order[ahead];
+                    if (x[i] - width[i] / 2 >= x[j] + width[j] / 2 + gap)
+                        break;
+                    if (fixed[i])
+                        moved |= moveRight(i, j, gap);
+                }
+            }
+            active[activeCount++] = j;
+        }
+    }
+
+    private boolean moveRight(int i, int j, double gap) {
+        double right = x[i] + (width[i] + width[j]) / 2 + gap;
+        if (Math.abs(y[i] - y[j]) < (height[i] + height[j]) / 2 + gap
+                && x[j] > x[i] - (width[i] + width[j]) / 2 - gap && x[j] < right) {
+            x[j] = right;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Sort the box indices by their left side with a merge sort on primitive arrays,
+     * the buffer and the left sides are scratch space of the same size as the graph
+     */
+    private void sortByLeft(int[] order, int[] buffer, double[] left) {
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+            left[i] = x[i] - width[i] / 2;
+        }
+        int[] from = order;
+        int[] to = buffer;
+        for (int run = 1; run < size; run *= 2) {
+            for (int start = 0; start < size; start += 2 * run) {
+                int middle = Math.min(start + run, size);
+                int end = Math.min(start + 2 * run, size);
+                int a = start;
+                int b = middle;
+                for (int k = start; k < end; k++) {
+                    if (a < middle && (b >= end || left[from[a]] <= left[from[b]]))
+                        to[k] = from[a++];
+                    else
+                        to[k] = from[b++];
+                }
+            }
+            int[] swap = from;
+            from = to;
+            to = swap;
+        }
+        if (from != order)
+            System.arraycopy(from, 0, order, 0, size);
+    }
+
+    /**
+     * Copy the positions to the layout model so that all boxes start at the margin.
+     */
+    public void apply(LayoutModel<V> layoutModel, double margin) {
+        apply(layoutModel, margin, x, y);
+    }
+
+    /**
+     * Copy a snapshot of the positions taken while the layout was still running.
+     */
+    void apply(LayoutModel<V> layoutModel, double margin, double[] x, double[] y) {
+        double minX = Double.MAX_VALUE;
+        double minY = Double.MAX_VALUE;
+        for (int i = 0; i < size; i++) {
+            minX = Math.min(minX, x[i] - width[i] / 2);
+            minY = Math.min(minY, y[i] - height[i] / 2);
+        }
+        for (int i = 0; i < size; i++) {
+            layoutModel.set(vertices.get(i), x[i] - minX + margin, y[i] - minY + margin);
+        }
+    }
+
+    /**
+     * Copy the positions to the layout model as they are, the boxes are only shifted
+     * when one of them would start before the margin.
+     */
+    public void place(LayoutModel<V> layoutModel, double margin) {
+        place(layoutModel, margin, x, y);
+    }
+
+    void place(LayoutModel<V> layoutModel, double margin, double[] x, double[] y) {
+        double minX = Double.MAX_VALUE;
+        double minY = Double.MAX_VALUE;
+        for (int i = 0; i < size; i++) {
+            minX = Math.min(minX, x[i] - width[i] / 2);
+            minY = Math.min(minY, y[i] - height[i] / 2);
+        }
+        double offsetX = Math.max(margin - minX, 0);
+        double offsetY = Math.max(margin - minY, 0);
+        for (int i = 0; i < size; i++) {
+            layoutModel.set(vertices.get(i), x[i] + offsetX, y[i] + offsetY);
+        }
+    }
+}
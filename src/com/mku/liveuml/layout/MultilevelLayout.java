@@ -0,0 +1,162 @@
+/*
+MIT License
+
+Copyright (c) 2024 Max Kas
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.mku.liveuml.layout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Multilevel force directed layout: the graph is coarsened by collapsing matched
+ * vertices until it is small, the coarsest graph is laid out from scratch and the
+ * positions are then projected back level by level and refined with a short force pass.
+ */
+class MultilevelLayout {
+    private static final int MIN_VERTICES = 32;
+    private static final double MIN_REDUCTION = 0.9;
+    private static final int COARSEST_ITERATIONS = 300;
+    private static final int REFINE_ITERATIONS = 60;
+    static final double GAP = 40;
+    // the layouts always start from the same seed so a graph gets the same layout every time,
+    // the layout cache relies on this since its key only depends on the graph
+    static final long SEED = 0;
+
+    private final Random random;
+
+    MultilevelLayout(long seed) {
+        this.random = new Random(seed);
+    }
+
+    void layout(LayoutGraph<?> graph) {
+        if (graph.size == 0)
+            return;
+        List<LayoutGraph<?>> levels = new ArrayList<>();
+        List<int[]> parents = new ArrayList<>();
+        levels.add(graph);
+        LayoutGraph<?> current = graph;
+        while (current.size > MIN_VERTICES) {
+            int[] parent = new int[current.size];
+            LayoutGraph<?> coarse = coarsen(current, parent);
+            if (coarse.size > current.size * MIN_REDUCTION)
+                break;
+            levels.add(coarse);
+            parents.add(parent);
+            current = coarse;
+        }
+
+        double k = getSpringLength(graph);
+        LayoutGraph<?> coarsest = levels.get(levels.size() - 1);
+        double extent = k * Math.sqrt(coarsest.size);
+        for (int i = 0; i < coarsest.size; i++)
+            coarsest.setPosition(i, (random.nextDouble() - 0.5) * extent, (random.nextDouble() - 0.5) * extent);
+        new ForceLayout(coarsest, k).run(extent / 4, COARSEST_ITERATIONS);
+
+        for (int level = levels.size() - 2; level >= 0; level--) {
+            LayoutGraph<?> fine = levels.get(level);
+            LayoutGraph<?> coarse = levels.get(level + 1);
+            int[] parent = parents.get(level);
+            for (int i = 0; i < fine.size; i++) {
+                int p = parent[i];
+                fine.setPosition(i, coarse.x[p] + (random.nextDouble() - 0.5) * coarse.radius[p],
+                        coarse.y[p] + (random.nextDouble() - 0.5) * coarse.radius[p]);
+            }
+            new ForceLayout(fine, k).run(k, REFINE_ITERATIONS);
+        }
+        // overlaps are only removed once the finest level has settled
+        graph.removeOverlaps(GAP / 2, 50);
+    }
+
+    static double getSpringLength(LayoutGraph<?> graph) {
+        return graph.getAverageRadius() * 2 + GAP;
+    }
+
+    /**
+     * Collapse a matching of the graph, each vertex is paired with the unmatched neighbor
+     * with the heaviest edge relative to the combined mass.
+     */
+    private LayoutGraph<?> coarsen(LayoutGraph<?> graph, int[] parent) {
+        int size = graph.size;
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++)
+            order[i] = i;
+        for (int i = size - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = order[i];
+            order[i] = order[j];
+            order[j] = tmp;
+        }
+        int[] match = new int[size];
+        java.util.Arrays.fill(match, -1);
+        java.util.Arrays.fill(parent, -1);
+        int coarseSize = 0;
+        for (int v : order) {
+            if (match[v] != -1)
+                continue;
+            int best = -1;
+            double bestScore = 0;
+            for (int a = graph.adjStart[v]; a < graph.adjStart[v + 1]; a++) {
+                int u = graph.adj[a];
+                if (match[u] != -1)
+                    continue;
+                double score = graph.adjWeight[a] / (graph.mass[v] + graph.mass[u]);
+                if (score > bestScore) {
+                    bestScore = score;
+                    best = u;
+                }
+            }
+            match[v] = best == -1 ? v : best;
+            parent[v] = coarseSize;
+            if (best != -1) {
+                match[best] = v;
+                parent[best] = coarseSize;
+            }
+            coarseSize++;
+        }
+
+        double[] width = new double[coarseSize];
+        double[] height = new double[coarseSize];
+        for (int i = 0; i < size; i++) {
+            // keep the total area of the collapsed boxes
+            int p = parent[i];
+            double area = width[p] * height[p] + graph.width[i] * graph.height[i];
+            width[p] = Math.sqrt(area);
+            height[p] = width[p];
+        }
+        int[] from = new int[graph.adj.length];
+        int[] to = new int[graph.adj.length];
+        double[] weight = new double[graph.adj.length];
+        int edges = 0;
+        for (int i = 0; i < size; i++) {
+            for (int a = graph.adjStart[i]; a < graph.adjStart[i + 1]; a++) {
+                int j = graph.adj[a];
+                if (i >= j || parent[i] == parent[j])
+                    continue;
+                from[edges] = parent[i];
+                to[edges] = parent[j];
+                weight[edges++] = graph.adjWeight[a];
+            }
+        }
+        return new LayoutGraph<>(null, width, height, from, to, weight, edges);
+    }
+}
@@ -0,0 +1,85 @@
+/*
+MIT License
+
+Copyright (c) 2024 Max Kas
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.mku.liveuml.layout;
+
+import org.jungrapht.visualization.layout.model.LayoutModel;
+
+import java.awt.geom.Rectangle2D;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Force directed layout that relaxes in the background, the forces are computed in parallel
+ * and the intermediate positions are published to the layout model at a capped rate.
+ * Relaxation stops when the layout converges, the time budget runs out or the layout is cancelled.
+ */
+public class ProgressiveLayoutAlgorithm<V> extends BackgroundLayoutAlgorithm<V> {
+    private static final int MAX_ITERATIONS = 1000;
+    private static final long TIME_BUDGET_MS = 30000;
+    private static final long PUBLISH_INTERVAL_MS = 100;
+    private static final double CONVERGENCE = 0.01;
+
+    private final AtomicBoolean publishing = new AtomicBoolean();
+    private double k;
+    private double extent;
+
+    public ProgressiveLayoutAlgorithm(Function<V, Rectangle2D> bounds, ExecutorService executor) {
+        super(bounds, e -> true, executor, MultilevelLayout.GAP);
+    }
+
+    @Override
+    protected void start(LayoutModel<V> layoutModel, LayoutGraph<V> layoutGraph) {
+        k = MultilevelLayout.getSpringLength(layoutGraph);
+        extent = k * Math.sqrt(layoutGraph.size());
+        Random random = new Random(MultilevelLayout.SEED);
+        for (int i = 0; i < layoutGraph.size(); i++)
+            layoutGraph.setPosition(i, (random.nextDouble() - 0.5) * extent, (random.nextDouble() - 0.5) * extent);
+        layoutGraph.apply(layoutModel, MultilevelLayout.GAP);
+    }
+
+    @Override
+    protected void layout(LayoutModel<V> layoutModel, LayoutGraph<V> layoutGraph) {
+        ForceLayout forceLayout = new ForceLayout(layoutGraph, k);
+        forceLayout.setPool(ForkJoinPool.commonPool());
+        forceLayout.start(extent / 4, MAX_ITERATIONS);
+        long start = System.currentTimeMillis();
+        long lastPublish = start;
+        for (int i = 0; i < MAX_ITERATIONS && !isCancelled(); i++) {
+            double displacement = forceLayout.step();
+            long now = System.currentTimeMillis();
+            if (displacement < CONVERGENCE * k || now - start > TIME_BUDGET_MS)
+                break;
+            // intermediate positions are dropped while the previous ones are still pending
+            if (now - lastPublish > PUBLISH_INTERVAL_MS && publishing.compareAndSet(false, true)) {
+                publish(layoutModel, layoutGraph, false, () -> publishing.set(false));
+                lastPublish = now;
+            }
+        }
+        if (!isCancelled())
+            layoutGraph.removeOverlaps(MultilevelLayout.GAP / 2, 50);
+    }
+}
@@ -0,0 +1,182 @@
+/*
+MIT License
+
+Copyright (c) 2024 Max Kas
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.mku.liveuml.layout;
+
+import java.util.Arrays;
+
+/**
+ * Barnes-Hut quadtree over the vertex positions, nodes are kept in flat arrays
+ * so the tree can be rebuilt every iteration without allocating per node.
+ */
+class QuadTree {
+    private static final int EMPTY = -1;
+    private static final int INTERNAL = -2;
+    private static final int BUCKET = -3;
+    private static final int MAX_DEPTH = 32;
+
+    private int count;
+    private int[] body = new int[0];
+    private int[] children = new int[0];
+    private double[] mass = new double[0];
+    private double[] centerX = new double[0];
+    private double[] centerY = new double[0];
+    private double[] minX = new double[0];
+    private double[] minY = new double[0];
+    private double[] side = new double[0];
+
+    void build(double[] x, double[] y, double[] m, int size) {
+        count = 0;
+        if (size == 0)
+            return;
+        double x0 = Double.MAX_VALUE, y0 = Double.MAX_VALUE;
+        double x1 = -Double.MAX_VALUE, y1 = -Double.MAX_VALUE;
+        for (int i = 0; i < size; i++) {
+            x0 = Math.min(x0, x[i]);
+            y0 = Math.min(y0, y[i]);
+            x1 = Math.max(x1, x[i]);
+            y1 = Math.max(y1, y[i]);
+        }
+        newNode(x0, y0, Math.max(x1 - x0, y1 - y0) + 1);
+        for (int i = 0; i < size; i++)
+            insert(i, x[i], y[i], m[i], x, y, m);
+    }
+
+    private int newNode(double x, double y, double size) {
+        if (count == body.length) {
+            int capacity = Math.max(64, count * 2);
+            body = Arrays.copyOf(body, capacity);
+            children = Arrays.copyOf(children, capacity * 4);
+            mass = Arrays.copyOf(mass, capacity);
+            centerX = Arrays.copyOf(centerX, capacity);
+            centerY = Arrays.copyOf(centerY, capacity);
+            minX = Arrays.copyOf(minX, capacity);
+            minY = Arrays.copyOf(minY, capacity);
+            side = Arrays.copyOf(side, capacity);
+        }
+        int node = count++;
+        body[node] = EMPTY;
+        Arrays.fill(children, node * 4, node * 4 + 4, EMPTY);
+        mass[node] = 0;
+        centerX[node] = 0;
+        centerY[node] = 0;
+        minX[node] = x;
+        minY[node] = y;
+        side[node] = size;
+        return node;
+    }
+
+    private int getChild(int node, double px, double py) {
+        double half = side[node] / 2;
+        int quadrant = (px >= minX[node] + half ? 1 : 0) + (py >= minY[node] + half ? 2 : 0);
+        int child = children[node * 4 + quadrant];
+        if (child == EMPTY) {
+            child = newNode(minX[node] + (quadrant & 1) * half, minY[node] + (quadrant >> 1) * half, half);
+            children[node * 4 + quadrant] = child;
+        }
+        return child;
+    }
+
+    private void insert(int i, double px, double py, double pm, double[] x, double[] y, double[] m) {
+        int node = 0;
+        int depth = 0;
+        while (true) {
+            if (body[node] == EMPTY) {
+                body[node] = i;
+                mass[node] = pm;
+                centerX[node] = px;
+                centerY[node] = py;
+                return;
+            }
+            if (body[node] >= 0) {
+                if (depth >= MAX_DEPTH) {
+                    // coincident points, keep them together
+                    body[node] = BUCKET;
+                } else {
+                    int b = body[node];
+                    body[node] = INTERNAL;
+                    int child = getChild(node, x[b], y[b]);
+                    body[child] = b;
+                    mass[child] = m[b];
+                    centerX[child] = x[b];
+                    centerY[child] = y[b];
+                }
+            }
+            double total = mass[node] + pm;
+            centerX[node] = (centerX[node] * mass[node] + px * pm) / total;
+            centerY[node] = (centerY[node] * mass[node] + py * pm) / total;
+            mass[node] = total;
+            if (body[node] == BUCKET)
+                return;
+            node = getChild(node, px, py);
+            depth++;
+        }
+    }
+
+    /**
+     * Accumulate the approximate repulsion on vertex i into force[0], force[1].
+     * Repulsion is k2 * mi * mj / d along the line between the two vertices, for single vertices
+     * d is the gap between their boxes so overlapping boxes push each other away strongly.
+     */
+    void repulse(int i, double px, double py, double pm, double[] radius, double theta, double k2,
+                 double[] force, int[] stack) {
+        if (count == 0)
+            return;
+        double theta2 = theta * theta;
+        double fx = 0;
+        double fy = 0;
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            if (body[node] == i || mass[node] == 0)
+                continue;
+            double dx = px - centerX[node];
+            double dy = py - centerY[node];
+            double d2 = dx * dx + dy * dy;
+            if (body[node] == INTERNAL && side[node] * side[node] >= theta2 * d2) {
+                for (int c = node * 4; c < node * 4 + 4; c++) {
+                    if (children[c] != EMPTY)
+                        stack[top++] = children[c];
+                }
+                continue;
+            }
+            if (d2 < 1e-6)
+                continue;
+            double factor = k2 * pm * mass[node] / d2;
+            if (body[node] >= 0) {
+                double d = Math.sqrt(d2);
+                double gap = Math.max(d - radius[i] - radius[body[node]], d * 0.01);
+                factor = k2 * pm * mass[node] / (gap * d);
+            }
+            fx += dx * factor;
+            fy += dy * factor;
+        }
+        force[0] += fx;
+        force[1] += fy;
+    }
+
+    int getStackSize() {
+        return MAX_DEPTH * 4 + 4;
+    }
+}
@@ -0,0 +1,292 @@
+/*
+MIT License
+
+Copyright (c) 2024 Max Kas
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.mku.liveuml.model.diagram;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Token level scanner that finds the package and the class, interface and enum declarations
+ * of a source file without building a syntax tree. Nested and local types are reported with
+ * the names of their enclosing classes and interfaces, like the parents of the parsed declarations.
+ */
+public class JavaDeclarationScanner {
+    public enum Kind {
+        Class, Interface, Enum
+    }
+
+    public static class Declaration {
+        private final Kind kind;
+        private final String name;
+        private final List<String> parents;
+        private final boolean isAbstract;
+        private final int line;
+
+        private Declaration(Kind kind, String name, List<String> parents, boolean isAbstract, int line) {
+            this.kind = kind;
+            this.name = name;
+            this.parents = parents;
+            this.isAbstract = isAbstract;
+            this.line = line;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public List<String> getParents() {
+            return parents;
+        }
+
+        public boolean isAbstract() {
+            return isAbstract;
+        }
+
+        /**
+         * Get the line where the declaration starts including its annotations and modifiers
+         */
+        public int getLine() {
+            return line;
+        }
+    }
+
+    // a block opened by a brace, the name is set for the bodies of classes and interfaces
+    private static class Scope {
+        private final String parentName;
+
+        private Scope(String parentName) {
+            this.parentName = parentName;
+        }
+    }
+
+    private final String source;
+    private int pos;
+    private int line = 1;
+    private String packageName;
+    private final List<Declaration> declarations = new ArrayList<>();
+
+    private JavaDeclarationScanner(String source) {
+        this.source = source;
+    }
+
+    public static JavaDeclarationScanner scan(File file) throws IOException {
+        return scan(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+    }
+
+    public static JavaDeclarationScanner scan(String source) {
+        JavaDeclarationScanner scanner = new JavaDeclarationScanner(source);
+        scanner.scan();
+        return scanner;
+    }
+
+    /**
+     * Get the package name or null if the file has no package declaration
+     */
+    public String getPackageName() {
+        return packageName;
+    }
+
+    /**
+     * Get the declarations in the order they appear in the source
+     */
+    public List<Declaration> getDeclarations() {
+        return Collections.unmodifiableList(declarations);
+    }
+
+    private void scan() {
+        ArrayList<Scope> scopes = new ArrayList<>();
+        String previous = null;
+        // the first line of the current declaration with its annotations and modifiers
+        int headLine = -1;
+        boolean headAbstract = false;
+        int parens = 0;
+        // a declaration waiting for its body
+        Kind pendingKind = null;
+        String pendingName = null;
+        boolean pendingType = false;
+        int pendingLine = 0;
+        boolean pendingAbstract = false;
+        String token;
+        while ((token = nextToken()) != null) {
+            int tokenLine = line;
+            if (headLine < 0 && parens == 0)
+                headLine = tokenLine;
+            switch (token) {
+                case "(":
+                    parens++;
+                    break;
+                case ")":
+                    if (parens > 0)
+                        parens--;
+                    break;
+                case "{":
+                    if (pendingType) {
+                        scopes.add(new Scope(pendingKind == Kind.Class || pendingKind == Kind.Interface ? pendingName : null));
+                        if (pendingKind != null && pendingName != null) {
+                            declarations.add(new Declaration(pendingKind, pendingName, getParents(scopes, 1),
+                                    pendingAbstract, pendingLine));
+                        }
+                        pendingType = false;
+                    } else {
+                        scopes.add(new Scope(null));
+                    }
+                    if (parens == 0)
+                        headLine = -1;
+                    headAbstract = false;
+                    break;
+                case "}":
+                    if (!scopes.isEmpty())
+                        scopes.remove(scopes.size() - 1);
+                    if (parens == 0)
+                        headLine = -1;
+                    headAbstract = false;
+                    break;
+                case ";":
+                    if (parens == 0)
+                        headLine = -1;
+                    headAbstract = false;
+                    pendingType = false;
+                    break;
+                case "package":
+                    if (scopes.isEmpty() && !".".equals(previous)) {
+                        packageName = readQualifiedName();
+                        headLine = -1;
+                        headAbstract = false;
+                    }
+                    break;
+                case "abstract":
+                    headAbstract = true;
+                    break;
+                case "class":
+                case "interface":
+                case "enum":
+                    // class literals and annotation types are not declarations we report
+                    if (".".equals(previous) || "::".equals(previous))
+                        break;
+                    pendingType = true;
+                    pendingKind = "@".equals(previous) ? null
+                            : token.equals("enum") ? Kind.Enum
+                            : token.equals("interface") ? Kind.Interface : Kind.Class;
+                    pendingName = nextToken();
+                    pendingLine = headLine < 0 ? tokenLine : headLine;
+                    pendingAbstract = headAbstract;
+                    break;
+                default:
+                    break;
+            }
+            previous = token;
+        }
+    }
+
+    private static List<String> getParents(List<Scope> scopes, int skip) {
+        ArrayList<String> parents = new ArrayList<>();
+        for (int i = 0; i < scopes.size() - skip; i++) {
+            if (scopes.get(i).parentName != null)
+                parents.add(scopes.get(i).parentName);
+        }
+        return parents;
+    }
+
+    private String readQualifiedName() {
+        StringBuilder name = new StringBuilder();
+        String token;
+        while ((token = nextToken()) != null && !token.equals(";")) {
+            // annotations on the package are not part of the name
+            if (token.equals("@")) {
+                nextToken();
+                continue;
+            }
+            name.append(token);
+        }
+        return name.toString();
+    }
+
+    /**
+     * Get the next identifier, keyword or symbol skipping the white space, the comments
+     * and the literals, or null at the end of the source
+     */
+    private String nextToken() {
+        int length = source.length();
+        while (pos < length) {
+            char c = source.charAt(pos);
+            if (c == '\n') {
+                line++;
+                pos++;
+            } else if (Character.isWhitespace(c)) {
+                pos++;
+            } else if (c == '/' && pos + 1 < length && source.charAt(pos + 1) == '/') {
+                while (pos < length && source.charAt(pos) != '\n')
+                    pos++;
+            } else if (c == '/' && pos + 1 < length && source.charAt(pos + 1) == '*') {
+                pos += 2;
+                while (pos < length && !(source.charAt(pos) == '*' && pos + 1 < length && source.charAt(pos + 1) == '/')) {
+                    if (source.charAt(pos) == '\n')
+                        line++;
+                    pos++;
+                }
+                pos += 2;
+            } else if (c == '"' && source.startsWith("\"\"\"", pos)) {
+                pos += 3;
+                while (pos < length && !source.startsWith("\"\"\"", pos)) {
+                    // an escaped line end continues the line but still counts as a line of the source
+                    if (source.charAt(pos) == '\\')
+                        pos++;
+                    if (pos < length && source.charAt(pos) == '\n')
+                        line++;
+                    pos++;
+                }
+                pos += 3;
+            } else if (c == '"' || c == '\'') {
+                pos++;
+                while (pos < length && source.charAt(pos) != c && source.charAt(pos) != '\n') {
+                    if (source.charAt(pos) == '\\')
+                        pos++;
+                    pos++;
+                }
+                pos++;
+            } else if (Character.isJavaIdentifierStart(c) || Character.isDigit(c)) {
+                int start = pos;
+                while (pos < length && Character.isJavaIdentifierPart(source.charAt(pos)))
+                    pos++;
+                return source.substring(start, pos);
+            } else if (c == ':' && pos + 1 < length && source.charAt(pos + 1) == ':') {
+                pos += 2;
+                return "::";
+            } else {
+                pos++;
+                return String.valueOf(c);
+            }
+        }
+        return null;
+    }
+}
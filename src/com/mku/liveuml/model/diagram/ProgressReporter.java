@@ -0,0 +1,101 @@
+/*
+MIT License
+
+Copyright (c) 2024 Max Kas
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.mku.liveuml.model.diagram;
+
+/**
+ * Progress of a long running task, the worker only updates a few volatile fields per step
+ * and the UI polls the status at its own rate so many steps are coalesced into one update.
+ */
+public class ProgressReporter {
+    private static class Phase {
+        private final String name;
+        private final int total;
+        private final long startTime = System.nanoTime();
+
+        private Phase(String name, int total) {
+            this.name = name;
+            this.total = total;
+        }
+    }
+
+    private volatile Phase phase;
+    // written by the worker thread only
+    private volatile int done;
+    private volatile String item;
+
+    /**
+     * Start a new phase, the total is the number of expected steps or 0 if not known
+     */
+    public void startPhase(String name, int total) {
+        done = 0;
+        item = null;
+        phase = new Phase(name, total);
+    }
+
+    public void step(String item) {
+        this.item = item;
+        done++;
+    }
+
+    public void finish() {
+        phase = null;
+        item = null;
+    }
+
+    public boolean isActive() {
+        return phase != null;
+    }
+
+    /**
+     * Get the phase, files done and total, throughput and remaining time or null if not active
+     */
+    public String getStatus() {
+        Phase phase = this.phase;
+        if (phase == null)
+            return null;
+        int done = this.done;
+        String item = this.item;
+        StringBuilder status = new StringBuilder(phase.name).append(": ").append(done);
+        if (phase.total > 0)
+            status.append("/").append(phase.total);
+        status.append(" files");
+        double seconds = (System.nanoTime() - phase.startTime) / 1e9;
+        if (seconds >= 1 && done > 0) {
+            double rate = done / seconds;
+            status.append(", ").append(Math.round(rate)).append(" files/s");
+            if (phase.total > done)
+                status.append(", ETA ").append(formatTime((phase.total - done) / rate));
+        }
+        if (item != null)
+            status.append(" - ").append(item);
+        return status.toString();
+    }
+
+    private static String formatTime(double seconds) {
+        long time = Math.round(Math.ceil(seconds));
+        if (time < 60)
+            return time + "s";
+        return (time / 60) + "m " + (time % 60) + "s";
+    }
+}
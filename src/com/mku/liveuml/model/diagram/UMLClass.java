@@ -86,6 +86,10 @@ public abstract class UMLClass {
         }
     }
 
+    public Method getMethod(String signature) {
+        return methods.get(signature);
+    }
+
     public List<Field> getFields() {
         return new ArrayList<>(fields.values());
     }
@@ -96,6 +100,10 @@ public abstract class UMLClass {
             this.fields.put(field.getName(), field);
     }
 
+    public Field getField(String name) {
+        return fields.get(name);
+    }
+
     public List<EnumConstant> getEnumConstants() {
         return new ArrayList<>(enumConstants.values());
     }
@@ -106,6 +114,10 @@ public abstract class UMLClass {
             this.enumConstants.put(enumConst.getName(), enumConst);
     }
 
+    public EnumConstant getEnumConstant(String name) {
+        return enumConstants.get(name);
+    }
+
     public int getLine() {
         return line;
     }
@@ -42,6 +42,13 @@ public class UMLClassFactory {
         String[] classParts = className.split(Pattern.quote("$"));
         List<String> parents = new ArrayList<>(Arrays.asList(classParts).subList(0, classParts.length - 1));
         className = classParts[classParts.length - 1];
+        UMLClass obj = create(type, className);
+        obj.setPackageName(packageName);
+        obj.setParents(parents);
+        return obj;
+    }
+
+    public static UMLClass create(UMLClassType type, String className) {
         UMLClass obj = null;
         switch (type) {
             case Class:
@@ -59,8 +66,6 @@ public class UMLClassFactory {
         }
         if (obj == null)
             throw new RuntimeException("Unknown UML class type");
-        obj.setPackageName(packageName);
-        obj.setParents(parents);
         return obj;
     }
 }
@@ -0,0 +1,133 @@
+/*
+MIT License
+
+Copyright (c) 2024 Max Kas
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.mku.liveuml.model.diagram;
+
+import com.google.gson.Gson;
+import com.mku.liveuml.model.entities.EnumConstant;
+import com.mku.liveuml.model.entities.Field;
+import com.mku.liveuml.model.entities.Method;
+
+import java.util.*;
+
+/**
+ * Finds the classes of a new parse that are the same as in the current model so the refresh
+ * can keep their instances. A class is kept only if its members and relationships are unchanged
+ * and all the classes it is related to are kept too, so the kept classes never point to new instances.
+ */
+class UMLClassMatcher {
+    private static final Gson gson = new Gson();
+
+    /**
+     * Get the parsed classes that can be replaced by their instance in the current model,
+     * the keys are the parsed instances
+     */
+    static Map<UMLClass, UMLClass> findUnchanged(UMLModel current, Collection<UMLClass> parsed) {
+        HashMap<String, UMLClass> parsedByName = new HashMap<>();
+        for (UMLClass obj : parsed)
+            parsedByName.put(obj.toString(), obj);
+
+        HashMap<UMLClass, UMLClass> unchanged = new HashMap<>();
+        for (UMLClass obj : parsed) {
+            UMLClass old = current.getClassByName(obj.toString());
+            if (old != null && old != obj && getSignature(old).equals(getSignature(obj)))
+                unchanged.put(obj, old);
+        }
+
+        // drop the classes related to a class that changed until none is left
+        ArrayDeque<UMLClass> changed = new ArrayDeque<>();
+        for (UMLClass obj : parsed) {
+            if (!unchanged.containsKey(obj))
+                changed.add(obj);
+        }
+        while (!changed.isEmpty()) {
+            UMLClass obj = changed.poll();
+            for (UMLRelationship rel : obj.getRelationships().values()) {
+                for (UMLClass end : new UMLClass[]{rel.getFrom(), rel.getTo()}) {
+                    UMLClass neighbor = parsedByName.get(end.toString());
+                    if (neighbor != null && unchanged.remove(neighbor) != null)
+                        changed.add(neighbor);
+                }
+            }
+        }
+        return unchanged;
+    }
+
+    private static String getSignature(UMLClass obj) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(obj.getClass().getSimpleName()).append(' ').append(obj)
+                .append('|').append(obj.getFileSource())
+                .append('|').append(obj.getFilePath())
+                .append('|').append(obj.getLine())
+                .append('|').append(obj.getAccessModifiers())
+                .append('|').append(obj.getModifiers())
+                .append('|').append(gson.toJson(obj.getTypeParameters()));
+        appendSorted(sb, obj.getFields(), Field::getName);
+        appendSorted(sb, obj.getMethods(), Method::getSignature);
+        appendSorted(sb, obj.getEnumConstants(), EnumConstant::getName);
+
+        TreeMap<String, UMLRelationship> rels = new TreeMap<>(obj.getRelationships());
+        for (UMLRelationship rel : rels.values()) {
+            sb.append('|').append(rel)
+                    .append(getMembers(rel.getMethodsAccessedByMethods()))
+                    .append(getMembers(rel.getMethodsAccesingMethods()))
+                    .append(getMembers(rel.getFieldsAccessedByMethods()))
+                    .append(getMembers(rel.getMethodsAccessingFields()))
+                    .append(getMembers(rel.getEnumsAccessedByMethods()))
+                    .append(getMembers(rel.getMethodsAccessingEnums()))
+                    .append(getMembers(rel.getMethodsAccessingClass()))
+                    .append(getMembers(rel.getFieldsAccessingClass()));
+        }
+        return sb.toString();
+    }
+
+    private static <T> void appendSorted(StringBuilder sb, List<T> members, java.util.function.Function<T, String> key) {
+        members.sort(Comparator.comparing(key, Comparator.nullsFirst(Comparator.naturalOrder())));
+        for (T member : members)
+            sb.append('|').append(member.getClass().getSimpleName()).append(gson.toJson(member));
+    }
+
+    private static String getMembers(Map<?, ? extends Collection<?>> members) {
+        TreeMap<String, Collection<String>> names = new TreeMap<>();
+        for (Map.Entry<?, ? extends Collection<?>> entry : members.entrySet())
+            names.put(getMemberName(entry.getKey()), getMembers(entry.getValue()));
+        return names.toString();
+    }
+
+    private static Collection<String> getMembers(Collection<?> members) {
+        TreeSet<String> names = new TreeSet<>();
+        for (Object member : members)
+            names.add(getMemberName(member));
+        return names;
+    }
+
+    private static String getMemberName(Object member) {
+        if (member instanceof Method)
+            return ((Method) member).getOwner() + "." + ((Method) member).getSignature();
+        if (member instanceof Field)
+            return ((Field) member).getOwner() + "." + ((Field) member).getName();
+        if (member instanceof EnumConstant)
+            return ((EnumConstant) member).getOwner() + "." + ((EnumConstant) member).getName();
+        return String.valueOf(member);
+    }
+}
@@ -39,47 +39,47 @@ import org.jgrapht.util.SupplierUtil;
 
 import java.io.File;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 public class UMLDiagram {
     private HashSet<String> sources = new HashSet<>();
     private ReflectionTypeSolver reflectionTypeSolver;
     private CombinedTypeSolver combinedSolver;
-    private Graph<UMLClass, UMLRelationship> graph;
     private final UMLFinder finder;
     private ParserConfiguration parserConfiguration;
-    private HashMap<String, UMLClass> vertices;
-    private final HashSet<UMLClass> selectedVertices = new HashSet<>();
-    private final HashSet<UMLRelationship> selectedEdges = new HashSet<>();
-    private final HashSet<Method> selectedMethods = new HashSet<>();
-    private final HashSet<Field> selectedFields = new HashSet<>();
-    private final HashSet<EnumConstant> selectedEnumConsts = new HashSet<>();
-    private final HashSet<UMLClass> classes = new HashSet<>();
+    // replaced as a whole, never modified in place
+    private final AtomicReference<UMLModel> model = new AtomicReference<>();
+    private Consumer<UMLModelChange> onModelChange;
+    private ImportProfile importProfile = ImportProfile.Full;
 
-    public HashSet<UMLClass> getSelectedVertices() {
-        return selectedVertices;
+    public UMLModel getModel() {
+        return model.get();
     }
 
-    public HashSet<UMLRelationship> getSelectedEdges() {
-        return selectedEdges;
+    public UMLSelection getSelection() {
+        return model.get().getSelection();
     }
 
-    public HashSet<Method> getSelectedMethods() {
-        return selectedMethods;
+    public Set<Method> getSelectedMethods() {
+        return getSelection().getMarkedMethods();
     }
 
-    public HashSet<Field> getSelectedFields() {
-        return selectedFields;
+    public Set<Field> getSelectedFields() {
+        return getSelection().getMarkedFields();
     }
 
-    public HashSet<EnumConstant> getSelectedEnumConsts() {
-        return selectedEnumConsts;
+    public Set<EnumConstant> getSelectedEnumConsts() {
+        return getSelection().getMarkedEnumConsts();
     }
+
     public HashSet<String> getSources() {
         return sources;
     }
 
-    public HashSet<UMLClass> getClasses() {
-        return new HashSet<>(classes);
+    public Set<UMLClass> getClasses() {
+        return model.get().getClasses();
     }
 
     public void setSources(HashSet<String> sources) {
@@ -87,11 +87,9 @@ public class UMLDiagram {
     }
 
     public UMLParser getParser() {
-        return parser;
+        return model.get().getParser();
     }
 
-    private UMLParser parser;
-
     public String getFilepath() {
         return filepath;
     }
@@ -104,9 +102,8 @@ public class UMLDiagram {
     }
 
     public UMLDiagram(UMLParser parser) {
-        this.parser = parser;
         this.finder = new UMLFinder();
-        createGraph();
+        model.set(new UMLModel(createGraph(), parser));
     }
 
     private void setupFolder(File sourceFolder) {
@@ -122,32 +119,58 @@ public class UMLDiagram {
         StaticJavaParser.setConfiguration(parserConfiguration);
     }
 
-    public void createGraph() {
-        graph = GraphTypeBuilder.<UMLClass, UMLRelationship>forGraphType(DefaultGraphType.directedMultigraph())
+    public static Graph<UMLClass, UMLRelationship> createGraph() {
+        return GraphTypeBuilder.<UMLClass, UMLRelationship>forGraphType(DefaultGraphType.directedMultigraph())
                 .edgeSupplier(SupplierUtil.createSupplier(UMLRelationship.class))
                 .buildGraph();
     }
 
-    public void addClasses(List<UMLClass> umlClasses) {
-        if (graph == null)
-            createGraph();
+    private static Graph<UMLClass, UMLRelationship> createGraph(Collection<UMLClass> umlClasses) {
+        Graph<UMLClass, UMLRelationship> graph = createGraph();
         for (UMLClass obj : umlClasses) {
             graph.addVertex(obj);
         }
         updateRelationships(umlClasses, graph);
+        return graph;
     }
 
-    public void updateVertices(HashMap<String, UMLClass> vertices) {
-        this.vertices = vertices;
+    /**
+     * Publish a graph read from a file, the relationships are linked to their classes
+     * and the graph must not be modified afterwards
+     */
+    public void load(Graph<UMLClass, UMLRelationship> graph, HashMap<String, UMLClass> vertices) {
         for (UMLRelationship rel : graph.edgeSet()) {
             UMLClass from = vertices.getOrDefault(rel.getFrom().toString(), null);
             UMLClass to = vertices.getOrDefault(rel.getTo().toString(), null);
             from.getRelationships().put(rel.toString(), rel);
             to.getRelationships().put(rel.toString(), rel);
         }
+        publish(new UMLModel(graph, model.get().getParser()));
     }
 
-    public void updateRelationships(List<UMLClass> umlClasses, Graph<UMLClass, UMLRelationship> graph) {
+    /**
+     * Replace the model and notify the listener with the difference from the previous one,
+     * the listener is called on the thread that publishes the model
+     */
+    private void publish(UMLModel next) {
+        notifyModelChange(model.getAndSet(next), next);
+    }
+
+    private void notifyModelChange(UMLModel previous, UMLModel next) {
+        Consumer<UMLModelChange> listener = onModelChange;
+        if (listener != null)
+            listener.accept(UMLModelChange.compute(previous, next));
+    }
+
+    public void setOnModelChange(Consumer<UMLModelChange> onModelChange) {
+        this.onModelChange = onModelChange;
+    }
+
+    public void removeOnModelChange() {
+        this.onModelChange = null;
+    }
+
+    private static void updateRelationships(Collection<UMLClass> umlClasses, Graph<UMLClass, UMLRelationship> graph) {
         for (UMLClass obj : umlClasses) {
             for (Map.Entry<String, UMLRelationship> rel : obj.getRelationships().entrySet()) {
                 if (rel.getValue().getFrom() == rel.getValue().getTo())
@@ -165,34 +188,42 @@ public class UMLDiagram {
     }
 
     public Graph<UMLClass, UMLRelationship> getGraph() {
-        return this.graph;
+        return model.get().getGraph();
+    }
+
+    /**
+     * Get a copy of the diagram that keeps the current model so it can be saved in the background
+     * while the diagram changes, the model is immutable so it is shared with this diagram
+     */
+    public UMLDiagram snapshot() {
+        UMLDiagram snapshot = new UMLDiagram(filepath, null);
+        snapshot.model.set(model.get());
+        snapshot.setSources(new HashSet<>(sources));
+        return snapshot;
+    }
+
+    public UMLNeighborhood getNeighborhood() {
+        return model.get().getNeighborhood();
     }
 
     public void clear() {
-        graph = null;
-        classes.clear();
         reflectionTypeSolver = null;
-        parser.clear();
+        publish(new UMLModel(createGraph(), model.get().getParser().newParser()));
     }
 
     public UMLClass getClassByName(String name) {
-        if (vertices == null)
-            return null;
-        return vertices.getOrDefault(name, null);
+        return model.get().getClassByName(name);
     }
 
     public void clearSelections() {
-        getSelectedEnumConsts().clear();
-        getSelectedFields().clear();
-        getSelectedMethods().clear();
-        getSelectedEdges().clear();
-        getSelectedVertices().clear();
+        getSelection().clearMarked();
     }
 
     public UMLClass getOwnerByName(String owner) {
-        UMLClass cls = getParser().getClassByName(owner);
+        UMLModel model = this.model.get();
+        UMLClass cls = model.getParser().getClassByName(owner);
         if (cls == null) {
-            cls = getClassByName(owner);
+            cls = model.getClassByName(owner);
         }
         return cls;
     }
@@ -201,53 +232,116 @@ public class UMLDiagram {
         this.filepath = filepath;
     }
 
+    /**
+     * Parse the sources into a new model and publish it once complete,
+     * the current model stays usable while the sources are parsed
+     */
     public void refresh() {
         HashSet<String> compactClasses = getCompactClasses();
-        clear();
+        UMLParser parser = model.get().getParser().newParser();
+        reflectionTypeSolver = null;
         for(String source : sources) {
             File dir = new File(source);
             setupFolder(dir);
         }
 
-        // we need to do 2 passes to resolve all missing deps
-        HashMap<String, HashSet<UMLClass>> parsedDirClasses = new HashMap<>();
-        for(String source : sources) {
-            File dir = new File(source);
-            HashSet<UMLClass> parsedClasses = parser.getClasses(dir);
-            for (UMLClass obj : parsedClasses) {
-                obj.setFileSource(dir.getAbsolutePath());
+        ProgressReporter progress = parser.getProgress();
+        int files = 0;
+        for(String source : sources)
+            files += UMLParser.countSources(new File(source));
+
+        try {
+            // we need to do 2 passes to resolve all missing deps
+            HashSet<UMLClass> classes = new HashSet<>();
+            HashMap<String, HashSet<UMLClass>> parsedDirClasses = new HashMap<>();
+            progress.startPhase("Reading classes", files);
+            for(String source : sources) {
+                File dir = new File(source);
+                HashSet<UMLClass> parsedClasses = parser.getClasses(dir);
+                for (UMLClass obj : parsedClasses) {
+                    obj.setFileSource(dir.getAbsolutePath());
+                }
+                parsedDirClasses.put(dir.getAbsolutePath(), parsedClasses);
+                classes.addAll(parsedClasses);
             }
-            parsedDirClasses.put(dir.getAbsolutePath(), parsedClasses);
-            this.classes.addAll(parsedClasses);
-        }
-        for(String source : sources) {
-            File dir = new File(source);
-            parser.getObjectsAttrs(parsedDirClasses.get(dir.getAbsolutePath()), dir);
-        }
-        for(String source : sources) {
-            File dir = new File(source);
-            parser.parseDependencies(dir);
-        }
-        parser.resolveDependencies(classes);
-        addClasses(new ArrayList<>(classes));
+            progress.startPhase("Reading members", files);
+            for(String source : sources) {
+                File dir = new File(source);
+                parser.getObjectsAttrs(parsedDirClasses.get(dir.getAbsolutePath()), dir);
+            }
+            // the fast profile analyzes the method bodies later for the classes that are used
+            if (importProfile == ImportProfile.Full) {
+                progress.startPhase("Parsing dependencies", files);
+                for(String source : sources) {
+                    File dir = new File(source);
+                    parser.parseDependencies(dir);
+                }
+            }
+            parser.resolveDependencies(classes);
 
-        for(UMLClass object : classes) {
-            if(compactClasses.contains(object.toString()))
-                object.setCompact(true);
+            for(UMLClass object : classes) {
+                if(compactClasses.contains(object.toString()))
+                    object.setCompact(true);
+            }
+            // keep the instances of the classes that did not change so the published change
+            // and the work of the views follow only what was parsed differently
+            Map<UMLClass, UMLClass> unchanged = UMLClassMatcher.findUnchanged(model.get(), classes);
+            parser.reuseClasses(unchanged);
+            for (Map.Entry<UMLClass, UMLClass> entry : unchanged.entrySet()) {
+                classes.remove(entry.getKey());
+                classes.add(entry.getValue());
+            }
+            publish(new UMLModel(createGraph(classes), parser));
+        } finally {
+            progress.finish();
         }
     }
 
     private HashSet<String> getCompactClasses() {
         HashSet<String> compactClasses = new HashSet<>();
-        for(UMLClass object : this.classes)
+        for(UMLClass object : getClasses())
             if(object.isCompact())
                 compactClasses.add(object.toString());
         return compactClasses;
     }
 
-    public void setClasses(Set<UMLClass> vertexSet) {
-        classes.clear();
-        classes.addAll(vertexSet);
+    public ImportProfile getImportProfile() {
+        return importProfile;
+    }
+
+    public void setImportProfile(ImportProfile importProfile) {
+        this.importProfile = importProfile;
+    }
+
+    /**
+     * Analyze the method bodies of the classes that the fast import profile skipped, the files
+     * are parsed on the calling thread and the relationships found are added by the applier
+     * on the thread that reads the classes. The graph with the new relationships is then built
+     * and published on the calling thread. Returns true if new relationships were added.
+     */
+    public boolean analyzeDependencies(Collection<UMLClass> classes, Consumer<Runnable> applier) {
+        UMLModel current = model.get();
+        if (current.getParser() == null)
+            return false;
+        List<Runnable> updates = current.getParser().parseDependencies(classes);
+        if (updates.isEmpty())
+            return false;
+        AtomicBoolean applied = new AtomicBoolean();
+        applier.accept(() -> {
+            // the classes were parsed again in the meantime
+            if (model.get() != current)
+                return;
+            for (Runnable update : updates)
+                update.run();
+            applied.set(true);
+        });
+        if (!applied.get())
+            return false;
+        UMLModel next = current.withGraph(createGraph(current.getClasses()));
+        if (!model.compareAndSet(current, next))
+            return false;
+        notifyModelChange(current, next);
+        return true;
     }
 
     public UMLFinder getFinder() {
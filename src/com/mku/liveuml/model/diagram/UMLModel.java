@@ -0,0 +1,107 @@
+/*
+MIT License
+
+Copyright (c) 2024 Max Kas
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.mku.liveuml.model.diagram;
+
+import org.jgrapht.Graph;
+import org.jgrapht.graph.AsUnmodifiableGraph;
+
+import java.util.*;
+
+/**
+ * Immutable state of a diagram, the class graph with its lookups.
+ * A new model is built for every import or refresh and published as a whole
+ * so readers always see a consistent diagram without locking.
+ */
+public final class UMLModel {
+    private final Graph<UMLClass, UMLRelationship> graph;
+    private final Set<UMLClass> classes;
+    private final Map<String, UMLClass> vertices;
+    private final UMLParser parser;
+    private final UMLSelection selection;
+    private volatile UMLNeighborhood neighborhood;
+
+    /**
+     * Create a model that takes over the graph, the graph must not be modified afterwards
+     */
+    UMLModel(Graph<UMLClass, UMLRelationship> graph, UMLParser parser) {
+        this(graph, parser, new UMLSelection());
+        // the ids are kept by the new selection, the instances shared with the previous model are not modified
+        for (UMLClass obj : graph.vertexSet())
+            selection.register(obj);
+        for (UMLRelationship rel : graph.edgeSet())
+            selection.register(rel);
+    }
+
+    private UMLModel(Graph<UMLClass, UMLRelationship> graph, UMLParser parser, UMLSelection selection) {
+        HashSet<UMLClass> classes = new HashSet<>();
+        HashMap<String, UMLClass> vertices = new HashMap<>();
+        for (UMLClass obj : graph.vertexSet()) {
+            classes.add(obj);
+            vertices.put(obj.toString(), obj);
+        }
+        this.selection = selection;
+        this.graph = new AsUnmodifiableGraph<>(graph);
+        this.classes = Collections.unmodifiableSet(classes);
+        this.vertices = Collections.unmodifiableMap(vertices);
+        this.parser = parser;
+    }
+
+    /**
+     * Create a model with the same classes and more relationships, the selection is kept
+     * and the new relationships get their ids when they are first selected
+     */
+    UMLModel withGraph(Graph<UMLClass, UMLRelationship> graph) {
+        return new UMLModel(graph, parser, selection);
+    }
+
+    public Graph<UMLClass, UMLRelationship> getGraph() {
+        return graph;
+    }
+
+    public Set<UMLClass> getClasses() {
+        return classes;
+    }
+
+    public UMLClass getClassByName(String name) {
+        return vertices.getOrDefault(name, null);
+    }
+
+    public UMLParser getParser() {
+        return parser;
+    }
+
+    public UMLSelection getSelection() {
+        return selection;
+    }
+
+    public UMLNeighborhood getNeighborhood() {
+        // built from the immutable graph so concurrent callers get equivalent instances
+        UMLNeighborhood neighborhood = this.neighborhood;
+        if (neighborhood == null) {
+            neighborhood = new UMLNeighborhood(graph);
+            this.neighborhood = neighborhood;
+        }
+        return neighborhood;
+    }
+}
@@ -0,0 +1,108 @@
+/*
+MIT License
+
+Copyright (c) 2024 Max Kas
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.mku.liveuml.model.diagram;
+
+import java.util.*;
+
+/**
+ * Difference between two published models, classes are matched by their full name
+ * so a class that was parsed again is reported as changed with its old and new instance.
+ * The refresh keeps the instances of the classes that did not change so they are not reported.
+ */
+public class UMLModelChange {
+    private final UMLModel oldModel;
+    private final UMLModel newModel;
+    private final List<UMLClass> addedClasses = new ArrayList<>();
+    private final List<UMLClass> removedClasses = new ArrayList<>();
+    private final Map<UMLClass, UMLClass> changedClasses = new HashMap<>();
+    private final List<UMLRelationship> addedRelationships = new ArrayList<>();
+    private final List<UMLRelationship> removedRelationships = new ArrayList<>();
+
+    private UMLModelChange(UMLModel oldModel, UMLModel newModel) {
+        this.oldModel = oldModel;
+        this.newModel = newModel;
+    }
+
+    public static UMLModelChange compute(UMLModel oldModel, UMLModel newModel) {
+        UMLModelChange change = new UMLModelChange(oldModel, newModel);
+        for (UMLClass obj : newModel.getClasses()) {
+            if (oldModel.getClasses().contains(obj))
+                continue;
+            UMLClass oldObj = oldModel.getClassByName(obj.toString());
+            if (oldObj != null)
+                change.changedClasses.put(oldObj, obj);
+            else
+                change.addedClasses.add(obj);
+        }
+        for (UMLClass obj : oldModel.getClasses()) {
+            if (!newModel.getClasses().contains(obj) && newModel.getClassByName(obj.toString()) == null)
+                change.removedClasses.add(obj);
+        }
+        for (UMLRelationship rel : newModel.getGraph().edgeSet()) {
+            if (!oldModel.getGraph().containsEdge(rel))
+                change.addedRelationships.add(rel);
+        }
+        for (UMLRelationship rel : oldModel.getGraph().edgeSet()) {
+            if (!newModel.getGraph().containsEdge(rel))
+                change.removedRelationships.add(rel);
+        }
+        return change;
+    }
+
+    public UMLModel getOldModel() {
+        return oldModel;
+    }
+
+    public UMLModel getNewModel() {
+        return newModel;
+    }
+
+    public List<UMLClass> getAddedClasses() {
+        return addedClasses;
+    }
+
+    public List<UMLClass> getRemovedClasses() {
+        return removedClasses;
+    }
+
+    /**
+     * Get the classes that were replaced by a new instance, the keys are the old instances
+     */
+    public Map<UMLClass, UMLClass> getChangedClasses() {
+        return changedClasses;
+    }
+
+    public List<UMLRelationship> getAddedRelationships() {
+        return addedRelationships;
+    }
+
+    public List<UMLRelationship> getRemovedRelationships() {
+        return removedRelationships;
+    }
+
+    public boolean isEmpty() {
+        return addedClasses.isEmpty() && removedClasses.isEmpty() && changedClasses.isEmpty()
+                && addedRelationships.isEmpty() && removedRelationships.isEmpty();
+    }
+}
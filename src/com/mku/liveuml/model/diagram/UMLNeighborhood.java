@@ -0,0 +1,121 @@
+/*
+MIT License
+
+Copyright (c) 2024 Max Kas
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.mku.liveuml.model.diagram;
+
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultGraphType;
+import org.jgrapht.graph.builder.GraphTypeBuilder;
+import org.jgrapht.util.SupplierUtil;
+
+import java.util.*;
+
+/**
+ * Indexed adjacency of a class graph for extracting the neighborhood of a set of classes,
+ * relationships are followed in both directions.
+ */
+public class UMLNeighborhood {
+    private final UMLClass[] vertices;
+    private final UMLRelationship[] edges;
+    private final HashMap<UMLClass, Integer> index = new HashMap<>();
+    private final int[] edgeFrom;
+    private final int[] edgeTo;
+    private final int[] adjStart;
+    private final int[] adjEdges;
+
+    public UMLNeighborhood(Graph<UMLClass, UMLRelationship> graph) {
+        vertices = graph.vertexSet().toArray(new UMLClass[0]);
+        edges = graph.edgeSet().toArray(new UMLRelationship[0]);
+        for (int i = 0; i < vertices.length; i++)
+            index.put(vertices[i], i);
+        edgeFrom = new int[edges.length];
+        edgeTo = new int[edges.length];
+        adjStart = new int[vertices.length + 1];
+        for (int e = 0; e < edges.length; e++) {
+            edgeFrom[e] = index.get(graph.getEdgeSource(edges[e]));
+            edgeTo[e] = index.get(graph.getEdgeTarget(edges[e]));
+            adjStart[edgeFrom[e] + 1]++;
+            adjStart[edgeTo[e] + 1]++;
+        }
+        for (int i = 0; i < vertices.length; i++)
+            adjStart[i + 1] += adjStart[i];
+        adjEdges = new int[adjStart[vertices.length]];
+        int[] fill = Arrays.copyOf(adjStart, vertices.length);
+        for (int e = 0; e < edges.length; e++) {
+            adjEdges[fill[edgeFrom[e]]++] = e;
+            adjEdges[fill[edgeTo[e]]++] = e;
+        }
+    }
+
+    /**
+     * Get the subgraph induced by the classes within the hops from the roots,
+     * only the relationships with the given types are followed and kept.
+     */
+    public Graph<UMLClass, UMLRelationship> getSubgraph(Collection<UMLClass> roots, int hops,
+                                                        Set<UMLRelationshipType> types) {
+        int[] distance = new int[vertices.length];
+        Arrays.fill(distance, -1);
+        int[] queue = new int[vertices.length];
+        int head = 0, tail = 0;
+        for (UMLClass root : roots) {
+            Integer i = index.get(root);
+            if (i != null && distance[i] < 0) {
+                distance[i] = 0;
+                queue[tail++] = i;
+            }
+        }
+        while (head < tail) {
+            int v = queue[head++];
+            if (distance[v] >= hops)
+                continue;
+            for (int a = adjStart[v]; a < adjStart[v + 1]; a++) {
+                int e = adjEdges[a];
+                if (!types.contains(edges[e].getType()))
+                    continue;
+                int u = edgeFrom[e] == v ? edgeTo[e] : edgeFrom[e];
+                if (distance[u] < 0) {
+                    distance[u] = distance[v] + 1;
+                    queue[tail++] = u;
+                }
+            }
+        }
+
+        Graph<UMLClass, UMLRelationship> subgraph = GraphTypeBuilder
+                .<UMLClass, UMLRelationship>forGraphType(DefaultGraphType.directedMultigraph())
+                .edgeSupplier(SupplierUtil.createSupplier(UMLRelationship.class))
+                .buildGraph();
+        for (int q = 0; q < tail; q++)
+            subgraph.addVertex(vertices[queue[q]]);
+        for (int q = 0; q < tail; q++) {
+            int v = queue[q];
+            for (int a = adjStart[v]; a < adjStart[v + 1]; a++) {
+                int e = adjEdges[a];
+                // add each relationship once from its source
+                if (edgeFrom[e] != v || distance[edgeTo[e]] < 0 || !types.contains(edges[e].getType()))
+                    continue;
+                subgraph.addEdge(vertices[v], vertices[edgeTo[e]], edges[e]);
+            }
+        }
+        return subgraph;
+    }
+}
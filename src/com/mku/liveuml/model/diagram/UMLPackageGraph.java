@@ -0,0 +1,184 @@
+/*
+MIT License
+
+Copyright (c) 2024 Max Kas
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.mku.liveuml.model.diagram;
+
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultGraphType;
+import org.jgrapht.graph.builder.GraphTypeBuilder;
+import org.jgrapht.util.SupplierUtil;
+
+import java.util.*;
+
+/**
+ * Package level view of the class graph, each package prefix up to the depth becomes
+ * a super node and the class relationships are aggregated into package relationships.
+ * The aggregation is updated incrementally from the class graph and the package graph is cached.
+ */
+public class UMLPackageGraph {
+    public static final String DEFAULT_PACKAGE = "(default)";
+
+    private int depth;
+    private final HashMap<String, UMLPackage> packages = new HashMap<>();
+    private final HashMap<UMLClass, UMLPackage> owners = new HashMap<>();
+    private final HashMap<String, UMLPackageRelationship> relationships = new HashMap<>();
+    private final HashSet<UMLRelationship> aggregated = new HashSet<>();
+    private Graph<UMLClass, UMLRelationship> graph;
+
+    public UMLPackageGraph(int depth) {
+        this.depth = depth;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public void setDepth(int depth) {
+        if (this.depth == depth)
+            return;
+        this.depth = depth;
+        clear();
+    }
+
+    public void clear() {
+        packages.clear();
+        owners.clear();
+        relationships.clear();
+        aggregated.clear();
+        graph = null;
+    }
+
+    public static String getPackagePrefix(String packageName, int depth) {
+        if (packageName == null || packageName.length() == 0)
+            return DEFAULT_PACKAGE;
+        int index = -1;
+        for (int i = 0; i < depth; i++) {
+            index = packageName.indexOf('.', index + 1);
+            if (index < 0)
+                return packageName;
+        }
+        return packageName.substring(0, index);
+    }
+
+    /**
+     * Apply the classes and relationships that were added or removed since the last update.
+     */
+    public void update(Graph<UMLClass, UMLRelationship> classGraph) {
+        for (UMLRelationship rel : new ArrayList<>(aggregated)) {
+            if (!classGraph.containsEdge(rel))
+                removeRelationship(rel);
+        }
+        for (UMLClass object : new ArrayList<>(owners.keySet())) {
+            if (!classGraph.containsVertex(object))
+                removeClass(object);
+        }
+        for (UMLClass object : classGraph.vertexSet()) {
+            if (!owners.containsKey(object))
+                addClass(object);
+        }
+        for (UMLRelationship rel : classGraph.edgeSet()) {
+            if (!aggregated.contains(rel))
+                addRelationship(rel);
+        }
+    }
+
+    private void addClass(UMLClass object) {
+        String prefix = getPackagePrefix(object.getPackageName(), depth);
+        UMLPackage pkg = packages.get(prefix);
+        if (pkg == null) {
+            pkg = new UMLPackage(prefix);
+            packages.put(prefix, pkg);
+        }
+        pkg.addMember(object);
+        owners.put(object, pkg);
+        graph = null;
+    }
+
+    private void removeClass(UMLClass object) {
+        UMLPackage pkg = owners.remove(object);
+        pkg.removeMember(object);
+        if (pkg.getMembers().isEmpty())
+            packages.remove(pkg.getName());
+        graph = null;
+    }
+
+    private void addRelationship(UMLRelationship rel) {
+        aggregated.add(rel);
+        updateRelationship(rel, 1);
+    }
+
+    private void removeRelationship(UMLRelationship rel) {
+        aggregated.remove(rel);
+        updateRelationship(rel, -1);
+    }
+
+    private void updateRelationship(UMLRelationship rel, int delta) {
+        UMLPackage from = owners.get(rel.getFrom());
+        UMLPackage to = owners.get(rel.getTo());
+        if (from == null || to == null || from == to)
+            return;
+        String key = from.getName() + ":" + to.getName();
+        UMLPackageRelationship packageRel = relationships.get(key);
+        if (packageRel == null) {
+            packageRel = new UMLPackageRelationship(from, to);
+            relationships.put(key, packageRel);
+        }
+        packageRel.add(rel.getType(), delta);
+        if (packageRel.getCount() <= 0)
+            relationships.remove(key);
+        graph = null;
+    }
+
+    public Graph<UMLClass, UMLRelationship> getGraph() {
+        if (graph == null) {
+            graph = createGraph();
+            for (UMLPackage pkg : packages.values())
+                graph.addVertex(pkg);
+            for (UMLPackageRelationship rel : relationships.values())
+                graph.addEdge(rel.getFrom(), rel.getTo(), rel);
+        }
+        return graph;
+    }
+
+    /**
+     * Get the graph induced by the members of a package.
+     */
+    public Graph<UMLClass, UMLRelationship> getMemberGraph(UMLPackage pkg, Graph<UMLClass, UMLRelationship> classGraph) {
+        Graph<UMLClass, UMLRelationship> memberGraph = createGraph();
+        for (UMLClass object : pkg.getMembers())
+            memberGraph.addVertex(object);
+        for (UMLClass object : pkg.getMembers()) {
+            for (UMLRelationship rel : classGraph.outgoingEdgesOf(object)) {
+                if (memberGraph.containsVertex(rel.getTo()))
+                    memberGraph.addEdge(rel.getFrom(), rel.getTo(), rel);
+            }
+        }
+        return memberGraph;
+    }
+
+    private static Graph<UMLClass, UMLRelationship> createGraph() {
+        return GraphTypeBuilder.<UMLClass, UMLRelationship>forGraphType(DefaultGraphType.directedMultigraph())
+                .edgeSupplier(SupplierUtil.createSupplier(UMLRelationship.class))
+                .buildGraph();
+    }
+}
@@ -0,0 +1,78 @@
+/*
+MIT License
+
+Copyright (c) 2024 Max Kas
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.mku.liveuml.model.diagram;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Aggregated relationship between two packages with the number of class relationships per type,
+ * the type of the relationship is the most frequent one.
+ */
+public class UMLPackageRelationship extends UMLRelationship {
+    private final EnumMap<UMLRelationshipType, Integer> counts = new EnumMap<>(UMLRelationshipType.class);
+    private int count;
+
+    public UMLPackageRelationship(UMLPackage from, UMLPackage to) {
+        super(from, to, UMLRelationshipType.Dependency);
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public int getCount(UMLRelationshipType type) {
+        return counts.getOrDefault(type, 0);
+    }
+
+    public Map<UMLRelationshipType, Integer> getCounts() {
+        return Collections.unmodifiableMap(counts);
+    }
+
+    void add(UMLRelationshipType type, int delta) {
+        int value = counts.getOrDefault(type, 0) + delta;
+        if (value > 0)
+            counts.put(type, value);
+        else
+            counts.remove(type);
+        count += delta;
+        UMLRelationshipType dominant = getType();
+        for (Map.Entry<UMLRelationshipType, Integer> entry : counts.entrySet()) {
+            if (entry.getValue() > getCount(dominant))
+                dominant = entry.getKey();
+        }
+        setType(dominant);
+    }
+
+    public String getLabel() {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<UMLRelationshipType, Integer> entry : counts.entrySet()) {
+            if (sb.length() > 0)
+                sb.append(", ");
+            sb.append(entry.getKey().name()).append(" ").append(entry.getValue());
+        }
+        return sb.toString();
+    }
+}
@@ -65,7 +65,9 @@ public class UMLParser {
     }
 
     private final HashMap<String, SymbolInformation> unresolvedSymbols = new HashMap<>();
-    private Consumer<String> notifyProgress;
+    // the files whose method bodies were analyzed
+    private final HashSet<String> analyzedFiles = new HashSet<>();
+    private ProgressReporter progress = new ProgressReporter();
 
     public static class SymbolInformation {
         ArrayList<UMLClass> classes = new ArrayList<>();
@@ -73,6 +75,7 @@ public class UMLParser {
 
     public void clear() {
         unresolvedSymbols.clear();
+        analyzedFiles.clear();
         objects.clear();
         methods.clear();
     }
@@ -154,98 +157,147 @@ public class UMLParser {
         new DirExplorer((level, path, file) -> path.endsWith(".java"), (level, path, file) -> {
             System.out.println(path);
             System.out.println(Strings.repeat("=", path.length()));
-            if (notifyProgress != null)
-                notifyProgress.accept(file.getName());
-            try {
-                new VoidVisitorAdapter<UMLClass>() {
-                    @Override
-                    public void visit(MethodCallExpr n, UMLClass arg) {
-                        super.visit(n, arg);
-                        System.out.println("Method Call: [" + file.getName() + ":" + n.getBegin().get().line + "] " + n.getName());
-                        UMLClass caller = getMethodCallerObject(n);
-                        UMLClass callee = null;
+            progress.step(file.getName());
+            parseFileDependencies(file, Runnable::run);
+        }).explore(projectDir);
+    }
+
+    /**
+     * Analyze the method bodies of the classes whose files were not analyzed yet, used when
+     * the import skipped the dependencies. The classes are not modified, the relationships found
+     * are returned as updates to run when the classes are not read by other threads.
+     */
+    public List<Runnable> parseDependencies(Collection<UMLClass> classes) {
+        LinkedHashSet<String> files = new LinkedHashSet<>();
+        for (UMLClass obj : classes) {
+            // only the classes parsed by this parser can be analyzed
+            if (objects.get(obj.toString()) == obj && obj.getFilePath() != null
+                    && !analyzedFiles.contains(obj.getFilePath()))
+                files.add(obj.getFilePath());
+        }
+        List<Runnable> updates = new ArrayList<>();
+        if (files.isEmpty())
+            return updates;
+        progress.startPhase("Analyzing dependencies", files.size());
+        try {
+            for (String filePath : files) {
+                File file = new File(filePath);
+                progress.step(file.getName());
+                parseFileDependencies(file, updates::add);
+            }
+        } finally {
+            progress.finish();
+        }
+        return updates;
+    }
+
+    public boolean isAnalyzed(UMLClass obj) {
+        return obj.getFilePath() == null || analyzedFiles.contains(obj.getFilePath());
+    }
+
+    private void parseFileDependencies(File file, Consumer<Runnable> update) {
+        analyzedFiles.add(file.getPath());
+        try {
+            new VoidVisitorAdapter<UMLClass>() {
+                @Override
+                public void visit(MethodCallExpr n, UMLClass arg) {
+                    super.visit(n, arg);
+                    System.out.println("Method Call: [" + file.getName() + ":" + n.getBegin().get().line + "] " + n.getName());
+                    UMLClass caller = getMethodCallerObject(n);
+                    UMLClass callee = null;
+                    try {
+                        callee = getMethodCalleeObject(n);
+                    } catch (UnsolvedSymbolException ex) {
+                        addUnresolvedSymbol(ex.getName(), caller);
+                    }
+                    if (callee != null && caller != null
+                            && callee != caller) {
+                        Method callerMethod = getMethodCallerMethod(caller, n);
+                        Method calleeMethod = null;
                         try {
-                            callee = getMethodCalleeObject(n);
+                            calleeMethod = getMethodCalleeMethod(callee, n);
                         } catch (UnsolvedSymbolException ex) {
-                            addUnresolvedSymbol(ex.getName(), caller);
+                            addUnresolvedSymbol(ex.getName(), arg);
                         }
-                        if (callee != null && caller != null
-                                && callee != caller) {
-                            Method callerMethod = getMethodCallerMethod(caller, n);
-                            Method calleeMethod = null;
-                            try {
-                                calleeMethod = getMethodCalleeMethod(callee, n);
-                            } catch (UnsolvedSymbolException ex) {
-                                addUnresolvedSymbol(ex.getName(), arg);
+                        Method resolvedCalleeMethod = calleeMethod;
+                        UMLClass calleeObject = callee;
+                        update.accept(() -> {
+                            Method method = resolvedCalleeMethod;
+                            if (method == null) {
+                                method = getInitializer(caller, n);
                             }
-                            if (calleeMethod == null) {
-                                calleeMethod = getInitializer(caller, n);
+                            if (callerMethod != null && method != null) {
+                                createMethodCallRelationship(caller, callerMethod, calleeObject, method);
                             }
-                            if (callerMethod != null && calleeMethod != null) {
-                                createMethodCallRelationship(caller, callerMethod, callee, calleeMethod);
-                            }
-                        }
+                        });
                     }
+                }
 
-                    @Override
-                    public void visit(final ObjectCreationExpr n, final UMLClass arg) {
-                        System.out.println("ObjectCreationExpr: [" + file.getName() + ":" + n.getBegin().get().line + "] " + n.getType().getName());
-                        UMLClass caller = getMethodCallerObject(n);
-                        UMLClass callee = null;
-                        try {
-                            callee = getMethodCalleeObject(n);
-                        } catch (UnsolvedSymbolException ex) {
-                            addUnresolvedSymbol(ex.getName(), caller);
-                        }
-                        if (caller != null && callee != null) {
-                            Method callerMethod = getMethodCallerMethod(caller, n);
-                            Constructor constructor = getConstructor(callee, n);
-                            if (callerMethod != null) {
+                @Override
+                public void visit(final ObjectCreationExpr n, final UMLClass arg) {
+                    System.out.println("ObjectCreationExpr: [" + file.getName() + ":" + n.getBegin().get().line + "] " + n.getType().getName());
+                    UMLClass caller = getMethodCallerObject(n);
+                    UMLClass callee = null;
+                    try {
+                        callee = getMethodCalleeObject(n);
+                    } catch (UnsolvedSymbolException ex) {
+                        addUnresolvedSymbol(ex.getName(), caller);
+                    }
+                    if (caller != null && callee != null) {
+                        Method callerMethod = getMethodCallerMethod(caller, n);
+                        Constructor constructor = getConstructor(callee, n);
+                        UMLClass calleeObject = callee;
+                        if (callerMethod != null) {
+                            update.accept(() -> {
                                 if (constructor != null) {
-                                    createObjectCreationRelationship(caller, callerMethod, callee, constructor);
+                                    createObjectCreationRelationship(caller, callerMethod, calleeObject, constructor);
                                 }
-                                if (constructor == null && getConstructorCount(callee) == 0) {
-                                    createObjectCreationRelationship(caller, callerMethod, callee);
+                                if (constructor == null && getConstructorCount(calleeObject) == 0) {
+                                    createObjectCreationRelationship(caller, callerMethod, calleeObject);
                                 }
-                            }
+                            });
                         }
                     }
+                }
 
-                    @Override
-                    public void visit(final FieldAccessExpr n, final UMLClass arg) {
-                        super.visit(n, arg);
-                        System.out.println("Field Access: [" + n.getBegin().get().line + "] " + n);
-                        UMLClass accessor = getFieldAccessorObject(n);
-                        UMLClass accessedFieldObject = null;
-                        try {
-                            accessedFieldObject = getFieldAccessedObject(n);
-                        } catch (UnsolvedSymbolException ex) {
-                            addUnresolvedSymbol(ex.getName(), accessor);
-                        }
-                        if (accessor != null && accessedFieldObject != null
-                                && accessor != accessedFieldObject) {
-                            Method accessorMethod = getFieldAccessorMethod(accessor, n);
+                @Override
+                public void visit(final FieldAccessExpr n, final UMLClass arg) {
+                    super.visit(n, arg);
+                    System.out.println("Field Access: [" + n.getBegin().get().line + "] " + n);
+                    UMLClass accessor = getFieldAccessorObject(n);
+                    UMLClass accessedFieldObject = null;
+                    try {
+                        accessedFieldObject = getFieldAccessedObject(n);
+                    } catch (UnsolvedSymbolException ex) {
+                        addUnresolvedSymbol(ex.getName(), accessor);
+                    }
+                    if (accessor != null && accessedFieldObject != null
+                            && accessor != accessedFieldObject) {
+                        Method fieldAccessorMethod = getFieldAccessorMethod(accessor, n);
+                        Field accessedField = getFieldAccessed(accessedFieldObject, n);
+                        EnumConstant accessedEnumConstant = getEnumConstAccessed(accessedFieldObject, n);
+                        UMLClass accessedObject = accessedFieldObject;
+                        update.accept(() -> {
+                            Method accessorMethod = fieldAccessorMethod;
                             if (accessorMethod == null) {
                                 accessorMethod = getInitializer(accessor, n);
                             }
                             if (accessorMethod != null) {
-                                Field accessedField = getFieldAccessed(accessedFieldObject, n);
                                 if (accessedField != null) {
-                                    createFieldAccessRelationship(accessor, accessorMethod, accessedFieldObject, accessedField);
+                                    createFieldAccessRelationship(accessor, accessorMethod, accessedObject, accessedField);
                                 }
-                                EnumConstant accessedEnumConstant = getEnumConstAccessed(accessedFieldObject, n);
                                 if (accessedEnumConstant != null) {
-                                    createEnumConstAccessRelationship(accessor, accessorMethod, accessedFieldObject, accessedEnumConstant);
+                                    createEnumConstAccessRelationship(accessor, accessorMethod, accessedObject, accessedEnumConstant);
                                 }
                             }
-                        }
+                        });
                     }
-                }.visit(StaticJavaParser.parse(file), null);
-                System.out.println(); // empty line
-            } catch (Exception e) {
-                throw new RuntimeException(e);
-            }
-        }).explore(projectDir);
+                }
+            }.visit(StaticJavaParser.parse(file), null);
+            System.out.println(); // empty line
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
     }
 
     private void addUnresolvedSymbol(String name, UMLClass arg) {
@@ -607,35 +659,29 @@ public class UMLParser {
         new DirExplorer((level, path, file) -> path.endsWith(".java"), (level, path, file) -> {
             System.out.println(path);
             System.out.println(Strings.repeat("=", path.length()));
-            if (notifyProgress != null)
-                notifyProgress.accept(file.getName());
+            progress.step(file.getName());
+            // only the declarations are needed here so scan the tokens instead of parsing the file,
+            // the modifiers and the type parameters are read when the attributes are parsed
             try {
-                new VoidVisitorAdapter<UMLClass>() {
-                    @Override
-                    public void visit(ClassOrInterfaceDeclaration n, UMLClass arg) {
-                        super.visit(n, arg);
-                        System.out.println(n.isInterface() ? "Interface" : "Class: " + n.getName());
-                        UMLClass obj = getOrCreateObject(n, file.getPath());
-                        validatePathPackageName(obj.getPackageName(), path);
-                        list.add(obj);
+                JavaDeclarationScanner scanner = JavaDeclarationScanner.scan(file);
+                String packageName = scanner.getPackageName();
+                // files without types like module-info.java need no package
+                if (packageName == null && !scanner.getDeclarations().isEmpty())
+                    throw new InvalidSourceException("Source file has no package declaration: " + path);
+                for (JavaDeclarationScanner.Declaration decl : scanner.getDeclarations()) {
+                    System.out.println(decl.getKind() + ": " + decl.getName());
+                    ArrayList<String> parents = new ArrayList<>(decl.getParents());
+                    UMLClass obj;
+                    if (decl.getKind() == JavaDeclarationScanner.Kind.Enum) {
+                        obj = getOrCreateEnum(packageName, decl.getName(), parents, file.getPath(), decl.getLine());
+                    } else {
+                        obj = getOrCreateObject(packageName, decl.getName(), parents,
+                                decl.getKind() == JavaDeclarationScanner.Kind.Interface, decl.isAbstract(),
+                                file.getPath(), decl.getLine());
                     }
-                }.visit(StaticJavaParser.parse(file), null);
-                System.out.println();
-            } catch (Exception e) {
-                throw new RuntimeException(e);
-            }
-
-            try {
-                new VoidVisitorAdapter<UMLClass>() {
-                    @Override
-                    public void visit(EnumDeclaration n, UMLClass arg) {
-                        super.visit(n, arg);
-                        System.out.println("Enum: " + n.getName());
-                        UMLClass obj = getOrCreateEnum(n, file.getPath());
-                        validatePathPackageName(obj.getPackageName(), path);
-                        list.add(obj);
-                    }
-                }.visit(StaticJavaParser.parse(file), null);
+                    validatePathPackageName(obj.getPackageName(), path);
+                    list.add(obj);
+                }
                 System.out.println(); // empty line
             } catch (Exception e) {
                 throw new RuntimeException(e);
@@ -656,8 +702,7 @@ public class UMLParser {
         new DirExplorer((level, path, file) -> path.endsWith(".java"), (level, path, file) -> {
             System.out.println(path);
             System.out.println(Strings.repeat("=", path.length()));
-            if (notifyProgress != null)
-                notifyProgress.accept(file.getName());
+            progress.step(file.getName());
             try {
                 new VoidVisitorAdapter<UMLClass>() {
                     @Override
@@ -1287,12 +1332,56 @@ public class UMLParser {
         return objConstructors;
     }
 
-    public void setNotifyProgress(Consumer<String> notifyProgress) {
-        this.notifyProgress = notifyProgress;
+    public ProgressReporter getProgress() {
+        return progress;
+    }
+
+    public void setProgress(ProgressReporter progress) {
+        this.progress = progress;
+    }
+
+    /**
+     * Create an empty parser that reports to the same progress for parsing the sources again
+     */
+    public UMLParser newParser() {
+        UMLParser parser = new UMLParser();
+        parser.setProgress(progress);
+        return parser;
+    }
+
+    /**
+     * Replace parsed classes by the equal instances kept from the previous parse,
+     * the keys are the parsed instances
+     */
+    void reuseClasses(Map<UMLClass, UMLClass> reused) {
+        if (reused.isEmpty())
+            return;
+        IdentityHashMap<Method, Method> reusedMethods = new IdentityHashMap<>();
+        for (Map.Entry<UMLClass, UMLClass> entry : reused.entrySet()) {
+            objects.put(entry.getKey().toString(), entry.getValue());
+            for (Method method : entry.getKey().getMethods()) {
+                Method old = entry.getValue().getMethod(method.getSignature());
+                if (old != null)
+                    reusedMethods.put(method, old);
+            }
+        }
+        for (Map.Entry<String, Method> entry : methods.entrySet()) {
+            Method old = reusedMethods.get(entry.getValue());
+            if (old != null)
+                entry.setValue(old);
+        }
+        for (SymbolInformation info : unresolvedSymbols.values())
+            info.classes.replaceAll(obj -> reused.getOrDefault(obj, obj));
     }
 
-    public void removeNotifyProgress() {
-        this.notifyProgress = null;
+    /**
+     * Count the source files under the directory
+     */
+    public static int countSources(File projectDir) {
+        int[] count = new int[1];
+        new DirExplorer((level, path, file) -> path.endsWith(".java"), (level, path, file) -> count[0]++)
+                .explore(projectDir);
+        return count[0];
     }
 
     public class InvalidSourceException extends RuntimeException {
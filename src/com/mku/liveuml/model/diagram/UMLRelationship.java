@@ -46,6 +46,11 @@ public class UMLRelationship {
     private HashSet<Method> methodsAccessingClass = new HashSet<>();
     private HashSet<Field> fieldsAccessingClass = new HashSet<>();
 
+    // fills the member maps above on first use, set by the importer when the details are loaded lazily
+    private volatile Runnable detailsLoader;
+    // set while the loader runs so the accessors it calls do not run it again
+    private boolean loadingDetails;
+
     // DO NOT REMOVE needed by importer
     public UMLRelationship() {}
 
@@ -79,7 +84,34 @@ public class UMLRelationship {
         this.to = to;
     }
 
+    public void setDetailsLoader(Runnable detailsLoader) {
+        this.detailsLoader = detailsLoader;
+    }
+
+    /**
+     * Load the member maps if they have not been loaded yet. The loader is cleared only after
+     * it has filled the maps so the threads that skip the lock always see them complete,
+     * if the loader fails it is kept and the next call tries again.
+     */
+    public void loadDetails() {
+        if (detailsLoader == null)
+            return;
+        synchronized (this) {
+            Runnable loader = detailsLoader;
+            if (loader == null || loadingDetails)
+                return;
+            loadingDetails = true;
+            try {
+                loader.run();
+                detailsLoader = null;
+            } finally {
+                loadingDetails = false;
+            }
+        }
+    }
+
     public Map<Method, HashSet<Method>> getMethodsAccessedByMethods() {
+        loadDetails();
         return Collections.unmodifiableMap(methodsAccessedByMethods);
     }
 
@@ -88,6 +120,7 @@ public class UMLRelationship {
     }
 
     public Map<Method, HashSet<Method>> getMethodsAccesingMethods() {
+        loadDetails();
         return Collections.unmodifiableMap(methodsAccesingMethods);
     }
 
@@ -96,6 +129,7 @@ public class UMLRelationship {
     }
 
     public Map<Field, HashSet<Method>> getFieldsAccessedByMethods() {
+        loadDetails();
         return Collections.unmodifiableMap(fieldsAccessedByMethods);
     }
 
@@ -104,6 +138,7 @@ public class UMLRelationship {
     }
 
     public Map<Method, HashSet<Field>> getMethodsAccessingFields() {
+        loadDetails();
         return Collections.unmodifiableMap(methodsAccessingFields);
     }
 
@@ -112,6 +147,7 @@ public class UMLRelationship {
     }
 
     public Map<EnumConstant, HashSet<Method>> getEnumsAccessedByMethods() {
+        loadDetails();
         return Collections.unmodifiableMap(enumsAccessedByMethods);
     }
 
@@ -120,6 +156,7 @@ public class UMLRelationship {
     }
 
     public Map<Method, HashSet<EnumConstant>> getMethodsAccessingEnums() {
+        loadDetails();
         return Collections.unmodifiableMap(methodsAccessingEnums);
     }
 
@@ -128,6 +165,7 @@ public class UMLRelationship {
     }
 
     public Set<Method> getMethodsAccessingClass() {
+        loadDetails();
         return Collections.unmodifiableSet(methodsAccessingClass);
     }
 
@@ -136,6 +174,7 @@ public class UMLRelationship {
     }
 
     public Set<Field> getFieldsAccessingClass() {
+        loadDetails();
         return Collections.unmodifiableSet(fieldsAccessingClass);
     }
 
@@ -144,6 +183,7 @@ public class UMLRelationship {
     }
 
     public void addMethodCall(Method callerMethod, Method calleeMethod) {
+        loadDetails();
         HashSet<Method> calleeMethods = methodsAccesingMethods.getOrDefault(callerMethod, new HashSet<>());
         methodsAccesingMethods.put(callerMethod, calleeMethods);
         calleeMethods.add(calleeMethod);
@@ -154,6 +194,7 @@ public class UMLRelationship {
     }
 
     public void addFieldAccess(Method accessorMethod, Field accessedField) {
+        loadDetails();
         HashSet<Field> accessedFields = methodsAccessingFields.getOrDefault(accessorMethod, new HashSet<>());
         methodsAccessingFields.put(accessorMethod, accessedFields);
         accessedFields.add(accessedField);
@@ -164,6 +205,7 @@ public class UMLRelationship {
     }
 
     public void addEnumConstAccess(Method accessorMethod, EnumConstant accessedField) {
+        loadDetails();
         HashSet<EnumConstant> accessedFields = methodsAccessingEnums.getOrDefault(accessorMethod, new HashSet<>());
         methodsAccessingEnums.put(accessorMethod, accessedFields);
         accessedFields.add(accessedField);
@@ -174,10 +216,12 @@ public class UMLRelationship {
     }
 
     public void addClassAccess(Method accessorMethod) {
+        loadDetails();
         methodsAccessingClass.add(accessorMethod);
     }
 
     public void addFieldAssociation(Field field) {
+        loadDetails();
         fieldsAccessingClass.add(field);
     }
 
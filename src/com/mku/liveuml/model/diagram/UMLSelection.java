@@ -0,0 +1,171 @@
+/*
+MIT License
+
+Copyright (c) 2024 Max Kas
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.mku.liveuml.model.diagram;
+
+import com.mku.liveuml.model.entities.EnumConstant;
+import com.mku.liveuml.model.entities.Field;
+import com.mku.liveuml.model.entities.Method;
+
+import java.util.*;
+
+/**
+ * Selection state of a diagram over dense vertex and edge ids.
+ * The ids are kept by the selection of each model so the shared class and relationship
+ * instances are never written when a new model is built.
+ * Marked elements are the ones highlighted by the find references actions and are shared
+ * by all the views of the diagram, the picked elements are kept by each view.
+ * The version is incremented on every change so render caches can tell when to invalidate.
+ */
+public class UMLSelection {
+    private final IdentityHashMap<UMLClass, Integer> vertexIds = new IdentityHashMap<>();
+    private final IdentityHashMap<UMLRelationship, Integer> edgeIds = new IdentityHashMap<>();
+    private final BitSet markedVertices = new BitSet();
+    private final BitSet markedEdges = new BitSet();
+    private final HashSet<Method> markedMethods = new HashSet<>();
+    private final HashSet<Field> markedFields = new HashSet<>();
+    private final HashSet<EnumConstant> markedEnumConsts = new HashSet<>();
+    private long version;
+
+    /**
+     * Picked elements of a view, picking increments the version of the selection too
+     */
+    public class Picked {
+        private final BitSet vertices = new BitSet();
+        private final BitSet edges = new BitSet();
+
+        public UMLSelection getSelection() {
+            return UMLSelection.this;
+        }
+
+        public void setVertices(Collection<? extends UMLClass> objects) {
+            vertices.clear();
+            for (UMLClass object : objects)
+                vertices.set(getId(object));
+            version++;
+        }
+
+        public void setEdges(Collection<? extends UMLRelationship> rels) {
+            edges.clear();
+            for (UMLRelationship rel : rels)
+                edges.set(getId(rel));
+            version++;
+        }
+
+        public boolean isPicked(UMLClass object) {
+            Integer id = vertexIds.get(object);
+            return id != null && vertices.get(id);
+        }
+
+        public boolean isPicked(UMLRelationship rel) {
+            Integer id = edgeIds.get(rel);
+            return id != null && edges.get(id);
+        }
+    }
+
+    public Picked createPicked() {
+        return new Picked();
+    }
+
+    public void register(UMLClass object) {
+        vertexIds.putIfAbsent(object, vertexIds.size());
+    }
+
+    public void register(UMLRelationship rel) {
+        edgeIds.putIfAbsent(rel, edgeIds.size());
+    }
+
+    int getId(UMLClass object) {
+        register(object);
+        return vertexIds.get(object);
+    }
+
+    int getId(UMLRelationship rel) {
+        register(rel);
+        return edgeIds.get(rel);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void mark(UMLClass object) {
+        markedVertices.set(getId(object));
+        version++;
+    }
+
+    public void mark(UMLRelationship rel) {
+        markedEdges.set(getId(rel));
+        version++;
+    }
+
+    public void mark(Method method) {
+        markedMethods.add(method);
+        version++;
+    }
+
+    public void mark(Field field) {
+        markedFields.add(field);
+        version++;
+    }
+
+    public void mark(EnumConstant enumConst) {
+        markedEnumConsts.add(enumConst);
+        version++;
+    }
+
+    public boolean isMarked(UMLClass object) {
+        Integer id = vertexIds.get(object);
+        return id != null && markedVertices.get(id);
+    }
+
+    public boolean isMarked(UMLRelationship rel) {
+        Integer id = edgeIds.get(rel);
+        return id != null && markedEdges.get(id);
+    }
+
+    public Set<Method> getMarkedMethods() {
+        return Collections.unmodifiableSet(markedMethods);
+    }
+
+    public Set<Field> getMarkedFields() {
+        return Collections.unmodifiableSet(markedFields);
+    }
+
+    public Set<EnumConstant> getMarkedEnumConsts() {
+        return Collections.unmodifiableSet(markedEnumConsts);
+    }
+
+    public void clearMarked() {
+        markedVertices.clear();
+        markedEdges.clear();
+        markedMethods.clear();
+        markedFields.clear();
+        markedEnumConsts.clear();
+        version++;
+    }
+
+    public void clear() {
+        clearMarked();
+    }
+}
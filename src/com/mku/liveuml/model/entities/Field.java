@@ -131,6 +131,10 @@ public class Field {
         return typeVariable;
     }
 
+    public List<String> getTypeParents() {
+        return typeParents;
+    }
+
     public String getTypeFullName() {
         return Package.getFullName(typePackageName, typeName, typeParents);
     }
@@ -0,0 +1,293 @@
+/*
+MIT License
+
+Copyright (c) 2024 Max Kas
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.mku.liveuml.utils;
+
+import com.mku.liveuml.model.diagram.UMLClass;
+import com.mku.liveuml.model.diagram.UMLClassType;
+import com.mku.liveuml.model.diagram.UMLDiagram;
+import com.mku.liveuml.model.diagram.UMLRelationship;
+import com.mku.liveuml.model.entities.*;
+
+import java.awt.geom.Point2D;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.ToIntFunction;
+
+import static com.mku.liveuml.utils.BinaryFormat.*;
+
+/**
+ * Writes the diagram in the native binary format, see {@link BinaryFormat}.
+ * Strings are stored once in a table and all the entities are fixed width records.
+ */
+public class BinaryExporter {
+    private final HashMap<String, Integer> stringIds = new HashMap<>();
+    private final List<byte[]> strings = new ArrayList<>();
+    private int stringBytes;
+    private final IntList intPool = new IntList();
+    private final IntList classes = new IntList();
+    private final List<Point2D.Double> classPositions = new ArrayList<>();
+    private final IntList fields = new IntList();
+    private final IntList methods = new IntList();
+    private final IntList enums = new IntList();
+    private final IntList params = new IntList();
+    private final IntList relationships = new IntList();
+    private final IntList facts = new IntList();
+    private final HashMap<String, Integer> fieldIds = new HashMap<>();
+    private final HashMap<String, Integer> methodIds = new HashMap<>();
+    private final HashMap<String, Integer> enumIds = new HashMap<>();
+
+    public void exportGraph(File file, UMLDiagram diagram, Map<UMLClass, Point2D.Double> vertexPositions) {
+        HashMap<UMLClass, Integer> classIds = new HashMap<>();
+        for (UMLClass obj : diagram.getGraph().vertexSet()) {
+            classIds.put(obj, classIds.size());
+            addClass(obj, vertexPositions.get(obj));
+        }
+        for (UMLRelationship rel : diagram.getGraph().edgeSet())
+            addRelationship(rel, classIds);
+
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeInt(strings.size());
+            output.writeInt(stringBytes);
+            output.writeInt(intPool.size());
+            output.writeInt(classPositions.size());
+            output.writeInt(fields.size() / FIELD_INTS);
+            output.writeInt(methods.size() / METHOD_INTS);
+            output.writeInt(enums.size() / ENUM_INTS);
+            output.writeInt(params.size() / PARAM_INTS);
+            output.writeInt(relationships.size() / REL_INTS);
+            output.writeInt(facts.size() / FACT_INTS);
+
+            int offset = 0;
+            for (byte[] string : strings) {
+                output.writeInt(offset);
+                offset += string.length;
+            }
+            output.writeInt(offset);
+            for (byte[] string : strings)
+                output.write(string);
+
+            intPool.write(output, 0, intPool.size());
+            for (int i = 0; i < classPositions.size(); i++) {
+                classes.write(output, i * CLASS_INTS, CLASS_INTS);
+                Point2D.Double point = classPositions.get(i);
+                output.writeDouble(point != null ? point.x : 0);
+                output.writeDouble(point != null ? point.y : 0);
+            }
+            fields.write(output, 0, fields.size());
+            methods.write(output, 0, methods.size());
+            enums.write(output, 0, enums.size());
+            params.write(output, 0, params.size());
+            relationships.write(output, 0, relationships.size());
+            facts.write(output, 0, facts.size());
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    private void addClass(UMLClass obj, Point2D.Double position) {
+        String owner = obj.toString();
+        int flags = (obj.isCompact() ? CLASS_FLAG_COMPACT : 0) | (position != null ? CLASS_FLAG_POSITION : 0);
+        classes.add(UMLClassType.valueOf(obj.getClass().getSimpleName()).ordinal());
+        classes.add(getStringId(obj.getName()));
+        classes.add(getStringId(obj.getPackageName()));
+        addStringList(classes, obj.getParents());
+        classes.add(getStringId(obj.getFileSource()));
+        classes.add(getStringId(obj.getFilePath()));
+        classes.add(obj.getLine());
+        classes.add(flags);
+        classes.add(getMask(obj.getModifiers()));
+        classes.add(getMask(obj.getAccessModifiers()));
+        classes.add(params.size() / PARAM_INTS);
+        classes.add(obj.getTypeParameters().size());
+        for (Parameter param : obj.getTypeParameters())
+            addParameter(param);
+
+        List<Field> classFields = obj.getFields();
+        classes.add(fields.size() / FIELD_INTS);
+        classes.add(classFields.size());
+        for (Field field : classFields) {
+            fieldIds.put(owner + ":" + field.getName(), fields.size() / FIELD_INTS);
+            fields.add(getStringId(field.getName()));
+            fields.add(getStringId(field.getTypeName()));
+            fields.add(getStringId(field.getTypePackageName()));
+            addStringList(fields, field.getTypeParents());
+            fields.add(getStringId(field.getPrimitiveType()));
+            fields.add(field.getLine());
+            fields.add(getMask(field.getModifiers()));
+            fields.add(getMask(field.getAccessModifiers()));
+            fields.add((field.isArray() ? FIELD_FLAG_ARRAY : 0)
+                    | (field.isTypeVariable() ? FIELD_FLAG_TYPE_VARIABLE : 0));
+        }
+
+        List<Method> classMethods = obj.getMethods();
+        classes.add(methods.size() / METHOD_INTS);
+        classes.add(classMethods.size());
+        for (Method method : classMethods) {
+            methodIds.put(owner + ":" + method.getSignature(), methods.size() / METHOD_INTS);
+            methods.add(getStringId(method.getName()));
+            methods.add(method instanceof Constructor ? METHOD_FLAG_CONSTRUCTOR : 0);
+            methods.add(method.isReturnTypePrimitive() ? NONE : getStringId(method.getReturnTypeName()));
+            methods.add(getStringId(method.getReturnTypePackageName()));
+            methods.add(getStringId(method.getReturnPrimitiveType()));
+            addStringList(methods, method.getReturnTypeParents());
+            methods.add(method.getLine());
+            methods.add(getMask(method.getModifiers()));
+            methods.add(getMask(method.getAccessModifiers()));
+            methods.add(params.size() / PARAM_INTS);
+            methods.add(method.getParameters().size());
+            for (Parameter param : method.getParameters())
+                addParameter(param);
+        }
+
+        List<EnumConstant> classEnums = obj.getEnumConstants();
+        classes.add(enums.size() / ENUM_INTS);
+        classes.add(classEnums.size());
+        for (EnumConstant enumConst : classEnums) {
+            enumIds.put(owner + ":" + enumConst.getName(), enums.size() / ENUM_INTS);
+            enums.add(getStringId(enumConst.getName()));
+            enums.add(enumConst.getNum());
+        }
+        classPositions.add(position);
+    }
+
+    private void addParameter(Parameter param) {
+        params.add(getStringId(param.getName()));
+        params.add(getStringId(param.getPrimitiveType()));
+        params.add(getStringId(param.getTypeName()));
+        params.add(getStringId(param.getTypePackageName()));
+        addStringList(params, param.getTypeParents());
+        params.add(getMask(param.getModifiers()));
+        params.add((param.isArray() ? PARAM_FLAG_ARRAY : 0)
+                | (param.isTypeVariable() ? PARAM_FLAG_TYPE_VARIABLE : 0)
+                | (param.isGeneric() ? PARAM_FLAG_GENERIC : 0)
+                | (param.isUpperBound() ? PARAM_FLAG_UPPER_BOUND : 0)
+                | (param.isLowerBound() ? PARAM_FLAG_LOWER_BOUND : 0));
+        addStringList(params, param.getBounds());
+        addStringList(params, param.getBoundsFullNames());
+    }
+
+    private void addRelationship(UMLRelationship rel, HashMap<UMLClass, Integer> classIds) {
+        relationships.add(rel.getType().ordinal());
+        relationships.add(classIds.get(rel.getFrom()));
+        relationships.add(classIds.get(rel.getTo()));
+        int start = facts.size() / FACT_INTS;
+        relationships.add(start);
+        addFacts(METHODS_ACCESSED_BY_METHODS, rel.getMethodsAccessedByMethods(), this::getMethodId, this::getMethodId);
+        addFacts(METHODS_ACCESSING_METHODS, rel.getMethodsAccesingMethods(), this::getMethodId, this::getMethodId);
+        addFacts(FIELDS_ACCESSED_BY_METHODS, rel.getFieldsAccessedByMethods(), this::getFieldId, this::getMethodId);
+        addFacts(METHODS_ACCESSING_FIELDS, rel.getMethodsAccessingFields(), this::getMethodId, this::getFieldId);
+        addFacts(ENUMS_ACCESSED_BY_METHODS, rel.getEnumsAccessedByMethods(), this::getEnumId, this::getMethodId);
+        addFacts(METHODS_ACCESSING_ENUMS, rel.getMethodsAccessingEnums(), this::getMethodId, this::getEnumId);
+        for (Method method : rel.getMethodsAccessingClass())
+            addFact(METHODS_ACCESSING_CLASS, getMethodId(method), NO_VALUE);
+        for (Field field : rel.getFieldsAccessingClass())
+            addFact(FIELDS_ACCESSING_CLASS, getFieldId(field), NO_VALUE);
+        relationships.add(facts.size() / FACT_INTS - start);
+    }
+
+    private <K, V> void addFacts(int kind, Map<K, ? extends Set<V>> map,
+                                 ToIntFunction<K> keyIds, ToIntFunction<V> valueIds) {
+        for (Map.Entry<K, ? extends Set<V>> entry : map.entrySet()) {
+            int key = keyIds.applyAsInt(entry.getKey());
+            // same as the graphml import, facts of members not in the diagram are dropped
+            if (key == NONE)
+                continue;
+            if (entry.getValue().isEmpty())
+                addFact(kind, key, NO_VALUE);
+            for (V value : entry.getValue())
+                addFact(kind, key, valueIds.applyAsInt(value));
+        }
+    }
+
+    private void addFact(int kind, int key, int value) {
+        if (key == NONE)
+            return;
+        facts.add(kind);
+        facts.add(key);
+        facts.add(value);
+    }
+
+    private int getFieldId(Field field) {
+        return field == null ? NONE : fieldIds.getOrDefault(field.getOwner() + ":" + field.getName(), NONE);
+    }
+
+    private int getMethodId(Method method) {
+        return method == null ? NONE : methodIds.getOrDefault(method.getOwner() + ":" + method.getSignature(), NONE);
+    }
+
+    private int getEnumId(EnumConstant enumConst) {
+        return enumConst == null ? NONE : enumIds.getOrDefault(enumConst.getOwner() + ":" + enumConst.getName(), NONE);
+    }
+
+    private void addStringList(IntList list, List<String> values) {
+        list.add(intPool.size());
+        list.add(values.size());
+        for (String value : values)
+            intPool.add(getStringId(value));
+    }
+
+    private int getStringId(String value) {
+        if (value == null)
+            return NONE;
+        Integer id = stringIds.get(value);
+        if (id == null) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            id = strings.size();
+            strings.add(bytes);
+            stringBytes += bytes.length;
+            stringIds.put(value, id);
+        }
+        return id;
+    }
+
+    /**
+     * Growable array of ints
+     */
+    private static class IntList {
+        private int[] values = new int[1024];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length)
+                values = Arrays.copyOf(values, size * 2);
+            values[size++] = value;
+        }
+
+        int size() {
+            return size;
+        }
+
+        void write(DataOutputStream output, int start, int count) throws IOException {
+            for (int i = start; i < start + count; i++)
+                output.writeInt(values[i]);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+/*
+MIT License
+
+Copyright (c) 2024 Max Kas
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.mku.liveuml.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Layout of the native diagram file. After the header come the sections in this order:
+ * string table (offsets then utf-8 bytes), int pool for the string lists, then fixed width
+ * records for the classes, fields, methods, enum constants, parameters, relationships and
+ * relationship facts. Everything refers to other entries by index, all values are big endian.
+ */
+final class BinaryFormat {
+    static final String EXTENSION = "liveuml";
+    static final int MAGIC = 0x4C554D4C; // LUML
+    static final int VERSION = 1;
+    static final int HEADER_INTS = 12;
+
+    // index of a missing string or member
+    static final int NONE = -1;
+    // value of a fact that only records its key, a key mapped to an empty set
+    static final int NO_VALUE = -2;
+
+    // class record
+    static final int CLASS_TYPE = 0;
+    static final int CLASS_NAME = 1;
+    static final int CLASS_PACKAGE = 2;
+    static final int CLASS_PARENTS = 3;
+    static final int CLASS_PARENTS_COUNT = 4;
+    static final int CLASS_FILE_SOURCE = 5;
+    static final int CLASS_FILE_PATH = 6;
+    static final int CLASS_LINE = 7;
+    static final int CLASS_FLAGS = 8;
+    static final int CLASS_MODIFIERS = 9;
+    static final int CLASS_ACCESS_MODIFIERS = 10;
+    static final int CLASS_TYPE_PARAMS = 11;
+    static final int CLASS_TYPE_PARAMS_COUNT = 12;
+    static final int CLASS_FIELDS = 13;
+    static final int CLASS_FIELDS_COUNT = 14;
+    static final int CLASS_METHODS = 15;
+    static final int CLASS_METHODS_COUNT = 16;
+    static final int CLASS_ENUMS = 17;
+    static final int CLASS_ENUMS_COUNT = 18;
+    static final int CLASS_INTS = 19;
+    // the position follows the ints as 2 doubles
+    static final int CLASS_RECORD_SIZE = CLASS_INTS * 4 + 16;
+    static final int CLASS_FLAG_COMPACT = 1;
+    static final int CLASS_FLAG_POSITION = 2;
+
+    // field record
+    static final int FIELD_NAME = 0;
+    static final int FIELD_TYPE_NAME = 1;
+    static final int FIELD_TYPE_PACKAGE = 2;
+    static final int FIELD_TYPE_PARENTS = 3;
+    static final int FIELD_TYPE_PARENTS_COUNT = 4;
+    static final int FIELD_PRIMITIVE_TYPE = 5;
+    static final int FIELD_LINE = 6;
+    static final int FIELD_MODIFIERS = 7;
+    static final int FIELD_ACCESS_MODIFIERS = 8;
+    static final int FIELD_FLAGS = 9;
+    static final int FIELD_INTS = 10;
+    static final int FIELD_FLAG_ARRAY = 1;
+    static final int FIELD_FLAG_TYPE_VARIABLE = 2;
+
+    // method record
+    static final int METHOD_NAME = 0;
+    static final int METHOD_FLAGS = 1;
+    static final int METHOD_RETURN_TYPE_NAME = 2;
+    static final int METHOD_RETURN_TYPE_PACKAGE = 3;
+    static final int METHOD_RETURN_PRIMITIVE_TYPE = 4;
+    static final int METHOD_RETURN_TYPE_PARENTS = 5;
+    static final int METHOD_RETURN_TYPE_PARENTS_COUNT = 6;
+    static final int METHOD_LINE = 7;
+    static final int METHOD_MODIFIERS = 8;
+    static final int METHOD_ACCESS_MODIFIERS = 9;
+    static final int METHOD_PARAMS = 10;
+    static final int METHOD_PARAMS_COUNT = 11;
+    static final int METHOD_INTS = 12;
+    static final int METHOD_FLAG_CONSTRUCTOR = 1;
+
+    // enum constant record
+    static final int ENUM_NAME = 0;
+    static final int ENUM_NUM = 1;
+    static final int ENUM_INTS = 2;
+
+    // parameter record
+    static final int PARAM_NAME = 0;
+    static final int PARAM_PRIMITIVE_TYPE = 1;
+    static final int PARAM_TYPE_NAME = 2;
+    static final int PARAM_TYPE_PACKAGE = 3;
+    static final int PARAM_TYPE_PARENTS = 4;
+    static final int PARAM_TYPE_PARENTS_COUNT = 5;
+    static final int PARAM_MODIFIERS = 6;
+    static final int PARAM_FLAGS = 7;
+    static final int PARAM_BOUNDS = 8;
+    static final int PARAM_BOUNDS_COUNT = 9;
+    static final int PARAM_BOUNDS_FULL_NAMES = 10;
+    static final int PARAM_BOUNDS_FULL_NAMES_COUNT = 11;
+    static final int PARAM_INTS = 12;
+    static final int PARAM_FLAG_ARRAY = 1;
+    static final int PARAM_FLAG_TYPE_VARIABLE = 2;
+    static final int PARAM_FLAG_GENERIC = 4;
+    static final int PARAM_FLAG_UPPER_BOUND = 8;
+    static final int PARAM_FLAG_LOWER_BOUND = 16;
+
+    // relationship record
+    static final int REL_TYPE = 0;
+    static final int REL_FROM = 1;
+    static final int REL_TO = 2;
+    static final int REL_FACTS = 3;
+    static final int REL_FACTS_COUNT = 4;
+    static final int REL_INTS = 5;
+
+    // fact record, the key and the value are indexes of fields, methods or enum constants
+    static final int FACT_KIND = 0;
+    static final int FACT_KEY = 1;
+    static final int FACT_VALUE = 2;
+    static final int FACT_INTS = 3;
+
+    // fact kinds
+    static final int METHODS_ACCESSED_BY_METHODS = 0;
+    static final int METHODS_ACCESSING_METHODS = 1;
+    static final int FIELDS_ACCESSED_BY_METHODS = 2;
+    static final int METHODS_ACCESSING_FIELDS = 3;
+    static final int ENUMS_ACCESSED_BY_METHODS = 4;
+    static final int METHODS_ACCESSING_ENUMS = 5;
+    static final int METHODS_ACCESSING_CLASS = 6;
+    static final int FIELDS_ACCESSING_CLASS = 7;
+
+    private BinaryFormat() {
+
+    }
+
+    static <T extends Enum<T>> int getMask(Iterable<T> values) {
+        int mask = 0;
+        for (T value : values)
+            mask |= 1 << value.ordinal();
+        return mask;
+    }
+
+    static <T extends Enum<T>> List<T> getValues(int mask, T[] values) {
+        List<T> result = new ArrayList<>();
+        for (T value : values) {
+            if ((mask & (1 << value.ordinal())) != 0)
+                result.add(value);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,360 @@
+/*
+MIT License
+
+Copyright (c) 2024 Max Kas
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.mku.liveuml.utils;
+
+import com.mku.liveuml.model.diagram.*;
+import com.mku.liveuml.model.entities.*;
+import org.jgrapht.Graph;
+
+import java.awt.geom.Point2D;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+import static com.mku.liveuml.utils.BinaryFormat.*;
+
+/**
+ * Reads the native binary format, see {@link BinaryFormat}. The file is read into memory
+ * and the records are read in place, strings are only decoded once when first used.
+ * Only files larger than {@link #MAX_HEAP_READ} are memory mapped, the mapping is released
+ * as soon as the import is done so the file can be replaced when the diagram is saved.
+ */
+public class BinaryImporter {
+    private static final Modifier[] MODIFIERS = Modifier.values();
+    private static final AccessModifier[] ACCESS_MODIFIERS = AccessModifier.values();
+    private static final UMLClassType[] CLASS_TYPES = UMLClassType.values();
+    private static final UMLRelationshipType[] RELATIONSHIP_TYPES = UMLRelationshipType.values();
+    static final long MAX_HEAP_READ = 64 * 1024 * 1024;
+
+    private final long maxHeapRead;
+    private ByteBuffer buffer;
+    private String[] strings;
+    private int stringOffsets;
+    private int stringData;
+    private int intPool;
+
+    public BinaryImporter() {
+        this(MAX_HEAP_READ);
+    }
+
+    BinaryImporter(long maxHeapRead) {
+        this.maxHeapRead = maxHeapRead;
+    }
+
+    public void importGraph(File file, UMLDiagram diagram, HashMap<UMLClass, Point2D.Double> verticesPositions) {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            buffer = readBuffer(channel, maxHeapRead);
+            if (buffer.limit() < HEADER_INTS * 4 || buffer.getInt(0) != MAGIC)
+                throw new IOException("Not a diagram file: " + file.getName());
+            if (buffer.getInt(4) != VERSION)
+                throw new IOException("Unsupported diagram file version: " + buffer.getInt(4));
+            int stringCount = buffer.getInt(8);
+            int stringBytes = buffer.getInt(12);
+            int intCount = buffer.getInt(16);
+            int classCount = buffer.getInt(20);
+            int fieldCount = buffer.getInt(24);
+            int methodCount = buffer.getInt(28);
+            int enumCount = buffer.getInt(32);
+            int paramCount = buffer.getInt(36);
+            int relCount = buffer.getInt(40);
+
+            strings = new String[stringCount];
+            stringOffsets = HEADER_INTS * 4;
+            stringData = stringOffsets + (stringCount + 1) * 4;
+            intPool = stringData + stringBytes;
+            int classRecords = intPool + intCount * 4;
+            int fieldRecords = classRecords + classCount * CLASS_RECORD_SIZE;
+            int methodRecords = fieldRecords + fieldCount * FIELD_INTS * 4;
+            int enumRecords = methodRecords + methodCount * METHOD_INTS * 4;
+            int paramRecords = enumRecords + enumCount * ENUM_INTS * 4;
+            int relRecords = paramRecords + paramCount * PARAM_INTS * 4;
+            int factRecords = relRecords + relCount * REL_INTS * 4;
+
+            UMLClass[] classes = new UMLClass[classCount];
+            Field[] fields = new Field[fieldCount];
+            Method[] methods = new Method[methodCount];
+            EnumConstant[] enums = new EnumConstant[enumCount];
+            HashMap<String, UMLClass> vertices = new HashMap<>();
+            for (int c = 0; c < classCount; c++) {
+                int record = classRecords + c * CLASS_RECORD_SIZE;
+                UMLClass obj = readClass(record);
+                String owner = obj.toString();
+                List<Parameter> typeParams = new ArrayList<>();
+                int start = getInt(record, CLASS_TYPE_PARAMS);
+                for (int p = start; p < start + getInt(record, CLASS_TYPE_PARAMS_COUNT); p++)
+                    typeParams.add(readParameter(paramRecords + p * PARAM_INTS * 4));
+                obj.setTypeParameters(typeParams);
+
+                List<Field> classFields = new ArrayList<>();
+                start = getInt(record, CLASS_FIELDS);
+                for (int f = start; f < start + getInt(record, CLASS_FIELDS_COUNT); f++) {
+                    fields[f] = readField(fieldRecords + f * FIELD_INTS * 4, owner);
+                    classFields.add(fields[f]);
+                }
+                obj.setFields(classFields);
+
+                List<Method> classMethods = new ArrayList<>();
+                start = getInt(record, CLASS_METHODS);
+                for (int m = start; m < start + getInt(record, CLASS_METHODS_COUNT); m++) {
+                    methods[m] = readMethod(methodRecords + m * METHOD_INTS * 4, owner, paramRecords);
+                    classMethods.add(methods[m]);
+                }
+                obj.setMethods(classMethods);
+
+                List<EnumConstant> classEnums = new ArrayList<>();
+                start = getInt(record, CLASS_ENUMS);
+                for (int e = start; e < start + getInt(record, CLASS_ENUMS_COUNT); e++) {
+                    int enumRecord = enumRecords + e * ENUM_INTS * 4;
+                    enums[e] = new EnumConstant(getString(getInt(enumRecord, ENUM_NAME)), getInt(enumRecord, ENUM_NUM));
+                    enums[e].setOwner(owner);
+                    classEnums.add(enums[e]);
+                }
+                obj.setEnumConstants(classEnums);
+
+                if ((getInt(record, CLASS_FLAGS) & CLASS_FLAG_POSITION) != 0) {
+                    int position = record + CLASS_INTS * 4;
+                    verticesPositions.put(obj, new Point2D.Double(buffer.getDouble(position),
+                            buffer.getDouble(position + 8)));
+                }
+                classes[c] = obj;
+                vertices.put(owner, obj);
+            }
+
+            Graph<UMLClass, UMLRelationship> graph = UMLDiagram.createGraph();
+            for (UMLClass obj : classes)
+                graph.addVertex(obj);
+            for (int r = 0; r < relCount; r++) {
+                int record = relRecords + r * REL_INTS * 4;
+                UMLClass from = classes[getInt(record, REL_FROM)];
+                UMLClass to = classes[getInt(record, REL_TO)];
+                UMLRelationship rel = new UMLRelationship(from, to, RELATIONSHIP_TYPES[getInt(record, REL_TYPE)]);
+                readFacts(rel, factRecords, getInt(record, REL_FACTS), getInt(record, REL_FACTS_COUNT),
+                        fields, methods, enums);
+                graph.addEdge(from, to, rel);
+            }
+
+            HashSet<String> sources = new HashSet<>();
+            for (UMLClass object : classes) {
+                if (object.getFileSource() != null && !object.getFileSource().equals("null"))
+                    sources.add(object.getFileSource());
+            }
+            diagram.setSources(sources);
+            diagram.load(graph, vertices);
+        } catch (Exception ex) {
+            throw new RuntimeException(ex);
+        } finally {
+            // nothing read from the buffer keeps a reference to it
+            if (buffer instanceof MappedByteBuffer)
+                unmap(buffer);
+            buffer = null;
+            strings = null;
+        }
+    }
+
+    /**
+     * Release the mapping now instead of when the buffer is collected, until then
+     * the file cannot be replaced on Windows. There is no public API for this so the
+     * cleaner of the JDK is used, if it is not available the mapping is left to the collector.
+     */
+    private static void unmap(ByteBuffer buffer) {
+        try {
+            java.lang.Class<?> unsafeClass = java.lang.Class.forName("sun.misc.Unsafe");
+            java.lang.reflect.Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            unsafeClass.getMethod("invokeCleaner", ByteBuffer.class).invoke(field.get(null), buffer);
+        } catch (ReflectiveOperationException | RuntimeException ex) {
+            ex.printStackTrace();
+        }
+    }
+
+    private static ByteBuffer readBuffer(FileChannel channel, long maxHeapRead) throws IOException {
+        long size = channel.size();
+        if (size > maxHeapRead)
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        ByteBuffer buffer = ByteBuffer.allocate((int) size);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0)
+                throw new IOException("Unexpected end of file");
+        }
+        return buffer.flip();
+    }
+
+    private UMLClass readClass(int record) {
+        UMLClass obj = UMLClassFactory.create(CLASS_TYPES[getInt(record, CLASS_TYPE)],
+                getString(getInt(record, CLASS_NAME)));
+        obj.setPackageName(getString(getInt(record, CLASS_PACKAGE)));
+        obj.setParents(getStrings(getInt(record, CLASS_PARENTS), getInt(record, CLASS_PARENTS_COUNT)));
+        obj.setFileSource(getString(getInt(record, CLASS_FILE_SOURCE)));
+        obj.setFilePath(getString(getInt(record, CLASS_FILE_PATH)));
+        obj.setLine(getInt(record, CLASS_LINE));
+        obj.setCompact((getInt(record, CLASS_FLAGS) & CLASS_FLAG_COMPACT) != 0);
+        obj.setModifiers(getValues(getInt(record, CLASS_MODIFIERS), MODIFIERS));
+        obj.setAccessModifiers(getValues(getInt(record, CLASS_ACCESS_MODIFIERS), ACCESS_MODIFIERS));
+        return obj;
+    }
+
+    private Field readField(int record, String owner) {
+        Field field = new Field(getString(getInt(record, FIELD_NAME)));
+        field.setOwner(owner);
+        field.setTypeName(getString(getInt(record, FIELD_TYPE_NAME)));
+        field.setTypePackageName(getString(getInt(record, FIELD_TYPE_PACKAGE)));
+        field.setTypeParents(getStrings(getInt(record, FIELD_TYPE_PARENTS), getInt(record, FIELD_TYPE_PARENTS_COUNT)));
+        field.setPrimitiveType(getString(getInt(record, FIELD_PRIMITIVE_TYPE)));
+        field.setLine(getInt(record, FIELD_LINE));
+        field.setModifiers(getValues(getInt(record, FIELD_MODIFIERS), MODIFIERS));
+        field.setAccessModifiers(getValues(getInt(record, FIELD_ACCESS_MODIFIERS), ACCESS_MODIFIERS));
+        int flags = getInt(record, FIELD_FLAGS);
+        field.setArray((flags & FIELD_FLAG_ARRAY) != 0);
+        field.setTypeVariable((flags & FIELD_FLAG_TYPE_VARIABLE) != 0);
+        return field;
+    }
+
+    private Method readMethod(int record, String owner, int paramRecords) {
+        String name = getString(getInt(record, METHOD_NAME));
+        Method method = (getInt(record, METHOD_FLAGS) & METHOD_FLAG_CONSTRUCTOR) != 0 ?
+                new Constructor(name) : new Method(name);
+        method.setOwner(owner);
+        method.setReturnTypeName(getString(getInt(record, METHOD_RETURN_TYPE_NAME)));
+        method.setReturnTypePackageName(getString(getInt(record, METHOD_RETURN_TYPE_PACKAGE)));
+        method.setReturnPrimitiveType(getString(getInt(record, METHOD_RETURN_PRIMITIVE_TYPE)));
+        method.setReturnTypeParents(getStrings(getInt(record, METHOD_RETURN_TYPE_PARENTS),
+                getInt(record, METHOD_RETURN_TYPE_PARENTS_COUNT)));
+        method.setLine(getInt(record, METHOD_LINE));
+        method.setModifiers(getValues(getInt(record, METHOD_MODIFIERS), MODIFIERS));
+        method.setAccessModifiers(getValues(getInt(record, METHOD_ACCESS_MODIFIERS), ACCESS_MODIFIERS));
+        List<Parameter> parameters = new ArrayList<>();
+        int start = getInt(record, METHOD_PARAMS);
+        for (int p = start; p < start + getInt(record, METHOD_PARAMS_COUNT); p++)
+            parameters.add(readParameter(paramRecords + p * PARAM_INTS * 4));
+        method.setParameters(parameters);
+        return method;
+    }
+
+    private Parameter readParameter(int record) {
+        Parameter parameter = new Parameter(getString(getInt(record, PARAM_NAME)));
+        parameter.setPrimitiveType(getString(getInt(record, PARAM_PRIMITIVE_TYPE)));
+        parameter.setTypeName(getString(getInt(record, PARAM_TYPE_NAME)));
+        parameter.setTypePackageName(getString(getInt(record, PARAM_TYPE_PACKAGE)));
+        parameter.setTypeParents(getStrings(getInt(record, PARAM_TYPE_PARENTS), getInt(record, PARAM_TYPE_PARENTS_COUNT)));
+        parameter.setModifiers(getValues(getInt(record, PARAM_MODIFIERS), MODIFIERS));
+        int flags = getInt(record, PARAM_FLAGS);
+        parameter.setArray((flags & PARAM_FLAG_ARRAY) != 0);
+        parameter.setTypeVariable((flags & PARAM_FLAG_TYPE_VARIABLE) != 0);
+        parameter.setGeneric((flags & PARAM_FLAG_GENERIC) != 0);
+        parameter.setUpperBound((flags & PARAM_FLAG_UPPER_BOUND) != 0);
+        parameter.setLowerBound((flags & PARAM_FLAG_LOWER_BOUND) != 0);
+        parameter.setBounds(getStrings(getInt(record, PARAM_BOUNDS), getInt(record, PARAM_BOUNDS_COUNT)));
+        parameter.setBoundsFullNames(getStrings(getInt(record, PARAM_BOUNDS_FULL_NAMES),
+                getInt(record, PARAM_BOUNDS_FULL_NAMES_COUNT)));
+        return parameter;
+    }
+
+    private void readFacts(UMLRelationship rel, int factRecords, int start, int count,
+                           Field[] fields, Method[] methods, EnumConstant[] enums) {
+        HashMap<Method, HashSet<Method>> methodsAccessedByMethods = new HashMap<>();
+        HashMap<Method, HashSet<Method>> methodsAccessingMethods = new HashMap<>();
+        HashMap<Field, HashSet<Method>> fieldsAccessedByMethods = new HashMap<>();
+        HashMap<Method, HashSet<Field>> methodsAccessingFields = new HashMap<>();
+        HashMap<EnumConstant, HashSet<Method>> enumsAccessedByMethods = new HashMap<>();
+        HashMap<Method, HashSet<EnumConstant>> methodsAccessingEnums = new HashMap<>();
+        HashSet<Method> methodsAccessingClass = new HashSet<>();
+        HashSet<Field> fieldsAccessingClass = new HashSet<>();
+        for (int f = start; f < start + count; f++) {
+            int record = factRecords + f * FACT_INTS * 4;
+            int key = getInt(record, FACT_KEY);
+            int value = getInt(record, FACT_VALUE);
+            switch (getInt(record, FACT_KIND)) {
+                case METHODS_ACCESSED_BY_METHODS:
+                    addFact(methodsAccessedByMethods, methods[key], value, methods);
+                    break;
+                case METHODS_ACCESSING_METHODS:
+                    addFact(methodsAccessingMethods, methods[key], value, methods);
+                    break;
+                case FIELDS_ACCESSED_BY_METHODS:
+                    addFact(fieldsAccessedByMethods, fields[key], value, methods);
+                    break;
+                case METHODS_ACCESSING_FIELDS:
+                    addFact(methodsAccessingFields, methods[key], value, fields);
+                    break;
+                case ENUMS_ACCESSED_BY_METHODS:
+                    addFact(enumsAccessedByMethods, enums[key], value, methods);
+                    break;
+                case METHODS_ACCESSING_ENUMS:
+                    addFact(methodsAccessingEnums, methods[key], value, enums);
+                    break;
+                case METHODS_ACCESSING_CLASS:
+                    methodsAccessingClass.add(methods[key]);
+                    break;
+                case FIELDS_ACCESSING_CLASS:
+                    fieldsAccessingClass.add(fields[key]);
+                    break;
+            }
+        }
+        rel.setMethodsAccessedByMethods(methodsAccessedByMethods);
+        rel.setMethodsAccesingMethods(methodsAccessingMethods);
+        rel.setFieldsAccessedByMethods(fieldsAccessedByMethods);
+        rel.setMethodsAccessingFields(methodsAccessingFields);
+        rel.setEnumsAccessedByMethods(enumsAccessedByMethods);
+        rel.setMethodsAccessingEnums(methodsAccessingEnums);
+        rel.setMethodsAccessingClass(methodsAccessingClass);
+        rel.setFieldsAccessingClass(fieldsAccessingClass);
+    }
+
+    private static <K, V> void addFact(HashMap<K, HashSet<V>> map, K key, int value, V[] values) {
+        HashSet<V> set = map.computeIfAbsent(key, k -> new HashSet<>());
+        if (value != NO_VALUE)
+            set.add(value == NONE ? null : values[value]);
+    }
+
+    private int getInt(int record, int index) {
+        return buffer.getInt(record + index * 4);
+    }
+
+    private String getString(int id) {
+        if (id == NONE)
+            return null;
+        String value = strings[id];
+        if (value == null) {
+            int start = buffer.getInt(stringOffsets + id * 4);
+            int end = buffer.getInt(stringOffsets + (id + 1) * 4);
+            byte[] bytes = new byte[end - start];
+            buffer.get(stringData + start, bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+            strings[id] = value;
+        }
+        return value;
+    }
+
+    private List<String> getStrings(int offset, int count) {
+        List<String> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+            values.add(getString(buffer.getInt(intPool + (offset + i) * 4)));
+        return values;
+    }
+}
@@ -0,0 +1,179 @@
+/*
+MIT License
+
+Copyright (c) 2024 Max Kas
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.mku.liveuml.utils;
+
+import com.mku.liveuml.model.diagram.UMLClass;
+import com.mku.liveuml.model.diagram.UMLDiagram;
+import com.mku.liveuml.view.ViewState;
+
+import java.awt.geom.Point2D;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Loads and saves diagrams choosing the format from the file extension,
+ * the native binary format for .liveuml files, gzip compressed GraphML for .gz files
+ * and GraphML for everything else. The view state is kept in a .view sidecar file
+ * next to the diagram so a layout change does not rewrite the model.
+ */
+public class DiagramFiles {
+    public static final String GRAPHML_EXTENSION = "graphml";
+    public static final String BINARY_EXTENSION = BinaryFormat.EXTENSION;
+    public static final String GZIP_EXTENSION = "gz";
+    public static final String VIEW_EXTENSION = "view";
+    public static final String COMPRESSED_GRAPHML_EXTENSION = GRAPHML_EXTENSION + "." + GZIP_EXTENSION;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    public static boolean isBinary(File file) {
+        return file.getName().endsWith("." + BINARY_EXTENSION);
+    }
+
+    public static boolean isCompressed(File file) {
+        return file.getName().endsWith("." + GZIP_EXTENSION);
+    }
+
+    public static void load(File file, UMLDiagram diagram, HashMap<UMLClass, Point2D.Double> verticesPositions) {
+        if (isBinary(file)) {
+            new BinaryImporter().importGraph(file, diagram, verticesPositions);
+        } else if (isCompressed(file)) {
+            try (InputStream stream = new GZIPInputStream(new FileInputStream(file), BUFFER_SIZE)) {
+                new Importer().importGraph(stream, diagram, verticesPositions);
+            } catch (IOException ex) {
+                throw new RuntimeException(ex);
+            }
+        } else {
+            new Importer().importGraph(file, diagram, verticesPositions);
+        }
+    }
+
+    /**
+     * Save to a temporary file next to the target and move it in place so a crash
+     * or a failed save never leaves a partial diagram file behind
+     */
+    public static void save(File file, UMLDiagram diagram, Map<UMLClass, Point2D.Double> vertexPositions) {
+        replace(file, temp -> write(temp, diagram, vertexPositions));
+    }
+
+    public static File getViewFile(File file) {
+        return new File(file.getPath() + "." + VIEW_EXTENSION);
+    }
+
+    /**
+     * Save only the view state of the diagram to its sidecar file
+     */
+    public static void saveView(File file, ViewState viewState) {
+        replace(getViewFile(file), temp -> {
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(temp),
+                    StandardCharsets.UTF_8))) {
+                viewState.write(writer);
+            }
+        });
+    }
+
+    /**
+     * Get the view state saved with the diagram or null if there is none,
+     * a view state older than the diagram belongs to a previous version and is ignored
+     */
+    public static ViewState loadView(File file) {
+        File viewFile = getViewFile(file);
+        if (!viewFile.exists() || viewFile.lastModified() < file.lastModified())
+            return null;
+        return readView(viewFile);
+    }
+
+    public static ViewState readView(File viewFile) {
+        try (Reader reader = new InputStreamReader(new FileInputStream(viewFile), StandardCharsets.UTF_8)) {
+            return ViewState.read(reader);
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    private interface TempFileWriter {
+        void write(File file) throws IOException;
+    }
+
+    private static void replace(File file, TempFileWriter fileWriter) {
+        File dir = file.getAbsoluteFile().getParentFile();
+        Path temp = null;
+        try {
+            // the temporary file keeps the name of the target so the format is chosen the same way
+            temp = Files.createTempFile(dir.toPath(), ".~", "-" + file.getName());
+            fileWriter.write(temp.toFile());
+            move(temp, file.toPath());
+            temp = null;
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+        } finally {
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException ex) {
+                    ex.printStackTrace();
+                }
+            }
+        }
+    }
+
+    private static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void write(File file, UMLDiagram diagram, Map<UMLClass, Point2D.Double> vertexPositions) {
+        if (isBinary(file)) {
+            new BinaryExporter().exportGraph(file, diagram, vertexPositions);
+        } else if (isCompressed(file)) {
+            try (GZIPOutputStream stream = new FastGZIPOutputStream(new FileOutputStream(file))) {
+                new Exporter().exportGraph(stream, diagram, vertexPositions);
+            } catch (IOException ex) {
+                throw new RuntimeException(ex);
+            }
+        } else {
+            new Exporter().exportGraph(file, diagram, vertexPositions);
+        }
+    }
+
+    /**
+     * The embedded json compresses well even at the fastest level which keeps saving I/O bound
+     */
+    private static class FastGZIPOutputStream extends GZIPOutputStream {
+        FastGZIPOutputStream(OutputStream stream) throws IOException {
+            super(stream, BUFFER_SIZE);
+            def.setLevel(Deflater.BEST_SPEED);
+        }
+    }
+}
@@ -24,208 +24,434 @@ SOFTWARE.
 package com.mku.liveuml.utils;
 
 import com.google.gson.Gson;
-import com.mku.liveuml.model.entities.EnumConstant;
-import com.mku.liveuml.model.entities.Field;
-import com.mku.liveuml.model.entities.Method;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.mku.liveuml.model.entities.*;
 import com.mku.liveuml.model.diagram.UMLDiagram;
 import com.mku.liveuml.model.diagram.UMLClass;
 import com.mku.liveuml.model.diagram.UMLRelationship;
-import org.jgrapht.nio.Attribute;
-import org.jgrapht.nio.AttributeType;
-import org.jgrapht.nio.DefaultAttribute;
-import org.jgrapht.nio.graphml.GraphMLExporter;
+import org.jgrapht.Graph;
 
 import java.awt.geom.Point2D;
-import java.io.File;
-import java.io.FileOutputStream;
-import java.io.OutputStreamWriter;
+import java.io.*;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.function.Function;
 
+/**
+ * Writes the diagram as GraphML straight to a buffered stream. The attributes are serialized
+ * by one shared Gson with streaming adapters for the members, and the owner maps of the
+ * relationships are written as they are visited, the format is the same the importer reads.
+ */
 public class Exporter {
-    public void exportGraph(File file, UMLDiagram diagram, Map<UMLClass, Point2D.Double> vertexPositions) {
-        GraphMLExporter<UMLClass, UMLRelationship> exporter = new GraphMLExporter<>();
+    static final Gson gson = new GsonBuilder()
+            .registerTypeAdapterFactory(new MemberAdapterFactory())
+            .create();
+    private static final Type STRINGS = new TypeToken<List<String>>() {}.getType();
+    private static final Type FIELDS = new TypeToken<List<Field>>() {}.getType();
+    private static final Type METHODS = new TypeToken<List<Method>>() {}.getType();
+    private static final Type ENUM_CONSTANTS = new TypeToken<List<EnumConstant>>() {}.getType();
+    private static final Type PARAMETERS = new TypeToken<List<Parameter>>() {}.getType();
+    private static final Type MODIFIERS = new TypeToken<List<Modifier>>() {}.getType();
+    private static final Type ACCESS_MODIFIERS = new TypeToken<List<AccessModifier>>() {}.getType();
 
-        exporter.setVertexIdProvider(obj -> obj.getClass().getSimpleName() + ":" + obj);
-        registerVertexAttrs(exporter);
-        exporter.setVertexAttributeProvider(obj -> getVertexAttrs(obj, vertexPositions));
+    private static final String[][] vertexKeys = {
+            {"x", "double"}, {"y", "double"}, {"line", "int"}, {"filePath", "string"}, {"fileSource", "string"},
+            {"packageName", "string"}, {"parents", "string"}, {"fields", "string"}, {"methods", "string"},
+            {"enumConstants", "string"}, {"compact", "boolean"}, {"accessModifiers", "string"},
+            {"modifiers", "string"}, {"typeParameters", "string"}
+    };
+    private static final String[] edgeKeys = {
+            "type", "from", "to", "methodsAccessedByMethods", "methodsAccesingMethods", "fieldsAccessedByMethods",
+            "methodsAccessingFields", "enumsAccessedByMethods", "methodsAccessingEnums", "fieldsAccessingClass",
+            "methodsAccessingClass"
+    };
 
-        exporter.setEdgeIdProvider(UMLRelationship::toString);
-        registerEdgeAttrs(exporter);
-        exporter.setEdgeAttributeProvider(this::getEdgeAttrs);
+    public void exportGraph(File file, UMLDiagram diagram, Map<UMLClass, Point2D.Double> vertexPositions) {
+        try (OutputStream stream = new FileOutputStream(file)) {
+            exportGraph(stream, diagram, vertexPositions);
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
 
-        try (OutputStreamWriter writer = new OutputStreamWriter(new FileOutputStream(file))) {
-            exporter.exportGraph(diagram.getGraph(), writer);
+    /**
+     * Export to a stream, the stream is flushed but not closed
+     */
+    public void exportGraph(OutputStream stream, UMLDiagram diagram, Map<UMLClass, Point2D.Double> vertexPositions) {
+        try {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8));
+            XmlTextWriter text = new XmlTextWriter(writer);
+            writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+            writer.write("<graphml xmlns=\"http://graphml.graphdrawing.org/xmlns\" "
+                    + "xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\" "
+                    + "xsi:schemaLocation=\"http://graphml.graphdrawing.org/xmlns "
+                    + "http://graphml.graphdrawing.org/xmlns/1.0/graphml.xsd\">\n");
+            for (int i = 0; i < vertexKeys.length; i++) {
+                writer.write("    <key id=\"v" + i + "\" for=\"node\" attr.name=\"" + vertexKeys[i][0]
+                        + "\" attr.type=\"" + vertexKeys[i][1] + "\"/>\n");
+            }
+            for (int i = 0; i < edgeKeys.length; i++) {
+                writer.write("    <key id=\"e" + i + "\" for=\"edge\" attr.name=\"" + edgeKeys[i]
+                        + "\" attr.type=\"string\"/>\n");
+            }
+            writer.write("    <graph edgedefault=\"directed\">\n");
+            Graph<UMLClass, UMLRelationship> graph = diagram.getGraph();
+            for (UMLClass obj : graph.vertexSet())
+                writeVertex(writer, text, obj, vertexPositions.get(obj));
+            for (UMLRelationship rel : graph.edgeSet())
+                writeEdge(writer, text, rel, graph);
+            writer.write("    </graph>\n</graphml>\n");
+            writer.flush();
         } catch (Exception ex) {
             throw new RuntimeException(ex);
         }
     }
 
-    private void registerEdgeAttrs(GraphMLExporter<UMLClass, UMLRelationship> exporter) {
-        exporter.registerAttribute("type", GraphMLExporter.AttributeCategory.EDGE, AttributeType.STRING);
-        exporter.registerAttribute("from", GraphMLExporter.AttributeCategory.EDGE, AttributeType.STRING);
-        exporter.registerAttribute("to", GraphMLExporter.AttributeCategory.EDGE, AttributeType.STRING);
-        exporter.registerAttribute("methodsAccessedByMethods", GraphMLExporter.AttributeCategory.EDGE, AttributeType.STRING);
-        exporter.registerAttribute("methodsAccesingMethods", GraphMLExporter.AttributeCategory.EDGE, AttributeType.STRING);
-        exporter.registerAttribute("fieldsAccessedByMethods", GraphMLExporter.AttributeCategory.EDGE, AttributeType.STRING);
-        exporter.registerAttribute("methodsAccessingFields", GraphMLExporter.AttributeCategory.EDGE, AttributeType.STRING);
-        exporter.registerAttribute("enumsAccessedByMethods", GraphMLExporter.AttributeCategory.EDGE, AttributeType.STRING);
-        exporter.registerAttribute("methodsAccessingEnums", GraphMLExporter.AttributeCategory.EDGE, AttributeType.STRING);
-        exporter.registerAttribute("fieldsAccessingClass", GraphMLExporter.AttributeCategory.EDGE, AttributeType.STRING);
-        exporter.registerAttribute("methodsAccessingClass", GraphMLExporter.AttributeCategory.EDGE, AttributeType.STRING);
-    }
-
-    private Map<String, Attribute> getEdgeAttrs(UMLRelationship rel) {
-        HashMap<String, Attribute> map = new HashMap<>();
-        map.put("type", new DefaultAttribute<>(rel.getType().name(), AttributeType.STRING));
-        map.put("from", new DefaultAttribute<>(rel.getFrom().toString(), AttributeType.STRING));
-        map.put("to", new DefaultAttribute<>(rel.getTo().toString(), AttributeType.STRING));
-        map.put("fieldsAccessingClass", new DefaultAttribute<>(new Gson().toJson(getFieldsOwnerMap(rel.getFieldsAccessingClass())), AttributeType.STRING));
-        map.put("methodsAccessingClass", new DefaultAttribute<>(new Gson().toJson(getMethodOwnerMap(rel.getMethodsAccessingClass())), AttributeType.STRING));
-        map.put("fieldsAccessedByMethods", new DefaultAttribute<>(new Gson().toJson(getFieldMethodOwnerMap(rel.getFieldsAccessedByMethods())), AttributeType.STRING));
-        map.put("methodsAccessingFields", new DefaultAttribute<>(new Gson().toJson(getMethodFieldOwnerMap(rel.getMethodsAccessingFields())), AttributeType.STRING));
-        map.put("enumsAccessedByMethods", new DefaultAttribute<>(new Gson().toJson(getEnumConstMethodOwnerMap(rel.getEnumsAccessedByMethods())), AttributeType.STRING));
-        map.put("methodsAccessingEnums", new DefaultAttribute<>(new Gson().toJson(getMethodEnumConstOwnerMap(rel.getMethodsAccessingEnums())), AttributeType.STRING));
-        map.put("methodsAccessedByMethods", new DefaultAttribute<>(new Gson().toJson(getMethodMethodOwnerMap(rel.getMethodsAccessedByMethods())), AttributeType.STRING));
-        map.put("methodsAccesingMethods", new DefaultAttribute<>(new Gson().toJson(getMethodMethodOwnerMap(rel.getMethodsAccesingMethods())), AttributeType.STRING));
-        return map;
-    }
-
-    private HashMap<String, List<HashMap<String, String>>> getFieldMethodOwnerMap(Map<Field, HashSet<Method>> fieldMethodMap) {
-        HashMap<String, List<HashMap<String, String>>> fieldMethodOwnerMap = new HashMap<>();
-        for (Field f : fieldMethodMap.keySet()) {
-            List<HashMap<String, String>> flist = new ArrayList<>();
-            fieldMethodOwnerMap.put(f.getName(), flist);
-            for(Method m : fieldMethodMap.get(f)) {
-                HashMap<String, String> ownerMap = new HashMap<>();
-                flist.add(ownerMap);
-                ownerMap.put("fieldOwner", f.getOwner());
-                ownerMap.put("methodName", m == null ? null : m.getSignature());
-                ownerMap.put("methodOwner", m == null ? null : m.getOwner());
-            }
+    private static String getVertexId(UMLClass obj) {
+        return obj.getClass().getSimpleName() + ":" + obj;
+    }
+
+    private void writeVertex(Writer writer, XmlTextWriter text, UMLClass obj, Point2D.Double point) throws IOException {
+        writer.write("        <node id=\"");
+        text.write(getVertexId(obj));
+        writer.write("\">\n");
+        if (point != null) {
+            writeData(writer, text, "v0", Double.toString(point.x));
+            writeData(writer, text, "v1", Double.toString(point.y));
+        }
+        writeData(writer, text, "v2", Integer.toString(obj.getLine()));
+        writeData(writer, text, "v3", obj.getFilePath());
+        writeData(writer, text, "v4", obj.getFileSource());
+        writeData(writer, text, "v5", obj.getPackageName());
+        writeJsonData(writer, text, "v6", obj.getParents(), STRINGS);
+        writeJsonData(writer, text, "v7", obj.getFields(), FIELDS);
+        writeJsonData(writer, text, "v8", obj.getMethods(), METHODS);
+        writeJsonData(writer, text, "v9", obj.getEnumConstants(), ENUM_CONSTANTS);
+        writeData(writer, text, "v10", Boolean.toString(obj.isCompact()));
+        writeJsonData(writer, text, "v11", obj.getAccessModifiers(), ACCESS_MODIFIERS);
+        writeJsonData(writer, text, "v12", obj.getModifiers(), MODIFIERS);
+        writeJsonData(writer, text, "v13", obj.getTypeParameters(), PARAMETERS);
+        writer.write("        </node>\n");
+    }
+
+    private void writeEdge(Writer writer, XmlTextWriter text, UMLRelationship rel,
+                           Graph<UMLClass, UMLRelationship> graph) throws IOException {
+        writer.write("        <edge id=\"");
+        text.write(rel.toString());
+        writer.write("\" source=\"");
+        text.write(getVertexId(graph.getEdgeSource(rel)));
+        writer.write("\" target=\"");
+        text.write(getVertexId(graph.getEdgeTarget(rel)));
+        writer.write("\">\n");
+        writeData(writer, text, "e0", rel.getType().name());
+        writeData(writer, text, "e1", rel.getFrom().toString());
+        writeData(writer, text, "e2", rel.getTo().toString());
+
+        JsonWriter json = startJsonData(writer, text, "e3");
+        writeOwnerMap(json, rel.getMethodsAccessedByMethods(), Method::getSignature,
+                "methodOwner", Method::getOwner, "methodName2", Method::getSignature, "methodOwner2", Method::getOwner);
+        endJsonData(writer, json);
+        json = startJsonData(writer, text, "e4");
+        writeOwnerMap(json, rel.getMethodsAccesingMethods(), Method::getSignature,
+                "methodOwner", Method::getOwner, "methodName2", Method::getSignature, "methodOwner2", Method::getOwner);
+        endJsonData(writer, json);
+        json = startJsonData(writer, text, "e5");
+        writeOwnerMap(json, rel.getFieldsAccessedByMethods(), Field::getName,
+                "fieldOwner", Field::getOwner, "methodName", Method::getSignature, "methodOwner", Method::getOwner);
+        endJsonData(writer, json);
+        json = startJsonData(writer, text, "e6");
+        writeOwnerMap(json, rel.getMethodsAccessingFields(), Method::getSignature,
+                "methodOwner", Method::getOwner, "fieldName", Field::getName, "fieldOwner", Field::getOwner);
+        endJsonData(writer, json);
+        json = startJsonData(writer, text, "e7");
+        writeOwnerMap(json, rel.getEnumsAccessedByMethods(), EnumConstant::getName,
+                "enumConstOwner", EnumConstant::getOwner, "methodName", Method::getSignature, "methodOwner", Method::getOwner);
+        endJsonData(writer, json);
+        json = startJsonData(writer, text, "e8");
+        writeOwnerMap(json, rel.getMethodsAccessingEnums(), Method::getSignature,
+                "methodOwner", Method::getOwner, "enumConstName", EnumConstant::getName, "enumConstOwner", EnumConstant::getOwner);
+        endJsonData(writer, json);
+        json = startJsonData(writer, text, "e9");
+        writeOwners(json, rel.getFieldsAccessingClass(), Field::getName, Field::getOwner);
+        endJsonData(writer, json);
+        json = startJsonData(writer, text, "e10");
+        writeOwners(json, rel.getMethodsAccessingClass(), Method::getSignature, Method::getOwner);
+        endJsonData(writer, json);
+        writer.write("        </edge>\n");
+    }
+
+    /**
+     * Write a map from member name to its owner, when 2 members have the same name the first one is kept
+     */
+    private static <T> void writeOwners(JsonWriter json, Set<T> members, Function<T, String> name,
+                                        Function<T, String> owner) throws IOException {
+        HashSet<String> names = new HashSet<>();
+        json.beginObject();
+        for (T member : members) {
+            if (!names.add(name.apply(member)))
+                continue;
+            json.name(name.apply(member));
+            writeString(json, owner.apply(member));
         }
-        return fieldMethodOwnerMap;
+        json.endObject();
     }
 
-    private HashMap<String, List<HashMap<String, String>>> getMethodFieldOwnerMap(Map<Method, HashSet<Field>> fieldMethodMap) {
-        HashMap<String, List<HashMap<String, String>>> fieldMethodOwnerMap = new HashMap<>();
-        for (Method m : fieldMethodMap.keySet()) {
-            List<HashMap<String, String>> flist = new ArrayList<>();
-            fieldMethodOwnerMap.put(m.getSignature(), flist);
-            for(Field f : fieldMethodMap.get(m)) {
-                HashMap<String, String> ownerMap = new HashMap<>();
-                flist.add(ownerMap);
-                ownerMap.put("methodOwner", m.getOwner());
-                ownerMap.put("fieldName", f == null ? null : f.getName());
-                ownerMap.put("fieldOwner", f == null ? null : f.getOwner());
+    /**
+     * Write a member to members map as a map from the member name to the list of owners of both sides,
+     * the values can be null when the member was not resolved
+     */
+    private static <K, V> void writeOwnerMap(JsonWriter json, Map<K, ? extends Set<V>> map,
+                                             Function<K, String> keyName, String keyOwnerName, Function<K, String> keyOwner,
+                                             String valueNameName, Function<V, String> valueName,
+                                             String valueOwnerName, Function<V, String> valueOwner) throws IOException {
+        HashSet<String> names = new HashSet<>();
+        json.beginObject();
+        for (Map.Entry<K, ? extends Set<V>> entry : map.entrySet()) {
+            if (!names.add(keyName.apply(entry.getKey())))
+                continue;
+            json.name(keyName.apply(entry.getKey()));
+            json.beginArray();
+            for (V value : entry.getValue()) {
+                json.beginObject();
+                writeProperty(json, keyOwnerName, keyOwner.apply(entry.getKey()));
+                if (value != null) {
+                    writeProperty(json, valueNameName, valueName.apply(value));
+                    writeProperty(json, valueOwnerName, valueOwner.apply(value));
+                }
+                json.endObject();
             }
+            json.endArray();
         }
-        return fieldMethodOwnerMap;
+        json.endObject();
+    }
+
+    private static void writeProperty(JsonWriter json, String name, String value) throws IOException {
+        if (value != null)
+            json.name(name).value(value);
+    }
+
+    private static void writeString(JsonWriter json, String value) throws IOException {
+        if (value == null)
+            json.nullValue();
+        else
+            json.value(value);
     }
 
+    private static void writeData(Writer writer, XmlTextWriter text, String key, String value) throws IOException {
+        if (value == null)
+            return;
+        writer.write("            <data key=\"" + key + "\">");
+        text.write(value);
+        writer.write("</data>\n");
+    }
+
+    private static void writeJsonData(Writer writer, XmlTextWriter text, String key, Object value,
+                                      java.lang.reflect.Type type) throws IOException {
+        JsonWriter json = startJsonData(writer, text, key);
+        gson.toJson(value, type, json);
+        endJsonData(writer, json);
+    }
+
+    private static JsonWriter startJsonData(Writer writer, XmlTextWriter text, String key) throws IOException {
+        writer.write("            <data key=\"" + key + "\">");
+        return new JsonWriter(text);
+    }
+
+    private static void endJsonData(Writer writer, JsonWriter json) throws IOException {
+        json.flush();
+        writer.write("</data>\n");
+    }
 
-    private HashMap<String, List<HashMap<String, String>>> getEnumConstMethodOwnerMap(Map<EnumConstant, HashSet<Method>> enumConstantMethodHashMap) {
-        HashMap<String, List<HashMap<String, String>>> enumConstMethodOwnerMap = new HashMap<>();
-        for (EnumConstant ec : enumConstantMethodHashMap.keySet()) {
-            List<HashMap<String, String>> mlist = new ArrayList<>();
-            enumConstMethodOwnerMap.put(ec.getName(), mlist);
-            for(Method m : enumConstantMethodHashMap.get(ec)) {
-                HashMap<String, String> ownerMap = new HashMap<>();
-                mlist.add(ownerMap);
-                ownerMap.put("enumConstOwner", ec.getOwner());
-                ownerMap.put("methodName", m == null ? null : m.getSignature());
-                ownerMap.put("methodOwner", m == null ? null : m.getOwner());
+    /**
+     * Escapes the xml special characters while writing to the underlying writer,
+     * closing it does not close the underlying writer
+     */
+    private static class XmlTextWriter extends Writer {
+        private final Writer writer;
+
+        XmlTextWriter(Writer writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void write(char[] buffer, int offset, int length) throws IOException {
+            int start = offset;
+            for (int i = offset; i < offset + length; i++) {
+                String escaped = escape(buffer[i]);
+                if (escaped == null)
+                    continue;
+                writer.write(buffer, start, i - start);
+                writer.write(escaped);
+                start = i + 1;
             }
+            writer.write(buffer, start, offset + length - start);
         }
-        return enumConstMethodOwnerMap;
-    }
 
-    private HashMap<String, List<HashMap<String, String>>> getMethodEnumConstOwnerMap(Map<Method, HashSet<EnumConstant>> enumConstMethodMap) {
-        HashMap<String, List<HashMap<String, String>>> enumConstMethodOwnerMap = new HashMap<>();
-        for (Method m : enumConstMethodMap.keySet()) {
-            List<HashMap<String, String>> elist = new ArrayList<>();
-            enumConstMethodOwnerMap.put(m.getSignature(), elist);
-            for (EnumConstant ec : enumConstMethodMap.get(m)) {
-                HashMap<String, String> ownerMap = new HashMap<>();
-                elist.add(ownerMap);
-                ownerMap.put("methodOwner", m.getOwner());
-                ownerMap.put("enumConstName", ec == null ? null : ec.getName());
-                ownerMap.put("enumConstOwner", ec == null ? null : ec.getOwner());
+        @Override
+        public void write(String value) throws IOException {
+            int start = 0;
+            for (int i = 0; i < value.length(); i++) {
+                String escaped = escape(value.charAt(i));
+                if (escaped == null)
+                    continue;
+                writer.write(value, start, i - start);
+                writer.write(escaped);
+                start = i + 1;
             }
+            writer.write(value, start, value.length() - start);
         }
-        return enumConstMethodOwnerMap;
-    }
 
-    private HashMap<String, List<HashMap<String, String>>> getMethodMethodOwnerMap(Map<Method, HashSet<Method>> fieldMethodMap) {
-        HashMap<String, List<HashMap<String, String>>> methodMethodOwnerMap = new HashMap<>();
-        for (Method m : fieldMethodMap.keySet()) {
-            List<HashMap<String, String>> mlist = new ArrayList<>();
-            methodMethodOwnerMap.put(m.getSignature(), mlist);
-            for (Method mv : fieldMethodMap.get(m)) {
-                HashMap<String, String> ownerMap = new HashMap<>();
-                mlist.add(ownerMap);
-                ownerMap.put("methodOwner", m.getOwner());
-                ownerMap.put("methodName2", mv == null ? null : mv.getSignature());
-                ownerMap.put("methodOwner2", mv == null ? null : mv.getOwner());
+        private static String escape(char c) {
+            switch (c) {
+                case '&':
+                    return "&amp;";
+                case '<':
+                    return "&lt;";
+                case '>':
+                    return "&gt;";
+                case '"':
+                    return "&quot;";
+                default:
+                    return null;
             }
         }
-        return methodMethodOwnerMap;
+
+        @Override
+        public void flush() throws IOException {
+            writer.flush();
+        }
+
+        @Override
+        public void close() {
+
+        }
     }
 
-    private HashMap<String, String> getFieldsOwnerMap(Set<Field> fields) {
-        HashMap<String, String> fieldOwnerMap = new HashMap<>();
-        for (Field f : fields) {
-            fieldOwnerMap.put(f.getName(), f.getOwner());
+    /**
+     * Streaming adapters for the members, they write the same properties as the default
+     * reflection based serialization without the reflection, reading is left to the default adapters
+     */
+    private static class MemberAdapterFactory implements TypeAdapterFactory {
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+            java.lang.Class<? super T> rawType = type.getRawType();
+            TypeAdapter<T> delegate = gson.getDelegateAdapter(this, type);
+            if (Field.class.isAssignableFrom(rawType))
+                return (TypeAdapter<T>) new MemberAdapter<>((TypeAdapter<Field>) delegate, Exporter::writeField);
+            if (Method.class.isAssignableFrom(rawType))
+                return (TypeAdapter<T>) new MemberAdapter<>((TypeAdapter<Method>) delegate, Exporter::writeMethod);
+            if (Parameter.class.isAssignableFrom(rawType))
+                return (TypeAdapter<T>) new MemberAdapter<>((TypeAdapter<Parameter>) delegate, Exporter::writeParameter);
+            if (EnumConstant.class.isAssignableFrom(rawType))
+                return (TypeAdapter<T>) new MemberAdapter<>((TypeAdapter<EnumConstant>) delegate, Exporter::writeEnumConstant);
+            return null;
         }
-        return fieldOwnerMap;
     }
 
-    private HashMap<String, String> getMethodOwnerMap(Set<Method> methods) {
-        HashMap<String, String> methodOwnerMap = new HashMap<>();
-        for (Method m : methods) {
-            methodOwnerMap.put(m.getSignature(), m.getOwner());
+    private interface MemberWriter<T> {
+        void write(JsonWriter json, T value) throws IOException;
+    }
+
+    private static class MemberAdapter<T> extends TypeAdapter<T> {
+        private final TypeAdapter<T> delegate;
+        private final MemberWriter<T> memberWriter;
+
+        MemberAdapter(TypeAdapter<T> delegate, MemberWriter<T> memberWriter) {
+            this.delegate = delegate;
+            this.memberWriter = memberWriter;
+        }
+
+        @Override
+        public void write(JsonWriter json, T value) throws IOException {
+            if (value == null) {
+                json.nullValue();
+                return;
+            }
+            json.beginObject();
+            memberWriter.write(json, value);
+            json.endObject();
+        }
+
+        @Override
+        public T read(JsonReader in) throws IOException {
+            return delegate.read(in);
         }
-        return methodOwnerMap;
     }
 
+    private static void writeField(JsonWriter json, Field field) throws IOException {
+        writeProperty(json, "name", field.getName());
+        writeEnums(json, "modifiers", field.getModifiers());
+        writeEnums(json, "accessModifiers", field.getAccessModifiers());
+        json.name("isArray").value(field.isArray());
+        writeProperty(json, "typeName", field.getTypeName());
+        writeProperty(json, "typePackageName", field.getTypePackageName());
+        writeStrings(json, "typeParents", field.getTypeParents());
+        writeProperty(json, "primitiveType", field.getPrimitiveType());
+        writeProperty(json, "owner", field.getOwner());
+        json.name("line").value(field.getLine());
+        json.name("typeVariable").value(field.isTypeVariable());
+    }
 
-    private void registerVertexAttrs(GraphMLExporter<UMLClass, UMLRelationship> exporter) {
-        exporter.registerAttribute("x", GraphMLExporter.AttributeCategory.NODE, AttributeType.DOUBLE);
-        exporter.registerAttribute("y", GraphMLExporter.AttributeCategory.NODE, AttributeType.DOUBLE);
-        exporter.registerAttribute("line", GraphMLExporter.AttributeCategory.NODE, AttributeType.INT);
-        exporter.registerAttribute("filePath", GraphMLExporter.AttributeCategory.NODE, AttributeType.STRING);
-        exporter.registerAttribute("fileSource", GraphMLExporter.AttributeCategory.NODE, AttributeType.STRING);
-        exporter.registerAttribute("packageName", GraphMLExporter.AttributeCategory.NODE, AttributeType.STRING);
-        exporter.registerAttribute("parents", GraphMLExporter.AttributeCategory.NODE, AttributeType.STRING);
-        exporter.registerAttribute("fields", GraphMLExporter.AttributeCategory.NODE, AttributeType.STRING);
-        exporter.registerAttribute("methods", GraphMLExporter.AttributeCategory.NODE, AttributeType.STRING);
-        exporter.registerAttribute("enumConstants", GraphMLExporter.AttributeCategory.NODE, AttributeType.STRING);
-        exporter.registerAttribute("compact", GraphMLExporter.AttributeCategory.NODE, AttributeType.BOOLEAN);
-        exporter.registerAttribute("accessModifiers", GraphMLExporter.AttributeCategory.NODE, AttributeType.STRING);
-        exporter.registerAttribute("modifiers", GraphMLExporter.AttributeCategory.NODE, AttributeType.STRING);
-        exporter.registerAttribute("typeParameters", GraphMLExporter.AttributeCategory.NODE, AttributeType.STRING);
+    private static void writeMethod(JsonWriter json, Method method) throws IOException {
+        writeProperty(json, "name", method.getName());
+        if (!method.isReturnTypePrimitive())
+            writeProperty(json, "returnTypeName", method.getReturnTypeName());
+        writeProperty(json, "returnTypePackageName", method.getReturnTypePackageName());
+        writeProperty(json, "returnPrimitiveType", method.getReturnPrimitiveType());
+        writeStrings(json, "returnTypeParents", method.getReturnTypeParents());
+        writeProperty(json, "owner", method.getOwner());
+        json.name("line").value(method.getLine());
+        writeEnums(json, "modifiers", method.getModifiers());
+        writeEnums(json, "accessModifiers", method.getAccessModifiers());
+        json.name("parameters").beginArray();
+        for (Parameter parameter : method.getParameters()) {
+            json.beginObject();
+            writeParameter(json, parameter);
+            json.endObject();
+        }
+        json.endArray();
     }
 
-    private Map<String, Attribute> getVertexAttrs(UMLClass obj, Map<UMLClass, Point2D.Double> vertexPositions) {
-        HashMap<String, Attribute> map = new HashMap<>();
-        Point2D.Double point = vertexPositions.getOrDefault(obj, null);
-        if (point != null) {
-            map.put("x", new DefaultAttribute<>(point.x, AttributeType.DOUBLE));
-            map.put("y", new DefaultAttribute<>(point.y, AttributeType.DOUBLE));
-        }
-        map.put("line", new DefaultAttribute<>(obj.getLine(), AttributeType.INT));
-        map.put("filePath", new DefaultAttribute<>(obj.getFilePath(), AttributeType.STRING));
-        map.put("fileSource", new DefaultAttribute<>(obj.getFileSource(), AttributeType.STRING));
-        map.put("packageName", new DefaultAttribute<>(obj.getPackageName(), AttributeType.STRING));
-        map.put("parents", new DefaultAttribute<>(new Gson().toJson(obj.getParents()), AttributeType.STRING));
-
-        map.put("fields", new DefaultAttribute<>(new Gson().toJson(obj.getFields()), AttributeType.STRING));
-        map.put("methods", new DefaultAttribute<>(new Gson().toJson(obj.getMethods()), AttributeType.STRING));
-        map.put("enumConstants", new DefaultAttribute<>(new Gson().toJson(obj.getEnumConstants()), AttributeType.STRING));
-        map.put("compact", new DefaultAttribute<>(obj.isCompact(), AttributeType.BOOLEAN));
-
-        map.put("modifiers", new DefaultAttribute<>(new Gson().toJson(obj.getModifiers()), AttributeType.STRING));
-        map.put("accessModifiers", new DefaultAttribute<>(new Gson().toJson(obj.getAccessModifiers()), AttributeType.STRING));
-        map.put("typeParameters", new DefaultAttribute<>(new Gson().toJson(obj.getTypeParameters()), AttributeType.STRING));
-        return map;
+    private static void writeParameter(JsonWriter json, Parameter parameter) throws IOException {
+        writeProperty(json, "name", parameter.getName());
+        writeProperty(json, "primitiveType", parameter.getPrimitiveType());
+        writeProperty(json, "typeName", parameter.getTypeName());
+        writeProperty(json, "typePackageName", parameter.getTypePackageName());
+        writeStrings(json, "typeParents", parameter.getTypeParents());
+        writeEnums(json, "modifiers", parameter.getModifiers());
+        json.name("isArray").value(parameter.isArray());
+        json.name("typeVariable").value(parameter.isTypeVariable());
+        json.name("generic").value(parameter.isGeneric());
+        json.name("upperBound").value(parameter.isUpperBound());
+        json.name("lowerBound").value(parameter.isLowerBound());
+        writeStrings(json, "bounds", parameter.getBounds());
+        writeStrings(json, "boundsFullNames", parameter.getBoundsFullNames());
+    }
+
+    private static void writeEnumConstant(JsonWriter json, EnumConstant enumConstant) throws IOException {
+        writeProperty(json, "name", enumConstant.getName());
+        json.name("num").value(enumConstant.getNum());
+        writeProperty(json, "owner", enumConstant.getOwner());
+    }
+
+    private static void writeStrings(JsonWriter json, String name, List<String> values) throws IOException {
+        json.name(name).beginArray();
+        for (String value : values)
+            writeString(json, value);
+        json.endArray();
+    }
+
+    private static void writeEnums(JsonWriter json, String name, List<? extends Enum<?>> values) throws IOException {
+        json.name(name).beginArray();
+        for (Enum<?> value : values)
+            json.value(value.name());
+        json.endArray();
     }
 }
@@ -23,19 +23,88 @@ SOFTWARE.
 */
 package com.mku.liveuml.utils;
 
-import com.mku.liveuml.view.GraphPanel;
+import com.mku.liveuml.view.DiagramRenderer;
 
-import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class ImageExporter {
-    public void saveImage(File file, BufferedImage image) {
-        try {
-            ImageIO.write(image, "png", file);
-        } catch (IOException e) {
+    private static final int TILE_WIDTH = 1024;
+    private static final int BAND_HEIGHT = 128;
+
+    /**
+     * Render the diagram in bands of tiles and stream the rows to the PNG file.
+     * The tiles of a band are painted in parallel while the previous band is encoded,
+     * so only two bands are in memory no matter the size of the diagram.
+     */
+    public void saveImage(File file, DiagramRenderer renderer) {
+        Rectangle bounds = renderer.getBounds();
+        int threads = Runtime.getRuntime().availableProcessors();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try (PngWriter writer = new PngWriter(new BufferedOutputStream(new FileOutputStream(file)),
+                bounds.width, bounds.height)) {
+            int[] row = new int[bounds.width];
+            List<Future<int[]>> band = renderBand(pool, renderer, bounds, 0);
+            for (int y = 0; y < bounds.height; y += BAND_HEIGHT) {
+                List<Future<int[]>> current = band;
+                band = y + BAND_HEIGHT < bounds.height ? renderBand(pool, renderer, bounds, y + BAND_HEIGHT) : null;
+                List<int[]> tiles = new ArrayList<>(current.size());
+                for (Future<int[]> tile : current)
+                    tiles.add(tile.get());
+                int bandHeight = Math.min(BAND_HEIGHT, bounds.height - y);
+                for (int r = 0; r < bandHeight; r++) {
+                    for (int t = 0; t < tiles.size(); t++) {
+                        int tileWidth = Math.min(TILE_WIDTH, bounds.width - t * TILE_WIDTH);
+                        System.arraycopy(tiles.get(t), r * tileWidth, row, t * TILE_WIDTH, tileWidth);
+                    }
+                    writer.writeRow(row, 0);
+                }
+            }
+        } catch (IOException | ExecutionException e) {
+            throw new RuntimeException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
             throw new RuntimeException(e);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private List<Future<int[]>> renderBand(ExecutorService pool, DiagramRenderer renderer, Rectangle bounds, int y) {
+        List<Future<int[]>> tiles = new ArrayList<>();
+        int height = Math.min(BAND_HEIGHT, bounds.height - y);
+        for (int x = 0; x < bounds.width; x += TILE_WIDTH) {
+            int width = Math.min(TILE_WIDTH, bounds.width - x);
+            int tileX = x;
+            tiles.add(pool.submit(() -> renderTile(renderer, bounds.x + tileX, bounds.y + y, width, height)));
+        }
+        return tiles;
+    }
+
+    private int[] renderTile(DiagramRenderer renderer, int x, int y, int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, width, height);
+            g.translate(-x, -y);
+            g.clipRect(x, y, width, height);
+            renderer.paint(g, new Rectangle2D.Double(x, y, width, height));
+        } finally {
+            g.dispose();
         }
+        return ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
     }
 }
@@ -24,205 +24,384 @@ SOFTWARE.
 package com.mku.liveuml.utils;
 
 import com.google.gson.Gson;
-import com.google.gson.internal.StringMap;
+import com.google.gson.GsonBuilder;
+import com.google.gson.InstanceCreator;
+import com.google.gson.reflect.TypeToken;
 import com.mku.liveuml.model.diagram.UMLDiagram;
 import com.mku.liveuml.model.diagram.UMLClass;
 import com.mku.liveuml.model.diagram.UMLClassFactory;
 import com.mku.liveuml.model.diagram.UMLRelationship;
 import com.mku.liveuml.model.diagram.UMLRelationshipType;
 import com.mku.liveuml.model.entities.*;
-import org.jgrapht.nio.Attribute;
-import org.jgrapht.nio.graphml.GraphMLImporter;
+import org.jgrapht.Graph;
 
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import java.awt.geom.Point2D;
+import java.io.BufferedInputStream;
 import java.io.File;
-import java.io.FileReader;
-import java.io.InputStreamReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Type;
 import java.util.*;
-
-@SuppressWarnings({"rawtypes", "unchecked"})
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Reads the GraphML diagram files. The document is scanned once with a streaming parser
+ * and the attribute values are kept as text, the json payloads of the vertices are then decoded
+ * in parallel and the edges are added with only their types. The member maps of the edges are
+ * only needed for finding references so they are loaded in the background after the import returns,
+ * or earlier by {@link UMLRelationship#loadDetails()} when they are used first.
+ */
 public class Importer {
+    // the entities are created with their constructors so the fields missing from the json keep their defaults
+    private static final Gson gson = new GsonBuilder()
+            .registerTypeAdapter(Field.class, (InstanceCreator<Field>) type -> new Field(null))
+            .registerTypeAdapter(Method.class, (InstanceCreator<Method>) type -> new Method(null))
+            .registerTypeAdapter(Parameter.class, (InstanceCreator<Parameter>) type -> new Parameter(null))
+            .registerTypeAdapter(EnumConstant.class, (InstanceCreator<EnumConstant>) type -> new EnumConstant(null, 0))
+            .create();
+    private static final Type STRINGS = new TypeToken<List<String>>() {}.getType();
+    private static final Type FIELDS = new TypeToken<List<Field>>() {}.getType();
+    private static final Type METHODS = new TypeToken<List<Method>>() {}.getType();
+    private static final Type ENUM_CONSTANTS = new TypeToken<List<EnumConstant>>() {}.getType();
+    private static final Type PARAMETERS = new TypeToken<List<Parameter>>() {}.getType();
+    private static final Type MODIFIERS = new TypeToken<List<Modifier>>() {}.getType();
+    private static final Type ACCESS_MODIFIERS = new TypeToken<List<AccessModifier>>() {}.getType();
+    private static final Type OWNERS = new TypeToken<Map<String, String>>() {}.getType();
+    private static final Type OWNER_LISTS = new TypeToken<Map<String, List<Map<String, String>>>>() {}.getType();
+
     public void importGraph(File file, UMLDiagram diagram, HashMap<UMLClass, Point2D.Double> verticesPositions) {
-        GraphMLImporter<UMLClass, UMLRelationship> importer = new GraphMLImporter<>();
-        importer.setSchemaValidation(false);
-
-        importer.setVertexFactory(UMLClassFactory::create);
-        HashMap<String, UMLClass> vertices = new HashMap<>();
-        importer.addVertexAttributeConsumer((pair, attribute) -> setVertexAttrs(pair.getFirst(),
-                pair.getSecond(), attribute, verticesPositions, vertices));
-        // TODO: remove this since we update the relationships from the vertices attrs
-        importer.addEdgeAttributeConsumer((pair, attribute) -> setEdgeAttrs(pair.getFirst(),
-                pair.getSecond(), attribute, vertices));
-
-        try (InputStreamReader inputStreamReader = new FileReader(file)) {
-            diagram.createGraph();
-            importer.importGraph(diagram.getGraph(), inputStreamReader);
-            diagram.setClasses(diagram.getGraph().vertexSet());
+        try (InputStream stream = new FileInputStream(file)) {
+            importGraph(stream, diagram, verticesPositions);
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * Import from a stream, the stream is read to the end but not closed
+     */
+    public void importGraph(InputStream stream, UMLDiagram diagram, HashMap<UMLClass, Point2D.Double> verticesPositions) {
+        List<VertexData> vertexData = new ArrayList<>();
+        List<EdgeData> edgeData = new ArrayList<>();
+        ExecutorService pool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+            Thread thread = new Thread(runnable, "Importer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            readDocument(new BufferedInputStream(stream), vertexData, edgeData);
+            decode(pool, vertexData);
+
+            Graph<UMLClass, UMLRelationship> graph = UMLDiagram.createGraph();
+            HashMap<String, UMLClass> vertexIds = new HashMap<>();
+            HashMap<String, UMLClass> vertices = new HashMap<>();
+            for (VertexData data : vertexData) {
+                graph.addVertex(data.obj);
+                vertexIds.put(data.id, data.obj);
+                vertices.put(data.obj.toString(), data.obj);
+                if (data.position != null)
+                    verticesPositions.put(data.obj, data.position);
+            }
+            List<UMLRelationship> relationships = new ArrayList<>();
+            for (EdgeData data : edgeData) {
+                UMLClass source = vertexIds.get(data.source);
+                UMLClass target = vertexIds.get(data.target);
+                if (source == null || target == null)
+                    continue;
+                UMLRelationship relationship = new UMLRelationship(source, target, null);
+                data.linkEnds(relationship, vertices);
+                relationship.setDetailsLoader(() -> {
+                    data.decode();
+                    data.linkDetails(relationship, vertices);
+                });
+                graph.addEdge(source, target, relationship);
+                relationships.add(relationship);
+            }
+
             HashSet<String> sources = new HashSet<>();
-            for (UMLClass object : diagram.getGraph().vertexSet()) {
+            for (UMLClass object : graph.vertexSet()) {
                 if (object.getFileSource() != null && !object.getFileSource().equals("null"))
                     sources.add(object.getFileSource());
             }
             diagram.setSources(sources);
-            diagram.updateVertices(vertices);
+            diagram.load(graph, vertices);
+            loadDetails(pool, relationships);
         } catch (Exception ex) {
+            pool.shutdownNow();
             throw new RuntimeException(ex);
         }
+        pool.shutdown();
     }
 
-    private void setVertexAttrs(UMLClass obj, String key, Attribute attribute, Map<UMLClass, Point2D.Double> vertexPositions, HashMap<String, UMLClass> vertices) {
-        if (!vertices.containsKey(obj.toString())) {
-            vertices.put(obj.toString(), obj);
+    /**
+     * Load the member maps of the edges in chunks without waiting for them
+     */
+    private static void loadDetails(ExecutorService pool, List<UMLRelationship> relationships) {
+        int chunk = Math.max(1, relationships.size() / (Runtime.getRuntime().availableProcessors() * 4));
+        for (int start = 0; start < relationships.size(); start += chunk) {
+            List<UMLRelationship> part = relationships.subList(start, Math.min(relationships.size(), start + chunk));
+            pool.submit(() -> {
+                try {
+                    for (UMLRelationship relationship : part)
+                        relationship.loadDetails();
+                } catch (Exception ex) {
+                    ex.printStackTrace();
+                }
+            });
         }
-        Point2D.Double point;
-        switch (key) {
-            case "x":
-                point = vertexPositions.getOrDefault(obj, new Point2D.Double());
-                point.x = Double.parseDouble(attribute.getValue());
-                vertexPositions.put(obj, point);
-                break;
-            case "y":
-                point = vertexPositions.getOrDefault(obj, new Point2D.Double());
-                point.y = Double.parseDouble(attribute.getValue());
-                vertexPositions.put(obj, point);
-                break;
-            case "line":
-                obj.setLine(Integer.parseInt(attribute.getValue()));
-                break;
-            case "filePath":
-                obj.setFilePath(attribute.getValue());
-                break;
-            case "fileSource":
-                obj.setFileSource(attribute.getValue());
-                break;
-            case "packageName":
-                obj.setPackageName(attribute.getValue());
-                break;
-            case "parents":
-                obj.setParents((List<String>) new Gson().fromJson(attribute.getValue(), List.class));
-                break;
-            case "fields":
-                obj.setFields(parseFields((List<StringMap>) new Gson().fromJson(attribute.getValue(), List.class), obj, vertices));
-                break;
-            case "enumConstants":
-                obj.setEnumConstants(parseEnumConsts((List<StringMap>) new Gson().fromJson(attribute.getValue(), List.class), obj, vertices));
-                break;
-            case "methods":
-                obj.setMethods(parseMethods((List<StringMap>) new Gson().fromJson(attribute.getValue(), List.class), obj, vertices));
-                break;
-            case "compact":
-                obj.setCompact(Boolean.parseBoolean(attribute.getValue()));
-                break;
-            case "modifiers":
-                obj.setModifiers(parseModifiers((List<String>) new Gson().fromJson(attribute.getValue(), List.class), obj, vertices));
-                break;
-            case "accessModifiers":
-                obj.setAccessModifiers(parseAccessModifiers((List<String>) new Gson().fromJson(attribute.getValue(), List.class), obj, vertices));
-                break;
-            case "typeParameters":
-                obj.setTypeParameters(parseTypeParameters((List<StringMap>) new Gson().fromJson(attribute.getValue(), List.class), obj, vertices));
-                break;
+    }
+
+    /**
+     * Scan the nodes, the edges and their attributes as text, the values are decoded later
+     */
+    private static void readDocument(InputStream stream, List<VertexData> vertexData, List<EdgeData> edgeData)
+            throws XMLStreamException {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        XMLStreamReader reader = factory.createXMLStreamReader(stream);
+        try {
+            HashMap<String, String> keys = new HashMap<>();
+            HashMap<String, String> attrs = null;
+            while (reader.hasNext()) {
+                if (reader.next() != XMLStreamConstants.START_ELEMENT)
+                    continue;
+                switch (reader.getLocalName()) {
+                    case "key":
+                        keys.put(reader.getAttributeValue(null, "id"), reader.getAttributeValue(null, "attr.name"));
+                        break;
+                    case "node":
+                        VertexData vertex = new VertexData(reader.getAttributeValue(null, "id"));
+                        vertexData.add(vertex);
+                        attrs = vertex.attrs;
+                        break;
+                    case "edge":
+                        EdgeData edge = new EdgeData(reader.getAttributeValue(null, "source"),
+                                reader.getAttributeValue(null, "target"));
+                        edgeData.add(edge);
+                        attrs = edge.attrs;
+                        break;
+                    case "data":
+                        String key = keys.get(reader.getAttributeValue(null, "key"));
+                        String value = reader.getElementText();
+                        if (attrs != null && key != null)
+                            attrs.put(key, value);
+                        break;
+                }
+            }
+        } finally {
+            reader.close();
         }
     }
 
-    private void setEdgeAttrs(UMLRelationship relationship, String key, Attribute attribute, HashMap<String, UMLClass> vertices) {
-        if (relationship == null)
-            return;
-        switch (key) {
-            case "type":
-                relationship.setType(UMLRelationshipType.valueOf(attribute.getValue()));
-                break;
-            case "from":
-                if (vertices.containsKey(attribute.getValue()))
-                    relationship.setFrom(vertices.get(attribute.getValue()));
-                break;
-            case "to":
-                if (vertices.containsKey(attribute.getValue()))
-                    relationship.setTo(vertices.get(attribute.getValue()));
-                break;
-            case "fieldsAccessingClass":
-                HashMap<String, String> fieldOwnerMap = (HashMap<String, String>) new Gson().fromJson(attribute.getValue(), HashMap.class);
-                relationship.setFieldsAccessingClass(new HashSet<>(getFields(fieldOwnerMap, vertices)));
-                break;
-            case "methodsAccessingClass":
-                HashMap<String, String> classOwnerMap = (HashMap<String, String>) new Gson().fromJson(attribute.getValue(), HashMap.class);
-                relationship.setMethodsAccessingClass(new HashSet<>(getMethods(classOwnerMap, vertices)));
-                break;
-
-            case "fieldsAccessedByMethods":
-                HashMap<String, List<StringMap>> accessedBy = (HashMap<String, List<StringMap>>) new Gson().fromJson(attribute.getValue(), HashMap.class);
-                relationship.setFieldsAccessedByMethods(getFieldMethodMap(accessedBy, vertices));
-                break;
-            case "methodsAccessingFields":
-                HashMap<String, List<StringMap>> accessing = (HashMap<String, List<StringMap>>) new Gson().fromJson(attribute.getValue(), HashMap.class);
-                relationship.setMethodsAccessingFields(getMethodFieldMap(accessing, vertices));
-                break;
-
-            case "enumsAccessedByMethods":
-                HashMap<String, List<StringMap>> accessedEnumConstsBy = (HashMap<String, List<StringMap>>) new Gson().fromJson(attribute.getValue(), HashMap.class);
-                relationship.setEnumsAccessedByMethods(getEnumConstMethodMap(accessedEnumConstsBy, vertices));
-                break;
-            case "methodsAccessingEnums":
-                HashMap<String, List<StringMap>> accessingEnumConsts = (HashMap<String, List<StringMap>>) new Gson().fromJson(attribute.getValue(), HashMap.class);
-                relationship.setMethodsAccessingEnums(getMethodEnumConstMap(accessingEnumConsts, vertices));
-                break;
-
-            case "methodsAccessedByMethods":
-                HashMap<String, List<StringMap>> calledBy = (HashMap<String, List<StringMap>>) new Gson().fromJson(attribute.getValue(), HashMap.class);
-                relationship.setMethodsAccessedByMethods(getMethodMethodMap(calledBy, vertices));
-                break;
-            case "methodsAccesingMethods":
-                HashMap<String, List<StringMap>> callTo = (HashMap<String, List<StringMap>>) new Gson().fromJson(attribute.getValue(), HashMap.class);
-                relationship.setMethodsAccesingMethods(getMethodMethodMap(callTo, vertices));
-                break;
+    /**
+     * Decode the payloads in chunks on all the cores
+     */
+    private static void decode(ExecutorService pool, List<? extends Payload> payloads)
+            throws InterruptedException, ExecutionException {
+        int chunk = Math.max(1, payloads.size() / (Runtime.getRuntime().availableProcessors() * 4));
+        List<Future<?>> futures = new ArrayList<>();
+        for (int start = 0; start < payloads.size(); start += chunk) {
+            List<? extends Payload> part = payloads.subList(start, Math.min(payloads.size(), start + chunk));
+            futures.add(pool.submit(() -> {
+                for (Payload payload : part)
+                    payload.decode();
+            }));
         }
+        for (Future<?> future : futures)
+            future.get();
+    }
+
+    private interface Payload {
+        void decode();
     }
 
+    private static class VertexData implements Payload {
+        private final String id;
+        private final HashMap<String, String> attrs = new HashMap<>();
+        private UMLClass obj;
+        private Point2D.Double position;
+
+        VertexData(String id) {
+            this.id = id;
+        }
+
+        @Override
+        public void decode() {
+            obj = UMLClassFactory.create(id);
+            for (Map.Entry<String, String> attr : attrs.entrySet())
+                setVertexAttr(attr.getKey(), attr.getValue());
+        }
 
-    private static HashMap<Field, HashSet<Method>> getFieldMethodMap(HashMap<String, List<StringMap>> accessedBy,
+        private void setVertexAttr(String key, String value) {
+            String owner = obj.toString();
+            switch (key) {
+                case "x":
+                    getPosition().x = Double.parseDouble(value);
+                    break;
+                case "y":
+                    getPosition().y = Double.parseDouble(value);
+                    break;
+                case "line":
+                    obj.setLine(Integer.parseInt(value));
+                    break;
+                case "filePath":
+                    obj.setFilePath(value);
+                    break;
+                case "fileSource":
+                    obj.setFileSource(value);
+                    break;
+                case "packageName":
+                    obj.setPackageName(value);
+                    break;
+                case "parents":
+                    obj.setParents(gson.fromJson(value, STRINGS));
+                    break;
+                case "fields":
+                    List<Field> fields = gson.fromJson(value, FIELDS);
+                    for (Field field : fields)
+                        field.setOwner(owner);
+                    obj.setFields(fields);
+                    break;
+                case "enumConstants":
+                    List<EnumConstant> enumConstants = gson.fromJson(value, ENUM_CONSTANTS);
+                    for (EnumConstant enumConstant : enumConstants)
+                        enumConstant.setOwner(owner);
+                    obj.setEnumConstants(enumConstants);
+                    break;
+                case "methods":
+                    List<Method> methods = gson.fromJson(value, METHODS);
+                    for (Method method : methods)
+                        method.setOwner(owner);
+                    obj.setMethods(methods);
+                    break;
+                case "compact":
+                    obj.setCompact(Boolean.parseBoolean(value));
+                    break;
+                case "modifiers":
+                    obj.setModifiers(gson.fromJson(value, MODIFIERS));
+                    break;
+                case "accessModifiers":
+                    obj.setAccessModifiers(gson.fromJson(value, ACCESS_MODIFIERS));
+                    break;
+                case "typeParameters":
+                    obj.setTypeParameters(gson.fromJson(value, PARAMETERS));
+                    break;
+            }
+        }
+
+        private Point2D.Double getPosition() {
+            if (position == null)
+                position = new Point2D.Double();
+            return position;
+        }
+    }
+
+    private static class EdgeData implements Payload {
+        private final String source;
+        private final String target;
+        private final HashMap<String, String> attrs = new HashMap<>();
+        private final HashMap<String, Map<String, String>> owners = new HashMap<>();
+        private final HashMap<String, Map<String, List<Map<String, String>>>> ownerLists = new HashMap<>();
+
+        EdgeData(String source, String target) {
+            this.source = source;
+            this.target = target;
+        }
+
+        @Override
+        public void decode() {
+            for (Map.Entry<String, String> attr : attrs.entrySet()) {
+                switch (attr.getKey()) {
+                    case "fieldsAccessingClass":
+                    case "methodsAccessingClass":
+                        owners.put(attr.getKey(), gson.fromJson(attr.getValue(), OWNERS));
+                        break;
+                    case "fieldsAccessedByMethods":
+                    case "methodsAccessingFields":
+                    case "enumsAccessedByMethods":
+                    case "methodsAccessingEnums":
+                    case "methodsAccessedByMethods":
+                    case "methodsAccesingMethods":
+                        ownerLists.put(attr.getKey(), gson.fromJson(attr.getValue(), OWNER_LISTS));
+                        break;
+                }
+            }
+        }
+
+        public void linkEnds(UMLRelationship relationship, HashMap<String, UMLClass> vertices) {
+            if (attrs.containsKey("type"))
+                relationship.setType(UMLRelationshipType.valueOf(attrs.get("type")));
+            if (vertices.containsKey(attrs.get("from")))
+                relationship.setFrom(vertices.get(attrs.get("from")));
+            if (vertices.containsKey(attrs.get("to")))
+                relationship.setTo(vertices.get(attrs.get("to")));
+        }
+
+        /**
+         * Resolve the decoded owner maps to the members of the vertices
+         */
+        public void linkDetails(UMLRelationship relationship, HashMap<String, UMLClass> vertices) {
+            for (Map.Entry<String, Map<String, String>> entry : owners.entrySet()) {
+                switch (entry.getKey()) {
+                    case "fieldsAccessingClass":
+                        relationship.setFieldsAccessingClass(new HashSet<>(getFields(entry.getValue(), vertices)));
+                        break;
+                    case "methodsAccessingClass":
+                        relationship.setMethodsAccessingClass(new HashSet<>(getMethods(entry.getValue(), vertices)));
+                        break;
+                }
+            }
+            for (Map.Entry<String, Map<String, List<Map<String, String>>>> entry : ownerLists.entrySet()) {
+                switch (entry.getKey()) {
+                    case "fieldsAccessedByMethods":
+                        relationship.setFieldsAccessedByMethods(getFieldMethodMap(entry.getValue(), vertices));
+                        break;
+                    case "methodsAccessingFields":
+                        relationship.setMethodsAccessingFields(getMethodFieldMap(entry.getValue(), vertices));
+                        break;
+                    case "enumsAccessedByMethods":
+                        relationship.setEnumsAccessedByMethods(getEnumConstMethodMap(entry.getValue(), vertices));
+                        break;
+                    case "methodsAccessingEnums":
+                        relationship.setMethodsAccessingEnums(getMethodEnumConstMap(entry.getValue(), vertices));
+                        break;
+                    case "methodsAccessedByMethods":
+                        relationship.setMethodsAccessedByMethods(getMethodMethodMap(entry.getValue(), vertices));
+                        break;
+                    case "methodsAccesingMethods":
+                        relationship.setMethodsAccesingMethods(getMethodMethodMap(entry.getValue(), vertices));
+                        break;
+                }
+            }
+        }
+    }
+
+    private static HashMap<Field, HashSet<Method>> getFieldMethodMap(Map<String, List<Map<String, String>>> accessedBy,
                                                                      HashMap<String, UMLClass> vertices) {
         HashMap<Field, HashSet<Method>> fieldMethodHashMap = new HashMap<>();
         for (String fieldName : accessedBy.keySet()) {
             HashSet<Method> methods = new HashSet<>();
             Field field = null;
-            for (StringMap ownerMap : accessedBy.get(fieldName)) {
-                String fieldOwner = (String) ownerMap.get("fieldOwner");
-                String methodName = (String) ownerMap.getOrDefault("methodName", null);
-                String methodOwner = (String) ownerMap.getOrDefault("methodOwner", null);
-
+            for (Map<String, String> ownerMap : accessedBy.get(fieldName)) {
                 // key field
                 if (field == null) {
-                    if (!vertices.containsKey(fieldOwner)) {
+                    field = findField(vertices, ownerMap.get("fieldOwner"), fieldName);
+                    if (field == null)
                         continue;
-                    }
-                    UMLClass fieldOwnerObj = vertices.get(fieldOwner);
-
-                    for (Field f : fieldOwnerObj.getFields()) {
-                        if (f.getName().equals(fieldName)) {
-                            field = f;
-                            break;
-                        }
-                    }
-                    if (field == null) {
-                        continue;
-                    }
                 }
 
                 // value method
-                UMLClass methodOwnerObj = null;
-                if (vertices.containsKey(methodOwner)) {
-                    methodOwnerObj = vertices.get(methodOwner);
-                }
-                Method method = null;
-                if (methodName != null && methodOwnerObj != null) {
-                    for (Method m : methodOwnerObj.getMethods()) {
-                        if (m.getSignature().equals(methodName)) {
-                            method = m;
-                            break;
-                        }
-                    }
-                }
-                methods.add(method);
+                methods.add(findMethod(vertices, ownerMap.get("methodOwner"),
+                        ownerMap.get("methodName")));
             }
             fieldMethodHashMap.put(field, methods);
         }
@@ -230,48 +409,23 @@ public class Importer {
     }
 
 
-    private static HashMap<Method, HashSet<Field>> getMethodFieldMap(HashMap<String, List<StringMap>> map,
+    private static HashMap<Method, HashSet<Field>> getMethodFieldMap(Map<String, List<Map<String, String>>> map,
                                                                      HashMap<String, UMLClass> vertices) {
         HashMap<Method, HashSet<Field>> methodFieldHashMap = new HashMap<>();
         for (String methodName : map.keySet()) {
             HashSet<Field> fields = new HashSet<>();
             Method method = null;
-            for (StringMap ownerMap : map.get(methodName)) {
-                String methodOwner = (String) ownerMap.get("methodOwner");
-                String fieldName = (String) ownerMap.getOrDefault("fieldName", null);
-                String fieldOwner = (String) ownerMap.getOrDefault("fieldOwner", null);
-
+            for (Map<String, String> ownerMap : map.get(methodName)) {
                 // key method
                 if (method == null) {
-                    if (!vertices.containsKey(methodOwner)) {
-                        continue;
-                    }
-                    UMLClass methodOwnerObj = vertices.get(methodOwner);
-                    for (Method m : methodOwnerObj.getMethods()) {
-                        if (m.getSignature().equals(methodName)) {
-                            method = m;
-                            break;
-                        }
-                    }
+                    method = findMethod(vertices, ownerMap.get("methodOwner"), methodName);
                     if (method == null)
                         continue;
                 }
 
-                // fields methods
-                UMLClass fieldOwnerObj = null;
-                if (vertices.containsKey(fieldOwner)) {
-                    fieldOwnerObj = vertices.get(fieldOwner);
-                }
-                Field field = null;
-                if (fieldName != null && fieldOwnerObj != null) {
-                    for (Field f : fieldOwnerObj.getFields()) {
-                        if (f.getName().equals(fieldName)) {
-                            field = f;
-                            break;
-                        }
-                    }
-                }
-                fields.add(field);
+                // value field
+                fields.add(findField(vertices, ownerMap.get("fieldOwner"),
+                        ownerMap.get("fieldName")));
             }
             methodFieldHashMap.put(method, fields);
         }
@@ -279,373 +433,116 @@ public class Importer {
     }
 
 
-    private static HashMap<EnumConstant, HashSet<Method>> getEnumConstMethodMap(HashMap<String, List<StringMap>> accessedBy,
+    private static HashMap<EnumConstant, HashSet<Method>> getEnumConstMethodMap(Map<String, List<Map<String, String>>> accessedBy,
                                                                                 HashMap<String, UMLClass> vertices) {
         HashMap<EnumConstant, HashSet<Method>> enumConstMethodHashMap = new HashMap<>();
         for (String enumConstName : accessedBy.keySet()) {
             HashSet<Method> methods = new HashSet<>();
             EnumConstant enumConstant = null;
-
-            for (StringMap ownerMap : accessedBy.get(enumConstName)) {
-                String enumConstOwner = (String) ownerMap.get("enumConstOwner");
-                String methodName = (String) ownerMap.getOrDefault("methodName", null);
-                String methodOwner = (String) ownerMap.getOrDefault("methodOwner", null);
+            for (Map<String, String> ownerMap : accessedBy.get(enumConstName)) {
+                // key enum constant
                 if (enumConstant == null) {
-                    if (!vertices.containsKey(enumConstOwner)) {
-                        continue;
-                    }
-                    UMLClass enumConstOwnerObj = vertices.get(enumConstOwner);
-                    for (EnumConstant ec : enumConstOwnerObj.getEnumConstants()) {
-                        if (ec.getName().equals(enumConstName)) {
-                            enumConstant = ec;
-                            break;
-                        }
-                    }
+                    enumConstant = findEnumConstant(vertices, ownerMap.get("enumConstOwner"), enumConstName);
                     if (enumConstant == null)
                         continue;
                 }
 
-                // value methods
-                UMLClass methodOwnerObj = null;
-                if (vertices.containsKey(methodOwner)) {
-                    methodOwnerObj = vertices.get(methodOwner);
-                }
-                Method method = null;
-                if (methodName != null && methodOwnerObj != null) {
-                    for (Method m : methodOwnerObj.getMethods()) {
-                        if (m.getSignature().equals(methodName)) {
-                            method = m;
-                            break;
-                        }
-                    }
-                }
-                methods.add(method);
+                // value method
+                methods.add(findMethod(vertices, ownerMap.get("methodOwner"),
+                        ownerMap.get("methodName")));
             }
             enumConstMethodHashMap.put(enumConstant, methods);
         }
         return enumConstMethodHashMap;
     }
 
-    private static HashMap<Method, HashSet<EnumConstant>> getMethodEnumConstMap(HashMap<String, List<StringMap>> map,
+    private static HashMap<Method, HashSet<EnumConstant>> getMethodEnumConstMap(Map<String, List<Map<String, String>>> map,
                                                                                 HashMap<String, UMLClass> vertices) {
-        HashMap<Method, HashSet<EnumConstant>> methodFieldHashMap = new HashMap<>();
+        HashMap<Method, HashSet<EnumConstant>> methodEnumConstHashMap = new HashMap<>();
         for (String methodName : map.keySet()) {
             HashSet<EnumConstant> enumConstants = new HashSet<>();
             Method method = null;
-            for (StringMap ownerMap : map.get(methodName)) {
-                String methodOwner = (String) ownerMap.get("methodOwner");
-                String enumConstName = (String) ownerMap.getOrDefault("enumConstName", null);
-                String enumConstOwner = (String) ownerMap.getOrDefault("enumConstOwner", null);
-
+            for (Map<String, String> ownerMap : map.get(methodName)) {
                 // key method
                 if (method == null) {
-                    if (!vertices.containsKey(methodOwner)) {
-                        continue;
-                    }
-                    UMLClass methodOwnerObj = vertices.get(methodOwner);
-
-                    for (Method m : methodOwnerObj.getMethods()) {
-                        if (m.getSignature().equals(methodName)) {
-                            method = m;
-                            break;
-                        }
-                    }
-                    if (method == null) {
+                    method = findMethod(vertices, ownerMap.get("methodOwner"), methodName);
+                    if (method == null)
                         continue;
-                    }
                 }
 
-                // value enum constants
-                UMLClass enumConstOwnerObj = null;
-                if (vertices.containsKey(enumConstOwner)) {
-                    enumConstOwnerObj = vertices.get(enumConstOwner);
-                }
-                EnumConstant enumConst = null;
-                if (enumConstName != null && enumConstOwnerObj != null) {
-                    for (EnumConstant ec : enumConstOwnerObj.getEnumConstants()) {
-                        if (ec.getName().equals(enumConstName)) {
-                            enumConst = ec;
-                            break;
-                        }
-                    }
-                }
-                enumConstants.add(enumConst);
+                // value enum constant
+                enumConstants.add(findEnumConstant(vertices, ownerMap.get("enumConstOwner"),
+                        ownerMap.get("enumConstName")));
             }
-            methodFieldHashMap.put(method, enumConstants);
+            methodEnumConstHashMap.put(method, enumConstants);
         }
-        return methodFieldHashMap;
+        return methodEnumConstHashMap;
     }
 
-    private static HashMap<Method, HashSet<Method>> getMethodMethodMap(HashMap<String, List<StringMap>> map, HashMap<String, UMLClass> vertices) {
+    private static HashMap<Method, HashSet<Method>> getMethodMethodMap(Map<String, List<Map<String, String>>> map, HashMap<String, UMLClass> vertices) {
         HashMap<Method, HashSet<Method>> methodMethodHashMap = new HashMap<>();
         for (String methodName : map.keySet()) {
             Method method = null;
             HashSet<Method> methods = new HashSet<>();
-            for (StringMap ownerMap : map.get(methodName)) {
-
+            for (Map<String, String> ownerMap : map.get(methodName)) {
                 // key method
                 if (method == null) {
-                    String methodOwner = (String) ownerMap.get("methodOwner");
-                    if (!vertices.containsKey(methodOwner)) {
-                        continue;
-                    }
-                    UMLClass methodOwnerObj = vertices.get(methodOwner);
-
-                    for (Method m : methodOwnerObj.getMethods()) {
-                        if (m.getSignature().equals(methodName)) {
-                            method = m;
-                            break;
-                        }
-                    }
+                    method = findMethod(vertices, ownerMap.get("methodOwner"), methodName);
                     if (method == null)
                         continue;
                 }
 
                 // value method
-                String methodName2 = (String) ownerMap.getOrDefault("methodName2", null);
-                String methodOwner2 = (String) ownerMap.getOrDefault("methodOwner2", null);
-                UMLClass methodOwnerObj2 = null;
-                if (vertices.containsKey(methodOwner2)) {
-                    methodOwnerObj2 = vertices.get(methodOwner2);
-                }
-                Method method2 = null;
-                if (methodName2 != null && methodOwnerObj2 != null) {
-                    for (Method m2 : methodOwnerObj2.getMethods()) {
-                        if (m2.getSignature().equals(methodName2)) {
-                            method2 = m2;
-                            break;
-                        }
-                    }
-                }
-                methods.add(method2);
+                methods.add(findMethod(vertices, ownerMap.get("methodOwner2"),
+                        ownerMap.get("methodName2")));
             }
             methodMethodHashMap.put(method, methods);
         }
         return methodMethodHashMap;
     }
 
-    private static List<Field> getFields(HashMap<String, String> map, HashMap<String, UMLClass> vertices) {
+    private static List<Field> getFields(Map<String, String> map, HashMap<String, UMLClass> vertices) {
         List<Field> fields = new ArrayList<>();
         for (String name : map.keySet()) {
-            String ownerName = map.get(name);
-            if (!vertices.containsKey(ownerName)) {
-                continue;
-            }
-            UMLClass obj = vertices.get(ownerName);
-            Field field = null;
-            for (Field f : obj.getFields()) {
-                if (f.getName().equals(name)) {
-                    field = f;
-                    break;
-                }
-            }
+            Field field = findField(vertices, map.get(name), name);
             if (field != null)
                 fields.add(field);
         }
         return fields;
     }
 
-    private static List<Field> parseFields(List<StringMap> map, UMLClass obj, HashMap<String, UMLClass> vertices) {
-        List<Field> fields = new ArrayList<>();
-        for (StringMap fmap : map) {
-            String ownerName = (String) fmap.getOrDefault("owner", null);
-            if (obj == null && !vertices.containsKey(ownerName))
-                continue;
-            if (obj == null)
-                obj = vertices.get(ownerName);
-            String name = (String) fmap.getOrDefault("name", null);
-            Field field = null;
-            for (Field f : obj.getFields()) {
-                if (f.getName().equals(name)) {
-                    field = f;
-                    break;
-                }
-            }
-            if (field == null) {
-                field = new Field(name);
-                field.setName(name);
-                field.setOwner(obj.toString());
-                field.setPrimitiveType((String) fmap.getOrDefault("primitiveType", null));
-                field.setTypeName((String) fmap.getOrDefault("typeName", null));
-                field.setTypePackageName((String) fmap.getOrDefault("typePackageName", null));
-                field.setTypeParents((List<String>) fmap.getOrDefault("typeParents", null));
-                field.setLine(((Double) fmap.getOrDefault("line", 0)).intValue());
-                List<String> mods = (List<String>) fmap.getOrDefault("modifiers", null);
-                List<Modifier> modifiers = new ArrayList<>();
-                if (mods != null) {
-                    for (String mod : mods) {
-                        modifiers.add(Modifier.valueOf(mod));
-                    }
-                }
-                field.setModifiers(modifiers);
-                List<String> accessMods = (List<String>) fmap.getOrDefault("accessModifiers", null);
-                List<AccessModifier> accessModifiers = new ArrayList<>();
-                if (accessMods != null) {
-                    for (String accessMod : accessMods) {
-                        accessModifiers.add(AccessModifier.valueOf(accessMod));
-                    }
-                }
-                field.setAccessModifiers(accessModifiers);
-                field.setArray((boolean) fmap.getOrDefault("isArray", false));
-            }
-            fields.add(field);
-        }
-        return fields;
+    /**
+     * Resolve a member through the name and signature maps of its owner,
+     * returns null if the owner or the member is not in the diagram
+     */
+    private static Field findField(HashMap<String, UMLClass> vertices, String ownerName, String name) {
+        UMLClass owner = vertices.get(ownerName);
+        if (owner == null || name == null)
+            return null;
+        return owner.getField(name);
     }
 
-    private static List<EnumConstant> parseEnumConsts(List<StringMap> map, UMLClass obj, HashMap<String, UMLClass> vertices) {
-        List<EnumConstant> enumConstants = new ArrayList<>();
-        for (StringMap fmap : map) {
-            String ownerName = (String) fmap.getOrDefault("owner", null);
-            if (obj == null && !vertices.containsKey(ownerName))
-                continue;
-            if (obj == null)
-                obj = vertices.get(ownerName);
-            String name = (String) fmap.getOrDefault("name", null);
-            int num = ((Double) fmap.getOrDefault("num", null)).intValue();
-            EnumConstant enumConstant = null;
+    private static Method findMethod(HashMap<String, UMLClass> vertices, String ownerName, String signature) {
+        UMLClass owner = vertices.get(ownerName);
+        if (owner == null || signature == null)
+            return null;
+        return owner.getMethod(signature);
+    }
 
-            for (EnumConstant ec : obj.getEnumConstants()) {
-                if (ec.getName().equals(name)) {
-                    enumConstant = ec;
-                    break;
-                }
-            }
-            if (enumConstant == null) {
-                enumConstant = new EnumConstant(name, num);
-                enumConstant.setOwner(obj.toString());
-            }
-            enumConstants.add(enumConstant);
-        }
-        return enumConstants;
+    private static EnumConstant findEnumConstant(HashMap<String, UMLClass> vertices, String ownerName, String name) {
+        UMLClass owner = vertices.get(ownerName);
+        if (owner == null || name == null)
+            return null;
+        return owner.getEnumConstant(name);
     }
 
-    private static List<Method> getMethods(HashMap<String, String> map, HashMap<String, UMLClass> vertices) {
+    private static List<Method> getMethods(Map<String, String> map, HashMap<String, UMLClass> vertices) {
         List<Method> methods = new ArrayList<>();
         for (String name : map.keySet()) {
-            String ownerName = map.getOrDefault(name, null);
-            if (!vertices.containsKey(ownerName))
-                continue;
-            UMLClass obj = vertices.get(ownerName);
-            Method method = null;
-            for (Method m : obj.getMethods()) {
-                if (m.getSignature().equals(name)) {
-                    method = m;
-                    break;
-                }
-            }
+            Method method = findMethod(vertices, map.get(name), name);
             if (method != null)
                 methods.add(method);
         }
         return methods;
     }
-
-    private static List<Method> parseMethods(List<StringMap> list, UMLClass obj, HashMap<String, UMLClass> vertices) {
-        List<Method> methods = new ArrayList<>();
-        for (StringMap mmap : list) {
-            String ownerName = (String) mmap.getOrDefault("owner", null);
-            if (obj == null && !vertices.containsKey(ownerName))
-                continue;
-            if (obj == null)
-                obj = vertices.get(ownerName);
-            String name = (String) mmap.getOrDefault("name", null);
-            Method method = null;
-            for (Method m : obj.getMethods()) {
-                if (m.getName().equals(name)) {
-                    method = m;
-                    break;
-                }
-            }
-            if (method == null) {
-                method = new Method(name);
-                method.setName(name);
-                method.setOwner(obj.toString());
-                method.setLine(((Double) mmap.getOrDefault("line", 0)).intValue());
-                method.setReturnPrimitiveType((String) mmap.getOrDefault("returnPrimitiveType", null));
-                method.setReturnTypeName((String) mmap.getOrDefault("returnTypeName", null));
-                method.setReturnTypePackageName((String) mmap.getOrDefault("returnTypePackageName", null));
-                method.setReturnTypeParents((List<String>) mmap.getOrDefault("returnTypeParents", null));
-                List<String> mods = (List<String>) mmap.getOrDefault("modifiers", null);
-                List<Modifier> modifiers = new ArrayList<>();
-                if (mods != null) {
-                    for (String mod : mods) {
-                        modifiers.add(Modifier.valueOf(mod));
-                    }
-                }
-                method.setModifiers(modifiers);
-
-                List<String> accessMods = (List<String>) mmap.getOrDefault("accessModifiers", null);
-                List<AccessModifier> accessModifiers = new ArrayList<>();
-                if (accessMods != null) {
-                    for (String accessMod : accessMods) {
-                        accessModifiers.add(AccessModifier.valueOf(accessMod));
-                    }
-                }
-                method.setAccessModifiers(accessModifiers);
-
-                List<StringMap<String>> params = (List<StringMap<String>>) mmap.getOrDefault("parameters", null);
-                List<Parameter> parameters = new ArrayList<>();
-                if (params != null) {
-                    for (StringMap<String> param : params) {
-                        Parameter parameter = parseParameter(param);
-                        parameters.add(parameter);
-                    }
-                }
-                method.setParameters(parameters);
-            }
-            methods.add(method);
-        }
-        return methods;
-    }
-
-    private static Parameter parseParameter(StringMap map) {
-        Parameter parameter = new Parameter((String) map.get("name"));
-        parameter.setPrimitiveType((String) map.getOrDefault("primitiveType", null));
-        parameter.setTypeName((String) map.getOrDefault("typeName", null));
-        parameter.setTypePackageName((String) map.getOrDefault("typePackageName", null));
-        parameter.setTypeParents((List<String>) map.getOrDefault("typeParents", null));
-        List<String> modifiers = (List<String>) map.getOrDefault("modifiers", null);
-        if (modifiers != null) {
-            List<Modifier> lModifiers = new ArrayList<>();
-            for (String modifier : modifiers)
-                lModifiers.add(Modifier.valueOf(modifier));
-            parameter.setModifiers(lModifiers);
-        }
-        parameter.setArray((boolean) map.getOrDefault("isArray", false));
-        parameter.setTypeVariable((boolean) map.getOrDefault("typeVariable", false));
-        parameter.setGeneric((boolean) map.getOrDefault("generic", false));
-        parameter.setUpperBound((boolean) map.getOrDefault("upperBound", false));
-        parameter.setLowerBound((boolean) map.getOrDefault("lowerBound", false));
-        List<String> bounds = (List<String>) map.getOrDefault("bounds", null);
-        parameter.setBounds(bounds);
-        List<String> boundsFullNames = (List<String>) map.getOrDefault("boundsFullNames", null);
-        parameter.setBounds(boundsFullNames);
-        return parameter;
-    }
-
-    private List<Modifier> parseModifiers(List<String> list, UMLClass obj, HashMap<String, UMLClass> vertices) {
-        List<Modifier> typeParameters = new ArrayList<>();
-        for (String typeParameter : list) {
-            typeParameters.add(Enum.valueOf(Modifier.class, typeParameter));
-        }
-        return typeParameters;
-    }
-
-    private List<AccessModifier> parseAccessModifiers(List<String> list, UMLClass obj, HashMap<String, UMLClass> vertices) {
-        List<AccessModifier> typeParameters = new ArrayList<>();
-        for (String typeParameter : list) {
-            typeParameters.add(Enum.valueOf(AccessModifier.class, typeParameter));
-        }
-        return typeParameters;
-    }
-
-    private List<Parameter> parseTypeParameters(List<StringMap> list, UMLClass obj, HashMap<String, UMLClass> vertices) {
-        List<Parameter> typeParameters = new ArrayList<>();
-        for (StringMap mmap : list) {
-            Parameter parameter = parseParameter(mmap);
-            typeParameters.add(parameter);
-        }
-        return typeParameters;
-    }
-
 }
@@ -0,0 +1,128 @@
+/*
+MIT License
+
+Copyright (c) 2024 Max Kas
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.mku.liveuml.utils;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Streaming PNG encoder, the rows are compressed as they are written so the image
+ * never has to be in memory as a whole. Writes 8 bit RGB with the Sub filter.
+ */
+public class PngWriter implements AutoCloseable {
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'};
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private final DataOutputStream output;
+    private final int width;
+    private final int height;
+    private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+    private final CRC32 crc = new CRC32();
+    private final byte[] row;
+    private final byte[] buffer = new byte[CHUNK_SIZE];
+    private int rowsWritten;
+
+    public PngWriter(OutputStream output, int width, int height) throws IOException {
+        this.output = new DataOutputStream(output);
+        this.width = width;
+        this.height = height;
+        this.row = new byte[width * 3 + 1];
+        this.output.write(SIGNATURE);
+        byte[] header = new byte[13];
+        writeInt(header, 0, width);
+        writeInt(header, 4, height);
+        header[8] = 8; // bit depth
+        header[9] = 2; // truecolor
+        writeChunk("IHDR", header, header.length);
+    }
+
+    /**
+     * Write the next row from packed RGB pixels, the alpha is ignored
+     */
+    public void writeRow(int[] pixels, int offset) throws IOException {
+        if (rowsWritten == height)
+            throw new IllegalStateException("All rows already written");
+        row[0] = 1; // Sub filter: each byte minus the same byte of the previous pixel
+        int prevR = 0, prevG = 0, prevB = 0;
+        for (int i = 0, p = 1; i < width; i++) {
+            int pixel = pixels[offset + i];
+            int r = (pixel >> 16) & 0xff;
+            int g = (pixel >> 8) & 0xff;
+            int b = pixel & 0xff;
+            row[p++] = (byte) (r - prevR);
+            row[p++] = (byte) (g - prevG);
+            row[p++] = (byte) (b - prevB);
+            prevR = r;
+            prevG = g;
+            prevB = b;
+        }
+        deflater.setInput(row);
+        while (!deflater.needsInput())
+            flushCompressed();
+        rowsWritten++;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (rowsWritten != height)
+                throw new IOException("Image incomplete: " + rowsWritten + " of " + height + " rows written");
+            deflater.finish();
+            while (!deflater.finished())
+                flushCompressed();
+            writeChunk("IEND", buffer, 0);
+        } finally {
+            deflater.end();
+            output.close();
+        }
+    }
+
+    private void flushCompressed() throws IOException {
+        int length = deflater.deflate(buffer);
+        if (length > 0)
+            writeChunk("IDAT", buffer, length);
+    }
+
+    private void writeChunk(String type, byte[] data, int length) throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        crc.reset();
+        crc.update(typeBytes);
+        crc.update(data, 0, length);
+        output.writeInt(length);
+        output.write(typeBytes);
+        output.write(data, 0, length);
+        output.writeInt((int) crc.getValue());
+    }
+
+    private static void writeInt(byte[] data, int offset, int value) {
+        data[offset] = (byte) (value >>> 24);
+        data[offset + 1] = (byte) (value >>> 16);
+        data[offset + 2] = (byte) (value >>> 8);
+        data[offset + 3] = (byte) value;
+    }
+}
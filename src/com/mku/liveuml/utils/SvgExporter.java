@@ -0,0 +1,284 @@
+/*
+MIT License
+
+Copyright (c) 2024 Max Kas
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.mku.liveuml.utils;
+
+import com.mku.liveuml.format.Formatter;
+import com.mku.liveuml.model.diagram.UMLClass;
+import com.mku.liveuml.model.diagram.UMLPackage;
+import com.mku.liveuml.model.diagram.UMLPackageRelationship;
+import com.mku.liveuml.model.diagram.UMLRelationship;
+import com.mku.liveuml.model.entities.*;
+import com.mku.liveuml.view.DiagramRenderer;
+import com.mku.liveuml.view.RenderStyles;
+
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Line2D;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Rectangle2D;
+import java.awt.geom.RoundRectangle2D;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Writes the diagram as SVG straight to the file, each vertex and edge is written as soon
+ * as it is visited so nothing but the current element is kept in memory.
+ * Uses the geometry of the renderer so the boxes match the layout and the image export.
+ */
+public class SvgExporter {
+    private static final int TEXT_MARGIN = 8;
+    private int lineHeight;
+
+    /**
+     * Export the diagram, only the elements crossing the viewport are written when it is provided
+     */
+    public void exportSvg(File file, DiagramRenderer renderer, Rectangle2D viewport) {
+        Rectangle2D area = viewport != null ? viewport : renderer.getBounds();
+        // the lines are spaced like the labels the boxes were sized for
+        lineHeight = renderer.getLineHeight();
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file),
+                StandardCharsets.UTF_8))) {
+            writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+            writer.write("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"" + format(area.getWidth())
+                    + "\" height=\"" + format(area.getHeight()) + "\" viewBox=\"" + format(area.getX())
+                    + " " + format(area.getY()) + " " + format(area.getWidth()) + " " + format(area.getHeight())
+                    + "\" font-family=\"" + RenderStyles.VERTEX_FONT.getName() + "\" font-size=\""
+                    + RenderStyles.VERTEX_FONT.getSize() + "\">\n");
+            writer.write("<rect x=\"" + format(area.getX()) + "\" y=\"" + format(area.getY())
+                    + "\" width=\"100%\" height=\"100%\" fill=\"white\"/>\n");
+            for (UMLRelationship rel : renderer.getEdges(viewport))
+                writeEdge(writer, renderer, rel);
+            for (UMLClass obj : renderer.getVertices(viewport))
+                writeVertex(writer, renderer, obj);
+            writer.write("</svg>\n");
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void writeEdge(Writer writer, DiagramRenderer renderer, UMLRelationship rel) throws IOException {
+        boolean selected = renderer.isSelected(rel);
+        Line2D line = renderer.getEdgeLine(rel);
+        BasicStroke stroke = (BasicStroke) RenderStyles.getEdgeStroke(rel.getType(), selected);
+        writer.write("<line x1=\"" + format(line.getX1()) + "\" y1=\"" + format(line.getY1())
+                + "\" x2=\"" + format(line.getX2()) + "\" y2=\"" + format(line.getY2())
+                + "\" stroke=\"" + getColor(RenderStyles.getEdgeDrawPaint(selected))
+                + "\" stroke-width=\"" + format(stroke.getLineWidth()) + "\"");
+        if (stroke.getDashArray() != null) {
+            StringBuilder dashes = new StringBuilder();
+            for (float dash : stroke.getDashArray()) {
+                if (dashes.length() > 0)
+                    dashes.append(' ');
+                dashes.append(format(dash));
+            }
+            writer.write(" stroke-dasharray=\"" + dashes + "\"");
+        }
+        writer.write("/>\n");
+
+        Shape arrow = RenderStyles.getArrowShape(rel.getType());
+        if (arrow != null) {
+            AffineTransform transform = AffineTransform.getTranslateInstance(line.getX2(), line.getY2());
+            transform.rotate(Math.atan2(line.getY2() - line.getY1(), line.getX2() - line.getX1()));
+            BasicStroke arrowStroke = (BasicStroke) RenderStyles.getArrowStroke(selected);
+            writer.write("<path d=\"" + getPathData(arrow, transform)
+                    + "\" fill=\"" + getColor(RenderStyles.getArrowFillPaint(rel.getType(), selected))
+                    + "\" stroke=\"" + getColor(RenderStyles.getArrowDrawPaint(selected))
+                    + "\" stroke-width=\"" + format(arrowStroke.getLineWidth()) + "\"/>\n");
+        }
+        if (rel instanceof UMLPackageRelationship) {
+            writer.write("<text x=\"" + format((line.getX1() + line.getX2()) / 2)
+                    + "\" y=\"" + format((line.getY1() + line.getY2()) / 2) + "\">"
+                    + escape(((UMLPackageRelationship) rel).getLabel()) + "</text>\n");
+        }
+    }
+
+    private void writeVertex(Writer writer, DiagramRenderer renderer, UMLClass obj) throws IOException {
+        boolean selected = renderer.isSelected(obj);
+        RoundRectangle2D box = renderer.getVertexBounds(obj);
+        BasicStroke stroke = (BasicStroke) RenderStyles.getVertexStroke(selected);
+        String color = getColor(RenderStyles.getVertexDrawPaint(selected));
+        writer.write("<g>\n<rect x=\"" + format(box.getX()) + "\" y=\"" + format(box.getY())
+                + "\" width=\"" + format(box.getWidth()) + "\" height=\"" + format(box.getHeight())
+                + "\" rx=\"" + format(box.getArcWidth() / 2) + "\" fill=\"white\" stroke=\"" + color
+                + "\" stroke-width=\"" + format(stroke.getLineWidth()) + "\"/>\n");
+
+        // header with the stereotypes, the name and the type parameters centered
+        double centerX = box.getCenterX();
+        double y = box.getY() + TEXT_MARGIN + lineHeight;
+        List<String> stereotypes = Formatter.getStereoTypes(obj);
+        if (!stereotypes.isEmpty()) {
+            writer.write("<text x=\"" + format(centerX) + "\" y=\"" + format(y) + "\" text-anchor=\"middle\">"
+                    + escape("\u00ab" + String.join("\u00bb\u00ab", stereotypes) + "\u00bb") + "</text>\n");
+            y += lineHeight;
+        }
+        writer.write("<text x=\"" + format(centerX) + "\" y=\"" + format(y)
+                + "\" text-anchor=\"middle\" font-weight=\"bold\" fill=\"" + color + "\">"
+                + escape(obj.getName()) + "</text>\n");
+        String typeParams = getTypeParameters(obj);
+        if (!typeParams.isEmpty()) {
+            y += lineHeight;
+            writer.write("<text x=\"" + format(centerX) + "\" y=\"" + format(y) + "\" text-anchor=\"middle\">"
+                    + escape(typeParams) + "</text>\n");
+        }
+
+        if (obj instanceof UMLPackage) {
+            int count = ((UMLPackage) obj).getMembers().size();
+            y = writeCompartment(writer, box, y, List.of(count + (count == 1 ? " class" : " classes")), null);
+        } else if (!obj.isCompact()) {
+            List<String> enums = new ArrayList<>();
+            for (EnumConstant enumConst : obj.getEnumConstants())
+                enums.add(enumConst.getName());
+            y = writeCompartment(writer, box, y, enums, null);
+
+            List<String> fields = new ArrayList<>();
+            List<String> fieldStyles = new ArrayList<>();
+            for (Field field : obj.getFields()) {
+                fields.add(Formatter.getFieldFormatted(field, false));
+                fieldStyles.add(field.getModifiers().contains(Modifier.Static) ?
+                        " text-decoration=\"underline\"" : "");
+            }
+            y = writeCompartment(writer, box, y, fields, fieldStyles);
+
+            // constructors first as in the diagram
+            List<Method> methods = new ArrayList<>();
+            for (Method method : obj.getMethods()) {
+                if (method instanceof Constructor)
+                    methods.add(method);
+            }
+            for (Method method : obj.getMethods()) {
+                if (!(method instanceof Constructor))
+                    methods.add(method);
+            }
+            List<String> signatures = new ArrayList<>();
+            List<String> methodStyles = new ArrayList<>();
+            for (Method method : methods) {
+                signatures.add(Formatter.getMethodSignature(method, true, false));
+                String style = "";
+                if (method.getModifiers().contains(Modifier.Static))
+                    style += " text-decoration=\"underline\"";
+                if (method.getModifiers().contains(Modifier.Abstract))
+                    style += " font-style=\"italic\"";
+                methodStyles.add(style);
+            }
+            writeCompartment(writer, box, y, signatures, methodStyles);
+        }
+        writer.write("</g>\n");
+    }
+
+    private double writeCompartment(Writer writer, RoundRectangle2D box, double y, List<String> lines,
+                                    List<String> styles) throws IOException {
+        if (lines.isEmpty())
+            return y;
+        y += TEXT_MARGIN / 2.0;
+        writer.write("<line x1=\"" + format(box.getX()) + "\" y1=\"" + format(y) + "\" x2=\"" + format(box.getMaxX())
+                + "\" y2=\"" + format(y) + "\" stroke=\"black\"/>\n");
+        for (int i = 0; i < lines.size(); i++) {
+            y += lineHeight;
+            writer.write("<text x=\"" + format(box.getX() + TEXT_MARGIN) + "\" y=\"" + format(y) + "\""
+                    + (styles != null ? styles.get(i) : "") + ">" + escape(lines.get(i)) + "</text>\n");
+        }
+        return y;
+    }
+
+    private static String getTypeParameters(UMLClass obj) {
+        StringBuilder typeParams = new StringBuilder();
+        for (Parameter param : obj.getTypeParameters()) {
+            if (typeParams.length() > 0)
+                typeParams.append(", ");
+            typeParams.append(param.getName());
+            String bounds = String.join(" ", param.getBounds());
+            if (param.isLowerBound())
+                typeParams.append(" super ").append(bounds);
+            else if (param.isUpperBound())
+                typeParams.append(" extends ").append(bounds);
+        }
+        return typeParams.toString();
+    }
+
+    private static String getPathData(Shape shape, AffineTransform transform) {
+        StringBuilder data = new StringBuilder();
+        double[] coords = new double[6];
+        for (PathIterator it = shape.getPathIterator(transform); !it.isDone(); it.next()) {
+            switch (it.currentSegment(coords)) {
+                case PathIterator.SEG_MOVETO:
+                    data.append('M').append(format(coords[0])).append(' ').append(format(coords[1]));
+                    break;
+                case PathIterator.SEG_LINETO:
+                    data.append('L').append(format(coords[0])).append(' ').append(format(coords[1]));
+                    break;
+                case PathIterator.SEG_QUADTO:
+                    data.append('Q').append(format(coords[0])).append(' ').append(format(coords[1]))
+                            .append(' ').append(format(coords[2])).append(' ').append(format(coords[3]));
+                    break;
+                case PathIterator.SEG_CUBICTO:
+                    data.append('C').append(format(coords[0])).append(' ').append(format(coords[1]))
+                            .append(' ').append(format(coords[2])).append(' ').append(format(coords[3]))
+                            .append(' ').append(format(coords[4])).append(' ').append(format(coords[5]));
+                    break;
+                case PathIterator.SEG_CLOSE:
+                    data.append('Z');
+                    break;
+            }
+        }
+        return data.toString();
+    }
+
+    private static String getColor(Paint paint) {
+        Color color = paint instanceof Color ? (Color) paint : Color.BLACK;
+        return String.format("#%02x%02x%02x", color.getRed(), color.getGreen(), color.getBlue());
+    }
+
+    private static String format(double value) {
+        if (value == Math.rint(value))
+            return Long.toString((long) value);
+        return String.format(Locale.ROOT, "%.2f", value);
+    }
+
+    static String escape(String text) {
+        StringBuilder escaped = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '<':
+                    escaped.append("&lt;");
+                    break;
+                case '>':
+                    escaped.append("&gt;");
+                    break;
+                case '&':
+                    escaped.append("&amp;");
+                    break;
+                case '"':
+                    escaped.append("&quot;");
+                    break;
+                default:
+                    escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+}
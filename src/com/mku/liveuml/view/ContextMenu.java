@@ -54,6 +54,7 @@ public class ContextMenu {
         menu.addSeparator();
 
         menu.add(createToggleExpandItem());
+        menu.add(createFocusItem());
         menu.add(createFindSubMenu("Referenced", UMLFinder.ReferenceType.From));
         menu.add(createFindSubMenu("Referencing", UMLFinder.ReferenceType.To));
         menu.add(createGoToSubMenu());
@@ -69,6 +70,18 @@ public class ContextMenu {
         return item;
     }
 
+    private Component createFocusItem() {
+        JMenuItem item = new JMenuItem("Focus");
+        item.addActionListener(e -> EventQueue.invokeLater(() -> {
+            // focus on all the selected classes when the class is part of the selection
+            List<UMLClass> roots = new ArrayList<>(panel.getViewer().getSelectedVertices());
+            if (!roots.contains(object))
+                roots = List.of(object);
+            new FocusFrame(diagram, roots, panel).setVisible(true);
+        }));
+        return item;
+    }
+
     private Component createFindSubMenu(String title, UMLFinder.ReferenceType type) {
         JMenu menu = new JMenu(title);
         menu.add(createAllFindRefItem(type));
@@ -0,0 +1,411 @@
+/*
+MIT License
+
+Copyright (c) 2024 Max Kas
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.mku.liveuml.view;
+
+import com.mku.liveuml.model.diagram.UMLClass;
+import com.mku.liveuml.model.diagram.UMLPackageRelationship;
+import com.mku.liveuml.model.diagram.UMLRelationship;
+import org.jgrapht.Graph;
+
+import javax.swing.*;
+import javax.swing.plaf.basic.BasicHTML;
+import javax.swing.text.View;
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Line2D;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.geom.RoundRectangle2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Offscreen renderer that draws the diagram from the graph, the layout positions and the render styles
+ * without a viewer, so it works from a background thread and in a headless JVM.
+ * The html views of the vertex labels are built and measured once by prepare(), painting can then
+ * run from several threads and is limited to the elements crossing the clip so large images
+ * can be painted in tiles.
+ */
+public class DiagramRenderer {
+    private static final int MARGIN = 40;
+    private static final int CELL_SIZE = 256;
+
+    private final Graph<UMLClass, UMLRelationship> graph;
+    private final Map<UMLClass, Point2D> positions;
+    private final Function<UMLClass, String> labels;
+    private final Predicate<UMLClass> vertexSelected;
+    private final Predicate<UMLRelationship> edgeSelected;
+    private final HashMap<UMLClass, Dimension> labelSizes = new HashMap<>();
+    private final HashMap<UMLClass, View> labelViews = new HashMap<>();
+    private Rectangle bounds;
+    private int lineHeight;
+    private UMLClass[] vertices;
+    private UMLRelationship[] edges;
+    private Line2D[] edgeLines;
+    private int columns;
+    private int rows;
+    private int[][] cellVertices;
+    private int[][] cellEdges;
+
+    public DiagramRenderer(Graph<UMLClass, UMLRelationship> graph, Map<UMLClass, Point2D> positions,
+                           Function<UMLClass, String> labels, Predicate<UMLClass> vertexSelected,
+                           Predicate<UMLRelationship> edgeSelected) {
+        this.graph = graph;
+        this.positions = positions;
+        this.labels = labels;
+        this.vertexSelected = vertexSelected;
+        this.edgeSelected = edgeSelected;
+    }
+
+    /**
+     * Build and measure the vertex labels and get the bounds of the diagram
+     */
+    public void prepare() {
+        JLabel label = new JLabel();
+        label.setFont(RenderStyles.VERTEX_FONT);
+        lineHeight = label.getFontMetrics(RenderStyles.VERTEX_FONT).getHeight();
+        Rectangle2D area = null;
+        for (UMLClass obj : graph.vertexSet()) {
+            if (!positions.containsKey(obj))
+                continue;
+            View view = BasicHTML.createHTMLView(label, labels.apply(obj));
+            Dimension size = new Dimension((int) Math.ceil(view.getPreferredSpan(View.X_AXIS)),
+                    (int) Math.ceil(view.getPreferredSpan(View.Y_AXIS)));
+            view.setSize(size.width, size.height);
+            labelViews.put(obj, view);
+            labelSizes.put(obj, size);
+            Rectangle2D vertexBounds = getVertexBounds(obj).getBounds2D();
+            if (area == null)
+                area = vertexBounds;
+            else
+                area.add(vertexBounds);
+        }
+        if (area == null)
+            area = new Rectangle2D.Double();
+        bounds = new Rectangle((int) Math.floor(area.getX()) - MARGIN, (int) Math.floor(area.getY()) - MARGIN,
+                (int) Math.ceil(area.getWidth()) + 2 * MARGIN, (int) Math.ceil(area.getHeight()) + 2 * MARGIN);
+        buildIndex();
+    }
+
+    /**
+     * Index the vertices and the edges in a grid of cells so painting a region
+     * only visits the elements crossing it
+     */
+    private void buildIndex() {
+        vertices = graph.vertexSet().stream().filter(positions::containsKey).toArray(UMLClass[]::new);
+        edges = graph.edgeSet().toArray(new UMLRelationship[0]);
+        edgeLines = new Line2D[edges.length];
+        columns = bounds.width / CELL_SIZE + 1;
+        rows = bounds.height / CELL_SIZE + 1;
+        GridBuilder vertexCells = new GridBuilder(columns * rows);
+        GridBuilder edgeCells = new GridBuilder(columns * rows);
+        for (int i = 0; i < vertices.length; i++) {
+            Rectangle2D box = getVertexBounds(vertices[i]).getBounds2D();
+            addToCells(vertexCells, i, box.getMinX(), box.getMinY(), box.getMaxX(), box.getMaxY());
+        }
+        for (int i = 0; i < edges.length; i++) {
+            UMLClass from = graph.getEdgeSource(edges[i]);
+            UMLClass to = graph.getEdgeTarget(edges[i]);
+            if (from == to || !positions.containsKey(from) || !positions.containsKey(to))
+                continue;
+            Line2D line = getEdgeLine(from, to);
+            edgeLines[i] = line;
+            // walk the line in steps smaller than a cell, the padding covers the arrow and the label
+            double pad = getEdgePadding(edges[i]);
+            double length = line.getP1().distance(line.getP2());
+            int steps = (int) (length / (CELL_SIZE / 2.0)) + 1;
+            for (int step = 0; step <= steps; step++) {
+                double t = (double) step / steps;
+                double px = line.getX1() + (line.getX2() - line.getX1()) * t;
+                double py = line.getY1() + (line.getY2() - line.getY1()) * t;
+                addToCells(edgeCells, i, px - pad, py - pad, px + pad, py + pad);
+            }
+        }
+        cellVertices = vertexCells.build();
+        cellEdges = edgeCells.build();
+    }
+
+    private double getEdgePadding(UMLRelationship rel) {
+        double pad = CELL_SIZE / 2.0;
+        Shape arrow = RenderStyles.getArrowShape(rel.getType());
+        if (arrow != null) {
+            Rectangle2D arrowBounds = arrow.getBounds2D();
+            pad += Math.max(arrowBounds.getWidth(), arrowBounds.getHeight());
+        }
+        if (rel instanceof UMLPackageRelationship)
+            pad += RenderStyles.VERTEX_FONT.getSize() * ((UMLPackageRelationship) rel).getLabel().length();
+        return pad;
+    }
+
+    private void addToCells(GridBuilder cells, int item, double minX, double minY, double maxX, double maxY) {
+        int c0 = getColumn(minX);
+        int c1 = getColumn(maxX);
+        int r0 = getRow(minY);
+        int r1 = getRow(maxY);
+        for (int r = r0; r <= r1; r++) {
+            for (int c = c0; c <= c1; c++)
+                cells.add(r * columns + c, item);
+        }
+    }
+
+    private int getColumn(double x) {
+        return Math.max(0, Math.min(columns - 1, (int) ((x - bounds.x) / CELL_SIZE)));
+    }
+
+    private int getRow(double y) {
+        return Math.max(0, Math.min(rows - 1, (int) ((y - bounds.y) / CELL_SIZE)));
+    }
+
+    /**
+     * Get the items of the cells crossing the region sorted by index, so every region
+     * paints overlapping elements in the same order and the tiles match at the seams
+     */
+    private int[] query(int[][] cells, int count, Rectangle2D clip) {
+        BitSet found = new BitSet(count);
+        int c0 = getColumn(clip.getMinX());
+        int c1 = getColumn(clip.getMaxX());
+        int r0 = getRow(clip.getMinY());
+        int r1 = getRow(clip.getMaxY());
+        for (int r = r0; r <= r1; r++) {
+            for (int c = c0; c <= c1; c++) {
+                int[] items = cells[r * columns + c];
+                if (items == null)
+                    continue;
+                for (int item : items)
+                    found.set(item);
+            }
+        }
+        return found.stream().toArray();
+    }
+
+    /**
+     * Get the area of the diagram in layout coordinates
+     */
+    public Rectangle getBounds() {
+        return bounds;
+    }
+
+    /**
+     * Get the vertices in paint order, only the ones crossing the region when it is provided
+     */
+    public List<UMLClass> getVertices(Rectangle2D region) {
+        if (region == null)
+            return Arrays.asList(vertices);
+        List<UMLClass> result = new ArrayList<>();
+        for (int i : query(cellVertices, vertices.length, region))
+            result.add(vertices[i]);
+        return result;
+    }
+
+    /**
+     * Get the edges in paint order, only the ones crossing the region when it is provided
+     */
+    public List<UMLRelationship> getEdges(Rectangle2D region) {
+        List<UMLRelationship> result = new ArrayList<>();
+        if (region == null) {
+            for (int i = 0; i < edges.length; i++) {
+                if (edgeLines[i] != null)
+                    result.add(edges[i]);
+            }
+            return result;
+        }
+        for (int i : query(cellEdges, edges.length, region)) {
+            if (edgeLines[i] != null)
+                result.add(edges[i]);
+        }
+        return result;
+    }
+
+    public Line2D getEdgeLine(UMLRelationship rel) {
+        return getEdgeLine(graph.getEdgeSource(rel), graph.getEdgeTarget(rel));
+    }
+
+    /**
+     * Get the height of a line of the vertex labels in the font metrics the labels were measured with
+     */
+    public int getLineHeight() {
+        return lineHeight;
+    }
+
+    public boolean isSelected(UMLClass obj) {
+        return vertexSelected.test(obj);
+    }
+
+    public boolean isSelected(UMLRelationship rel) {
+        return edgeSelected.test(rel);
+    }
+
+    /**
+     * Paint the edges and then the vertices in layout coordinates, only the elements
+     * intersecting the clip are painted when it is provided
+     */
+    public void paint(Graphics2D g, Rectangle2D clip) {
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        if (clip == null) {
+            for (int i = 0; i < edges.length; i++)
+                paintEdge(g, i, null);
+            for (UMLClass obj : vertices)
+                paintVertex(g, obj, null);
+            return;
+        }
+        for (int i : query(cellEdges, edges.length, clip))
+            paintEdge(g, i, clip);
+        for (int i : query(cellVertices, vertices.length, clip))
+            paintVertex(g, vertices[i], clip);
+    }
+
+    public RoundRectangle2D getVertexBounds(UMLClass obj) {
+        RoundRectangle2D.Double shape = RenderStyles.getVertexBounds(labelSizes.get(obj));
+        Point2D position = positions.get(obj);
+        shape.x += position.getX();
+        shape.y += position.getY();
+        return shape;
+    }
+
+    private void paintVertex(Graphics2D g, UMLClass obj, Rectangle2D clip) {
+        Point2D position = positions.get(obj);
+        if (position == null)
+            return;
+        RoundRectangle2D shape = getVertexBounds(obj);
+        if (clip != null && !shape.intersects(clip))
+            return;
+        boolean selected = vertexSelected.test(obj);
+        g.setPaint(RenderStyles.getVertexFillPaint(selected));
+        g.fill(shape);
+        g.setPaint(RenderStyles.getVertexDrawPaint(selected));
+        g.setStroke(RenderStyles.getVertexStroke(selected));
+        g.draw(shape);
+        Dimension size = labelSizes.get(obj);
+        Rectangle labelBounds = new Rectangle((int) (position.getX() - size.width / 2),
+                (int) (position.getY() - size.height / 2), size.width, size.height);
+        View view = labelViews.get(obj);
+        // a box crossing a tile border is painted by more than one thread and the views are not thread safe
+        synchronized (view) {
+            view.paint(g, labelBounds);
+        }
+    }
+
+    private void paintEdge(Graphics2D g, int index, Rectangle2D clip) {
+        UMLRelationship rel = edges[index];
+        Line2D line = edgeLines[index];
+        if (line == null)
+            return;
+        Shape arrow = RenderStyles.getArrowShape(rel.getType());
+        if (clip != null) {
+            Rectangle2D edgeBounds = line.getBounds2D();
+            if (arrow != null) {
+                Rectangle2D arrowBounds = arrow.getBounds2D();
+                double size = Math.max(arrowBounds.getWidth(), arrowBounds.getHeight());
+                edgeBounds = new Rectangle2D.Double(edgeBounds.getX() - size, edgeBounds.getY() - size,
+                        edgeBounds.getWidth() + 2 * size, edgeBounds.getHeight() + 2 * size);
+            }
+            if (!edgeBounds.intersects(clip))
+                return;
+        }
+        boolean selected = edgeSelected.test(rel);
+        g.setPaint(RenderStyles.getEdgeDrawPaint(selected));
+        g.setStroke(RenderStyles.getEdgeStroke(rel.getType(), selected));
+        g.draw(line);
+        if (arrow != null) {
+            AffineTransform transform = AffineTransform.getTranslateInstance(line.getX2(), line.getY2());
+            transform.rotate(Math.atan2(line.getY2() - line.getY1(), line.getX2() - line.getX1()));
+            Shape arrowShape = transform.createTransformedShape(arrow);
+            g.setPaint(RenderStyles.getArrowFillPaint(rel.getType(), selected));
+            g.fill(arrowShape);
+            g.setPaint(RenderStyles.getArrowDrawPaint(selected));
+            g.setStroke(RenderStyles.getArrowStroke(selected));
+            g.draw(arrowShape);
+        }
+        if (rel instanceof UMLPackageRelationship) {
+            g.setFont(RenderStyles.VERTEX_FONT);
+            g.drawString(((UMLPackageRelationship) rel).getLabel(),
+                    (float) (line.getX1() + line.getX2()) / 2, (float) (line.getY1() + line.getY2()) / 2);
+        }
+    }
+
+    /**
+     * Get the line between the centers of the vertices clipped to the vertex boxes
+     */
+    private Line2D getEdgeLine(UMLClass from, UMLClass to) {
+        Point2D p1 = positions.get(from);
+        Point2D p2 = positions.get(to);
+        double dx = p2.getX() - p1.getX();
+        double dy = p2.getY() - p1.getY();
+        double t1 = getExit(labelSizes.get(from), dx, dy);
+        double t2 = getExit(labelSizes.get(to), dx, dy);
+        if (t1 + t2 >= 1)
+            return new Line2D.Double(p1, p2);
+        return new Line2D.Double(p1.getX() + dx * t1, p1.getY() + dy * t1,
+                p2.getX() - dx * t2, p2.getY() - dy * t2);
+    }
+
+    private static double getExit(Dimension size, double dx, double dy) {
+        Rectangle2D box = RenderStyles.getVertexBounds(size).getBounds2D();
+        double tx = dx != 0 ? box.getWidth() / 2 / Math.abs(dx) : Double.MAX_VALUE;
+        double ty = dy != 0 ? box.getHeight() / 2 / Math.abs(dy) : Double.MAX_VALUE;
+        return Math.min(tx, ty);
+    }
+
+    /**
+     * Collects the items per cell in growable arrays
+     */
+    private static class GridBuilder {
+        private final int[][] cells;
+        private final int[] counts;
+
+        GridBuilder(int size) {
+            cells = new int[size][];
+            counts = new int[size];
+        }
+
+        void add(int cell, int item) {
+            int[] items = cells[cell];
+            int count = counts[cell];
+            // the edges are added in steps so skip the repeats
+            if (count > 0 && items[count - 1] == item)
+                return;
+            if (items == null)
+                items = cells[cell] = new int[4];
+            else if (count == items.length)
+                items = cells[cell] = Arrays.copyOf(items, count * 2);
+            items[count] = item;
+            counts[cell]++;
+        }
+
+        int[][] build() {
+            for (int i = 0; i < cells.length; i++) {
+                if (cells[i] != null)
+                    cells[i] = Arrays.copyOf(cells[i], counts[i]);
+            }
+            return cells;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*
+MIT License
+
+Copyright (c) 2024 Max Kas
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.mku.liveuml.view;
+
+import com.mku.liveuml.model.diagram.UMLClass;
+import com.mku.liveuml.model.diagram.UMLDiagram;
+import com.mku.liveuml.model.diagram.UMLRelationshipType;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+
+/**
+ * Secondary window that only shows the classes within a number of hops from the focused classes.
+ */
+public class FocusFrame extends JFrame {
+    private final UMLDiagram diagram;
+    private final List<UMLClass> roots;
+    private final GraphPanel graphPanel;
+    private final JSpinner hops;
+    private final EnumMap<UMLRelationshipType, JCheckBox> types = new EnumMap<>(UMLRelationshipType.class);
+
+    public FocusFrame(UMLDiagram diagram, List<UMLClass> roots, GraphPanel source) {
+        this.diagram = diagram;
+        this.roots = new ArrayList<>(roots);
+        setTitle("Focus - " + (roots.size() == 1 ? roots.get(0).getName() : roots.size() + " classes"));
+        setDefaultCloseOperation(WindowConstants.DISPOSE_ON_CLOSE);
+
+        JPanel controls = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        controls.add(new JLabel("Hops"));
+        hops = new JSpinner(new SpinnerNumberModel(2, 1, 10, 1));
+        hops.addChangeListener(e -> update());
+        controls.add(hops);
+        for (UMLRelationshipType type : UMLRelationshipType.values()) {
+            JCheckBox checkBox = new JCheckBox(type.name(), true);
+            checkBox.addActionListener(e -> update());
+            types.put(type, checkBox);
+            controls.add(checkBox);
+        }
+
+        graphPanel = new GraphPanel();
+        graphPanel.setLayoutType(source.getLayoutType());
+        graphPanel.setOnGetVertexLabel(source.getOnGetVertexLabel());
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                graphPanel.shutdown();
+            }
+        });
+
+        getContentPane().setLayout(new BorderLayout());
+        getContentPane().add(controls, BorderLayout.NORTH);
+        getContentPane().add(graphPanel, BorderLayout.CENTER);
+        setSize(1000, 800);
+        setLocationRelativeTo(source);
+        update();
+    }
+
+    private void update() {
+        EnumSet<UMLRelationshipType> selectedTypes = EnumSet.noneOf(UMLRelationshipType.class);
+        for (UMLRelationshipType type : types.keySet()) {
+            if (types.get(type).isSelected())
+                selectedTypes.add(type);
+        }
+        // classes that stay in focus keep their positions
+        graphPanel.display(diagram, diagram.getNeighborhood().getSubgraph(roots, (Integer) hops.getValue(), selectedTypes),
+                graphPanel.getVertexPositions());
+        graphPanel.revalidate();
+    }
+}
@@ -23,19 +23,33 @@ SOFTWARE.
 */
 package com.mku.liveuml.view;
 
-import com.mku.liveuml.format.Formatter;
+import com.mku.liveuml.layout.BackgroundLayoutAlgorithm;
+import com.mku.liveuml.layout.HierarchyLayoutAlgorithm;
+import com.mku.liveuml.layout.IncrementalLayoutAlgorithm;
+import com.mku.liveuml.layout.LayoutCache;
+import com.mku.liveuml.layout.LayoutType;
+import com.mku.liveuml.layout.MultilevelLayoutAlgorithm;
+import com.mku.liveuml.layout.ProgressiveLayoutAlgorithm;
 import com.mku.liveuml.model.diagram.UMLClass;
 import com.mku.liveuml.model.diagram.UMLDiagram;
+import com.mku.liveuml.model.diagram.UMLModel;
+import com.mku.liveuml.model.diagram.UMLModelChange;
+import com.mku.liveuml.model.diagram.UMLPackage;
+import com.mku.liveuml.model.diagram.UMLPackageRelationship;
 import com.mku.liveuml.model.diagram.UMLRelationship;
 import com.mku.liveuml.model.diagram.UMLRelationshipType;
+import com.mku.liveuml.model.diagram.UMLSelection;
 import com.mku.liveuml.model.entities.EnumConstant;
 import com.mku.liveuml.model.entities.Field;
 import com.mku.liveuml.model.entities.Method;
 import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultGraphType;
+import org.jgrapht.graph.builder.GraphTypeBuilder;
+import org.jgrapht.util.SupplierUtil;
 import org.jungrapht.visualization.*;
 import org.jungrapht.visualization.control.GraphMouseListener;
-import org.jungrapht.visualization.layout.algorithms.FRLayoutAlgorithm;
 import org.jungrapht.visualization.layout.algorithms.LayoutAlgorithm;
+import org.jungrapht.visualization.layout.algorithms.StaticLayoutAlgorithm;
 import org.jungrapht.visualization.layout.model.LayoutModel;
 import org.jungrapht.visualization.renderers.BiModalRenderer;
 import org.jungrapht.visualization.renderers.GradientVertexRenderer;
@@ -46,67 +60,306 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.MouseEvent;
 import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
 import java.awt.geom.RoundRectangle2D;
 import java.util.List;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
 @SuppressWarnings("unchecked")
 public class GraphPanel extends JPanel {
+    private static final double VERTEX_GAP = 40;
+    private static final double GOLDEN_ANGLE = Math.PI * (3 - Math.sqrt(5));
     private VisualizationViewer<UMLClass, UMLRelationship> viewer;
-    private final LayoutAlgorithm<UMLClass> layoutAlgorithm;
+    private LayoutType layoutType = LayoutType.ForceDirected;
     private VisualizationScrollPane visualizationScrollPane;
     private final HashMap<UMLClass, Shape> verticesBounds = new HashMap<>();
     private boolean collapsedAll = true;
-    private Consumer<Graphics> onImagePainted;
     private UMLDiagram diagram;
+    private Graph<UMLClass, UMLRelationship> graph;
+    // the model of the displayed class graph, null when a derived graph is displayed
+    private UMLModel displayedModel;
+    // vertices removed since the layout model was built, their locations stay in the layout model
+    private int removedVertices;
+    private Consumer<UMLPackage> onPackageExpand;
     private Function<UMLClass, String> onGetVertexLabel;
+    // the compact flag is shared with the other views of the diagram so the labels are kept per state
+    private final HashMap<UMLClass, String> vertexLabels = new HashMap<>();
+    private final HashMap<UMLClass, String> compactVertexLabels = new HashMap<>();
+    private long vertexLabelsVersion = -1;
+    private UMLSelection.Picked picked;
+    private final RenderFunctions renderFunctions = new RenderFunctions(this::isPicked, this::isEdgeSelected);
     private VisualizationModel<UMLClass, UMLRelationship> visualizationModel;
+    private final ExecutorService layoutExecutor = Executors.newSingleThreadExecutor();
+    // the layout cache is read and written apart from the layouts so a layout does not wait for the disk
+    private final ExecutorService cacheExecutor = Executors.newSingleThreadExecutor();
+    private BackgroundLayoutAlgorithm<UMLClass> backgroundLayout;
+    private LayoutCache layoutCache;
+    private String layoutKey;
+    private String layoutGroup;
 
     /**
      * create an instance of a simple graph with basic controls
      */
     public GraphPanel() {
         setLayout(new BorderLayout());
-        layoutAlgorithm = new FRLayoutAlgorithm<>();
+    }
+
+    public LayoutType getLayoutType() {
+        return layoutType;
+    }
+
+    public void setLayoutType(LayoutType layoutType) {
+        this.layoutType = layoutType;
+    }
+
+    public void setLayoutCache(LayoutCache layoutCache) {
+        this.layoutCache = layoutCache;
+    }
+
+    private boolean isHierarchyEdge(Object edge) {
+        UMLRelationshipType type = ((UMLRelationship) edge).getType();
+        return type == UMLRelationshipType.Inheritance || type == UMLRelationshipType.Realization;
+    }
+
+    private LayoutAlgorithm<UMLClass> createLayoutAlgorithm() {
+        // all the layouts run on the layout executor and publish their positions on the event thread
+        if (layoutType == LayoutType.Multilevel)
+            return startLayout(new MultilevelLayoutAlgorithm<>(this::getVertexBounds, layoutExecutor));
+        else if (layoutType == LayoutType.Hierarchy)
+            return startLayout(new HierarchyLayoutAlgorithm<>(this::getVertexBounds, this::isHierarchyEdge, layoutExecutor));
+        else
+            return startLayout(new ProgressiveLayoutAlgorithm<>(this::getVertexBounds, layoutExecutor));
+    }
+
+    private LayoutAlgorithm<UMLClass> startLayout(BackgroundLayoutAlgorithm<UMLClass> layout) {
+        backgroundLayout = layout;
+        backgroundLayout.setOnUpdate(() -> viewer.repaint());
+        backgroundLayout.setOnFinished(() -> {
+            refit();
+            storeLayout();
+        });
+        return backgroundLayout;
+    }
+
+    private void cancelLayout() {
+        if (backgroundLayout != null) {
+            backgroundLayout.cancel();
+            backgroundLayout = null;
+        }
+    }
+
+    private Rectangle2D getVertexBounds(UMLClass obj) {
+        return viewer.getRenderContext().getVertexShapeFunction().apply(obj).getBounds2D();
+    }
+
+    /**
+     * Run the current layout algorithm again on the displayed diagram
+     */
+    public void relayout() {
+        if (viewer == null)
+            return;
+        cancelLayout();
+        updateLayoutKey();
+        visualizationModel.setLayoutAlgorithm(createLayoutAlgorithm());
     }
 
     public void toggleCompact(UMLClass obj) {
         obj.setCompact(!obj.isCompact());
     }
 
+    private String getVertexLabel(UMLClass obj) {
+        long version = diagram.getSelection().getVersion();
+        if (version != vertexLabelsVersion) {
+            clearVertexLabels();
+            vertexLabelsVersion = version;
+        }
+        HashMap<UMLClass, String> labels = obj.isCompact() ? compactVertexLabels : vertexLabels;
+        String label = labels.get(obj);
+        if (label == null) {
+            label = onGetVertexLabel.apply(obj);
+            labels.put(obj, label);
+        }
+        return label;
+    }
+
+    private void clearVertexLabels() {
+        vertexLabels.clear();
+        compactVertexLabels.clear();
+    }
+
+    /**
+     * Check if the class is picked in this view, each view of the diagram has its own picked classes
+     */
+    private boolean isPicked(UMLClass obj) {
+        return picked.isPicked(obj);
+    }
 
-    private RoundRectangle2D.Double getObjectBounds(Dimension size) {
-        int margin = 4;
-        return new RoundRectangle2D.Double(-size.width / 2 - margin, -size.height / 2 - margin,
-                size.width + 2 * margin, size.height + 2 * margin, size.width / 16, size.width / 16);
+    /**
+     * Keep the picked elements of the viewer in the selection of the current model
+     */
+    private void updatePicked() {
+        if (picked != null && picked.getSelection() == diagram.getSelection())
+            return;
+        picked = diagram.getSelection().createPicked();
+        picked.setVertices(viewer.getSelectedVertices());
+        picked.setEdges(viewer.getSelectedEdges());
     }
 
+
     public void display(UMLDiagram diagram) {
         display(diagram, null);
     }
 
+    /**
+     * Display the class graph of the diagram, the graph is copied so the model changes
+     * can be applied to it later
+     */
     @SuppressWarnings("unchecked")
     public void display(UMLDiagram diagram, Map<UMLClass, org.jungrapht.visualization.layout.model.Point> positions) {
+        UMLModel model = diagram.getModel();
+        display(diagram, copyGraph(model.getGraph()), positions, model);
+    }
+
+    private static Graph<UMLClass, UMLRelationship> copyGraph(Graph<UMLClass, UMLRelationship> graph) {
+        Graph<UMLClass, UMLRelationship> copy = GraphTypeBuilder
+                .<UMLClass, UMLRelationship>forGraphType(DefaultGraphType.directedMultigraph())
+                .edgeSupplier(SupplierUtil.createSupplier(UMLRelationship.class))
+                .buildGraph();
+        for (UMLClass obj : graph.vertexSet())
+            copy.addVertex(obj);
+        for (UMLRelationship rel : graph.edgeSet())
+            copy.addEdge(graph.getEdgeSource(rel), graph.getEdgeTarget(rel), rel);
+        return copy;
+    }
+
+    /**
+     * Check if the class graph of the current model of the diagram is displayed
+     */
+    public boolean isDisplaying(UMLDiagram diagram) {
+        return viewer != null && this.diagram == diagram && displayedModel != null
+                && displayedModel == diagram.getModel();
+    }
+
+    /**
+     * Apply a model change to the displayed class graph without rebuilding the viewer,
+     * the work is proportional to the size of the change. Returns false if the change
+     * does not follow the displayed model so the diagram has to be displayed again.
+     */
+    public boolean update(UMLDiagram diagram, UMLModelChange change) {
+        if (viewer == null || this.diagram != diagram || displayedModel == null
+                || displayedModel != change.getOldModel())
+            return false;
+        // a mostly new graph is laid out again instead of placing the new classes one by one
+        int kept = graph.vertexSet().size() - change.getRemovedClasses().size();
+        if (change.getAddedClasses().size() > kept)
+            return false;
+        // the layout model keeps the locations of the removed vertices so it is built again
+        // with the graph once they outnumber the displayed ones
+        int removed = removedVertices + change.getRemovedClasses().size() + change.getChangedClasses().size();
+        if (removed > kept)
+            return false;
+        displayedModel = change.getNewModel();
+        updatePicked();
+        if (change.isEmpty())
+            return true;
+        removedVertices = removed;
+        LayoutModel<UMLClass> layoutModel = visualizationModel.getLayoutModel();
+        for (UMLRelationship rel : change.getRemovedRelationships()) {
+            viewer.getSelectedEdgeState().deselect(rel);
+            graph.removeEdge(rel);
+        }
+        for (UMLClass obj : change.getRemovedClasses())
+            removeVertex(obj);
+        for (Map.Entry<UMLClass, UMLClass> entry : change.getChangedClasses().entrySet()) {
+            // the new instance takes the place of the old one
+            org.jungrapht.visualization.layout.model.Point point = layoutModel.apply(entry.getKey());
+            removeVertex(entry.getKey());
+            graph.addVertex(entry.getValue());
+            layoutModel.set(entry.getValue(), point);
+        }
+        for (UMLClass obj : change.getAddedClasses())
+            graph.addVertex(obj);
+        Graph<UMLClass, UMLRelationship> modelGraph = change.getNewModel().getGraph();
+        for (UMLRelationship rel : change.getAddedRelationships())
+            graph.addEdge(modelGraph.getEdgeSource(rel), modelGraph.getEdgeTarget(rel), rel);
+        boolean outside = false;
+        HashSet<UMLClass> added = new HashSet<>(change.getAddedClasses());
+        HashSet<UMLClass> placed = new HashSet<>();
+        for (UMLClass obj : change.getAddedClasses()) {
+            org.jungrapht.visualization.layout.model.Point point = placeVertex(obj, added, placed);
+            layoutModel.set(obj, point);
+            outside |= point.x < 0 || point.y < 0
+                    || point.x > layoutModel.getWidth() || point.y > layoutModel.getHeight();
+        }
+        if (!change.getRemovedClasses().isEmpty() || !change.getChangedClasses().isEmpty()
+                || !change.getAddedClasses().isEmpty())
+            viewer.getVertexSpatial().recalculate();
+        viewer.getEdgeSpatial().recalculate();
+        if (outside)
+            refit();
+        viewer.repaint();
+        return true;
+    }
+
+    private void removeVertex(UMLClass obj) {
+        viewer.getSelectedVertexState().deselect(obj);
+        graph.removeVertex(obj);
+        vertexLabels.remove(obj);
+        compactVertexLabels.remove(obj);
+        verticesBounds.remove(obj);
+    }
+
+    /**
+     * Place a new vertex next to a neighbor that is already placed or at the center of the layout
+     */
+    private org.jungrapht.visualization.layout.model.Point placeVertex(UMLClass obj, Set<UMLClass> added,
+                                                                       Set<UMLClass> placed) {
+        LayoutModel<UMLClass> layoutModel = visualizationModel.getLayoutModel();
+        // spread the new vertices placed around the same neighbor
+        double angle = placed.size() * GOLDEN_ANGLE;
+        placed.add(obj);
+        for (UMLRelationship rel : graph.edgesOf(obj)) {
+            UMLClass neighbor = graph.getEdgeSource(rel) == obj ? graph.getEdgeTarget(rel) : graph.getEdgeSource(rel);
+            if (neighbor == obj || added.contains(neighbor) && !placed.contains(neighbor))
+                continue;
+            org.jungrapht.visualization.layout.model.Point point = layoutModel.apply(neighbor);
+            double distance = (getVertexBounds(obj).getWidth() + getVertexBounds(neighbor).getWidth()) / 2
+                    + VERTEX_GAP;
+            return org.jungrapht.visualization.layout.model.Point.of(point.x + Math.cos(angle) * distance,
+                    point.y + Math.sin(angle) * distance);
+        }
+        return org.jungrapht.visualization.layout.model.Point.of(layoutModel.getWidth() / 2.0,
+                layoutModel.getHeight() / 2.0);
+    }
+
+    /**
+     * Display a graph derived from the diagram, like the package graph or a part of the class graph
+     */
+    public void display(UMLDiagram diagram, Graph<UMLClass, UMLRelationship> graph,
+                        Map<UMLClass, org.jungrapht.visualization.layout.model.Point> positions) {
+        display(diagram, graph, positions, null);
+    }
+
+    private void display(UMLDiagram diagram, Graph<UMLClass, UMLRelationship> graph,
+                         Map<UMLClass, org.jungrapht.visualization.layout.model.Point> positions, UMLModel model) {
         this.diagram = diagram;
-        Dimension preferredSize = estimateGraphSize(diagram.getGraph());
-        visualizationModel = VisualizationModel.builder(diagram.getGraph())
-                .layoutAlgorithm(layoutAlgorithm)
+        this.graph = graph;
+        displayedModel = model;
+        removedVertices = 0;
+        Dimension preferredSize = estimateGraphSize(graph);
+        cancelLayout();
+        // the layouts need the vertex shapes so they run once the viewer is setup,
+        // when the positions are known only the new vertices are placed
+        visualizationModel = VisualizationModel.builder(graph)
+                .layoutAlgorithm(new StaticLayoutAlgorithm<>())
                 .layoutSize(preferredSize)
                 .build();
-        if (positions != null) {
-            Map<String, org.jungrapht.visualization.layout.model.Point> currentPositions
-                    = convertClassPositionsToFullNamePositions(positions);
-            visualizationModel.getLayoutModel().setInitializer(obj -> {
-                if (currentPositions.containsKey(obj.toString())) {
-                    org.jungrapht.visualization.layout.model.Point point = currentPositions.get(obj.toString());
-                    return org.jungrapht.visualization.layout.model.Point.of(point.x, point.y);
-                }
-                return org.jungrapht.visualization.layout.model.Point.of(0, 0);
-            });
-        }
-        visualizationModel.getLayoutModel().setRelaxing(true);
+        updateLayoutKey();
+        visualizationModel.getLayoutModel().setRelaxing(false);
         viewer = VisualizationViewer.builder(visualizationModel)
                 .viewSize(preferredSize)
                 .build();
@@ -120,80 +373,148 @@ public class GraphPanel extends JPanel {
         }
 
         viewer.setBackground(Color.WHITE);
+        picked = null;
+        updatePicked();
+        viewer.getSelectedVertexState().addItemListener(e -> picked.setVertices(viewer.getSelectedVertices()));
+        viewer.getSelectedEdgeState().addItemListener(e -> picked.setEdges(viewer.getSelectedEdges()));
+        clearVertexLabels();
 
         setupVertices();
         setupEdges();
         setupConnections();
+        if (positions != null && !positions.isEmpty())
+            applyLayout(convertClassPositionsToFullNamePositions(positions));
+        else if (layoutCache == null)
+            applyLayout(null);
+        else
+            loadLayout();
 
         addVisualizationPane(viewer);
         setMouseListener(viewer);
         refit();
     }
 
-    private Map<String, org.jungrapht.visualization.layout.model.Point>
+    /**
+     * Place the vertices at the known positions or run a new layout if there are none
+     */
+    private void applyLayout(Map<String, Point2D> knownPositions) {
+        cancelLayout();
+        if (knownPositions != null) {
+            visualizationModel.setLayoutAlgorithm(startLayout(new IncrementalLayoutAlgorithm<>(this::getVertexBounds,
+                    obj -> knownPositions.get(obj.toString()), layoutExecutor)));
+        } else {
+            visualizationModel.setLayoutAlgorithm(createLayoutAlgorithm());
+        }
+    }
+
+    /**
+     * Read the cached positions in the background and apply them if the same graph is still displayed
+     */
+    private void loadLayout() {
+        VisualizationViewer<UMLClass, UMLRelationship> displayed = viewer;
+        String key = layoutKey;
+        String group = layoutGroup;
+        List<String> names = new ArrayList<>();
+        for (UMLClass obj : graph.vertexSet())
+            names.add(obj.toString());
+        cacheExecutor.submit(() -> {
+            Map<String, Point2D> knownPositions = getCachedPositions(key, group, names);
+            EventQueue.invokeLater(() -> {
+                if (viewer != displayed)
+                    return;
+                applyLayout(knownPositions);
+            });
+        });
+    }
+
+    private Map<String, Point2D>
     convertClassPositionsToFullNamePositions(Map<UMLClass, org.jungrapht.visualization.layout.model.Point> positions) {
-        HashMap<String, org.jungrapht.visualization.layout.model.Point> classPositions = new HashMap<>();
+        HashMap<String, Point2D> classPositions = new HashMap<>();
         for (UMLClass object : positions.keySet()) {
             org.jungrapht.visualization.layout.model.Point position = positions.get(object);
-            classPositions.put(object.toString(), org.jungrapht.visualization.layout.model.Point.of(position.x, position.y));
+            classPositions.put(object.toString(), new Point2D.Double(position.x, position.y));
         }
         return classPositions;
     }
 
+    private void updateLayoutKey() {
+        List<String> vertices = new ArrayList<>();
+        for (UMLClass obj : graph.vertexSet())
+            vertices.add(obj.toString());
+        List<String> edges = new ArrayList<>();
+        for (UMLRelationship rel : graph.edgeSet())
+            edges.add(rel.toString());
+        layoutKey = LayoutCache.getKey(layoutType.name(), vertices, edges);
+        List<String> sources = new ArrayList<>(diagram.getSources());
+        if (sources.isEmpty() && diagram.getFilepath() != null)
+            sources.add(diagram.getFilepath());
+        // only the full class view and the package view keep the latest layout of their sources,
+        // a part of the class graph would replace the latest layout of the whole graph
+        String view = null;
+        if (displayedModel != null)
+            view = layoutType.name();
+        else if (!graph.vertexSet().isEmpty() && graph.vertexSet().iterator().next() instanceof UMLPackage)
+            view = layoutType.name() + ":packages";
+        layoutGroup = sources.isEmpty() || view == null ? null : LayoutCache.getGroupKey(view, sources);
+    }
+
+    /**
+     * Get the cached positions of this graph, or the latest positions of the same sources
+     * when most of the classes already existed.
+     */
+    private Map<String, Point2D> getCachedPositions(String key, String group, List<String> names) {
+        Map<String, Point2D> positions = layoutCache.get(key);
+        if (positions != null || group == null)
+            return positions;
+        positions = layoutCache.getLatest(group);
+        if (positions == null)
+            return null;
+        int known = 0;
+        for (String name : names) {
+            if (positions.containsKey(name))
+                known++;
+        }
+        return known * 2 >= names.size() ? positions : null;
+    }
+
+    private void storeLayout() {
+        if (layoutCache == null || viewer == null)
+            return;
+        HashMap<String, Point2D> positions = new HashMap<>();
+        LayoutModel<UMLClass> layoutModel = visualizationModel.getLayoutModel();
+        for (UMLClass obj : graph.vertexSet()) {
+            org.jungrapht.visualization.layout.model.Point point = layoutModel.apply(obj);
+            positions.put(obj.toString(), new Point2D.Double(point.x, point.y));
+        }
+        String key = layoutKey;
+        String group = layoutGroup;
+        cacheExecutor.submit(() -> layoutCache.put(key, group, positions));
+    }
+
     private void setupConnections() {
-        viewer.getRenderContext().setArrowFillPaintFunction((rel) -> {
-            if (rel.getType() == UMLRelationshipType.Composition) {
-                if (diagram.getSelectedEdges().contains(rel)
-                        || viewer.getSelectedEdges().contains(rel))
-                    return Color.decode(Formatter.classSelectedColor);
-                return Color.BLACK;
-            }
-            return Color.WHITE;
-        });
-        viewer.getRenderContext().setArrowDrawPaintFunction((rel) -> {
-            if (diagram.getSelectedEdges().contains(rel)
-                    || viewer.getSelectedEdges().contains(rel))
-                return Color.decode(Formatter.classSelectedColor);
-            return Color.BLACK;
-        });
+        viewer.getRenderContext().setArrowFillPaintFunction(renderFunctions.arrowFillPaint);
+        viewer.getRenderContext().setArrowDrawPaintFunction(renderFunctions.arrowDrawPaint);
 
         // FIXME: workaround: setting custom arrows does not work since the setupArrows()
-        // always overrides, so we inject our shape here:
+        // always overrides, so we inject our shape here, the shapes are shared so nothing is allocated
         viewer.getRenderContext().setEdgeArrowStrokeFunction((rel) -> {
-            Shape shape = getArrowShape(rel);
-            viewer.getRenderContext().setEdgeArrow(shape);
+            viewer.getRenderContext().setEdgeArrow(RenderStyles.getArrowShape(rel.getType()));
             viewer.getRenderContext().setRenderEdgeArrow(true);
-            if (diagram.getSelectedEdges().contains(rel)
-                    || viewer.getSelectedEdges().contains(rel))
-                return new BasicStroke(4f);
-            return new BasicStroke(2f);
+            return renderFunctions.arrowStroke.apply(rel);
         });
     }
 
-    private void setupEdges() {
-        viewer.getRenderContext().setEdgeStrokeFunction(rel -> {
-            if (rel.getType() == UMLRelationshipType.Dependency || rel.getType() == UMLRelationshipType.Realization) {
-                // dashed line
-                return new BasicStroke(diagram.getSelectedEdges().contains(rel)
-                        || viewer.getSelectedEdges().contains(rel) ? 4 : 2,
-                        BasicStroke.CAP_BUTT, BasicStroke.JOIN_BEVEL,
-                        0, new float[]{12}, 0);
-            }
-            return new BasicStroke(diagram.getSelectedEdges().contains(rel)
-                    || viewer.getSelectedEdges().contains(rel)
-                    ? 4 : 2);
-        });
-        viewer.getRenderContext().setEdgeDrawPaintFunction(relationship -> {
-            if (diagram.getSelectedEdges().contains(relationship)
-                    || viewer.getSelectedEdges().contains(relationship))
-                return Color.decode(Formatter.classSelectedColor);
-            return Color.BLACK;
-        });
-
-        viewer.getRenderContext().setSelectedEdgeDrawPaintFunction(relationship -> {
-            return Color.decode(Formatter.classSelectedColor);
-        });
+    private boolean isEdgeSelected(UMLRelationship rel) {
+        return diagram.getSelection().isMarked(rel) || picked.isPicked(rel);
+    }
 
+    private void setupEdges() {
+        viewer.getRenderContext().setEdgeStrokeFunction(renderFunctions.edgeStroke);
+        viewer.getRenderContext().setEdgeDrawPaintFunction(renderFunctions.edgeDrawPaint);
+        viewer.getRenderContext().setSelectedEdgeDrawPaintFunction(relationship -> RenderStyles.SELECTED_COLOR);
+        // aggregated package relationships show the number of class relationships per type
+        viewer.getRenderContext().setEdgeLabelFunction(rel -> rel instanceof UMLPackageRelationship ?
+                ((UMLPackageRelationship) rel).getLabel() : null);
     }
 
     private void setupVertices() {
@@ -202,9 +523,9 @@ public class GraphPanel extends JPanel {
         VertexLabelAsShapeRenderer<UMLClass, UMLRelationship> vlasr = new VertexLabelAsShapeRenderer<>(
                 visualizationModel.getLayoutModel(), viewer.getRenderContext()) {
             public Shape apply(UMLClass v) {
-                Component component = this.prepareRenderer(this.renderContext, this.renderContext.getVertexLabelFunction().apply(v), this.renderContext.getSelectedVertexState().isSelected(v), v);
+                Component component = this.prepareRenderer(this.renderContext, this.renderContext.getVertexLabelFunction().apply(v), isPicked(v), v);
                 Dimension size = component.getPreferredSize();
-                RoundRectangle2D.Double bounds = getObjectBounds(size);
+                RoundRectangle2D.Double bounds = RenderStyles.getVertexBounds(size);
                 if (!verticesBounds.containsKey(v))
                     verticesBounds.put(v, bounds);
                 return bounds;
@@ -213,7 +534,7 @@ public class GraphPanel extends JPanel {
             public void labelVertex(RenderContext<UMLClass, UMLRelationship> renderContext, LayoutModel<UMLClass> layoutModel, UMLClass v, String label) {
                 if (renderContext.getVertexIncludePredicate().test(v)) {
                     GraphicsDecorator g = renderContext.getGraphicsContext();
-                    Component component = this.prepareRenderer(renderContext, label, renderContext.getSelectedVertexState().isSelected(v), v);
+                    Component component = this.prepareRenderer(renderContext, label, isPicked(v), v);
                     Dimension d = component.getPreferredSize();
                     int h_offset = -d.width / 2;
                     int v_offset = -d.height / 2;
@@ -223,60 +544,46 @@ public class GraphPanel extends JPanel {
                     int y = (int) p2d.getY();
                     g.draw(component, renderContext.getRendererPane(), x + h_offset, y + v_offset, d.width, d.height, true);
                     Dimension size = component.getPreferredSize();
-                    RoundRectangle2D.Double bounds = getObjectBounds(size);
+                    RoundRectangle2D.Double bounds = RenderStyles.getVertexBounds(size);
                     this.shapes.put(v, bounds);
                     verticesBounds.put(v, bounds);
                 }
             }
         };
         if (onGetVertexLabel != null)
-            viewer.getRenderContext().setVertexLabelFunction(object -> onGetVertexLabel.apply(object));
+            viewer.getRenderContext().setVertexLabelFunction(this::getVertexLabel);
         viewer.getRenderContext().setVertexShapeFunction(vlasr);
         viewer.getRenderer().setVertexLabelRenderer(BiModalRenderer.HEAVYWEIGHT, vlasr);
         viewer.getRenderer().setVertexRenderer(BiModalRenderer.HEAVYWEIGHT,
                 new GradientVertexRenderer<>(Color.WHITE, Color.WHITE, true));
         viewer.setVertexToolTipFunction(UMLClass::getName);
 //        viewer.getRenderContext().setVertexFontFunction(v -> new Font(Font.MONOSPACED, Font.PLAIN, 12));
-        viewer.getRenderContext().setVertexStrokeFunction((object) -> {
-            // WORKAROUND
-            if (viewer.getRenderContext().getSelectedVertexState().isSelected(object))
-                return new BasicStroke(6.0f);
-            else
-                return new BasicStroke(4.0f);
-        });
+        // WORKAROUND
+        viewer.getRenderContext().setVertexStrokeFunction(renderFunctions.vertexStroke);
         viewer.getRenderContext().setSelectedVertexStrokeFunction((object) -> {
             // FIXME: not working?
-            return new BasicStroke(4.0f);
-        });
-        viewer.getRenderContext().setVertexDrawPaintFunction((object) -> {
-            // WORKAROUND
-            if (viewer.getRenderContext().getSelectedVertexState().isSelected(object))
-                return Color.decode(Formatter.classSelectedColor);
-            else
-                return Color.BLACK;
-        });
-        viewer.getRenderContext().setSelectedVertexDrawPaintFunction((object) -> {
-            return Color.decode(Formatter.classSelectedColor);
-        });
-        viewer.getRenderContext().setVertexFillPaintFunction((object) -> {
-            if (viewer.getRenderContext().getSelectedVertexState().isSelected(object))
-                return Color.decode(Formatter.classSelectedColor);
-            else
-                return Color.WHITE;
+            return RenderStyles.getVertexStroke(false);
         });
+        // WORKAROUND
+        viewer.getRenderContext().setVertexDrawPaintFunction(renderFunctions.vertexDrawPaint);
+        viewer.getRenderContext().setSelectedVertexDrawPaintFunction((object) -> RenderStyles.SELECTED_COLOR);
+        viewer.getRenderContext().setVertexFillPaintFunction(renderFunctions.vertexFillPaint);
         viewer.getRenderContext().setSelectedVertexFillPaintFunction((e) -> {
             // FIXME: not working?
-            return Color.decode(Formatter.classSelectedColor);
+            return RenderStyles.SELECTED_COLOR;
         });
     }
 
     private void refit() {
+        // the layout model keeps the locations of the vertices removed by the updates
+        // so only the vertices of the displayed graph are visited
+        LayoutModel<UMLClass> layoutModel = viewer.getVisualizationModel().getLayoutModel();
         double minx = Double.MAX_VALUE;
         double miny = Double.MAX_VALUE;
-        for (Map.Entry<UMLClass, org.jungrapht.visualization.layout.model.Point> entry
-                : this.viewer.getVisualizationModel().getLayoutModel().getLocations().entrySet()) {
-            minx = Math.min(minx, entry.getValue().x);
-            miny = Math.min(miny, entry.getValue().y);
+        for (UMLClass obj : graph.vertexSet()) {
+            org.jungrapht.visualization.layout.model.Point point = layoutModel.apply(obj);
+            minx = Math.min(minx, point.x);
+            miny = Math.min(miny, point.y);
         }
         if (minx < 0 || miny < 0) {
             moveVertices(minx < 0 ? -minx : 0, miny < 0 ? -miny : 0);
@@ -284,22 +591,20 @@ public class GraphPanel extends JPanel {
 
         double maxx = 400;
         double maxy = 400;
-        for (Map.Entry<UMLClass, org.jungrapht.visualization.layout.model.Point> entry
-                : this.viewer.getVisualizationModel().getLayoutModel().getLocations().entrySet()) {
-            maxx = Math.max(maxx, entry.getValue().x);
-            maxy = Math.max(maxy, entry.getValue().y);
+        for (UMLClass obj : graph.vertexSet()) {
+            org.jungrapht.visualization.layout.model.Point point = layoutModel.apply(obj);
+            maxx = Math.max(maxx, point.x);
+            maxy = Math.max(maxy, point.y);
         }
         resizeViewer((int) maxx, (int) maxy);
     }
 
 
     private void moveVertices(double dx, double dy) {
-        for (Map.Entry<UMLClass, org.jungrapht.visualization.layout.model.Point> entry
-                : this.viewer.getVisualizationModel().getLayoutModel().getLocations().entrySet()) {
-            org.jungrapht.visualization.layout.model.Point p
-                    = org.jungrapht.visualization.layout.model.Point.of(
-                    entry.getValue().x + dx, entry.getValue().y + dy);
-            this.viewer.getVisualizationModel().getLayoutModel().set(entry.getKey(), p);
+        LayoutModel<UMLClass> layoutModel = viewer.getVisualizationModel().getLayoutModel();
+        for (UMLClass obj : graph.vertexSet()) {
+            org.jungrapht.visualization.layout.model.Point point = layoutModel.apply(obj);
+            layoutModel.set(obj, org.jungrapht.visualization.layout.model.Point.of(point.x + dx, point.y + dy));
         }
         viewer.repaint();
     }
@@ -348,6 +653,11 @@ public class GraphPanel extends JPanel {
                     // show context menu
                     showContextMenu(object, event, GraphPanel.this);
                     event.consume();
+                } else if (event.getButton() == MouseEvent.BUTTON1 && event.getClickCount() == 2
+                        && object instanceof UMLPackage) {
+                    if (onPackageExpand != null)
+                        onPackageExpand.accept((UMLPackage) object);
+                    event.consume();
                 } else if (event.getButton() == MouseEvent.BUTTON1 && event.getClickCount() == 2) {
                     toggleCompact(object);
                     event.consume();
@@ -366,6 +676,8 @@ public class GraphPanel extends JPanel {
     }
 
     private void showContextMenu(UMLClass object, MouseEvent event, GraphPanel graphPanel) {
+        if (object instanceof UMLPackage)
+            return;
         ContextMenu contextMenu = new ContextMenu(object, diagram, graphPanel);
         JPopupMenu menu = contextMenu.getContextMenu();
         EventQueue.invokeLater(() -> menu.show(event.getComponent(), event.getX(), event.getY()));
@@ -376,23 +688,23 @@ public class GraphPanel extends JPanel {
         for (HashSet<?> href : refs) {
             for (Object obj : href) {
                 if (obj instanceof UMLClass) {
-                    diagram.getSelectedVertices().add((UMLClass) obj);
+                    diagram.getSelection().mark((UMLClass) obj);
                     classes.add((UMLClass) obj);
                 } else if (obj instanceof UMLRelationship) {
-                    diagram.getSelectedEdges().add((UMLRelationship) obj);
+                    diagram.getSelection().mark((UMLRelationship) obj);
                     classes.add(((UMLRelationship) obj).getFrom());
                 } else if (obj instanceof Field) {
-                    diagram.getSelectedFields().add((Field) obj);
+                    diagram.getSelection().mark((Field) obj);
                     String owner = ((Field) obj).getOwner();
                     UMLClass cls = diagram.getOwnerByName(owner);
                     classes.add(cls);
                 } else if (obj instanceof EnumConstant) {
-                    diagram.getSelectedEnumConsts().add((EnumConstant) obj);
+                    diagram.getSelection().mark((EnumConstant) obj);
                     String owner = ((EnumConstant) obj).getOwner();
                     UMLClass cls = diagram.getOwnerByName(owner);
                     classes.add(cls);
                 } else if (obj instanceof Method) {
-                    diagram.getSelectedMethods().add((Method) obj);
+                    diagram.getSelection().mark((Method) obj);
                     String owner = ((Method) obj).getOwner();
                     UMLClass cls = diagram.getOwnerByName(owner);
                     classes.add(cls);
@@ -409,28 +721,21 @@ public class GraphPanel extends JPanel {
         diagram.clearSelections();
     }
 
-    private Shape getArrowShape(UMLRelationship rel) {
-        if (rel.getType() == UMLRelationshipType.Aggregation || rel.getType() == UMLRelationshipType.Composition)
-            return new Shapes.Diamond(40, 20);
-        else if (rel.getType() == UMLRelationshipType.Inheritance || rel.getType() == UMLRelationshipType.Realization)
-            return new Shapes.ClosedArrow(40, 20);
-        else if (rel.getType() == UMLRelationshipType.Association || rel.getType() == UMLRelationshipType.Dependency)
-            return new Shapes.OpenArrow(40, 20);
-        else if (rel.getType() == UMLRelationshipType.Nested)
-            return new Shapes.CircleCross(40, 40);
-        return null;
-    }
-
     public Map<UMLClass, org.jungrapht.visualization.layout.model.Point> getVertexPositions() {
         if (viewer == null)
             return null;
-        return viewer.getVisualizationModel().getLayoutModel().getLocations();
+        LayoutModel<UMLClass> layoutModel = viewer.getVisualizationModel().getLayoutModel();
+        HashMap<UMLClass, org.jungrapht.visualization.layout.model.Point> positions = new HashMap<>();
+        for (UMLClass obj : graph.vertexSet())
+            positions.put(obj, layoutModel.apply(obj));
+        return positions;
     }
 
     public void clear() {
         if (visualizationScrollPane != null)
             remove(visualizationScrollPane);
         visualizationScrollPane = null;
+        displayedModel = null;
         if (diagram != null)
             diagram.clear();
         this.invalidate();
@@ -459,10 +764,10 @@ public class GraphPanel extends JPanel {
     }
 
     public boolean toggleCollapse() {
-        for (Map.Entry<UMLClass, org.jungrapht.visualization.layout.model.Point> entry
-                : this.viewer.getVisualizationModel().getLayoutModel().getLocations().entrySet()) {
-            entry.getKey().setCompact(collapsedAll);
+        for (UMLClass obj : graph.vertexSet()) {
+            obj.setCompact(collapsedAll);
         }
+        clearVertexLabels();
         collapsedAll = !collapsedAll;
         repaint();
         return collapsedAll;
@@ -472,20 +777,90 @@ public class GraphPanel extends JPanel {
         return visualizationScrollPane;
     }
 
+    /**
+     * Store the zoom and the scroll position of the view
+     */
+    public void saveView(ViewState viewState) {
+        if (viewer == null)
+            return;
+        MultiLayerTransformer transformer = viewer.getRenderContext().getMultiLayerTransformer();
+        viewState.setLayoutScale(transformer.getTransformer(MultiLayerTransformer.Layer.LAYOUT).getScale());
+        viewState.setViewScale(transformer.getTransformer(MultiLayerTransformer.Layer.VIEW).getScale());
+        if (visualizationScrollPane != null) {
+            viewState.setViewport(new Point(visualizationScrollPane.getHorizontalScrollBar().getValue(),
+                    visualizationScrollPane.getVerticalScrollBar().getValue()));
+        }
+    }
 
-    public void setOnImagePainted(Consumer<Graphics> listener) {
-        this.onImagePainted = listener;
+    /**
+     * Restore the zoom and the scroll position of the view, call after the diagram is displayed
+     */
+    public void restoreView(ViewState viewState) {
+        if (viewer == null)
+            return;
+        MultiLayerTransformer transformer = viewer.getRenderContext().getMultiLayerTransformer();
+        transformer.getTransformer(MultiLayerTransformer.Layer.LAYOUT).setScale(viewState.getLayoutScale(),
+                viewState.getLayoutScale(), new Point2D.Double());
+        transformer.getTransformer(MultiLayerTransformer.Layer.VIEW).setScale(viewState.getViewScale(),
+                viewState.getViewScale(), new Point2D.Double());
+        Point viewport = viewState.getViewport();
+        if (viewport != null) {
+            // the scroll bars take the new size once the viewer is laid out
+            EventQueue.invokeLater(() -> {
+                if (visualizationScrollPane == null)
+                    return;
+                visualizationScrollPane.getHorizontalScrollBar().setValue(viewport.x);
+                visualizationScrollPane.getVerticalScrollBar().setValue(viewport.y);
+                viewer.repaint();
+            });
+        }
+        viewer.repaint();
+    }
+
+    /**
+     * Create an offscreen renderer from a copy of the displayed graph, the positions, the labels
+     * and the selection so it can render while the view keeps changing, call from the event thread.
+     * Returns null if no diagram is displayed.
+     */
+    public DiagramRenderer createRenderer() {
+        if (diagram == null || graph == null || visualizationScrollPane == null)
+            return null;
+        Graph<UMLClass, UMLRelationship> snapshot = copyGraph(graph);
+        HashMap<UMLClass, Point2D> positions = new HashMap<>();
+        HashMap<UMLClass, String> labels = new HashMap<>();
+        HashSet<UMLClass> selectedVertices = new HashSet<>();
+        LayoutModel<UMLClass> layoutModel = viewer.getVisualizationModel().getLayoutModel();
+        for (UMLClass obj : graph.vertexSet()) {
+            org.jungrapht.visualization.layout.model.Point point = layoutModel.apply(obj);
+            positions.put(obj, new Point2D.Double(point.x, point.y));
+            labels.put(obj, getVertexLabel(obj));
+            if (isPicked(obj))
+                selectedVertices.add(obj);
+        }
+        HashSet<UMLRelationship> selectedEdges = new HashSet<>();
+        for (UMLRelationship rel : graph.edgeSet()) {
+            if (isEdgeSelected(rel))
+                selectedEdges.add(rel);
+        }
+        return new DiagramRenderer(snapshot, positions, labels::get,
+                selectedVertices::contains, selectedEdges::contains);
     }
 
-    public void removeOnImagePainted() {
-        this.onImagePainted = null;
+    public void setOnPackageExpand(Consumer<UMLPackage> onPackageExpand) {
+        this.onPackageExpand = onPackageExpand;
     }
 
-    @Override
-    protected void paintComponent(java.awt.Graphics g) {
-        super.paintComponent(g);
-        if (onImagePainted != null)
-            onImagePainted.accept(g);
+    public Function<UMLClass, String> getOnGetVertexLabel() {
+        return onGetVertexLabel;
+    }
+
+    /**
+     * Stop the background layout work when the panel is no longer used
+     */
+    public void shutdown() {
+        cancelLayout();
+        layoutExecutor.shutdown();
+        cacheExecutor.shutdown();
     }
 
     public void setOnGetVertexLabel(Function<UMLClass, String> onGetVertexLabel) {
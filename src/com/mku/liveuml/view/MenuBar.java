@@ -39,8 +39,9 @@ public class MenuBar extends JMenuBar {
     }
 
     public enum Action {
-        New, Open, Save, SaveAs, Close, Exit, ExportImage, ToggleExpand,
-        ImportSource, ListSources, RefreshSources,
+        New, Open, Save, SaveAs, LoadLayout, Close, Exit, ExportImage, ExportSvg, ToggleExpand, TogglePackages, PackageDepth,
+        LayoutForceDirected, LayoutMultilevel, LayoutHierarchy,
+        ImportSource, ListSources, RefreshSources, ImportProfileFull, ImportProfileFast,
         ChooseViewer,
         Help, About
     }
@@ -76,12 +77,23 @@ public class MenuBar extends JMenuBar {
         menu.add(item);
         items.put(Action.SaveAs, item);
 
+        item = new JMenuItem("Load Layout");
+        item.setIcon(Icons.getIcon("/icons/menu/folder_menu_small.png"));
+        menu.add(item);
+        items.put(Action.LoadLayout, item);
+
         item = new JMenuItem("Export Image");
         item.setIcon(Icons.getIcon("/icons/menu/export_file_small.png"));
         item.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_E, InputEvent.CTRL_DOWN_MASK));
         menu.add(item);
         items.put(Action.ExportImage, item);
 
+        item = new JMenuItem("Export SVG");
+        item.setIcon(Icons.getIcon("/icons/menu/export_file_small.png"));
+        item.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_E, InputEvent.CTRL_DOWN_MASK | InputEvent.SHIFT_DOWN_MASK));
+        menu.add(item);
+        items.put(Action.ExportSvg, item);
+
         item = new JMenuItem("Close");
         item.setIcon(Icons.getIcon("/icons/menu/cancel_small.png"));
         item.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_S, InputEvent.CTRL_DOWN_MASK | InputEvent.SHIFT_DOWN_MASK));
@@ -103,6 +115,36 @@ public class MenuBar extends JMenuBar {
         menu.add(item);
         items.put(Action.ToggleExpand, item);
 
+        item = new JMenuItem("Show Packages");
+        item.setIcon(Icons.getIcon("/icons/menu/folder_menu_small.png"));
+        item.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_P, InputEvent.CTRL_DOWN_MASK | InputEvent.SHIFT_DOWN_MASK));
+        menu.add(item);
+        items.put(Action.TogglePackages, item);
+
+        item = new JMenuItem("Package Depth");
+        menu.add(item);
+        items.put(Action.PackageDepth, item);
+
+        JMenu layoutMenu = new JMenu("Layout");
+        layoutMenu.setIcon(Icons.getIcon("/icons/menu/settings_small.png"));
+        menu.add(layoutMenu);
+        ButtonGroup layoutGroup = new ButtonGroup();
+
+        item = new JRadioButtonMenuItem("Force Directed");
+        layoutGroup.add(item);
+        layoutMenu.add(item);
+        items.put(Action.LayoutForceDirected, item);
+
+        item = new JRadioButtonMenuItem("Multilevel (Large Diagrams)");
+        layoutGroup.add(item);
+        layoutMenu.add(item);
+        items.put(Action.LayoutMultilevel, item);
+
+        item = new JRadioButtonMenuItem("Hierarchy (Inheritance)");
+        layoutGroup.add(item);
+        layoutMenu.add(item);
+        items.put(Action.LayoutHierarchy, item);
+
         menu = new JMenu("Source");
         add(menu);
 
@@ -124,6 +166,21 @@ public class MenuBar extends JMenuBar {
         menu.add(item);
         items.put(Action.RefreshSources, item);
 
+        JMenu profileMenu = new JMenu("Import Profile");
+        profileMenu.setIcon(Icons.getIcon("/icons/menu/settings_small.png"));
+        menu.add(profileMenu);
+        ButtonGroup profileGroup = new ButtonGroup();
+
+        item = new JRadioButtonMenuItem("Full (All Dependencies)");
+        profileGroup.add(item);
+        profileMenu.add(item);
+        items.put(Action.ImportProfileFull, item);
+
+        item = new JRadioButtonMenuItem("Fast (Structure, Dependencies On Demand)");
+        profileGroup.add(item);
+        profileMenu.add(item);
+        items.put(Action.ImportProfileFast, item);
+
         menu = new JMenu("Settings");
         add(menu);
 
@@ -148,6 +205,11 @@ public class MenuBar extends JMenuBar {
         items.put(Action.About, item);
     }
 
+    public void setSelected(Action action, boolean selected) {
+        JMenuItem menuItem = items.get(action);
+        menuItem.setSelected(selected);
+    }
+
     public void setListener(Action action, Consumer<ActionEvent> listener) {
         JMenuItem menuItem = items.get(action);
         menuItem.addActionListener(listener::accept);
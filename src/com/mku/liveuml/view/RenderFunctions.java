@@ -0,0 +1,57 @@
+/*
+MIT License
+
+Copyright (c) 2024 Max Kas
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.mku.liveuml.view;
+
+import com.mku.liveuml.model.diagram.UMLClass;
+import com.mku.liveuml.model.diagram.UMLRelationship;
+
+import java.awt.*;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Render context functions of the graph view, they only look up the shared styles
+ * for the selection state of each element so painting a frame does not allocate.
+ */
+final class RenderFunctions {
+    final Function<UMLClass, Stroke> vertexStroke;
+    final Function<UMLClass, Paint> vertexDrawPaint;
+    final Function<UMLClass, Paint> vertexFillPaint;
+    final Function<UMLRelationship, Stroke> edgeStroke;
+    final Function<UMLRelationship, Paint> edgeDrawPaint;
+    final Function<UMLRelationship, Stroke> arrowStroke;
+    final Function<UMLRelationship, Paint> arrowFillPaint;
+    final Function<UMLRelationship, Paint> arrowDrawPaint;
+
+    RenderFunctions(Predicate<UMLClass> vertexSelected, Predicate<UMLRelationship> edgeSelected) {
+        vertexStroke = obj -> RenderStyles.getVertexStroke(vertexSelected.test(obj));
+        vertexDrawPaint = obj -> RenderStyles.getVertexDrawPaint(vertexSelected.test(obj));
+        vertexFillPaint = obj -> RenderStyles.getVertexFillPaint(vertexSelected.test(obj));
+        edgeStroke = rel -> RenderStyles.getEdgeStroke(rel.getType(), edgeSelected.test(rel));
+        edgeDrawPaint = rel -> RenderStyles.getEdgeDrawPaint(edgeSelected.test(rel));
+        arrowStroke = rel -> RenderStyles.getArrowStroke(edgeSelected.test(rel));
+        arrowFillPaint = rel -> RenderStyles.getArrowFillPaint(rel.getType(), edgeSelected.test(rel));
+        arrowDrawPaint = rel -> RenderStyles.getArrowDrawPaint(edgeSelected.test(rel));
+    }
+}
@@ -0,0 +1,135 @@
+/*
+MIT License
+
+Copyright (c) 2024 Max Kas
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.mku.liveuml.view;
+
+import com.mku.liveuml.format.Formatter;
+import com.mku.liveuml.model.diagram.UMLRelationshipType;
+
+import java.awt.*;
+import java.awt.geom.RoundRectangle2D;
+
+/**
+ * Immutable strokes, paints and arrow shapes used by the render context functions.
+ * Everything is built once so painting a static scene does not allocate.
+ * The arrow shapes are shared and must not be modified by the callers.
+ */
+public final class RenderStyles {
+    public static final Color SELECTED_COLOR = Color.decode(Formatter.classSelectedColor);
+    public static final Color DEFAULT_COLOR = Color.BLACK;
+    public static final Color FILL_COLOR = Color.WHITE;
+
+    public static final Font VERTEX_FONT = new Font("Helvetica", Font.PLAIN, 12);
+    private static final int VERTEX_MARGIN = 4;
+
+    private static final Stroke VERTEX_STROKE = new BasicStroke(4f);
+    private static final Stroke SELECTED_VERTEX_STROKE = new BasicStroke(6f);
+    private static final Stroke ARROW_STROKE = new BasicStroke(2f);
+    private static final Stroke SELECTED_ARROW_STROKE = new BasicStroke(4f);
+
+    private static final UMLRelationshipType[] types = UMLRelationshipType.values();
+    private static final Stroke[] edgeStrokes = new Stroke[types.length];
+    private static final Stroke[] selectedEdgeStrokes = new Stroke[types.length];
+    private static final Shape[] arrowShapes = new Shape[types.length];
+    private static final Paint[] arrowFillPaints = new Paint[types.length];
+    private static final Paint[] selectedArrowFillPaints = new Paint[types.length];
+
+    static {
+        for (UMLRelationshipType type : types) {
+            edgeStrokes[type.ordinal()] = createEdgeStroke(type, 2);
+            selectedEdgeStrokes[type.ordinal()] = createEdgeStroke(type, 4);
+            arrowShapes[type.ordinal()] = createArrowShape(type);
+            arrowFillPaints[type.ordinal()] = type == UMLRelationshipType.Composition ? DEFAULT_COLOR : FILL_COLOR;
+            selectedArrowFillPaints[type.ordinal()] = type == UMLRelationshipType.Composition ? SELECTED_COLOR : FILL_COLOR;
+        }
+    }
+
+    private RenderStyles() {
+
+    }
+
+    private static Stroke createEdgeStroke(UMLRelationshipType type, float width) {
+        if (type == UMLRelationshipType.Dependency || type == UMLRelationshipType.Realization) {
+            // dashed line
+            return new BasicStroke(width, BasicStroke.CAP_BUTT, BasicStroke.JOIN_BEVEL,
+                    0, new float[]{12}, 0);
+        }
+        return new BasicStroke(width);
+    }
+
+    private static Shape createArrowShape(UMLRelationshipType type) {
+        if (type == UMLRelationshipType.Aggregation || type == UMLRelationshipType.Composition)
+            return new Shapes.Diamond(40, 20);
+        else if (type == UMLRelationshipType.Inheritance || type == UMLRelationshipType.Realization)
+            return new Shapes.ClosedArrow(40, 20);
+        else if (type == UMLRelationshipType.Association || type == UMLRelationshipType.Dependency)
+            return new Shapes.OpenArrow(40, 20);
+        else if (type == UMLRelationshipType.Nested)
+            return new Shapes.CircleCross(40, 40);
+        return null;
+    }
+
+    public static Stroke getEdgeStroke(UMLRelationshipType type, boolean selected) {
+        return selected ? selectedEdgeStrokes[type.ordinal()] : edgeStrokes[type.ordinal()];
+    }
+
+    public static Paint getEdgeDrawPaint(boolean selected) {
+        return selected ? SELECTED_COLOR : DEFAULT_COLOR;
+    }
+
+    public static Shape getArrowShape(UMLRelationshipType type) {
+        return arrowShapes[type.ordinal()];
+    }
+
+    public static Stroke getArrowStroke(boolean selected) {
+        return selected ? SELECTED_ARROW_STROKE : ARROW_STROKE;
+    }
+
+    public static Paint getArrowFillPaint(UMLRelationshipType type, boolean selected) {
+        return selected ? selectedArrowFillPaints[type.ordinal()] : arrowFillPaints[type.ordinal()];
+    }
+
+    public static Paint getArrowDrawPaint(boolean selected) {
+        return selected ? SELECTED_COLOR : DEFAULT_COLOR;
+    }
+
+    public static Stroke getVertexStroke(boolean selected) {
+        return selected ? SELECTED_VERTEX_STROKE : VERTEX_STROKE;
+    }
+
+    public static Paint getVertexDrawPaint(boolean selected) {
+        return selected ? SELECTED_COLOR : DEFAULT_COLOR;
+    }
+
+    public static Paint getVertexFillPaint(boolean selected) {
+        return selected ? SELECTED_COLOR : FILL_COLOR;
+    }
+
+    /**
+     * Get the box of a vertex centered at the origin for the size of its label
+     */
+    public static RoundRectangle2D.Double getVertexBounds(Dimension size) {
+        return new RoundRectangle2D.Double(-size.width / 2 - VERTEX_MARGIN, -size.height / 2 - VERTEX_MARGIN,
+                size.width + 2 * VERTEX_MARGIN, size.height + 2 * VERTEX_MARGIN, size.width / 16, size.width / 16);
+    }
+}
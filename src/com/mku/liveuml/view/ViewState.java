@@ -0,0 +1,121 @@
+/*
+MIT License
+
+Copyright (c) 2024 Max Kas
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.mku.liveuml.view;
+
+import java.awt.*;
+import java.awt.geom.Point2D;
+import java.io.*;
+import java.util.*;
+
+/**
+ * The view state of a diagram kept apart from the model so saving a layout change
+ * only writes the positions, the compact flags, the zoom and the viewport.
+ * Stored as tab separated lines, the classes are keyed by their full name.
+ */
+public class ViewState {
+    private final HashMap<String, Point2D.Double> positions = new HashMap<>();
+    private final HashSet<String> compactClasses = new HashSet<>();
+    private double layoutScale = 1;
+    private double viewScale = 1;
+    private Point viewport;
+
+    public void put(String name, Point2D.Double position, boolean compact) {
+        positions.put(name, position);
+        if (compact)
+            compactClasses.add(name);
+    }
+
+    public Map<String, Point2D.Double> getPositions() {
+        return Collections.unmodifiableMap(positions);
+    }
+
+    public boolean contains(String name) {
+        return positions.containsKey(name);
+    }
+
+    public boolean isCompact(String name) {
+        return compactClasses.contains(name);
+    }
+
+    public double getLayoutScale() {
+        return layoutScale;
+    }
+
+    public void setLayoutScale(double layoutScale) {
+        this.layoutScale = layoutScale;
+    }
+
+    public double getViewScale() {
+        return viewScale;
+    }
+
+    public void setViewScale(double viewScale) {
+        this.viewScale = viewScale;
+    }
+
+    public Point getViewport() {
+        return viewport;
+    }
+
+    public void setViewport(Point viewport) {
+        this.viewport = viewport;
+    }
+
+    public void write(Writer writer) throws IOException {
+        writer.write("scale\t" + layoutScale + "\t" + viewScale + "\n");
+        if (viewport != null)
+            writer.write("viewport\t" + viewport.x + "\t" + viewport.y + "\n");
+        for (Map.Entry<String, Point2D.Double> entry : positions.entrySet()) {
+            writer.write("class\t" + entry.getValue().x + "\t" + entry.getValue().y + "\t"
+                    + (compactClasses.contains(entry.getKey()) ? 1 : 0) + "\t" + entry.getKey() + "\n");
+        }
+    }
+
+    public static ViewState read(Reader reader) throws IOException {
+        ViewState state = new ViewState();
+        BufferedReader lines = new BufferedReader(reader);
+        String line;
+        try {
+            while ((line = lines.readLine()) != null) {
+                String[] parts = line.split("\t", 5);
+                switch (parts[0]) {
+                    case "scale":
+                        state.layoutScale = Double.parseDouble(parts[1]);
+                        state.viewScale = Double.parseDouble(parts[2]);
+                        break;
+                    case "viewport":
+                        state.viewport = new Point(Integer.parseInt(parts[1]), Integer.parseInt(parts[2]));
+                        break;
+                    case "class":
+                        state.put(parts[4], new Point2D.Double(Double.parseDouble(parts[1]),
+                                Double.parseDouble(parts[2])), parts[3].equals("1"));
+                        break;
+                }
+            }
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException ex) {
+            throw new IOException("Invalid view file", ex);
+        }
+        return state;
+    }
+}
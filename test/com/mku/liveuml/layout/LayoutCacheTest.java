@@ -0,0 +1,88 @@
+/*
+MIT License
+
+Copyright (c) 2024 Max Kas
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.mku.liveuml.layout;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.awt.geom.Point2D;
+import java.io.File;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LayoutCacheTest {
+    @TempDir
+    Path dir;
+
+    private static Map<String, Point2D> createPositions(int i) {
+        return Map.of("com.example.A", new Point2D.Double(i, -i), "com.example.B", new Point2D.Double(0.5, 1e6));
+    }
+
+    @Test
+    public void testKeys() {
+        String key = LayoutCache.getKey("Multilevel", List.of("A", "B"), List.of("A:B"));
+        assertEquals(key, LayoutCache.getKey("Multilevel", List.of("B", "A"), List.of("A:B")));
+        assertNotEquals(key, LayoutCache.getKey("Hierarchy", List.of("A", "B"), List.of("A:B")));
+        assertNotEquals(key, LayoutCache.getKey("Multilevel", List.of("A", "B"), List.of("B:A")));
+        assertNotEquals(key, LayoutCache.getKey("Multilevel", List.of("A", "B", "A:B"), List.of()));
+    }
+
+    @Test
+    public void testPutGet() {
+        LayoutCache cache = new LayoutCache(dir.resolve("layouts").toFile());
+        assertNull(cache.get("missing"));
+        assertNull(cache.getLatest("group"));
+        cache.put("key1", "group", createPositions(1));
+        cache.put("key2", "group", createPositions(2));
+        cache.put("key3", null, createPositions(3));
+        assertEquals(createPositions(1), cache.get("key1"));
+        assertEquals(createPositions(3), cache.get("key3"));
+        assertEquals(createPositions(2), cache.getLatest("group"));
+    }
+
+    @Test
+    public void testPrune() {
+        File cacheDir = dir.toFile();
+        LayoutCache cache = new LayoutCache(cacheDir);
+        long time = System.currentTimeMillis() - 1000000;
+        for (int i = 0; i < LayoutCache.MAX_ENTRIES; i++) {
+            cache.put("key" + i, "group" + i, createPositions(i));
+            assertTrue(new File(cacheDir, "key" + i + ".layout").setLastModified(time + i * 1000));
+        }
+        // reading a layout makes it the most recently used
+        assertNotNull(cache.get("key0"));
+        cache.put("key" + LayoutCache.MAX_ENTRIES, null, createPositions(LayoutCache.MAX_ENTRIES));
+
+        assertNotNull(cache.get("key0"));
+        assertNull(cache.get("key1"));
+        assertNotNull(cache.get("key2"));
+        assertNotNull(cache.getLatest("group0"));
+        assertNull(cache.getLatest("group1"));
+        assertFalse(new File(cacheDir, "group1.latest").exists());
+        assertTrue(new File(cacheDir, "group2.latest").exists());
+    }
+}
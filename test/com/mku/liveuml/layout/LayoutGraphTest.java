@@ -0,0 +1,106 @@
+/*
+MIT License
+
+Copyright (c) 2024 Max Kas
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.mku.liveuml.layout;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LayoutGraphTest {
+    private static final double GAP = MultilevelLayout.GAP / 2;
+
+    private static LayoutGraph<Integer> createGraph(int size, int edges, Random random) {
+        List<Integer> vertices = new ArrayList<>();
+        double[] width = new double[size];
+        double[] height = new double[size];
+        for (int i = 0; i < size; i++) {
+            vertices.add(i);
+            width[i] = 50 + random.nextInt(200);
+            height[i] = 30 + random.nextInt(150);
+        }
+        int[] from = new int[edges];
+        int[] to = new int[edges];
+        double[] weight = new double[edges];
+        for (int e = 0; e < edges; e++) {
+            from[e] = random.nextInt(size);
+            to[e] = random.nextInt(size);
+            weight[e] = 1;
+        }
+        return new LayoutGraph<>(vertices, width, height, from, to, weight, edges);
+    }
+
+    private static void assertNoOverlaps(LayoutGraph<?> graph) {
+        for (int i = 0; i < graph.size; i++) {
+            for (int j = i + 1; j < graph.size; j++) {
+                double overlapX = (graph.width[i] + graph.width[j]) / 2 - Math.abs(graph.x[i] - graph.x[j]);
+                double overlapY = (graph.height[i] + graph.height[j]) / 2 - Math.abs(graph.y[i] - graph.y[j]);
+                assertFalse(overlapX > 0 && overlapY > 0, "boxes " + i + " and " + j + " overlap");
+            }
+        }
+    }
+
+    @Test
+    public void testRemoveOverlaps() {
+        Random random = new Random(1);
+        LayoutGraph<Integer> graph = createGraph(500, 0, random);
+        for (int i = 0; i < graph.size; i++)
+            graph.setPosition(i, random.nextDouble() * 2000, random.nextDouble() * 2000);
+        graph.removeOverlaps(GAP, 50);
+        assertNoOverlaps(graph);
+    }
+
+    @Test
+    public void testFixedBoxesStay() {
+        Random random = new Random(2);
+        LayoutGraph<Integer> graph = createGraph(200, 0, random);
+        for (int i = 0; i < graph.size; i++) {
+            graph.setPosition(i, random.nextDouble() * 1000, random.nextDouble() * 1000);
+            graph.setFixed(i, i % 10 == 0);
+        }
+        // the fixed boxes may overlap each other, move them apart before checking
+        for (int i = 0; i < graph.size; i += 10)
+            graph.setPosition(i, i * 100, -5000);
+        graph.removeOverlaps(GAP, 50);
+        for (int i = 0; i < graph.size; i += 10) {
+            assertEquals(i * 100, graph.getX(i), 0);
+            assertEquals(-5000, graph.getY(i), 0);
+        }
+        assertNoOverlaps(graph);
+    }
+
+    @Test
+    public void testMultilevelLayout() {
+        Random random = new Random(3);
+        LayoutGraph<Integer> graph = createGraph(400, 800, random);
+        new MultilevelLayout(1).layout(graph);
+        for (int i = 0; i < graph.size; i++) {
+            assertFalse(Double.isNaN(graph.getX(i)) || Double.isNaN(graph.getY(i)));
+        }
+        assertNoOverlaps(graph);
+    }
+}
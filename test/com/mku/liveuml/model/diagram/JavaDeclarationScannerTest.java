@@ -0,0 +1,137 @@
+/*
+MIT License
+
+Copyright (c) 2024 Max Kas
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.mku.liveuml.model.diagram;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JavaDeclarationScannerTest {
+
+    private static List<String> describe(JavaDeclarationScanner scanner) {
+        List<String> result = new ArrayList<>();
+        for (JavaDeclarationScanner.Declaration decl : scanner.getDeclarations()) {
+            result.add(decl.getKind() + " " + String.join(".", decl.getParents())
+                    + (decl.getParents().isEmpty() ? "" : ".") + decl.getName()
+                    + (decl.isAbstract() ? " abstract" : "") + " @" + decl.getLine());
+        }
+        return result;
+    }
+
+    @Test
+    public void testTopLevelDeclarations() {
+        JavaDeclarationScanner scanner = JavaDeclarationScanner.scan(
+                "package com.example.app;\n" +
+                "\n" +
+                "import java.util.List;\n" +
+                "\n" +
+                "@Deprecated\n" +
+                "public abstract class Shape<T extends Comparable<T>> implements Runnable {\n" +
+                "}\n" +
+                "interface Drawable {}\n" +
+                "enum Color { RED, GREEN }\n");
+        assertEquals("com.example.app", scanner.getPackageName());
+        assertEquals(List.of("Class Shape abstract @5", "Interface Drawable @8", "Enum Color @9"),
+                describe(scanner));
+    }
+
+    @Test
+    public void testNestedAndLocalTypes() {
+        JavaDeclarationScanner scanner = JavaDeclarationScanner.scan(
+                "package p;\n" +
+                "public class Outer {\n" +
+                "    static class Inner {\n" +
+                "        interface Deep {}\n" +
+                "    }\n" +
+                "    enum Mode { A { void f() {} }, B; class InEnum {} }\n" +
+                "    record Point(int x) { class InRecord {} }\n" +
+                "    void run() {\n" +
+                "        abstract class Local {}\n" +
+                "        Runnable r = new Runnable() { class InAnonymous {} public void run() {} };\n" +
+                "    }\n" +
+                "}\n");
+        // only enclosing classes and interfaces are parents, like in the parsed declarations
+        assertEquals(List.of(
+                "Class Outer @2",
+                "Class Outer.Inner @3",
+                "Interface Outer.Inner.Deep @4",
+                "Enum Outer.Mode @6",
+                "Class Outer.InEnum @6",
+                "Class Outer.InRecord @7",
+                "Class Outer.Local abstract @9",
+                "Class Outer.InAnonymous @10"), describe(scanner));
+    }
+
+    @Test
+    public void testAnnotationTypes() {
+        JavaDeclarationScanner scanner = JavaDeclarationScanner.scan(
+                "package p;\n" +
+                "@SuppressWarnings({\"a\", \"b\"})\n" +
+                "public class Holder {\n" +
+                "    public @interface Marker { class InMarker {} int value() default 1; }\n" +
+                "    Class<?> type = Holder.class;\n" +
+                "}\n");
+        assertEquals(List.of("Class Holder @2", "Class Holder.InMarker @4"), describe(scanner));
+    }
+
+    @Test
+    public void testCommentsAndLiterals() {
+        JavaDeclarationScanner scanner = JavaDeclarationScanner.scan(
+                "package p;\n" +
+                "/* class InComment { */\n" +
+                "// interface InLineComment {\n" +
+                "class Text {\n" +
+                "    String s = \"} class InString {\";\n" +
+                "    char c = '{';\n" +
+                "    char q = '\\'';\n" +
+                "    String block = \"\"\"\n" +
+                "        class InTextBlock { \\\"\"\" \\\n" +
+                "        enum InTextBlock2 {\n" +
+                "        \"\"\";\n" +
+                "    class After {}\n" +
+                "}\n");
+        assertEquals(List.of("Class Text @4", "Class Text.After @12"), describe(scanner));
+    }
+
+    @Test
+    public void testNoPackage() {
+        JavaDeclarationScanner scanner = JavaDeclarationScanner.scan("class Default {}\n");
+        assertNull(scanner.getPackageName());
+        assertEquals(List.of("Class Default @1"), describe(scanner));
+    }
+
+    @Test
+    public void testModuleInfo() {
+        JavaDeclarationScanner scanner = JavaDeclarationScanner.scan(
+                "module com.example.app {\n" +
+                "    requires java.desktop;\n" +
+                "    exports com.example.app;\n" +
+                "}\n");
+        assertNull(scanner.getPackageName());
+        assertTrue(scanner.getDeclarations().isEmpty());
+    }
+}
@@ -0,0 +1,144 @@
+/*
+MIT License
+
+Copyright (c) 2024 Max Kas
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.mku.liveuml.model.diagram;
+
+import com.mku.liveuml.model.entities.Method;
+import org.jgrapht.Graph;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UMLModelChangeTest {
+
+    private static UMLClass createClass(String name, String... methods) {
+        UMLClass obj = UMLClassFactory.create(UMLClassType.Class, name);
+        obj.setPackageName("com.example");
+        obj.setFilePath("/src/com/example/" + name + ".java");
+        List<Method> list = new ArrayList<>();
+        for (String methodName : methods) {
+            Method method = new Method(methodName);
+            method.setOwner(obj.toString());
+            list.add(method);
+        }
+        obj.setMethods(list);
+        return obj;
+    }
+
+    private static UMLRelationship relate(UMLClass from, UMLClass to) {
+        UMLRelationship rel = new UMLRelationship(from, to, UMLRelationshipType.Dependency);
+        from.getRelationships().put(rel.toString(), rel);
+        to.getRelationships().put(rel.toString(), rel);
+        return rel;
+    }
+
+    private static UMLModel createModel(UMLClass... classes) {
+        Graph<UMLClass, UMLRelationship> graph = UMLDiagram.createGraph();
+        for (UMLClass obj : classes)
+            graph.addVertex(obj);
+        for (UMLClass obj : classes) {
+            for (UMLRelationship rel : obj.getRelationships().values()) {
+                if (rel.getFrom() == obj && graph.containsVertex(rel.getTo()))
+                    graph.addEdge(rel.getFrom(), rel.getTo(), rel);
+            }
+        }
+        return new UMLModel(graph, null);
+    }
+
+    @Test
+    public void testSameModelIsEmpty() {
+        UMLClass a = createClass("A");
+        UMLClass b = createClass("B");
+        relate(a, b);
+        UMLModel model = createModel(a, b);
+        assertTrue(UMLModelChange.compute(model, model).isEmpty());
+    }
+
+    @Test
+    public void testAddedRemovedAndChangedClasses() {
+        UMLClass a = createClass("A");
+        UMLClass b = createClass("B");
+        UMLClass c = createClass("C");
+        UMLRelationship ab = relate(a, b);
+        UMLModel oldModel = createModel(a, b, c);
+
+        // B is parsed again, C is gone and D is new
+        UMLClass b2 = createClass("B");
+        UMLClass d = createClass("D");
+        a.getRelationships().remove(ab.toString());
+        UMLRelationship ab2 = relate(a, b2);
+        UMLRelationship ad = relate(a, d);
+        UMLModel newModel = createModel(a, b2, d);
+
+        UMLModelChange change = UMLModelChange.compute(oldModel, newModel);
+        assertFalse(change.isEmpty());
+        assertSame(oldModel, change.getOldModel());
+        assertSame(newModel, change.getNewModel());
+        assertEquals(List.of(d), change.getAddedClasses());
+        assertEquals(List.of(c), change.getRemovedClasses());
+        assertEquals(Map.of(b, b2), change.getChangedClasses());
+        assertEquals(Set.of(ab2, ad), new HashSet<>(change.getAddedRelationships()));
+        assertEquals(List.of(ab), change.getRemovedRelationships());
+    }
+
+    @Test
+    public void testUnchangedClassesAreKept() {
+        UMLClass a = createClass("A", "run");
+        UMLClass b = createClass("B", "get");
+        UMLClass c = createClass("C", "close");
+        UMLClass d = createClass("D", "open");
+        relate(a, b);
+        relate(c, d);
+        UMLModel oldModel = createModel(a, b, c, d);
+
+        // the same sources parsed again where only D has a new method
+        UMLClass a2 = createClass("A", "run");
+        UMLClass b2 = createClass("B", "get");
+        UMLClass c2 = createClass("C", "close");
+        UMLClass d2 = createClass("D", "open", "reopen");
+        relate(a2, b2);
+        relate(c2, d2);
+
+        Map<UMLClass, UMLClass> unchanged = UMLClassMatcher.findUnchanged(oldModel, List.of(a2, b2, c2, d2));
+        // C is related to the class that changed so it is parsed again with it
+        assertEquals(Map.of(a2, a, b2, b), unchanged);
+    }
+
+    @Test
+    public void testChangedRelationshipIsNotKept() {
+        UMLClass a = createClass("A");
+        UMLClass b = createClass("B");
+        relate(a, b);
+        UMLModel oldModel = createModel(a, b);
+
+        UMLClass a2 = createClass("A");
+        UMLClass b2 = createClass("B");
+        UMLRelationship rel = new UMLRelationship(a2, b2, UMLRelationshipType.Association);
+        a2.getRelationships().put(rel.toString(), rel);
+        b2.getRelationships().put(rel.toString(), rel);
+
+        assertTrue(UMLClassMatcher.findUnchanged(oldModel, List.of(a2, b2)).isEmpty());
+    }
+}
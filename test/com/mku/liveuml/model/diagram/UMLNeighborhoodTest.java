@@ -0,0 +1,98 @@
+/*
+MIT License
+
+Copyright (c) 2024 Max Kas
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.mku.liveuml.model.diagram;
+
+import org.jgrapht.Graph;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UMLNeighborhoodTest {
+    private final UMLClass a = UMLClassFactory.create(UMLClassType.Class, "A");
+    private final UMLClass b = UMLClassFactory.create(UMLClassType.Class, "B");
+    private final UMLClass c = UMLClassFactory.create(UMLClassType.Class, "C");
+    private final UMLClass d = UMLClassFactory.create(UMLClassType.Class, "D");
+    private final UMLClass e = UMLClassFactory.create(UMLClassType.Abstract, "E");
+    private final UMLRelationship ab = new UMLRelationship(a, b, UMLRelationshipType.Dependency);
+    private final UMLRelationship bc = new UMLRelationship(b, c, UMLRelationshipType.Dependency);
+    private final UMLRelationship cd = new UMLRelationship(c, d, UMLRelationshipType.Dependency);
+    private final UMLRelationship ae = new UMLRelationship(a, e, UMLRelationshipType.Inheritance);
+    private final UMLRelationship be = new UMLRelationship(b, e, UMLRelationshipType.Association);
+
+    private UMLNeighborhood createNeighborhood() {
+        Graph<UMLClass, UMLRelationship> graph = UMLDiagram.createGraph();
+        for (UMLClass obj : List.of(a, b, c, d, e))
+            graph.addVertex(obj);
+        for (UMLRelationship rel : List.of(ab, bc, cd, ae, be))
+            graph.addEdge(rel.getFrom(), rel.getTo(), rel);
+        return new UMLNeighborhood(graph);
+    }
+
+    @Test
+    public void testHops() {
+        UMLNeighborhood neighborhood = createNeighborhood();
+        Set<UMLRelationshipType> all = EnumSet.allOf(UMLRelationshipType.class);
+
+        Graph<UMLClass, UMLRelationship> subgraph = neighborhood.getSubgraph(List.of(c), 1, all);
+        assertEquals(Set.of(b, c, d), subgraph.vertexSet());
+        assertEquals(Set.of(bc, cd), subgraph.edgeSet());
+
+        // relationships are followed in both directions and the subgraph keeps all of them between its classes
+        subgraph = neighborhood.getSubgraph(List.of(c), 2, all);
+        assertEquals(Set.of(a, b, c, d, e), subgraph.vertexSet());
+        assertEquals(Set.of(ab, bc, cd, ae, be), subgraph.edgeSet());
+        assertSame(a, subgraph.getEdgeSource(ab));
+        assertSame(b, subgraph.getEdgeTarget(ab));
+    }
+
+    @Test
+    public void testRelationshipTypes() {
+        UMLNeighborhood neighborhood = createNeighborhood();
+        Graph<UMLClass, UMLRelationship> subgraph = neighborhood.getSubgraph(List.of(e), 4,
+                EnumSet.of(UMLRelationshipType.Inheritance, UMLRelationshipType.Dependency));
+        assertEquals(Set.of(a, b, c, d, e), subgraph.vertexSet());
+        // the association is neither followed nor kept
+        assertFalse(subgraph.containsEdge(be));
+
+        subgraph = neighborhood.getSubgraph(List.of(e), 3, EnumSet.of(UMLRelationshipType.Inheritance));
+        assertEquals(Set.of(a, e), subgraph.vertexSet());
+        assertEquals(Set.of(ae), subgraph.edgeSet());
+    }
+
+    @Test
+    public void testRoots() {
+        UMLNeighborhood neighborhood = createNeighborhood();
+        Set<UMLRelationshipType> all = EnumSet.allOf(UMLRelationshipType.class);
+        UMLClass unknown = UMLClassFactory.create(UMLClassType.Class, "Unknown");
+
+        Graph<UMLClass, UMLRelationship> subgraph = neighborhood.getSubgraph(List.of(a, d, unknown), 0, all);
+        assertEquals(Set.of(a, d), subgraph.vertexSet());
+        assertTrue(subgraph.edgeSet().isEmpty());
+        assertTrue(neighborhood.getSubgraph(List.of(unknown), 2, all).vertexSet().isEmpty());
+    }
+}
@@ -0,0 +1,143 @@
+/*
+MIT License
+
+Copyright (c) 2024 Max Kas
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.mku.liveuml.model.diagram;
+
+import org.jgrapht.Graph;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UMLPackageGraphTest {
+
+    private static UMLClass createClass(String packageName, String name) {
+        UMLClass obj = UMLClassFactory.create(UMLClassType.Class, name);
+        obj.setPackageName(packageName);
+        return obj;
+    }
+
+    private static UMLRelationship relate(Graph<UMLClass, UMLRelationship> graph, UMLClass from, UMLClass to,
+                                          UMLRelationshipType type) {
+        UMLRelationship rel = new UMLRelationship(from, to, type);
+        graph.addEdge(from, to, rel);
+        return rel;
+    }
+
+    private static UMLPackage getPackage(Graph<UMLClass, UMLRelationship> packageGraph, String name) {
+        for (UMLClass obj : packageGraph.vertexSet()) {
+            if (obj.getName().equals(name))
+                return (UMLPackage) obj;
+        }
+        return null;
+    }
+
+    private static Set<String> getNames(Graph<UMLClass, UMLRelationship> graph) {
+        Set<String> names = new HashSet<>();
+        for (UMLClass obj : graph.vertexSet())
+            names.add(obj.getName());
+        return names;
+    }
+
+    @Test
+    public void testPackagePrefix() {
+        assertEquals("com.example", UMLPackageGraph.getPackagePrefix("com.example.model.entities", 2));
+        assertEquals("com.example", UMLPackageGraph.getPackagePrefix("com.example", 3));
+        assertEquals("com", UMLPackageGraph.getPackagePrefix("com.example", 1));
+        assertEquals(UMLPackageGraph.DEFAULT_PACKAGE, UMLPackageGraph.getPackagePrefix(null, 2));
+        assertEquals(UMLPackageGraph.DEFAULT_PACKAGE, UMLPackageGraph.getPackagePrefix("", 2));
+    }
+
+    @Test
+    public void testAggregatesRelationships() {
+        Graph<UMLClass, UMLRelationship> classGraph = UMLDiagram.createGraph();
+        UMLClass a = createClass("com.example.model", "A");
+        UMLClass b = createClass("com.example.model", "B");
+        UMLClass c = createClass("com.example.view", "C");
+        UMLClass d = createClass("com.example.view.panels", "D");
+        for (UMLClass obj : new UMLClass[]{a, b, c, d})
+            classGraph.addVertex(obj);
+        relate(classGraph, a, b, UMLRelationshipType.Dependency);
+        relate(classGraph, c, a, UMLRelationshipType.Dependency);
+        relate(classGraph, d, b, UMLRelationshipType.Association);
+        relate(classGraph, c, d, UMLRelationshipType.Inheritance);
+
+        UMLPackageGraph packageGraph = new UMLPackageGraph(3);
+        packageGraph.update(classGraph);
+        Graph<UMLClass, UMLRelationship> graph = packageGraph.getGraph();
+        assertEquals(Set.of("com.example.model", "com.example.view"), getNames(graph));
+        UMLPackage model = getPackage(graph, "com.example.model");
+        UMLPackage view = getPackage(graph, "com.example.view");
+        assertEquals(Set.of(a, b), model.getMembers());
+        assertEquals(Set.of(c, d), view.getMembers());
+
+        // relationships inside a package are not shown, the others are counted per type
+        assertEquals(1, graph.edgeSet().size());
+        UMLPackageRelationship rel = (UMLPackageRelationship) graph.edgeSet().iterator().next();
+        assertSame(view, graph.getEdgeSource(rel));
+        assertSame(model, graph.getEdgeTarget(rel));
+        assertEquals(2, rel.getCount());
+        assertEquals(1, rel.getCount(UMLRelationshipType.Dependency));
+        assertEquals(1, rel.getCount(UMLRelationshipType.Association));
+
+        Graph<UMLClass, UMLRelationship> memberGraph = packageGraph.getMemberGraph(view, classGraph);
+        assertEquals(Set.of(c, d), memberGraph.vertexSet());
+        assertEquals(1, memberGraph.edgeSet().size());
+    }
+
+    @Test
+    public void testIncrementalUpdate() {
+        Graph<UMLClass, UMLRelationship> classGraph = UMLDiagram.createGraph();
+        UMLClass a = createClass("com.example.model", "A");
+        UMLClass c = createClass("com.example.view", "C");
+        classGraph.addVertex(a);
+        classGraph.addVertex(c);
+        UMLRelationship rel = relate(classGraph, c, a, UMLRelationshipType.Dependency);
+
+        UMLPackageGraph packageGraph = new UMLPackageGraph(3);
+        packageGraph.update(classGraph);
+        Graph<UMLClass, UMLRelationship> graph = packageGraph.getGraph();
+        assertEquals(1, graph.edgeSet().size());
+        assertSame(graph, packageGraph.getGraph());
+
+        classGraph.removeEdge(rel);
+        packageGraph.update(classGraph);
+        assertTrue(packageGraph.getGraph().edgeSet().isEmpty());
+
+        UMLClass e = createClass("com.example.io", "E");
+        classGraph.addVertex(e);
+        relate(classGraph, e, a, UMLRelationshipType.Dependency);
+        classGraph.removeVertex(c);
+        packageGraph.update(classGraph);
+        graph = packageGraph.getGraph();
+        assertEquals(Set.of("com.example.model", "com.example.io"), getNames(graph));
+        assertEquals(1, graph.edgeSet().size());
+
+        packageGraph.setDepth(1);
+        packageGraph.update(classGraph);
+        assertEquals(Set.of("com"), getNames(packageGraph.getGraph()));
+        assertTrue(packageGraph.getGraph().edgeSet().isEmpty());
+    }
+}
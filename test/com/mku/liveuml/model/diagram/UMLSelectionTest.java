@@ -0,0 +1,172 @@
+/*
+MIT License
+
+Copyright (c) 2024 Max Kas
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.mku.liveuml.model.diagram;
+
+import com.mku.liveuml.model.entities.EnumConstant;
+import com.mku.liveuml.model.entities.Field;
+import com.mku.liveuml.model.entities.Method;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UMLSelectionTest {
+
+    private static UMLClass createClass(String name) {
+        UMLClass obj = UMLClassFactory.create(UMLClassType.Class, name);
+        obj.setPackageName("com.example");
+        return obj;
+    }
+
+    @Test
+    public void testRegister() {
+        UMLSelection selection = new UMLSelection();
+        UMLClass a = createClass("A");
+        UMLClass b = createClass("B");
+        UMLRelationship rel = new UMLRelationship(a, b, UMLRelationshipType.Dependency);
+        selection.register(a);
+        selection.register(b);
+        selection.register(rel);
+        selection.register(a);
+        assertEquals(0, selection.getId(a));
+        assertEquals(1, selection.getId(b));
+        assertEquals(0, selection.getId(rel));
+
+        // the selection of another model keeps its own ids for the same instances
+        UMLSelection other = new UMLSelection();
+        other.register(b);
+        assertEquals(0, other.getId(b));
+        assertEquals(1, selection.getId(b));
+        selection.mark(b);
+        assertTrue(selection.isMarked(b));
+        assertFalse(selection.isMarked(a));
+        assertFalse(other.isMarked(b));
+    }
+
+    @Test
+    public void testMarkClassesAndRelationships() {
+        UMLSelection selection = new UMLSelection();
+        UMLClass a = createClass("A");
+        UMLClass b = createClass("B");
+        UMLRelationship rel = new UMLRelationship(a, b, UMLRelationshipType.Dependency);
+        selection.register(a);
+        selection.register(b);
+        selection.register(rel);
+        assertFalse(selection.isMarked(a));
+        assertFalse(selection.isMarked(rel));
+
+        selection.mark(a);
+        selection.mark(rel);
+        assertTrue(selection.isMarked(a));
+        assertFalse(selection.isMarked(b));
+        assertTrue(selection.isMarked(rel));
+
+        selection.clearMarked();
+        assertFalse(selection.isMarked(a));
+        assertFalse(selection.isMarked(rel));
+    }
+
+    @Test
+    public void testMarkUnregistered() {
+        UMLSelection selection = new UMLSelection();
+        UMLClass a = createClass("A");
+        UMLClass b = createClass("B");
+        assertFalse(selection.isMarked(a));
+        // marking an element without an id registers it
+        selection.mark(b);
+        assertTrue(selection.isMarked(b));
+        assertFalse(selection.isMarked(a));
+    }
+
+    @Test
+    public void testMarkMembers() {
+        UMLSelection selection = new UMLSelection();
+        Method method = new Method("run");
+        Field field = new Field("count");
+        EnumConstant enumConst = new EnumConstant("ONE", 0);
+        selection.mark(method);
+        selection.mark(field);
+        selection.mark(enumConst);
+        assertEquals(Set.of(method), selection.getMarkedMethods());
+        assertEquals(Set.of(field), selection.getMarkedFields());
+        assertEquals(Set.of(enumConst), selection.getMarkedEnumConsts());
+        assertThrows(UnsupportedOperationException.class, () -> selection.getMarkedMethods().clear());
+
+        selection.clear();
+        assertTrue(selection.getMarkedMethods().isEmpty());
+        assertTrue(selection.getMarkedFields().isEmpty());
+        assertTrue(selection.getMarkedEnumConsts().isEmpty());
+    }
+
+    @Test
+    public void testVersion() {
+        UMLSelection selection = new UMLSelection();
+        UMLClass a = createClass("A");
+        long version = selection.getVersion();
+        assertFalse(selection.isMarked(a));
+        selection.getMarkedMethods();
+        assertEquals(version, selection.getVersion());
+
+        selection.mark(a);
+        assertTrue(selection.getVersion() > version);
+        version = selection.getVersion();
+        selection.mark(new Method("run"));
+        assertTrue(selection.getVersion() > version);
+        version = selection.getVersion();
+        selection.clearMarked();
+        assertTrue(selection.getVersion() > version);
+    }
+
+    @Test
+    public void testPicked() {
+        UMLSelection selection = new UMLSelection();
+        UMLClass a = createClass("A");
+        UMLClass b = createClass("B");
+        UMLRelationship rel = new UMLRelationship(a, b, UMLRelationshipType.Dependency);
+        UMLSelection.Picked view = selection.createPicked();
+        UMLSelection.Picked otherView = selection.createPicked();
+        long version = selection.getVersion();
+        view.setVertices(List.of(a));
+        assertTrue(selection.getVersion() > version);
+        version = selection.getVersion();
+        view.setEdges(List.of(rel));
+        assertTrue(selection.getVersion() > version);
+        assertTrue(view.isPicked(a));
+        assertFalse(view.isPicked(b));
+        assertTrue(view.isPicked(rel));
+        // picked elements are kept by each view and are not marked
+        assertFalse(otherView.isPicked(a));
+        assertFalse(otherView.isPicked(rel));
+        assertFalse(selection.isMarked(a));
+        assertSame(selection, view.getSelection());
+
+        view.setVertices(List.of(b));
+        assertFalse(view.isPicked(a));
+        assertTrue(view.isPicked(b));
+        view.setEdges(List.of());
+        assertFalse(view.isPicked(rel));
+    }
+}
@@ -0,0 +1,116 @@
+/*
+MIT License
+
+Copyright (c) 2024 Max Kas
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.mku.liveuml.utils;
+
+import com.mku.liveuml.model.diagram.UMLClass;
+import com.mku.liveuml.model.diagram.UMLDiagram;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.awt.geom.Point2D;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BinaryRoundTripTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    public void testRoundTrip() {
+        HashMap<UMLClass, Point2D.Double> positions = new HashMap<>();
+        UMLDiagram diagram = TestDiagrams.create(200, positions);
+        File file = dir.resolve("diagram." + DiagramFiles.BINARY_EXTENSION).toFile();
+        DiagramFiles.save(file, diagram, positions);
+
+        UMLDiagram loaded = new UMLDiagram(null);
+        HashMap<UMLClass, Point2D.Double> loadedPositions = new HashMap<>();
+        DiagramFiles.load(file, loaded, loadedPositions);
+        assertEquals(diagram.getGraph().vertexSet().size(), loaded.getGraph().vertexSet().size());
+        assertEquals(diagram.getGraph().edgeSet().size(), loaded.getGraph().edgeSet().size());
+        assertEquals(TestDiagrams.describe(diagram, positions), TestDiagrams.describe(loaded, loadedPositions));
+    }
+
+    @Test
+    public void testSaveOverLoadedFile() {
+        HashMap<UMLClass, Point2D.Double> positions = new HashMap<>();
+        UMLDiagram diagram = TestDiagrams.create(20, positions);
+        File file = dir.resolve("diagram." + DiagramFiles.BINARY_EXTENSION).toFile();
+        DiagramFiles.save(file, diagram, positions);
+
+        UMLDiagram loaded = new UMLDiagram(null);
+        HashMap<UMLClass, Point2D.Double> loadedPositions = new HashMap<>();
+        DiagramFiles.load(file, loaded, loadedPositions);
+        DiagramFiles.save(file, loaded, loadedPositions);
+
+        UMLDiagram reloaded = new UMLDiagram(null);
+        HashMap<UMLClass, Point2D.Double> reloadedPositions = new HashMap<>();
+        DiagramFiles.load(file, reloaded, reloadedPositions);
+        assertEquals(TestDiagrams.describe(diagram, positions), TestDiagrams.describe(reloaded, reloadedPositions));
+    }
+
+    @Test
+    public void testSaveOverMappedFile() {
+        HashMap<UMLClass, Point2D.Double> positions = new HashMap<>();
+        UMLDiagram diagram = TestDiagrams.create(20, positions);
+        File file = dir.resolve("diagram." + DiagramFiles.BINARY_EXTENSION).toFile();
+        DiagramFiles.save(file, diagram, positions);
+
+        // every file is mapped so the mapping has to be released before the file is replaced
+        UMLDiagram loaded = new UMLDiagram(null);
+        HashMap<UMLClass, Point2D.Double> loadedPositions = new HashMap<>();
+        new BinaryImporter(0).importGraph(file, loaded, loadedPositions);
+        DiagramFiles.save(file, loaded, loadedPositions);
+
+        UMLDiagram reloaded = new UMLDiagram(null);
+        HashMap<UMLClass, Point2D.Double> reloadedPositions = new HashMap<>();
+        new BinaryImporter(0).importGraph(file, reloaded, reloadedPositions);
+        assertEquals(TestDiagrams.describe(diagram, positions), TestDiagrams.describe(reloaded, reloadedPositions));
+    }
+
+    @Test
+    public void testEmptyDiagram() {
+        UMLDiagram diagram = new UMLDiagram(null);
+        diagram.load(UMLDiagram.createGraph(), new HashMap<>());
+        File file = dir.resolve("empty." + DiagramFiles.BINARY_EXTENSION).toFile();
+        DiagramFiles.save(file, diagram, new HashMap<>());
+
+        UMLDiagram loaded = new UMLDiagram(null);
+        DiagramFiles.load(file, loaded, new HashMap<>());
+        assertTrue(loaded.getGraph().vertexSet().isEmpty());
+    }
+
+    @Test
+    public void testRejectsOtherFiles() throws IOException {
+        File file = dir.resolve("other." + DiagramFiles.BINARY_EXTENSION).toFile();
+        try (FileOutputStream stream = new FileOutputStream(file)) {
+            stream.write("<?xml version=\"1.0\"?><graphml></graphml>".getBytes());
+        }
+        assertThrows(RuntimeException.class, () -> DiagramFiles.load(file, new UMLDiagram(null), new HashMap<>()));
+    }
+}
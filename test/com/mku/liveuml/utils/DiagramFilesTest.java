@@ -0,0 +1,104 @@
+/*
+MIT License
+
+Copyright (c) 2024 Max Kas
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.mku.liveuml.utils;
+
+import com.mku.liveuml.model.diagram.*;
+import org.jgrapht.Graph;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.awt.geom.Point2D;
+import java.io.File;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DiagramFilesTest {
+    @TempDir
+    Path dir;
+
+    /**
+     * Stands in for the method body analysis of the fast import profile, it finds a dependency from A to B
+     */
+    private static class AnalyzingParser extends UMLParser {
+        @Override
+        public List<Runnable> parseDependencies(Collection<UMLClass> classes) {
+            UMLClass from = null;
+            UMLClass to = null;
+            for (UMLClass obj : classes) {
+                if (obj.getName().equals("A"))
+                    from = obj;
+                else if (obj.getName().equals("B"))
+                    to = obj;
+            }
+            UMLRelationship rel = new UMLRelationship(from, to, UMLRelationshipType.Dependency);
+            UMLClass source = from;
+            UMLClass target = to;
+            return List.of(() -> {
+                source.getRelationships().put(rel.toString(), rel);
+                target.getRelationships().put(rel.toString(), rel);
+            });
+        }
+    }
+
+    private static UMLClass createClass(String name) {
+        UMLClass obj = UMLClassFactory.create(UMLClassType.Class, name);
+        obj.setPackageName("com.example");
+        obj.setFilePath("/src/com/example/" + name + ".java");
+        return obj;
+    }
+
+    @Test
+    public void testSaveAfterAnalysis() {
+        UMLDiagram diagram = new UMLDiagram(new AnalyzingParser());
+        UMLClass a = createClass("A");
+        UMLClass b = createClass("B");
+        Graph<UMLClass, UMLRelationship> graph = UMLDiagram.createGraph();
+        HashMap<String, UMLClass> vertices = new HashMap<>();
+        for (UMLClass obj : List.of(a, b)) {
+            graph.addVertex(obj);
+            vertices.put(obj.toString(), obj);
+        }
+        diagram.load(graph, vertices);
+        assertTrue(diagram.analyzeDependencies(List.of(a, b), Runnable::run));
+        assertEquals(1, diagram.getGraph().edgeSet().size());
+
+        HashMap<UMLClass, Point2D.Double> positions = new HashMap<>();
+        positions.put(a, new Point2D.Double(0, 0));
+        positions.put(b, new Point2D.Double(100, 0));
+        for (String extension : List.of(DiagramFiles.BINARY_EXTENSION, DiagramFiles.GRAPHML_EXTENSION)) {
+            File file = dir.resolve("diagram." + extension).toFile();
+            DiagramFiles.save(file, diagram.snapshot(), positions);
+
+            UMLDiagram loaded = new UMLDiagram(null);
+            DiagramFiles.load(file, loaded, new HashMap<>());
+            assertEquals(1, loaded.getGraph().edgeSet().size(), extension);
+            UMLRelationship rel = loaded.getGraph().edgeSet().iterator().next();
+            assertEquals("A", loaded.getGraph().getEdgeSource(rel).getName());
+            assertEquals("B", loaded.getGraph().getEdgeTarget(rel).getName());
+            assertEquals(UMLRelationshipType.Dependency, rel.getType());
+        }
+    }
+}
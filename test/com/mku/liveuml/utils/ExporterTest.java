@@ -0,0 +1,94 @@
+/*
+MIT License
+
+Copyright (c) 2024 Max Kas
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.mku.liveuml.utils;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParser;
+import com.google.gson.reflect.TypeToken;
+import com.mku.liveuml.model.diagram.UMLClass;
+import com.mku.liveuml.model.entities.*;
+import org.junit.jupiter.api.Test;
+
+import java.awt.geom.Point2D;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExporterTest {
+    private static final Gson defaultGson = new Gson();
+
+    /**
+     * The streaming member adapters must write the same json as the default reflection based adapters
+     */
+    private static void assertSameJson(Object value, Type type) {
+        assertEquals(defaultGson.toJsonTree(value, type), new JsonParser().parse(Exporter.gson.toJson(value, type)));
+    }
+
+    private static List<UMLClass> createClasses() {
+        return new ArrayList<>(TestDiagrams.create(20, new HashMap<UMLClass, Point2D.Double>())
+                .getGraph().vertexSet());
+    }
+
+    @Test
+    public void testFields() {
+        for (UMLClass obj : createClasses())
+            assertSameJson(obj.getFields(), new TypeToken<List<Field>>() {}.getType());
+        Field field = new Field("values");
+        field.setTypeName("List");
+        field.setTypeParents(List.of("Outer"));
+        field.setTypeVariable(true);
+        assertSameJson(List.of(field), new TypeToken<List<Field>>() {}.getType());
+    }
+
+    @Test
+    public void testMethods() {
+        for (UMLClass obj : createClasses())
+            assertSameJson(obj.getMethods(), new TypeToken<List<Method>>() {}.getType());
+        Method method = new Method("size");
+        method.setReturnPrimitiveType("int");
+        method.setReturnTypeParents(List.of());
+        assertSameJson(List.of(method), new TypeToken<List<Method>>() {}.getType());
+    }
+
+    @Test
+    public void testParameters() {
+        for (UMLClass obj : createClasses())
+            assertSameJson(obj.getTypeParameters(), new TypeToken<List<Parameter>>() {}.getType());
+        Parameter param = new Parameter("T");
+        param.setLowerBound(true);
+        param.setBounds(List.of("Number"));
+        param.setTypeVariable(true);
+        param.setModifiers(List.of(Modifier.Final));
+        assertSameJson(List.of(param), new TypeToken<List<Parameter>>() {}.getType());
+    }
+
+    @Test
+    public void testEnumConstants() {
+        for (UMLClass obj : createClasses())
+            assertSameJson(obj.getEnumConstants(), new TypeToken<List<EnumConstant>>() {}.getType());
+    }
+}
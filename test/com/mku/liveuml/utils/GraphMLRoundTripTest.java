@@ -0,0 +1,79 @@
+/*
+MIT License
+
+Copyright (c) 2024 Max Kas
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.mku.liveuml.utils;
+
+import com.mku.liveuml.model.diagram.UMLClass;
+import com.mku.liveuml.model.diagram.UMLDiagram;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.awt.geom.Point2D;
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GraphMLRoundTripTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    public void testRoundTrip() {
+        assertRoundTrip(dir.resolve("diagram." + DiagramFiles.GRAPHML_EXTENSION).toFile());
+    }
+
+    @Test
+    public void testCompressedRoundTrip() {
+        File file = dir.resolve("diagram." + DiagramFiles.COMPRESSED_GRAPHML_EXTENSION).toFile();
+        assertRoundTrip(file);
+        assertTrue(DiagramFiles.isCompressed(file));
+    }
+
+    private static void assertRoundTrip(File file) {
+        HashMap<UMLClass, Point2D.Double> positions = new HashMap<>();
+        UMLDiagram diagram = TestDiagrams.create(200, positions);
+        DiagramFiles.save(file, diagram, positions);
+
+        UMLDiagram loaded = new UMLDiagram(null);
+        HashMap<UMLClass, Point2D.Double> loadedPositions = new HashMap<>();
+        DiagramFiles.load(file, loaded, loadedPositions);
+        assertEquals(diagram.getGraph().vertexSet().size(), loaded.getGraph().vertexSet().size());
+        assertEquals(diagram.getGraph().edgeSet().size(), loaded.getGraph().edgeSet().size());
+        assertEquals(withoutConstructors(TestDiagrams.describe(diagram, positions)),
+                TestDiagrams.describe(loaded, loadedPositions));
+    }
+
+    /**
+     * GraphML keeps constructors as plain methods
+     */
+    private static List<String> withoutConstructors(List<String> lines) {
+        List<String> result = new ArrayList<>();
+        for (String line : lines)
+            result.add(line.replace("method:Constructor", "method:Method"));
+        return result;
+    }
+}
@@ -0,0 +1,92 @@
+/*
+MIT License
+
+Copyright (c) 2024 Max Kas
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.mku.liveuml.utils;
+
+import com.mku.liveuml.model.diagram.UMLClass;
+import com.mku.liveuml.model.diagram.UMLDiagram;
+import com.mku.liveuml.view.DiagramRenderer;
+import com.mku.liveuml.view.RenderStyles;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ImageExporterTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    public void testExportImage() throws IOException {
+        HashMap<UMLClass, Point2D.Double> layout = new HashMap<>();
+        UMLDiagram diagram = TestDiagrams.create(60, layout);
+        // spread the classes over several tiles and bands
+        HashMap<UMLClass, Point2D> positions = new HashMap<>();
+        for (Map.Entry<UMLClass, Point2D.Double> entry : layout.entrySet())
+            positions.put(entry.getKey(), new Point2D.Double(entry.getValue().x * 100, entry.getValue().y * 20));
+        UMLClass selected = diagram.getGraph().vertexSet().iterator().next();
+        DiagramRenderer renderer = new DiagramRenderer(diagram.getGraph(), positions,
+                obj -> "<html><b>" + obj.getName() + "</b><br>" + obj.getPackageName() + "</html>",
+                obj -> obj == selected, rel -> false);
+        renderer.prepare();
+        File file = dir.resolve("diagram.png").toFile();
+        new ImageExporter().saveImage(file, renderer);
+
+        BufferedImage image = ImageIO.read(file);
+        Rectangle bounds = renderer.getBounds();
+        assertEquals(bounds.width, image.getWidth());
+        assertEquals(bounds.height, image.getHeight());
+        assertTrue(bounds.width > 1024 && bounds.height > 128);
+
+        // the selected box is filled with the selection paint and the labels are painted in the boxes
+        int selectedColor = ((Color) RenderStyles.getVertexFillPaint(true)).getRGB() & 0xffffff;
+        Rectangle box = renderer.getVertexBounds(selected).getBounds();
+        assertEquals(selectedColor, image.getRGB(box.x + 8 - bounds.x, box.y + box.height / 2 - bounds.y) & 0xffffff);
+        for (UMLClass obj : diagram.getGraph().vertexSet()) {
+            if (obj != selected)
+                assertTrue(countDarkPixels(image, renderer.getVertexBounds(obj).getBounds(), bounds) > 20, obj.toString());
+        }
+    }
+
+    private static int countDarkPixels(BufferedImage image, Rectangle box, Rectangle bounds) {
+        // only the inside of the box so the border is not counted
+        int dark = 0;
+        for (int y = box.y + 8; y < box.y + box.height - 8; y++) {
+            for (int x = box.x + 8; x < box.x + box.width - 8; x++) {
+                if ((image.getRGB(x - bounds.x, y - bounds.y) & 0xff) < 128)
+                    dark++;
+            }
+        }
+        return dark;
+    }
+}
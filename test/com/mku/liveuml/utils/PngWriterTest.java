@@ -0,0 +1,91 @@
+/*
+MIT License
+
+Copyright (c) 2024 Max Kas
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.mku.liveuml.utils;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PngWriterTest {
+
+    private static BufferedImage writeRead(int[][] rows, int width) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (PngWriter writer = new PngWriter(output, width, rows.length)) {
+            for (int[] row : rows)
+                writer.writeRow(row, 0);
+        }
+        return ImageIO.read(new ByteArrayInputStream(output.toByteArray()));
+    }
+
+    private static void assertPixels(int[][] rows, BufferedImage image) {
+        for (int y = 0; y < rows.length; y++) {
+            for (int x = 0; x < rows[y].length; x++)
+                assertEquals(rows[y][x] & 0xffffff, image.getRGB(x, y) & 0xffffff, "pixel " + x + "," + y);
+        }
+    }
+
+    @Test
+    public void testRandomPixels() throws IOException {
+        // more than one compressed chunk
+        int width = 1001;
+        int height = 150;
+        Random random = new Random(1);
+        int[][] rows = new int[height][width];
+        for (int[] row : rows) {
+            for (int x = 0; x < width; x++)
+                row[x] = random.nextInt();
+        }
+        BufferedImage image = writeRead(rows, width);
+        assertEquals(width, image.getWidth());
+        assertEquals(height, image.getHeight());
+        assertPixels(rows, image);
+    }
+
+    @Test
+    public void testGradient() throws IOException {
+        int width = 256;
+        int height = 64;
+        int[][] rows = new int[height][width];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++)
+                rows[y][x] = 0xff000000 | x << 16 | (255 - x) << 8 | y * 4;
+        }
+        assertPixels(rows, writeRead(rows, width));
+    }
+
+    @Test
+    public void testSinglePixel() throws IOException {
+        int[][] rows = {{0x123456}};
+        BufferedImage image = writeRead(rows, 1);
+        assertEquals(1, image.getWidth());
+        assertPixels(rows, image);
+    }
+}
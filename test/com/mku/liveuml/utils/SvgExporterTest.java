@@ -0,0 +1,72 @@
+/*
+MIT License
+
+Copyright (c) 2024 Max Kas
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.mku.liveuml.utils;
+
+import com.mku.liveuml.model.diagram.UMLClass;
+import com.mku.liveuml.model.diagram.UMLDiagram;
+import com.mku.liveuml.view.DiagramRenderer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.awt.geom.Point2D;
+import java.io.File;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SvgExporterTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    public void testExportSvg() throws Exception {
+        HashMap<UMLClass, Point2D.Double> layout = new HashMap<>();
+        UMLDiagram diagram = TestDiagrams.create(10, layout);
+        HashMap<UMLClass, Point2D> positions = new HashMap<>();
+        for (Map.Entry<UMLClass, Point2D.Double> entry : layout.entrySet())
+            positions.put(entry.getKey(), new Point2D.Double(entry.getValue().x * 400, 0));
+        DiagramRenderer renderer = new DiagramRenderer(diagram.getGraph(), positions,
+                obj -> "<html>" + obj.getName() + "</html>", obj -> false, rel -> false);
+        renderer.prepare();
+        File file = dir.resolve("diagram.svg").toFile();
+        new SvgExporter().exportSvg(file, renderer, null);
+
+        Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(file);
+        assertEquals(diagram.getGraph().vertexSet().size(), document.getElementsByTagName("g").getLength());
+        // the member lines of a box are spaced by the line height of the labels
+        NodeList groups = document.getElementsByTagName("g");
+        Element group = (Element) groups.item(0);
+        NodeList texts = group.getElementsByTagName("text");
+        double last = Double.parseDouble(((Element) texts.item(texts.getLength() - 1)).getAttribute("y"));
+        double previous = Double.parseDouble(((Element) texts.item(texts.getLength() - 2)).getAttribute("y"));
+        assertTrue(renderer.getLineHeight() > 0);
+        assertEquals(renderer.getLineHeight(), last - previous, 0.01);
+    }
+}
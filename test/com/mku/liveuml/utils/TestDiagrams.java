@@ -0,0 +1,223 @@
+/*
+MIT License
+
+Copyright (c) 2024 Max Kas
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.mku.liveuml.utils;
+
+import com.mku.liveuml.model.diagram.*;
+import com.mku.liveuml.model.entities.*;
+import com.mku.liveuml.model.entities.Enumeration;
+import org.jgrapht.Graph;
+
+import java.awt.geom.Point2D;
+import java.util.*;
+
+/**
+ * Builds diagrams that use every part of the model and prints them in a form that can be
+ * compared after a diagram is saved and loaded again
+ */
+class TestDiagrams {
+
+    static UMLDiagram create(int count, Map<UMLClass, Point2D.Double> positions) {
+        Random random = new Random(3);
+        List<UMLClass> classes = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            UMLClass obj = createClass(i);
+            classes.add(obj);
+            positions.put(obj, new Point2D.Double(i * 1.5, -i * 2.25));
+        }
+        for (int i = 0; i < count * 3; i++) {
+            UMLClass from = classes.get(random.nextInt(count));
+            UMLClass to = classes.get(random.nextInt(count));
+            if (from == to)
+                continue;
+            UMLRelationship rel = new UMLRelationship(from, to,
+                    UMLRelationshipType.values()[random.nextInt(UMLRelationshipType.values().length)]);
+            if (from.getRelationships().containsKey(rel.toString()))
+                continue;
+            Method caller = from.getMethods().get(random.nextInt(from.getMethods().size()));
+            rel.addMethodCall(caller, to.getMethods().get(random.nextInt(to.getMethods().size())));
+            rel.addFieldAccess(caller, to.getFields().get(random.nextInt(to.getFields().size())));
+            rel.addClassAccess(caller);
+            rel.addFieldAssociation(from.getFields().get(0));
+            if (!to.getEnumConstants().isEmpty())
+                rel.addEnumConstAccess(caller, to.getEnumConstants().get(0));
+            from.getRelationships().put(rel.toString(), rel);
+            to.getRelationships().put(rel.toString(), rel);
+        }
+
+        Graph<UMLClass, UMLRelationship> graph = UMLDiagram.createGraph();
+        HashMap<String, UMLClass> vertices = new HashMap<>();
+        for (UMLClass obj : classes) {
+            graph.addVertex(obj);
+            vertices.put(obj.toString(), obj);
+        }
+        for (UMLClass obj : classes) {
+            for (UMLRelationship rel : obj.getRelationships().values()) {
+                if (rel.getFrom() == obj)
+                    graph.addEdge(rel.getFrom(), rel.getTo(), rel);
+            }
+        }
+        UMLDiagram diagram = new UMLDiagram(null);
+        diagram.load(graph, vertices);
+        return diagram;
+    }
+
+    private static UMLClass createClass(int i) {
+        UMLClass obj = UMLClassFactory.create(UMLClassType.values()[i % UMLClassType.values().length], "C" + i);
+        obj.setPackageName("com.example.p" + (i % 10));
+        if (i % 7 == 0)
+            obj.setParents(List.of("Outer" + i));
+        obj.setFileSource("/src");
+        obj.setFilePath("/src/C" + i + ".java");
+        obj.setLine(i);
+        obj.setCompact(i % 5 == 0);
+        obj.setModifiers(i % 3 == 0 ? List.of(Modifier.Final, Modifier.Static) : List.of());
+        obj.setAccessModifiers(List.of(AccessModifier.Public));
+        if (i % 2 == 0) {
+            Parameter typeParam = new Parameter("T");
+            typeParam.setUpperBound(true);
+            typeParam.setBounds(List.of("Number"));
+            typeParam.setBoundsFullNames(List.of("java.lang.Number"));
+            typeParam.setGeneric(true);
+            obj.setTypeParameters(List.of(typeParam));
+        }
+
+        List<Field> fields = new ArrayList<>();
+        for (int f = 0; f < 5; f++) {
+            Field field = new Field("f" + f);
+            field.setOwner(obj.toString());
+            field.setTypeName(f % 2 == 0 ? "String" : null);
+            field.setPrimitiveType(f % 2 == 1 ? "int" : null);
+            field.setTypePackageName("java.lang");
+            field.setTypeParents(List.of());
+            field.setLine(f);
+            field.setModifiers(new ArrayList<>(List.of(Modifier.Transient)));
+            field.setAccessModifiers(List.of(AccessModifier.Private));
+            field.setArray(f == 3);
+            fields.add(field);
+        }
+        obj.setFields(fields);
+
+        List<Method> methods = new ArrayList<>();
+        Constructor constructor = new Constructor("C" + i);
+        constructor.setOwner(obj.toString());
+        methods.add(constructor);
+        for (int m = 0; m < 8; m++) {
+            Method method = new Method("m" + m);
+            method.setOwner(obj.toString());
+            method.setReturnTypeName(m % 2 == 0 ? "List" : null);
+            method.setReturnTypePackageName("java.util");
+            method.setLine(m);
+            method.setModifiers(List.of(Modifier.Abstract));
+            method.setAccessModifiers(List.of(AccessModifier.Protected));
+            Parameter param = new Parameter("a" + m);
+            param.setTypeName("int");
+            param.setArray(m % 3 == 0);
+            method.setParameters(List.of(param));
+            methods.add(method);
+        }
+        obj.setMethods(methods);
+
+        if (obj instanceof Enumeration) {
+            EnumConstant first = new EnumConstant("A", 0);
+            first.setOwner(obj.toString());
+            EnumConstant second = new EnumConstant("B", 1);
+            second.setOwner(obj.toString());
+            obj.setEnumConstants(List.of(first, second));
+        }
+        return obj;
+    }
+
+    static List<String> describe(UMLDiagram diagram, Map<UMLClass, Point2D.Double> positions) {
+        List<String> lines = new ArrayList<>();
+        for (UMLClass obj : diagram.getGraph().vertexSet()) {
+            StringBuilder line = new StringBuilder();
+            line.append(obj.getClass().getSimpleName()).append(" ").append(obj).append(" ")
+                    .append(obj.getFileSource()).append(obj.getFilePath()).append(obj.getLine())
+                    .append(obj.isCompact()).append(obj.getModifiers()).append(obj.getAccessModifiers())
+                    .append(positions.get(obj));
+            for (Parameter param : obj.getTypeParameters()) {
+                line.append(" typeParam:").append(param).append(param.isUpperBound()).append(param.getBounds())
+                        .append(param.getBoundsFullNames()).append(param.isGeneric());
+            }
+            List<String> members = new ArrayList<>();
+            for (Field field : obj.getFields()) {
+                members.add("field:" + field + field.getTypeName() + field.getPrimitiveType()
+                        + field.getTypePackageName() + field.getLine() + field.getModifiers()
+                        + field.getAccessModifiers() + field.isArray() + field.getOwner());
+            }
+            for (Method method : obj.getMethods()) {
+                List<String> params = new ArrayList<>();
+                for (Parameter param : method.getParameters())
+                    params.add(param.getName() + param.isArray());
+                members.add("method:" + method.getClass().getSimpleName() + method.getSignature()
+                        + method.getReturnTypeName() + method.getReturnTypePackageName() + method.getLine()
+                        + method.getModifiers() + method.getAccessModifiers() + method.getOwner() + params);
+            }
+            for (EnumConstant enumConst : obj.getEnumConstants())
+                members.add("enum:" + enumConst + enumConst.getNum() + enumConst.getOwner());
+            Collections.sort(members);
+            line.append(members);
+            lines.add(line.toString());
+        }
+        for (UMLRelationship rel : diagram.getGraph().edgeSet()) {
+            lines.add("rel:" + rel + " " + describe(rel.getMethodsAccessedByMethods())
+                    + describe(rel.getMethodsAccesingMethods())
+                    + describe(rel.getFieldsAccessedByMethods())
+                    + describe(rel.getMethodsAccessingFields())
+                    + describe(rel.getEnumsAccessedByMethods())
+                    + describe(rel.getMethodsAccessingEnums())
+                    + describe(rel.getMethodsAccessingClass())
+                    + describe(rel.getFieldsAccessingClass())
+                    + diagram.getGraph().getEdgeSource(rel).getRelationships().containsKey(rel.toString()));
+        }
+        Collections.sort(lines);
+        return lines;
+    }
+
+    private static String describe(Map<?, ? extends Collection<?>> map) {
+        List<String> entries = new ArrayList<>();
+        for (Map.Entry<?, ? extends Collection<?>> entry : map.entrySet())
+            entries.add(getId(entry.getKey()) + "=" + describe(entry.getValue()));
+        Collections.sort(entries);
+        return entries.toString();
+    }
+
+    private static String describe(Collection<?> values) {
+        List<String> ids = new ArrayList<>();
+        for (Object value : values)
+            ids.add(getId(value));
+        Collections.sort(ids);
+        return ids.toString();
+    }
+
+    private static String getId(Object value) {
+        if (value instanceof Method)
+            return ((Method) value).getOwner() + "#" + ((Method) value).getSignature();
+        if (value instanceof Field)
+            return ((Field) value).getOwner() + "#" + value;
+        if (value instanceof EnumConstant)
+            return ((EnumConstant) value).getOwner() + "#" + value;
+        return String.valueOf(value);
+    }
+}
@@ -0,0 +1,139 @@
+/*
+MIT License
+
+Copyright (c) 2024 Max Kas
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.mku.liveuml.view;
+
+import com.mku.liveuml.model.diagram.UMLClass;
+import com.mku.liveuml.model.diagram.UMLClassFactory;
+import com.mku.liveuml.model.diagram.UMLClassType;
+import com.mku.liveuml.model.diagram.UMLRelationship;
+import com.mku.liveuml.model.diagram.UMLRelationshipType;
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class RenderStylesTest {
+    private static final int FRAMES = 100;
+    private static final int ELEMENTS = 1000;
+
+    @Test
+    public void testStylesAreShared() {
+        for (UMLRelationshipType type : UMLRelationshipType.values()) {
+            for (boolean selected : new boolean[]{false, true}) {
+                assertSame(RenderStyles.getEdgeStroke(type, selected), RenderStyles.getEdgeStroke(type, selected));
+                assertSame(RenderStyles.getArrowFillPaint(type, selected), RenderStyles.getArrowFillPaint(type, selected));
+            }
+            assertSame(RenderStyles.getArrowShape(type), RenderStyles.getArrowShape(type));
+        }
+        assertNotSame(RenderStyles.getEdgeStroke(UMLRelationshipType.Dependency, false),
+                RenderStyles.getEdgeStroke(UMLRelationshipType.Dependency, true));
+        assertEquals(RenderStyles.SELECTED_COLOR, RenderStyles.getVertexFillPaint(true));
+    }
+
+    @Test
+    public void testRenderFunctionsReturnSharedStyles() {
+        UMLClass a = UMLClassFactory.create(UMLClassType.Class, "A");
+        UMLClass b = UMLClassFactory.create(UMLClassType.Class, "B");
+        RenderFunctions functions = new RenderFunctions(obj -> obj == a, rel -> rel.getFrom() == a);
+        for (UMLClass obj : new UMLClass[]{a, b}) {
+            boolean selected = obj == a;
+            assertSame(RenderStyles.getVertexStroke(selected), functions.vertexStroke.apply(obj));
+            assertSame(RenderStyles.getVertexDrawPaint(selected), functions.vertexDrawPaint.apply(obj));
+            assertSame(RenderStyles.getVertexFillPaint(selected), functions.vertexFillPaint.apply(obj));
+        }
+        for (UMLRelationshipType type : UMLRelationshipType.values()) {
+            for (UMLRelationship rel : new UMLRelationship[]{new UMLRelationship(a, b, type), new UMLRelationship(b, a, type)}) {
+                boolean selected = rel.getFrom() == a;
+                assertSame(RenderStyles.getEdgeStroke(type, selected), functions.edgeStroke.apply(rel));
+                assertSame(RenderStyles.getEdgeDrawPaint(selected), functions.edgeDrawPaint.apply(rel));
+                assertSame(RenderStyles.getArrowStroke(selected), functions.arrowStroke.apply(rel));
+                assertSame(RenderStyles.getArrowFillPaint(type, selected), functions.arrowFillPaint.apply(rel));
+                assertSame(RenderStyles.getArrowDrawPaint(selected), functions.arrowDrawPaint.apply(rel));
+            }
+        }
+    }
+
+    /**
+     * Looks up the styles of a static scene through the render context functions for every frame,
+     * once the tables are built this must not allocate
+     */
+    @Test
+    public void testFramesDoNotAllocate() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported(), "thread allocation counters are not supported");
+        threads.setThreadAllocatedMemoryEnabled(true);
+        UMLRelationshipType[] types = UMLRelationshipType.values();
+        UMLClass[] vertices = new UMLClass[ELEMENTS];
+        UMLRelationship[] edges = new UMLRelationship[ELEMENTS];
+        Set<UMLClass> selected = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int i = 0; i < ELEMENTS; i++) {
+            vertices[i] = UMLClassFactory.create(UMLClassType.Class, "C" + i);
+            if (i % 10 == 0)
+                selected.add(vertices[i]);
+        }
+        for (int i = 0; i < ELEMENTS; i++)
+            edges[i] = new UMLRelationship(vertices[i], vertices[(i + 1) % ELEMENTS], types[i % types.length]);
+        RenderFunctions functions = new RenderFunctions(selected::contains, rel -> selected.contains(rel.getFrom()));
+        long threadId = Thread.currentThread().getId();
+        int count = paintFrames(functions, vertices, edges);
+
+        long allocated = threads.getThreadAllocatedBytes(threadId);
+        count += paintFrames(functions, vertices, edges);
+        allocated = threads.getThreadAllocatedBytes(threadId) - allocated;
+        assertEquals(2 * FRAMES * ELEMENTS / 10, count);
+        // allow for the few bytes the allocation counter itself may use
+        assertTrue(allocated < 1024, "styles allocated " + allocated + " bytes");
+    }
+
+    /**
+     * Count the selected vertices painted so the lookups are not optimized away
+     */
+    private static int paintFrames(RenderFunctions functions, UMLClass[] vertices, UMLRelationship[] edges) {
+        Stroke selectedStroke = RenderStyles.getVertexStroke(true);
+        int count = 0;
+        for (int frame = 0; frame < FRAMES; frame++) {
+            for (UMLRelationship rel : edges) {
+                functions.edgeStroke.apply(rel);
+                functions.edgeDrawPaint.apply(rel);
+                functions.arrowStroke.apply(rel);
+                functions.arrowFillPaint.apply(rel);
+                functions.arrowDrawPaint.apply(rel);
+                RenderStyles.getArrowShape(rel.getType());
+            }
+            for (UMLClass obj : vertices) {
+                if (functions.vertexStroke.apply(obj) == selectedStroke)
+                    count++;
+                functions.vertexDrawPaint.apply(obj);
+                functions.vertexFillPaint.apply(obj);
+            }
+        }
+        return count;
+    }
+}
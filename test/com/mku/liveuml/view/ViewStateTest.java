@@ -0,0 +1,107 @@
+/*
+MIT License
+
+Copyright (c) 2024 Max Kas
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.mku.liveuml.view;
+
+import com.mku.liveuml.utils.DiagramFiles;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.awt.*;
+import java.awt.geom.Point2D;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ViewStateTest {
+    @TempDir
+    Path dir;
+
+    private static ViewState createViewState() {
+        ViewState state = new ViewState();
+        state.put("com.example.A", new Point2D.Double(10.5, -20.25), false);
+        state.put("com.example.Outer.Inner", new Point2D.Double(0, 1e6), true);
+        state.setLayoutScale(1.5);
+        state.setViewScale(0.25);
+        state.setViewport(new Point(-30, 40));
+        return state;
+    }
+
+    private static void assertViewState(ViewState expected, ViewState actual) {
+        assertEquals(expected.getPositions(), actual.getPositions());
+        for (String name : expected.getPositions().keySet())
+            assertEquals(expected.isCompact(name), actual.isCompact(name), name);
+        assertEquals(expected.getLayoutScale(), actual.getLayoutScale(), 0);
+        assertEquals(expected.getViewScale(), actual.getViewScale(), 0);
+        assertEquals(expected.getViewport(), actual.getViewport());
+    }
+
+    @Test
+    public void testWriteRead() throws IOException {
+        ViewState state = createViewState();
+        StringWriter writer = new StringWriter();
+        state.write(writer);
+        ViewState read = ViewState.read(new StringReader(writer.toString()));
+        assertViewState(state, read);
+        assertTrue(read.contains("com.example.A"));
+        assertFalse(read.contains("com.example.B"));
+    }
+
+    @Test
+    public void testWithoutViewport() throws IOException {
+        ViewState state = new ViewState();
+        state.put("A", new Point2D.Double(1, 2), false);
+        StringWriter writer = new StringWriter();
+        state.write(writer);
+        ViewState read = ViewState.read(new StringReader(writer.toString()));
+        assertViewState(state, read);
+        assertNull(read.getViewport());
+    }
+
+    @Test
+    public void testInvalidFile() {
+        assertThrows(IOException.class, () -> ViewState.read(new StringReader("scale\t1\n")));
+        assertThrows(IOException.class, () -> ViewState.read(new StringReader("class\tx\t1\t0\tA\n")));
+    }
+
+    @Test
+    public void testSidecarFile() throws IOException {
+        File file = dir.resolve("diagram.liveuml").toFile();
+        Files.writeString(file.toPath(), "diagram");
+        assertNull(DiagramFiles.loadView(file));
+
+        ViewState state = createViewState();
+        DiagramFiles.saveView(file, state);
+        assertViewState(state, DiagramFiles.loadView(file));
+
+        // a view saved before the diagram was last written belongs to an older version
+        File viewFile = DiagramFiles.getViewFile(file);
+        assertTrue(viewFile.setLastModified(file.lastModified() - 10000));
+        assertNull(DiagramFiles.loadView(file));
+    }
+}